@@ -0,0 +1,64 @@
+package com.components;
+
+import com.database.GestorRegistro;
+import com.implementation.ActividadAnual;
+import java.awt.*;
+import javax.swing.*;
+
+// Mapa de actividad del último año con las rachas. La actividad se lee fuera del EDT (la primera vez
+// se arma desde lo guardado) y el mapa se dibuja también en segundo plano.
+public class ActividadDialog extends JDialog {
+    private final JLabel rachas = new JLabel("Cargando…", SwingConstants.CENTER);
+    private final MapaActividad mapa = new MapaActividad();
+
+    public ActividadDialog(JFrame parent, GestorRegistro gestorRegistro, int idUsuario) {
+        super(parent, "Actividad", true);
+        setLayout(new BorderLayout());
+
+        JLabel titulo = new JLabel("Tu actividad del último año", SwingConstants.CENTER);
+        titulo.setFont(new Font("Roboto SemiBold", Font.BOLD, 18));
+        titulo.setForeground(new Color(0, 102, 102));
+        add(titulo, BorderLayout.NORTH);
+
+        JPanel centro = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        centro.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        centro.add(mapa);
+        add(centro, BorderLayout.CENTER);
+
+        rachas.setFont(new Font("Roboto Medium", Font.PLAIN, 13));
+        rachas.setForeground(new Color(102, 102, 102));
+        rachas.setBorder(BorderFactory.createEmptyBorder(0, 8, 10, 8));
+        add(rachas, BorderLayout.SOUTH);
+        pack();
+        setLocationRelativeTo(parent);
+
+        new SwingWorker<ActividadAnual, Void>() {
+            @Override
+            protected ActividadAnual doInBackground() {
+                return gestorRegistro.obtenerActividad(idUsuario);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    ActividadAnual actividad = get();
+                    mapa.mostrar(actividad);
+                    rachas.setText(textoRachas(actividad));
+                } catch (Exception e) {
+                    rachas.setText("No se pudo cargar la actividad");
+                    System.err.println("Error al cargar la actividad: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private static String textoRachas(ActividadAnual actividad) {
+        int horas = actividad.getTotalMinutos() / 60;
+        return "Racha actual: " + dias(actividad.getRachaActual()) + "   ·   Mejor racha: " + dias(actividad.getRachaMaxima())
+                + "   ·   " + actividad.getTotalCompletadas() + " completadas y " + horas + " h de estudio";
+    }
+
+    private static String dias(int cantidad) {
+        return cantidad == 1 ? "1 día" : cantidad + " días";
+    }
+}
@@ -0,0 +1,125 @@
+package com.components;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reloj único para todas las animaciones de la interfaz. Un solo javax.swing.Timer en el EDT
+// avanza las animaciones activas y se detiene cuando no queda ninguna.
+// Las animaciones se identifican por una clave: iniciar otra con la misma clave reemplaza a la anterior.
+public final class Animador {
+    private static final int INTERVALO_MS = 15;
+
+    public enum Suavizado {
+        LINEAL, ENTRADA, SALIDA, ENTRADA_SALIDA;
+
+        double aplicar(double t) {
+            switch (this) {
+                case ENTRADA:
+                    return t * t * t;
+                case SALIDA:
+                    double u = 1 - t;
+                    return 1 - u * u * u;
+                case ENTRADA_SALIDA:
+                    return t < 0.5 ? 4 * t * t * t : 1 - Math.pow(-2 * t + 2, 3) / 2;
+                default:
+                    return t;
+            }
+        }
+    }
+
+    // Recibe el progreso ya suavizado, entre 0 y 1
+    public interface Paso {
+        void avanzar(double progreso);
+    }
+
+    private static final class Animacion {
+        final long inicio = System.nanoTime();
+        final long duracion;
+        final Suavizado suavizado;
+        final Paso paso;
+        final Runnable alTerminar;
+
+        Animacion(int duracionMs, Suavizado suavizado, Paso paso, Runnable alTerminar) {
+            this.duracion = Math.max(1, duracionMs) * 1_000_000L;
+            this.suavizado = suavizado;
+            this.paso = paso;
+            this.alTerminar = alTerminar;
+        }
+    }
+
+    private static final Map<Object, Animacion> activas = new LinkedHashMap<>();
+    // Listas reutilizadas en cada tic para no crear objetos por cuadro
+    private static final List<Object> clavesEnCurso = new ArrayList<>();
+    private static final List<Animacion> enCurso = new ArrayList<>();
+    private static final List<Object> clavesTerminadas = new ArrayList<>();
+    private static final List<Animacion> terminadas = new ArrayList<>();
+    private static Timer reloj;
+
+    private Animador() {
+    }
+
+    public static void animar(Object clave, int duracionMs, Suavizado suavizado, Paso paso, Runnable alTerminar) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> animar(clave, duracionMs, suavizado, paso, alTerminar));
+            return;
+        }
+        activas.put(clave, new Animacion(duracionMs, suavizado, paso, alTerminar));
+        if (reloj == null) {
+            reloj = new Timer(INTERVALO_MS, e -> avanzar());
+            reloj.setCoalesce(true);
+        }
+        if (!reloj.isRunning()) {
+            reloj.start();
+        }
+    }
+
+    // Espera sin pintar nada; sirve para encadenar fases con la misma clave
+    public static void esperar(Object clave, int duracionMs, Runnable alTerminar) {
+        animar(clave, duracionMs, Suavizado.LINEAL, null, alTerminar);
+    }
+
+    public static void cancelar(Object clave) {
+        activas.remove(clave);
+    }
+
+    private static void avanzar() {
+        long ahora = System.nanoTime();
+        for (Map.Entry<Object, Animacion> entrada : activas.entrySet()) {
+            clavesEnCurso.add(entrada.getKey());
+            enCurso.add(entrada.getValue());
+        }
+        for (int i = 0; i < enCurso.size(); i++) {
+            Animacion animacion = enCurso.get(i);
+            double t = Math.min(1.0, (ahora - animacion.inicio) / (double) animacion.duracion);
+            if (animacion.paso != null) {
+                animacion.paso.avanzar(animacion.suavizado.aplicar(t));
+            }
+            if (t >= 1.0) {
+                clavesTerminadas.add(clavesEnCurso.get(i));
+                terminadas.add(animacion);
+            }
+        }
+        clavesEnCurso.clear();
+        enCurso.clear();
+        // Se quitan antes de avisar para que alTerminar pueda iniciar otra fase con la misma clave
+        // Si otra animación la reemplazó en este mismo tic, no se avisa su fin
+        for (int i = 0; i < terminadas.size(); i++) {
+            if (!activas.remove(clavesTerminadas.get(i), terminadas.get(i))) {
+                terminadas.set(i, null);
+            }
+        }
+        for (int i = 0; i < terminadas.size(); i++) {
+            if (terminadas.get(i) != null && terminadas.get(i).alTerminar != null) {
+                terminadas.get(i).alTerminar.run();
+            }
+        }
+        clavesTerminadas.clear();
+        terminadas.clear();
+        if (activas.isEmpty()) {
+            reloj.stop();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.components;
+
+import com.implementation.Tarea;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Copia local de la primera página del tablero de cada usuario (cache/tablero-<id>.bin).
+// Permite pintar el tablero apenas se abre la ventana, sin esperar a la base de datos; la
+// versión guardada se compara después con obtenerVersionTablero para saber si quedó vieja.
+// Se puede desactivar con -Dtablero.cache=false.
+public class CacheTablero {
+    private static final int MAGIA = 0x54424C43; // "TBLC"
+    private static final int VERSION_FORMATO = 1;
+    private static final boolean habilitada = !"false".equalsIgnoreCase(System.getProperty("tablero.cache"));
+    private static final File directorio = new File(System.getProperty("tablero.cache.directorio", "cache"));
+
+    public static final class Contenido {
+        private final long version;
+        private final List<Tarea> tareas;
+
+        Contenido(long version, List<Tarea> tareas) {
+            this.version = version;
+            this.tareas = tareas;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<Tarea> getTareas() {
+            return tareas;
+        }
+    }
+
+    private CacheTablero() {
+    }
+
+    // null si no hay caché o no se puede leer
+    public static Contenido leer(int idUsuario) {
+        File archivo = archivo(idUsuario);
+        if (!habilitada || !archivo.isFile()) {
+            return null;
+        }
+        // Se lee entero a memoria en vez de mapearlo: en Windows una vista mapeada viva impide que
+        // escribir() reemplace el archivo
+        try {
+            ByteBuffer datos = ByteBuffer.wrap(Files.readAllBytes(archivo.toPath()));
+            if (datos.getInt() != MAGIA || datos.getInt() != VERSION_FORMATO || datos.getInt() != idUsuario) {
+                return null;
+            }
+            long version = datos.getLong();
+            int cantidad = datos.getInt();
+            List<Tarea> tareas = new ArrayList<>(cantidad);
+            for (int i = 0; i < cantidad; i++) {
+                int idTarea = datos.getInt();
+                boolean completada = datos.get() == 1;
+                Tarea tarea = new Tarea(idTarea, idUsuario, leerTexto(datos), null);
+                tarea.setResumenDescripcion(leerTexto(datos));
+                tarea.setFechaEntrega(leerTexto(datos));
+                tarea.setCompletada(completada);
+                tareas.add(tarea);
+            }
+            return new Contenido(version, tareas);
+        } catch (IOException | RuntimeException e) {
+            // Archivo truncado o de otro formato: se ignora y se carga desde la base de datos
+            System.err.println("Error al leer la caché del tablero: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Serializa en el hilo que llama (las tareas solo se tocan en el EDT); escribir() puede ir aparte
+    public static byte[] serializar(int idUsuario, long version, List<Tarea> tareas) {
+        List<byte[]> textos = new ArrayList<>();
+        int tamano = 4 + 4 + 4 + 8 + 4;
+        for (Tarea tarea : tareas) {
+            String descripcion = tarea.getDescripcion();
+            if (descripcion != null && descripcion.length() > Tarea.LARGO_RESUMEN) {
+                descripcion = descripcion.substring(0, Tarea.LARGO_RESUMEN);
+            }
+            tamano += 4 + 1 + medir(tarea.getNombre(), textos) + medir(descripcion, textos) + medir(tarea.getFechaEntrega(), textos);
+        }
+        ByteBuffer salida = ByteBuffer.allocate(tamano);
+        salida.putInt(MAGIA);
+        salida.putInt(VERSION_FORMATO);
+        salida.putInt(idUsuario);
+        salida.putLong(version);
+        salida.putInt(tareas.size());
+        int texto = 0;
+        for (Tarea tarea : tareas) {
+            salida.putInt(tarea.getIdTarea());
+            salida.put((byte) (tarea.isCompletada() ? 1 : 0));
+            for (int i = 0; i < 3; i++) {
+                byte[] bytes = textos.get(texto++);
+                salida.putInt(bytes == null ? -1 : bytes.length);
+                if (bytes != null) {
+                    salida.put(bytes);
+                }
+            }
+        }
+        return salida.array();
+    }
+
+    // Escribe en un temporal y lo mueve, para no dejar nunca un archivo a medias
+    public static void escribir(int idUsuario, byte[] contenido) {
+        if (!habilitada) {
+            return;
+        }
+        File archivo = archivo(idUsuario);
+        File temporal = new File(archivo.getPath() + ".tmp");
+        try {
+            directorio.mkdirs();
+            Files.write(temporal.toPath(), contenido);
+            Files.move(temporal.toPath(), archivo.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error al guardar la caché del tablero: " + e.getMessage());
+        }
+    }
+
+    public static boolean isHabilitada() {
+        return habilitada;
+    }
+
+    private static File archivo(int idUsuario) {
+        return new File(directorio, "tablero-" + idUsuario + ".bin");
+    }
+
+    private static int medir(String texto, List<byte[]> textos) {
+        byte[] bytes = texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+        textos.add(bytes);
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static String leerTexto(ByteBuffer datos) {
+        int largo = datos.getInt();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        datos.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,111 @@
+package com.components;
+
+import com.implementation.Tarea;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Caché de imágenes de las tarjetas del tablero. Cada PanelTarea se pinta una sola vez por
+// (lo que muestra, tamaño, hover) y al hacer scroll solo se copia la imagen. La clave lleva el texto
+// que se dibuja y no algo del objeto Tarea: una tarea releída de la base después de cambiar en otra
+// vista (Kanban, API, deshacer) trae otro contenido y se vuelve a pintar.
+// Se puede desactivar con -Dtarjetas.cache=false.
+public class CacheTarjetas {
+    private static final int MAXIMO_IMAGENES = 96;
+    private static boolean habilitada = !"false".equalsIgnoreCase(System.getProperty("tarjetas.cache"));
+
+    private static final class Clave {
+        final int idTarea;
+        final String contenido;
+        final int ancho;
+        final int alto;
+        final boolean hover;
+
+        Clave(int idTarea, String contenido, int ancho, int alto, boolean hover) {
+            this.idTarea = idTarea;
+            this.contenido = contenido;
+            this.ancho = ancho;
+            this.alto = alto;
+            this.hover = hover;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Clave)) {
+                return false;
+            }
+            Clave otra = (Clave) o;
+            return idTarea == otra.idTarea && contenido.equals(otra.contenido) && ancho == otra.ancho
+                    && alto == otra.alto && hover == otra.hover;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = idTarea;
+            h = 31 * h + contenido.hashCode();
+            h = 31 * h + ancho;
+            h = 31 * h + alto;
+            return 31 * h + (hover ? 1 : 0);
+        }
+    }
+
+    // LRU: se descartan las imágenes menos usadas cuando se supera el máximo
+    private static final Map<Clave, BufferedImage> imagenes = new LinkedHashMap<Clave, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Clave, BufferedImage> eldest) {
+            return size() > MAXIMO_IMAGENES;
+        }
+    };
+
+    public static boolean isHabilitada() {
+        return habilitada;
+    }
+
+    public static void setHabilitada(boolean valor) {
+        habilitada = valor;
+        if (!valor) {
+            imagenes.clear();
+        }
+    }
+
+    // Devuelve la imagen de la tarjeta, pintándola solo si no está en el caché
+    static BufferedImage obtener(PanelTarea panel, boolean hover, double escala) {
+        Tarea tarea = panel.getTarea();
+        int ancho = (int) Math.ceil(panel.getWidth() * escala);
+        int alto = (int) Math.ceil(panel.getHeight() * escala);
+        String contenido = panel.contenidoDibujado();
+        Clave clave = new Clave(tarea.getIdTarea(), contenido, ancho, alto, hover);
+        BufferedImage imagen = imagenes.get(clave);
+        if (imagen == null) {
+            GraphicsConfiguration gc = panel.getGraphicsConfiguration();
+            imagen = gc != null
+                    ? gc.createCompatibleImage(ancho, alto, Transparency.OPAQUE)
+                    : new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = imagen.createGraphics();
+            g2.scale(escala, escala);
+            panel.pintarSinCache(g2);
+            g2.dispose();
+            descartar(tarea.getIdTarea(), contenido);
+            imagenes.put(clave, imagen);
+        }
+        return imagen;
+    }
+
+    // Descarta todas las imágenes de una tarea
+    public static void invalidar(int idTarea) {
+        descartar(idTarea, null);
+    }
+
+    // Quita las imágenes de la tarea que no muestren el contenido vigente (null: todas)
+    private static void descartar(int idTarea, String contenidoVigente) {
+        Iterator<Clave> it = imagenes.keySet().iterator();
+        while (it.hasNext()) {
+            Clave clave = it.next();
+            if (clave.idTarea == idTarea && !clave.contenido.equals(contenidoVigente)) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.components;
+
+import com.database.GestorRegistro;
+import java.awt.*;
+import javax.swing.*;
+
+// Calendario de tareas por mes o por semana
+public class CalendarioDialog extends JDialog {
+
+    public CalendarioDialog(JFrame parent, GestorRegistro gestorRegistro, int idUsuario) {
+        super(parent, "Calendario", true);
+        setLayout(new BorderLayout());
+        PanelCalendario calendario = new PanelCalendario(parent, gestorRegistro, idUsuario);
+        calendario.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        add(calendario, BorderLayout.CENTER);
+        setSize(760, 560);
+        setLocationRelativeTo(parent);
+    }
+}
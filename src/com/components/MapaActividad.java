@@ -0,0 +1,130 @@
+package com.components;
+
+import com.implementation.ActividadAnual;
+import com.utils.Idioma;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import javax.swing.*;
+
+// Mapa de actividad del último año al estilo de las contribuciones de GitHub: una columna por semana,
+// un cuadro por día con el tono según ActividadAnual.nivel. Los cuadros se dibujan fuera del EDT en
+// una imagen que queda guardada: repintar (mover la ventana, pasar el mouse) solo copia la imagen, y
+// se vuelve a dibujar solo cuando llega una actividad distinta.
+public class MapaActividad extends JComponent {
+    private static final int CUADRO = 11;
+    private static final int SEPARACION = 2;
+    private static final int PASO = CUADRO + SEPARACION;
+    // Lugar para los nombres de los meses arriba y de los días a la izquierda
+    private static final int MARGEN_SUPERIOR = 16;
+    private static final int MARGEN_IZQUIERDO = 28;
+    private static final int SEMANAS = 53;
+    private static final Color[] TONOS = {
+        new Color(235, 237, 240), new Color(178, 223, 219), new Color(77, 182, 172), new Color(0, 137, 123), new Color(0, 92, 83)
+    };
+
+    private ActividadAnual actividad;
+    private BufferedImage imagen;
+    // Descarta un dibujo que terminó después de que llegó otra actividad
+    private int generacion;
+
+    public MapaActividad() {
+        setPreferredSize(new Dimension(MARGEN_IZQUIERDO + SEMANAS * PASO, MARGEN_SUPERIOR + 7 * PASO));
+        setToolTipText("");
+    }
+
+    // Se llama en el EDT
+    public void mostrar(ActividadAnual nueva) {
+        if (nueva.equals(actividad) && imagen != null) {
+            return;
+        }
+        int esperada = ++generacion;
+        new SwingWorker<BufferedImage, Void>() {
+            @Override
+            protected BufferedImage doInBackground() {
+                return dibujar(nueva);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    BufferedImage dibujada = get();
+                    if (esperada == generacion) {
+                        actividad = nueva;
+                        imagen = dibujada;
+                        repaint();
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error al dibujar el mapa de actividad: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (imagen != null) {
+            g.drawImage(imagen, 0, 0, null);
+        }
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent evento) {
+        int i = indice(evento.getX(), evento.getY());
+        if (i < 0) {
+            return null;
+        }
+        LocalDate dia = actividad.dia(i);
+        int completadas = actividad.getCompletadas(i);
+        int minutos = actividad.getMinutos(i);
+        String texto = completadas == 0 && minutos == 0 ? "Sin actividad"
+                : completadas + (completadas == 1 ? " completada" : " completadas") + ", " + minutos + " min de estudio";
+        return texto + " · " + String.format("%02d/%02d/%d", dia.getDayOfMonth(), dia.getMonthValue(), dia.getYear());
+    }
+
+    // Día bajo el punto dado, o -1
+    private int indice(int x, int y) {
+        if (actividad == null || x < MARGEN_IZQUIERDO || y < MARGEN_SUPERIOR) {
+            return -1;
+        }
+        int semana = (x - MARGEN_IZQUIERDO) / PASO;
+        int diaSemana = (y - MARGEN_SUPERIOR) / PASO;
+        int i = semana * 7 + diaSemana;
+        return diaSemana < 7 && i < actividad.getDias() ? i : -1;
+    }
+
+    private static BufferedImage dibujar(ActividadAnual actividad) {
+        BufferedImage imagen = new BufferedImage(MARGEN_IZQUIERDO + SEMANAS * PASO, MARGEN_SUPERIOR + 7 * PASO, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = imagen.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(new Font("Roboto Medium", Font.PLAIN, 10));
+            g.setColor(new Color(102, 102, 102));
+            g.drawString("lun", 0, MARGEN_SUPERIOR + CUADRO - 1);
+            g.drawString("mié", 0, MARGEN_SUPERIOR + 2 * PASO + CUADRO - 1);
+            g.drawString("vie", 0, MARGEN_SUPERIOR + 4 * PASO + CUADRO - 1);
+            int mesAnterior = -1;
+            for (int i = 0; i < actividad.getDias(); i++) {
+                int semana = i / 7;
+                int x = MARGEN_IZQUIERDO + semana * PASO;
+                // El nombre del mes va sobre la primera semana que empieza en él
+                LocalDate dia = actividad.dia(i);
+                if (i % 7 == 0 && dia.getMonthValue() != mesAnterior) {
+                    mesAnterior = dia.getMonthValue();
+                    if (semana < SEMANAS - 2) {
+                        g.setColor(new Color(102, 102, 102));
+                        g.drawString(dia.getMonth().getDisplayName(TextStyle.SHORT, Idioma.ESPANOL), x, MARGEN_SUPERIOR - 5);
+                    }
+                }
+                g.setColor(TONOS[actividad.nivel(i)]);
+                g.fillRoundRect(x, MARGEN_SUPERIOR + (i % 7) * PASO, CUADRO, CUADRO, 3, 3);
+            }
+        } finally {
+            g.dispose();
+        }
+        return imagen;
+    }
+}
@@ -0,0 +1,305 @@
+package com.components;
+
+import com.database.GestorRegistro;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.Tarea;
+import com.utils.Idioma;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.*;
+
+// Calendario de tareas por mes (6 semanas) o por semana. Las tareas de los días visibles salen del
+// índice por día de GestorRegistro, así cambiar de mes cuesta lo que los días que se ven. Cada día es
+// una celda propia que guarda lo que muestra: al recargar solo se repintan las celdas que cambiaron.
+public class PanelCalendario extends JPanel {
+    private static final Color TURQUESA = new Color(0, 102, 102);
+    private static final Color GRIS = new Color(102, 102, 102);
+
+    private final JFrame parent;
+    private final GestorRegistro gestorRegistro;
+    private final int idUsuario;
+    private final JLabel titulo = new JLabel("", SwingConstants.CENTER);
+    private final JPanel grilla = new JPanel();
+    private final List<CeldaDia> celdas = new ArrayList<>();
+    private boolean semanal;
+    // Lunes de la primera fila y mes que se está mirando (en la vista semanal, el de ese lunes)
+    private LocalDate inicio;
+    private LocalDate mes;
+    // Descarta una carga que terminó después de que se pidió otra
+    private int generacion;
+
+    public PanelCalendario(JFrame parent, GestorRegistro gestorRegistro, int idUsuario) {
+        this.parent = parent;
+        this.gestorRegistro = gestorRegistro;
+        this.idUsuario = idUsuario;
+        setLayout(new BorderLayout());
+        setBackground(Color.WHITE);
+
+        JButton anterior = new JButton("◀");
+        anterior.addActionListener(e -> mover(-1));
+        JButton siguiente = new JButton("▶");
+        siguiente.addActionListener(e -> mover(1));
+        JButton hoy = new JButton("Hoy");
+        hoy.addActionListener(e -> irA(LocalDate.now()));
+        JToggleButton vista = new JToggleButton("Semana");
+        vista.addActionListener(e -> {
+            semanal = vista.isSelected();
+            // Al pasar a semana se queda en la de hoy si hoy es del mes que se miraba; al volver, en el mes de esa semana
+            LocalDate hoyDia = LocalDate.now();
+            irA(!semanal ? inicio.plusDays(3) : hoyDia.withDayOfMonth(1).equals(mes) ? hoyDia : mes);
+        });
+        titulo.setFont(new Font("Roboto SemiBold", Font.BOLD, 16));
+        titulo.setForeground(TURQUESA);
+
+        JPanel barra = new JPanel(new BorderLayout());
+        barra.setOpaque(false);
+        JPanel izquierda = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 2));
+        izquierda.setOpaque(false);
+        izquierda.add(anterior);
+        izquierda.add(siguiente);
+        izquierda.add(hoy);
+        JPanel derecha = new JPanel(new FlowLayout(FlowLayout.RIGHT, 4, 2));
+        derecha.setOpaque(false);
+        derecha.add(vista);
+        barra.add(izquierda, BorderLayout.WEST);
+        barra.add(titulo, BorderLayout.CENTER);
+        barra.add(derecha, BorderLayout.EAST);
+
+        JPanel encabezado = new JPanel(new GridLayout(1, 7));
+        encabezado.setOpaque(false);
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            JLabel nombre = new JLabel(dia.getDisplayName(TextStyle.SHORT, Idioma.ESPANOL), SwingConstants.CENTER);
+            nombre.setFont(new Font("Roboto Medium", Font.PLAIN, 12));
+            nombre.setForeground(GRIS);
+            encabezado.add(nombre);
+        }
+        JPanel norte = new JPanel(new BorderLayout());
+        norte.setOpaque(false);
+        norte.add(barra, BorderLayout.NORTH);
+        norte.add(encabezado, BorderLayout.SOUTH);
+        add(norte, BorderLayout.NORTH);
+
+        grilla.setOpaque(false);
+        add(grilla, BorderLayout.CENTER);
+        irA(LocalDate.now());
+    }
+
+    // Un mes o una semana hacia adelante (1) o hacia atrás (-1)
+    private void mover(int sentido) {
+        irA(semanal ? inicio.plusWeeks(sentido) : mes.plusMonths(sentido));
+    }
+
+    private void irA(LocalDate fecha) {
+        if (semanal) {
+            inicio = fecha.with(DayOfWeek.MONDAY);
+            mes = inicio.withDayOfMonth(1);
+            titulo.setText("Semana del " + inicio.getDayOfMonth() + " de " + nombreMes(inicio));
+        } else {
+            mes = fecha.withDayOfMonth(1);
+            inicio = mes.with(DayOfWeek.MONDAY);
+            titulo.setText(nombreMes(mes) + " " + mes.getYear());
+        }
+        armarCeldas(semanal ? 7 : 42);
+        recargar();
+    }
+
+    // Las celdas se crean una vez por vista; al cambiar de mes se reutilizan
+    private void armarCeldas(int cantidad) {
+        if (celdas.size() == cantidad) {
+            return;
+        }
+        grilla.removeAll();
+        celdas.clear();
+        grilla.setLayout(new GridLayout(cantidad / 7, 7, 2, 2));
+        for (int i = 0; i < cantidad; i++) {
+            CeldaDia celda = new CeldaDia();
+            celdas.add(celda);
+            grilla.add(celda);
+        }
+        grilla.revalidate();
+    }
+
+    // Lee los días visibles fuera del EDT; cada celda se repinta solo si su contenido cambió
+    public void recargar() {
+        int esperada = ++generacion;
+        LocalDate desde = inicio;
+        int dias = celdas.size();
+        new SwingWorker<List<List<Tarea>>, Void>() {
+            @Override
+            protected List<List<Tarea>> doInBackground() {
+                return gestorRegistro.tareasPorDia(idUsuario, desde, dias);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<List<Tarea>> porDia = get();
+                    if (esperada != generacion) {
+                        return;
+                    }
+                    LocalDate hoy = LocalDate.now();
+                    for (int i = 0; i < dias; i++) {
+                        LocalDate dia = desde.plusDays(i);
+                        celdas.get(i).mostrar(dia, semanal || dia.getMonth() == mes.getMonth(), dia.equals(hoy), porDia.get(i));
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error al cargar el calendario: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void abrir(Tarea tarea) {
+        if (tarea.esOcurrencia()) {
+            boolean completada = !tarea.isCompletada();
+            gestorRegistro.cambiarOcurrencia(tarea, ExcepcionOcurrencia.de(tarea).conCompletada(completada));
+            Toast.mostrar(parent, (completada ? "Completada: " : "Pendiente: ") + tarea.getNombre());
+        } else {
+            new VistaTareaDialog(parent, tarea, gestorRegistro).setVisible(true);
+        }
+        recargar();
+    }
+
+    private static String nombreMes(LocalDate fecha) {
+        String nombre = fecha.getMonth().getDisplayName(TextStyle.FULL, Idioma.ESPANOL);
+        return Character.toUpperCase(nombre.charAt(0)) + nombre.substring(1);
+    }
+
+    // Un día del calendario. Guarda lo último que mostró y no se repinta si llega lo mismo.
+    private final class CeldaDia extends JComponent {
+        private LocalDate dia;
+        private boolean delMes;
+        private boolean esHoy;
+        private List<Tarea> tareas = List.of();
+        // Lo que se ve de cada tarea (hora, nombre, completada): si no cambia, no se repinta
+        private List<String> firma = List.of();
+
+        CeldaDia() {
+            setToolTipText("");
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    elegir(e);
+                }
+            });
+        }
+
+        void mostrar(LocalDate dia, boolean delMes, boolean esHoy, List<Tarea> tareas) {
+            List<String> nueva = new ArrayList<>(tareas.size());
+            for (Tarea tarea : tareas) {
+                nueva.add(hora(tarea) + (tarea.isCompletada() ? "✓" : " ") + tarea.getNombre());
+            }
+            if (dia.equals(this.dia) && delMes == this.delMes && esHoy == this.esHoy && nueva.equals(firma)) {
+                this.tareas = tareas;
+                return;
+            }
+            this.dia = dia;
+            this.delMes = delMes;
+            this.esHoy = esHoy;
+            this.tareas = tareas;
+            this.firma = nueva;
+            repaint();
+        }
+
+        private void elegir(MouseEvent e) {
+            if (tareas.isEmpty()) {
+                return;
+            }
+            if (tareas.size() == 1) {
+                abrir(tareas.get(0));
+                return;
+            }
+            JPopupMenu menu = new JPopupMenu();
+            for (Tarea tarea : tareas) {
+                JMenuItem item = new JMenuItem(texto(tarea));
+                item.addActionListener(ev -> abrir(tarea));
+                menu.add(item);
+            }
+            menu.show(this, e.getX(), e.getY());
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent evento) {
+            if (tareas.isEmpty()) {
+                return null;
+            }
+            StringBuilder texto = new StringBuilder("<html>");
+            for (Tarea tarea : tareas) {
+                texto.append(texto(tarea).replace("&", "&amp;").replace("<", "&lt;")).append("<br>");
+            }
+            return texto.append("</html>").toString();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (dia == null) {
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g.create();
+            try {
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                int ancho = getWidth();
+                int alto = getHeight();
+                g2.setColor(esHoy ? new Color(224, 242, 241) : delMes ? new Color(248, 249, 250) : Color.WHITE);
+                g2.fillRoundRect(0, 0, ancho - 1, alto - 1, 8, 8);
+                g2.setColor(new Color(220, 224, 228));
+                g2.drawRoundRect(0, 0, ancho - 1, alto - 1, 8, 8);
+
+                g2.setFont(new Font("Roboto Medium", Font.BOLD, 12));
+                g2.setColor(delMes ? TURQUESA : new Color(170, 170, 170));
+                g2.drawString(String.valueOf(dia.getDayOfMonth()), 5, 14);
+
+                g2.setFont(new Font("Roboto Medium", Font.PLAIN, 11));
+                FontMetrics metricas = g2.getFontMetrics();
+                int linea = metricas.getHeight();
+                int y = 18 + metricas.getAscent();
+                int visibles = Math.max(0, (alto - 20) / linea);
+                for (int i = 0; i < tareas.size(); i++) {
+                    // Si no entran todas, la última línea dice cuántas faltan
+                    if (i == visibles - 1 && tareas.size() > visibles) {
+                        g2.setColor(GRIS);
+                        g2.drawString("+" + (tareas.size() - i) + " más", 5, y);
+                        break;
+                    }
+                    if (i >= visibles) {
+                        break;
+                    }
+                    Tarea tarea = tareas.get(i);
+                    g2.setColor(tarea.isCompletada() ? new Color(150, 150, 150) : new Color(51, 51, 51));
+                    g2.drawString(recortar(texto(tarea), metricas, ancho - 10), 5, y);
+                    y += linea;
+                }
+            } finally {
+                g2.dispose();
+            }
+        }
+    }
+
+    private static String texto(Tarea tarea) {
+        String hora = hora(tarea);
+        return (tarea.isCompletada() ? "✓ " : tarea.esOcurrencia() ? "↻ " : "") + (hora.isEmpty() ? "" : hora + " ") + tarea.getNombre();
+    }
+
+    private static String hora(Tarea tarea) {
+        String fecha = tarea.getFechaEntrega();
+        return fecha != null && fecha.length() >= 16 ? fecha.substring(11, 16) : "";
+    }
+
+    private static String recortar(String texto, FontMetrics metricas, int ancho) {
+        if (metricas.stringWidth(texto) <= ancho) {
+            return texto;
+        }
+        int fin = texto.length();
+        while (fin > 0 && metricas.stringWidth(texto.substring(0, fin) + "…") > ancho) {
+            fin--;
+        }
+        return texto.substring(0, fin) + "…";
+    }
+}
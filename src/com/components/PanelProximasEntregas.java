@@ -0,0 +1,195 @@
+package com.components;
+
+import com.database.GestorRegistro;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.Tarea;
+import com.utils.Idioma;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.swing.*;
+
+// Franja con las tareas de entrega más cercana y avisos antes de cada entrega. Las dos cosas salen
+// del índice de entregas de GestorRegistro: no se cargan ni se ordenan todas las tareas.
+public class PanelProximasEntregas extends JPanel {
+    private static final int CANTIDAD = 4;
+    // Cuánto antes de la entrega se avisa (-Daviso.minutos=30)
+    private static final long ANTICIPACION_MS = Long.getLong("aviso.minutos", 30) * 60_000;
+    // Aunque no haya avisos cerca se vuelve a mirar cada tanto, para que "vencida" y "hoy" se actualicen
+    private static final int REVISION_MAXIMA_MS = 60_000;
+    // Las series no están en el índice de entregas: se generan sus ocurrencias de los próximos días
+    private static final int DIAS_SERIES = 14;
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final JFrame parent;
+    private final GestorRegistro gestorRegistro;
+    private final int idUsuario;
+    private final Timer revision;
+
+    public PanelProximasEntregas(JFrame parent, GestorRegistro gestorRegistro, int idUsuario) {
+        this.parent = parent;
+        this.gestorRegistro = gestorRegistro;
+        this.idUsuario = idUsuario;
+        setOpaque(false);
+        setLayout(new FlowLayout(FlowLayout.LEFT, 12, 2));
+        revision = new Timer(REVISION_MAXIMA_MS, e -> recargar());
+        revision.setRepeats(false);
+    }
+
+    // Lee las próximas entregas y los avisos vencidos fuera del EDT y programa la siguiente revisión
+    public void recargar() {
+        revision.stop();
+        new SwingWorker<Void, Void>() {
+            private List<Tarea> proximas;
+            private List<Tarea> avisos;
+            private long hastaProximoAviso;
+
+            @Override
+            protected Void doInBackground() {
+                proximas = conOcurrencias(gestorRegistro.proximasEntregas(idUsuario, CANTIDAD));
+                avisos = gestorRegistro.avisosPendientes(idUsuario, ANTICIPACION_MS);
+                hastaProximoAviso = gestorRegistro.milisegundosHastaProximoAviso(idUsuario);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    mostrar(proximas);
+                    for (Tarea tarea : avisos) {
+                        Toast.mostrar(parent, "Se entrega " + textoEntrega(tarea.getFechaEntrega(), LocalDateTime.now())
+                                + ": " + tarea.getNombre());
+                    }
+                    int espera = REVISION_MAXIMA_MS;
+                    if (hastaProximoAviso >= 0) {
+                        espera = (int) Math.max(1000, Math.min(espera, hastaProximoAviso - ANTICIPACION_MS));
+                    }
+                    revision.setInitialDelay(espera);
+                    revision.restart();
+                } catch (Exception e) {
+                    System.err.println("Error al cargar próximas entregas: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // Suma las ocurrencias pendientes de las series y se queda con las CANTIDAD más cercanas
+    private List<Tarea> conOcurrencias(List<Tarea> proximas) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Tarea> todas = new ArrayList<>(proximas);
+        for (Tarea ocurrencia : gestorRegistro.ocurrenciasEntre(idUsuario, ahora.format(FORMATO),
+                ahora.toLocalDate().plusDays(DIAS_SERIES).toString())) {
+            if (!ocurrencia.isCompletada()) {
+                todas.add(ocurrencia);
+            }
+        }
+        if (todas.size() == proximas.size()) {
+            return proximas;
+        }
+        todas.sort(Comparator.comparing(Tarea::getFechaEntrega));
+        return todas.subList(0, Math.min(CANTIDAD, todas.size()));
+    }
+
+    public void detener() {
+        revision.stop();
+    }
+
+    private void mostrar(List<Tarea> proximas) {
+        removeAll();
+        JLabel titulo = new JLabel(proximas.isEmpty() ? "Sin entregas pendientes" : "Próximas entregas:");
+        titulo.setFont(new Font("Roboto Medium", Font.BOLD, 13));
+        titulo.setForeground(new Color(0, 102, 102));
+        add(titulo);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Tarea tarea : proximas) {
+            String cuando = textoEntrega(tarea.getFechaEntrega(), ahora);
+            JLabel item = new JLabel((tarea.esOcurrencia() ? "↻ " : "") + recortar(tarea.getNombre()) + " · " + cuando);
+            item.setFont(new Font("Roboto Medium", Font.PLAIN, 13));
+            item.setForeground(cuando.equals("vencida") ? new Color(192, 57, 43) : new Color(102, 102, 102));
+            item.setToolTipText(tarea.getNombre() + " (" + tarea.getFechaEntrega() + ")");
+            item.setCursor(new Cursor(Cursor.HAND_CURSOR));
+            item.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (tarea.esOcurrencia()) {
+                        abrirOcurrencia(tarea);
+                    } else {
+                        new VistaTareaDialog(parent, tarea, gestorRegistro).setVisible(true);
+                    }
+                    recargar();
+                }
+            });
+            add(item);
+        }
+        revalidate();
+        repaint();
+    }
+
+    // Una ocurrencia no es una tarea guardada: se completa o se saltea solo esa, o se borra la serie
+    private void abrirOcurrencia(Tarea ocurrencia) {
+        String[] opciones = {"Completar", "Saltear esta vez", "Eliminar la serie", "Cancelar"};
+        int opcion = JOptionPane.showOptionDialog(parent, ocurrencia.getNombre() + " (" + ocurrencia.getFechaEntrega() + ")\n"
+                + "Es parte de una tarea que se repite.", "Tarea repetida", JOptionPane.DEFAULT_OPTION,
+                JOptionPane.PLAIN_MESSAGE, null, opciones, opciones[0]);
+        ExcepcionOcurrencia actual = ExcepcionOcurrencia.de(ocurrencia);
+        switch (opcion) {
+            case 0:
+                gestorRegistro.cambiarOcurrencia(ocurrencia, actual.conCompletada(true));
+                Toast.mostrar(parent, "Completada: " + ocurrencia.getNombre());
+                break;
+            case 1:
+                gestorRegistro.cambiarOcurrencia(ocurrencia, actual.cancelada());
+                Toast.mostrar(parent, "Se salteó " + ocurrencia.getNombre() + " del " + ocurrencia.getOcurrencia());
+                break;
+            case 2:
+                int confirmar = JOptionPane.showConfirmDialog(parent, "¿Eliminar todas las ocurrencias de \""
+                        + ocurrencia.getNombre() + "\"?", "Eliminar serie", JOptionPane.YES_NO_OPTION);
+                if (confirmar == JOptionPane.YES_OPTION) {
+                    gestorRegistro.eliminarSerie(ocurrencia.getIdSerie());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String recortar(String nombre) {
+        return nombre.length() > 18 ? nombre.substring(0, 17) + "…" : nombre;
+    }
+
+    // "vencida", "hoy 14:00", "mañana 09:30", "vie 10:00" dentro de la semana, o "12/07"
+    static String textoEntrega(String fechaEntrega, LocalDateTime ahora) {
+        LocalDateTime entrega;
+        try {
+            entrega = LocalDateTime.parse(fechaEntrega, FORMATO);
+        } catch (DateTimeParseException e) {
+            return fechaEntrega;
+        }
+        if (entrega.isBefore(ahora)) {
+            return "vencida";
+        }
+        LocalDate dia = entrega.toLocalDate();
+        LocalDate hoy = ahora.toLocalDate();
+        String hora = String.format("%02d:%02d", entrega.getHour(), entrega.getMinute());
+        if (dia.equals(hoy)) {
+            return "hoy " + hora;
+        }
+        if (dia.equals(hoy.plusDays(1))) {
+            return "mañana " + hora;
+        }
+        if (dia.isBefore(hoy.plusDays(7))) {
+            return dia.getDayOfWeek().getDisplayName(TextStyle.SHORT, Idioma.ESPANOL) + " " + hora;
+        }
+        return String.format("%02d/%02d", dia.getDayOfMonth(), dia.getMonthValue());
+    }
+}
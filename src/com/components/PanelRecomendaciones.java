@@ -0,0 +1,94 @@
+package com.components;
+
+import com.database.GestorRegistro;
+import com.implementation.Tarea;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.LocalDateTime;
+import java.util.List;
+import javax.swing.*;
+
+// Franja "Qué estudiar ahora" con las tareas de mayor puntaje (urgencia, trabajo pendiente, avance y
+// tiempo ya estudiado). El puntaje lo mantiene GestorRegistro con cada cambio: recargar no ordena
+// las tareas, solo pide las CANTIDAD primeras.
+public class PanelRecomendaciones extends JPanel {
+    private static final int CANTIDAD = 3;
+    // La urgencia cambia con la hora aunque nadie toque nada
+    private static final int REVISION_MS = 15 * 60_000;
+
+    private final JFrame parent;
+    private final GestorRegistro gestorRegistro;
+    private final int idUsuario;
+    private final Timer revision;
+
+    public PanelRecomendaciones(JFrame parent, GestorRegistro gestorRegistro, int idUsuario) {
+        this.parent = parent;
+        this.gestorRegistro = gestorRegistro;
+        this.idUsuario = idUsuario;
+        setOpaque(false);
+        setLayout(new FlowLayout(FlowLayout.LEFT, 12, 2));
+        revision = new Timer(REVISION_MS, e -> recargar());
+        revision.setRepeats(false);
+    }
+
+    public void recargar() {
+        revision.stop();
+        new SwingWorker<List<Tarea>, Void>() {
+            @Override
+            protected List<Tarea> doInBackground() {
+                return gestorRegistro.recomendarTareas(idUsuario, CANTIDAD);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    mostrar(get());
+                    revision.restart();
+                } catch (Exception e) {
+                    System.err.println("Error al cargar recomendaciones: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    public void detener() {
+        revision.stop();
+    }
+
+    private void mostrar(List<Tarea> recomendadas) {
+        removeAll();
+        JLabel titulo = new JLabel(recomendadas.isEmpty() ? "Nada pendiente para estudiar" : "Qué estudiar ahora:");
+        titulo.setFont(new Font("Roboto Medium", Font.BOLD, 13));
+        titulo.setForeground(new Color(0, 102, 102));
+        add(titulo);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < recomendadas.size(); i++) {
+            Tarea tarea = recomendadas.get(i);
+            String texto = (i + 1) + ". " + recortar(tarea.getNombre());
+            if (tarea.getFechaEntrega() != null && !tarea.getFechaEntrega().isEmpty()) {
+                texto += " · " + PanelProximasEntregas.textoEntrega(tarea.getFechaEntrega(), ahora);
+            }
+            JLabel item = new JLabel(texto);
+            item.setFont(new Font("Roboto Medium", Font.PLAIN, 13));
+            item.setForeground(new Color(102, 102, 102));
+            item.setToolTipText(tarea.getNombre());
+            item.setCursor(new Cursor(Cursor.HAND_CURSOR));
+            item.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    new VistaTareaDialog(parent, tarea, gestorRegistro).setVisible(true);
+                    recargar();
+                }
+            });
+            add(item);
+        }
+        revalidate();
+        repaint();
+    }
+
+    private static String recortar(String nombre) {
+        return nombre.length() > 22 ? nombre.substring(0, 21) + "…" : nombre;
+    }
+}
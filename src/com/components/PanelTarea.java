@@ -1,32 +1,77 @@
 package com.components;
 
+import com.database.CampoTarea;
 import com.database.GestorRegistro;
+import com.implementation.ProgresoSubtareas;
 import com.implementation.Tarea;
 import com.windowP.PrincipalWindow;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PanelTarea extends JPanel {
     private Tarea tarea;
     private GestorRegistro gestorRegistro;
     private PrincipalWindow parent;
+    private boolean hover;
+    // Con Ctrl+clic se eligen varias tarjetas para "Completar seleccionadas"
+    private boolean seleccionada;
+    private JLabel tituloLabel;
+    private JCheckBox completadaCheck;
+    // Subtareas: las tarjetas de las hijas se crean recién al expandir y van justo después de esta
+    private final PanelTarea panelPadre;
+    private final int nivel;
+    private final Color fondo;
+    private JLabel subtareasLabel;
+    private final List<PanelTarea> hijas = new ArrayList<>();
+    private boolean expandida;
+    // Descarta la carga de hijas en curso si mientras tanto se contrajo la tarjeta
+    private int versionHijas;
 
     public PanelTarea(Tarea tarea, GestorRegistro gestorRegistro, PrincipalWindow parent) {
+        this(tarea, gestorRegistro, parent, null);
+    }
+
+    public PanelTarea(Tarea tarea, GestorRegistro gestorRegistro, PrincipalWindow parent, PanelTarea panelPadre) {
         this.tarea = tarea;
         this.gestorRegistro = gestorRegistro;
         this.parent = parent;
+        this.panelPadre = panelPadre;
+        this.nivel = panelPadre == null ? 0 : panelPadre.nivel + 1;
+        this.fondo = fondo(nivel);
         initComponents();
     }
 
+    // Cada nivel de subtareas un poco más oscuro
+    private static Color fondo(int nivel) {
+        int verde = 153 - 15 * Math.min(nivel, 3);
+        return new Color(0, verde, verde);
+    }
+
+    private static Color resaltado(int nivel) {
+        int verde = 102 - 10 * Math.min(nivel, 3);
+        return new Color(0, verde, verde);
+    }
+
     private void initComponents() {
         setLayout(new BorderLayout(5, 5));
-        setBackground(new Color(0, 153, 153));
+        setBackground(fondo);
         setPreferredSize(new Dimension(180, 120));
 
-        // Título (arriba)
-        JLabel tituloLabel = new JLabel(tarea.getNombre());
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.isControlDown()) {
+                    setSeleccionada(!seleccionada);
+                }
+            }
+        });
+
+        // Título (arriba), con la casilla de completada a la izquierda
+        tituloLabel = new JLabel();
         tituloLabel.setFont(new Font("Roboto Medium", Font.BOLD, 14));
         tituloLabel.setForeground(Color.WHITE);
         tituloLabel.setHorizontalAlignment(SwingConstants.CENTER);
@@ -35,22 +80,50 @@ public class PanelTarea extends JPanel {
         tituloLabel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                if (e.isControlDown()) {
+                    setSeleccionada(!seleccionada);
+                    return;
+                }
                 VistaTareaDialog dialog = new VistaTareaDialog(parent, tarea, gestorRegistro);
                 dialog.setVisible(true);
+                if (dialog.getSubtareasAgregadas() > 0) {
+                    subtareasAgregadas(dialog.getSubtareasAgregadas());
+                }
             }
         });
-        add(tituloLabel, BorderLayout.NORTH);
+
+        completadaCheck = new JCheckBox();
+        completadaCheck.setOpaque(false);
+        completadaCheck.setToolTipText("Completada");
+        completadaCheck.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        completadaCheck.addActionListener(e -> {
+            // Se ve al instante; la base se actualiza después, junto con otros cambios seguidos
+            boolean completada = completadaCheck.isSelected();
+            tarea.setCompletada(completada);
+            mostrarCompletada();
+            repaint();
+            avisarCompletada(completada);
+            gestorRegistro.actualizarCompletada(tarea.getIdTarea(), completada);
+            parent.estadisticasCambiaron();
+        });
+
+        JPanel tituloPanel = new JPanel(new BorderLayout());
+        tituloPanel.setOpaque(false);
+        tituloPanel.add(completadaCheck, BorderLayout.WEST);
+        tituloPanel.add(tituloLabel, BorderLayout.CENTER);
+        add(tituloPanel, BorderLayout.NORTH);
+        mostrarCompletada();
 
         // Panel central para descripción y fecha
         JPanel centerPanel = new JPanel();
         centerPanel.setLayout(new BoxLayout(centerPanel, BoxLayout.Y_AXIS));
-        centerPanel.setBackground(new Color(0, 153, 153));
+        centerPanel.setBackground(fondo);
         
         // Descripción
-        JLabel descripcionLabel = new JLabel("<html>" + tarea.getDescripcion() + "</html>");
+        JLabel descripcionLabel = new JLabel("<html>" + textoResumen() + "</html>");
         descripcionLabel.setFont(new Font("Roboto Medium", Font.PLAIN, 12));
         descripcionLabel.setForeground(Color.WHITE);
-        descripcionLabel.setBackground(new Color(0, 153, 153));
+        descripcionLabel.setBackground(fondo);
         descripcionLabel.setOpaque(true);
         descripcionLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         
@@ -62,14 +135,33 @@ public class PanelTarea extends JPanel {
             fechaLabel.setText("Entrega: " + tarea.getFechaEntrega());
         }
         fechaLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 5, 5));
-        
+
+        // Avance de las subtareas; un clic las muestra u oculta
+        subtareasLabel = new JLabel();
+        subtareasLabel.setFont(new Font("Roboto Medium", Font.BOLD, 11));
+        subtareasLabel.setForeground(Color.WHITE);
+        subtareasLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 2, 5));
+        subtareasLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        subtareasLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (expandida) {
+                    contraer();
+                } else {
+                    expandir();
+                }
+            }
+        });
+        mostrarProgreso();
+
         centerPanel.add(descripcionLabel);
         centerPanel.add(fechaLabel);
+        centerPanel.add(subtareasLabel);
         add(centerPanel, BorderLayout.CENTER);
 
         // Botón de eliminar (abajo)
         PanelRedondeado eliminarBtn = new PanelRedondeado();
-        eliminarBtn.setBackground(new Color(0, 153, 153));
+        eliminarBtn.setBackground(fondo);
         JLabel eliminarLabel = new JLabel("Eliminar");
         eliminarLabel.setFont(new Font("Roboto Medium", Font.BOLD, 12));
         eliminarLabel.setForeground(Color.WHITE);
@@ -78,9 +170,11 @@ public class PanelTarea extends JPanel {
         eliminarLabel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                int subtareas = tarea.getProgreso().getTotal();
                 int option = JOptionPane.showConfirmDialog(
                     parent,
-                    "¿Eliminar tarea " + tarea.getNombre() + "?",
+                    "¿Eliminar tarea " + tarea.getNombre()
+                        + (subtareas == 0 ? "" : subtareas == 1 ? " y su subtarea" : " y sus " + subtareas + " subtareas") + "?",
                     "Confirmar",
                     JOptionPane.YES_NO_OPTION
                 );
@@ -91,11 +185,13 @@ public class PanelTarea extends JPanel {
             }
             @Override
             public void mouseEntered(MouseEvent evt) {
-                eliminarBtn.setBackground(new Color(0, 102, 102));
+                hover = true;
+                eliminarBtn.setBackground(resaltado(nivel));
             }
             @Override
             public void mouseExited(MouseEvent evt) {
-                eliminarBtn.setBackground(new Color(0, 153, 153));
+                hover = false;
+                eliminarBtn.setBackground(fondo);
             }
         });
 
@@ -111,4 +207,182 @@ public class PanelTarea extends JPanel {
         );
         add(eliminarBtn, BorderLayout.SOUTH);
     }
+
+    public Tarea getTarea() {
+        return tarea;
+    }
+
+    // Pone la casilla y el título de acuerdo con la tarea; el repintado queda a cargo de quien llama
+    public void mostrarCompletada() {
+        completadaCheck.setSelected(tarea.isCompletada());
+        String nombre = tarea.getNombre() == null ? "" : tarea.getNombre()
+                .replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+        if (nivel > 0) {
+            nombre = "↳ " + nombre;
+        }
+        tituloLabel.setText(tarea.isCompletada() ? "<html><s>" + nombre + "</s></html>" : nombre);
+    }
+
+    // Muestra el avance cargado en la tarea (el tablero lo pide junto con cada página)
+    public void mostrarProgreso() {
+        ProgresoSubtareas progreso = tarea.getProgreso();
+        subtareasLabel.setVisible(progreso.getTotal() > 0);
+        subtareasLabel.setText("Subtareas " + progreso + (expandida ? " ▾" : " ▸"));
+        repaint();
+    }
+
+    public PanelTarea getPanelPadre() {
+        return panelPadre;
+    }
+
+    // Una subtarea se marcó o desmarcó: el avance de todas las tarjetas de arriba cambia sin consultar
+    public void avisarCompletada(boolean completada) {
+        if (panelPadre != null) {
+            panelPadre.cambiarProgreso(0, completada ? 1 : -1);
+        }
+    }
+
+    private void cambiarProgreso(int deltaTotal, int deltaCompletadas) {
+        tarea.setProgreso(tarea.getProgreso().sumar(deltaTotal, deltaCompletadas));
+        mostrarProgreso();
+        repaint();
+        if (panelPadre != null) {
+            panelPadre.cambiarProgreso(deltaTotal, deltaCompletadas);
+        }
+    }
+
+    private void subtareasAgregadas(int cantidad) {
+        cambiarProgreso(cantidad, 0);
+        if (expandida) {
+            contraer();
+        }
+        expandir();
+        parent.estadisticasCambiaron();
+    }
+
+    // Pide las hijas directas (y el avance de cada una) fuera del EDT y pone sus tarjetas a continuación
+    public void expandir() {
+        if (expandida) {
+            return;
+        }
+        expandida = true;
+        mostrarProgreso();
+        int version = ++versionHijas;
+        new SwingWorker<List<Tarea>, Void>() {
+            @Override
+            protected List<Tarea> doInBackground() {
+                List<Tarea> subtareas = gestorRegistro.buscarSubtareas(tarea.getIdTarea(), CampoTarea.TABLERO);
+                gestorRegistro.completarProgreso(subtareas);
+                return subtareas;
+            }
+
+            @Override
+            protected void done() {
+                Container contenedor = getParent();
+                if (version != versionHijas || contenedor == null) {
+                    return;
+                }
+                List<Tarea> subtareas;
+                try {
+                    subtareas = get();
+                } catch (Exception e) {
+                    System.err.println("Error al cargar subtareas: " + e.getMessage());
+                    return;
+                }
+                int indice = contenedor.getComponentZOrder(PanelTarea.this) + 1;
+                for (Tarea subtarea : subtareas) {
+                    PanelTarea hija = new PanelTarea(subtarea, gestorRegistro, parent, PanelTarea.this);
+                    contenedor.add(hija, indice++);
+                    hijas.add(hija);
+                }
+                contenedor.revalidate();
+                contenedor.repaint();
+            }
+        }.execute();
+    }
+
+    // Quita las tarjetas de las hijas y, antes, las de sus propias hijas expandidas
+    public void contraer() {
+        if (!expandida) {
+            return;
+        }
+        expandida = false;
+        versionHijas++;
+        Container contenedor = getParent();
+        for (PanelTarea hija : hijas) {
+            hija.contraer();
+            if (contenedor != null) {
+                contenedor.remove(hija);
+            }
+        }
+        hijas.clear();
+        mostrarProgreso();
+        if (contenedor != null) {
+            contenedor.revalidate();
+            contenedor.repaint();
+        }
+    }
+
+    public boolean isSeleccionada() {
+        return seleccionada;
+    }
+
+    public void setSeleccionada(boolean seleccionada) {
+        this.seleccionada = seleccionada;
+        repaint();
+    }
+
+    // Con el caché activo la tarjeta se pinta una vez en una imagen y luego solo se copia
+    @Override
+    public void paint(Graphics g) {
+        if (!CacheTarjetas.isHabilitada() || getWidth() <= 0 || getHeight() <= 0) {
+            super.paint(g);
+            return;
+        }
+        double escala = g instanceof Graphics2D ? ((Graphics2D) g).getTransform().getScaleX() : 1.0;
+        g.drawImage(CacheTarjetas.obtener(this, hover, escala), 0, 0, getWidth(), getHeight(), null);
+        pintarSeleccion(g);
+    }
+
+    @Override
+    protected void paintChildren(Graphics g) {
+        super.paintChildren(g);
+        if (!CacheTarjetas.isHabilitada()) {
+            pintarSeleccion(g);
+        }
+    }
+
+    // El borde de selección va encima de la imagen de la tarjeta, así no entra en el caché
+    private void pintarSeleccion(Graphics g) {
+        if (seleccionada) {
+            g.setColor(new Color(255, 204, 0));
+            ((Graphics2D) g).setStroke(new BasicStroke(3));
+            g.drawRect(1, 1, getWidth() - 3, getHeight() - 3);
+        }
+    }
+
+    void pintarSinCache(Graphics g) {
+        super.paint(g);
+    }
+
+    // Todo lo que la tarjeta dibuja de la tarea, con la flecha de las subtareas (▸/▾) y el estado
+    // del checkbox bajo el mouse (resaltado, presionado); si cambia, la imagen del caché ya no sirve
+    String contenidoDibujado() {
+        ButtonModel check = completadaCheck.getModel();
+        return tarea.getNombre() + '\n' + textoResumen() + '\n' + tarea.isCompletada() + '\n'
+                + tarea.getFechaEntrega() + '\n' + tarea.getProgreso() + '\n' + expandida + '\n'
+                + check.isRollover() + check.isPressed() + check.isArmed();
+    }
+
+    private String textoResumen() {
+        String descripcion = tarea.getDescripcion();
+        if (descripcion == null) {
+            return "";
+        }
+        boolean recortada = !tarea.isDescripcionCompleta() || descripcion.length() > Tarea.LARGO_RESUMEN;
+        if (descripcion.length() > Tarea.LARGO_RESUMEN) {
+            descripcion = descripcion.substring(0, Tarea.LARGO_RESUMEN);
+        }
+        return recortada ? descripcion + "…" : descripcion;
+    }
 }
\ No newline at end of file
@@ -2,13 +2,12 @@ package com.components;
 
 import com.implementation.ListaTareas;
 import com.implementation.NodoTareas;
+import com.implementation.ReglaRecurrencia;
 import com.implementation.Tarea;
 import com.database.GestorRegistro;
 import com.windowP.PrincipalWindow;
 import javax.swing.*;
 import java.awt.*;
-import com.toedter.calendar.JCalendar;
-import javax.swing.SpinnerDateModel;
 
 public class PanelTareaFactory {
     public static PanelTarea agregarTarea(JPanel parent, ListaTareas lista, NodoTareas nodo, GestorRegistro gestorRegistro) {
@@ -26,48 +25,24 @@ public class PanelTareaFactory {
             fechaField.setEditable(false);
             JButton fechaBtn = new JButton("Seleccionar fecha");
             fechaBtn.addActionListener(e -> {
-                JSpinner timeSpinner = new JSpinner(new SpinnerDateModel());
-                JSpinner.DateEditor timeEditor = new JSpinner.DateEditor(timeSpinner, "HH:mm");
-                timeSpinner.setEditor(timeEditor);
-                timeSpinner.setValue(new java.util.Date());
-                
-                JPanel spinnerPanel = new JPanel();
-                spinnerPanel.add(new JLabel("Hora:"));
-                spinnerPanel.add(timeSpinner);
-                
-                JCalendar calendar = new JCalendar();
-                JPanel panel = new JPanel(new BorderLayout());
-                panel.add(calendar, BorderLayout.CENTER);
-                panel.add(spinnerPanel, BorderLayout.SOUTH);
-                
-                int result = JOptionPane.showConfirmDialog(
-                    null, panel, "Seleccionar fecha y hora", 
-                    JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-                
-                if (result == JOptionPane.OK_OPTION) {
-                    java.util.Date selectedDate = calendar.getDate();
-                    java.util.Date selectedTime = (java.util.Date)timeSpinner.getValue();
-                    
-                    // Combinar fecha y hora
-                    java.util.Calendar cal = java.util.Calendar.getInstance();
-                    cal.setTime(selectedDate);
-                    java.util.Calendar timeCal = java.util.Calendar.getInstance();
-                    timeCal.setTime(selectedTime);
-                    cal.set(java.util.Calendar.HOUR_OF_DAY, timeCal.get(java.util.Calendar.HOUR_OF_DAY));
-                    cal.set(java.util.Calendar.MINUTE, timeCal.get(java.util.Calendar.MINUTE));
-                    
-                    // Formatear la fecha
-                    String formattedDate = String.format("%tF %tR", cal, cal);
-                    fechaField.setText(formattedDate);
+                String fecha = SelectorFecha.elegir(null);
+                if (fecha != null) {
+                    fechaField.setText(fecha);
                 }
             });
             fechaPanel.add(fechaField);
             fechaPanel.add(fechaBtn);
 
+            // Una tarea que se repite se guarda como una sola serie, no como una tarea por ocurrencia
+            JComboBox<String> repetirCombo = new JComboBox<>(new String[]{"No se repite", "Cada día", "Cada semana", "Cada mes"});
+            JSpinner vecesSpinner = new JSpinner(new SpinnerNumberModel(0, 0, ReglaRecurrencia.MAXIMO_REPETICIONES, 1));
+
             Object[] message = {
                 "Título de la tarea:", tituloField,
                 "Descripción:", new JScrollPane(descripcionArea),
-                "Fecha de entrega:", fechaPanel
+                "Fecha de entrega:", fechaPanel,
+                "Repetir:", repetirCombo,
+                "Cantidad de veces (0 = sin fin):", vecesSpinner
             };
             int option = JOptionPane.showConfirmDialog(parent, message, "Nueva Tarea", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
             if (option != JOptionPane.OK_OPTION || tituloField.getText().trim().isEmpty()) {
@@ -80,6 +55,11 @@ public class PanelTareaFactory {
             String descripcion = descripcionArea.getText().trim();
             int idUsuario = principalWindow.getIdUsuario();
             String fechaEntrega = fechaField.getText().trim();
+            if (repetirCombo.getSelectedIndex() > 0) {
+                crearSerie(parent, gestorRegistro, principalWindow, titulo, descripcion, fechaEntrega,
+                        ReglaRecurrencia.Frecuencia.values()[repetirCombo.getSelectedIndex() - 1], (Integer) vecesSpinner.getValue());
+                return null;
+            }
             
             // Guardar la tarea en la base de datos
             int idTarea = gestorRegistro.agregarTarea(idUsuario, titulo, descripcion, fechaEntrega);
@@ -93,13 +73,35 @@ public class PanelTareaFactory {
             nodoTarea.getDato().setFechaEntrega(fechaEntrega);
             nodo = nodoTarea;
         }
+        PanelTarea panel = crearPanel(nodo, gestorRegistro, principalWindow);
+        parent.add(panel);
+        parent.revalidate();
+        parent.repaint();
+        return panel;
+    }
+
+    // Las ocurrencias no son tarjetas del tablero paginado (no se mezclan en sus páginas): se generan
+    // para las próximas entregas, el calendario y GET /api/tareas?desde&hasta, que piden un rango
+    private static void crearSerie(JPanel parent, GestorRegistro gestorRegistro, PrincipalWindow principalWindow, String titulo,
+            String descripcion, String inicio, ReglaRecurrencia.Frecuencia frecuencia, int veces) {
+        if (inicio.isEmpty()) {
+            JOptionPane.showMessageDialog(parent, "Una tarea que se repite necesita fecha de entrega.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        ReglaRecurrencia regla = new ReglaRecurrencia(frecuencia, 1, 0, veces, null);
+        if (gestorRegistro.agregarSerie(principalWindow.getIdUsuario(), titulo, descripcion, inicio, regla) == -1) {
+            JOptionPane.showMessageDialog(parent, "Error al guardar la tarea.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        Toast.mostrar(principalWindow, "Tarea repetida: " + regla.describir().toLowerCase());
+        principalWindow.recargarProximasEntregas();
+    }
+
+    public static PanelTarea crearPanel(NodoTareas nodo, GestorRegistro gestorRegistro, PrincipalWindow principalWindow) {
         PanelTarea panel = new PanelTarea(nodo.getDato(), gestorRegistro, principalWindow);
         panel.setPreferredSize(new Dimension(180, 120));
         panel.setBackground(new Color(0, 153, 153));
         nodo.setPanelAsociado(panel);
-        parent.add(panel);
-        parent.revalidate();
-        parent.repaint();
         return panel;
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.components;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reloj único para las cuentas que se muestran al segundo (cronómetro de estudio, pomodoro). Un solo
+// javax.swing.Timer en el EDT refresca a todos los suscriptos una vez por segundo y se detiene cuando
+// no queda ninguno. Cada suscriptor calcula su texto a partir de la hora, no contando tics, así que un
+// tic atrasado no corre la cuenta.
+public final class RelojSegundos {
+    private static final int INTERVALO_MS = 1000;
+
+    private static final Map<Object, Runnable> suscriptos = new LinkedHashMap<>();
+    // Lista reutilizada en cada tic: un suscriptor puede desuscribirse mientras se refresca
+    private static final List<Runnable> enCurso = new ArrayList<>();
+    private static Timer reloj;
+
+    private RelojSegundos() {
+    }
+
+    // Otra suscripción con la misma clave reemplaza a la anterior
+    public static void suscribir(Object clave, Runnable refrescar) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> suscribir(clave, refrescar));
+            return;
+        }
+        suscriptos.put(clave, refrescar);
+        if (reloj == null) {
+            reloj = new Timer(INTERVALO_MS, e -> avanzar());
+            reloj.setCoalesce(true);
+        }
+        if (!reloj.isRunning()) {
+            reloj.start();
+        }
+    }
+
+    public static void desuscribir(Object clave) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> desuscribir(clave));
+            return;
+        }
+        suscriptos.remove(clave);
+        if (suscriptos.isEmpty() && reloj != null) {
+            reloj.stop();
+        }
+    }
+
+    private static void avanzar() {
+        enCurso.addAll(suscriptos.values());
+        for (int i = 0; i < enCurso.size(); i++) {
+            enCurso.get(i).run();
+        }
+        enCurso.clear();
+        if (suscriptos.isEmpty()) {
+            reloj.stop();
+        }
+    }
+}
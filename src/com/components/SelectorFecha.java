@@ -0,0 +1,48 @@
+package com.components;
+
+import com.toedter.calendar.JCalendar;
+import javax.swing.*;
+import java.awt.*;
+
+// Diálogo de fecha y hora compartido por la creación y la vista de tareas.
+// Vive en su propia clase para que JCalendar se cargue recién al abrirlo y no al arrancar.
+public class SelectorFecha {
+
+    // Devuelve la fecha elegida como "yyyy-MM-dd HH:mm", o null si se canceló
+    public static String elegir(Component parent) {
+        JSpinner timeSpinner = new JSpinner(new SpinnerDateModel());
+        JSpinner.DateEditor timeEditor = new JSpinner.DateEditor(timeSpinner, "HH:mm");
+        timeSpinner.setEditor(timeEditor);
+        timeSpinner.setValue(new java.util.Date());
+
+        JPanel spinnerPanel = new JPanel();
+        spinnerPanel.add(new JLabel("Hora:"));
+        spinnerPanel.add(timeSpinner);
+
+        JCalendar calendar = new JCalendar();
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(calendar, BorderLayout.CENTER);
+        panel.add(spinnerPanel, BorderLayout.SOUTH);
+
+        int result = JOptionPane.showConfirmDialog(
+            parent, panel, "Seleccionar fecha y hora",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+
+        if (result != JOptionPane.OK_OPTION) {
+            return null;
+        }
+        java.util.Date selectedDate = calendar.getDate();
+        java.util.Date selectedTime = (java.util.Date) timeSpinner.getValue();
+
+        // Combinar fecha y hora
+        java.util.Calendar cal = java.util.Calendar.getInstance();
+        cal.setTime(selectedDate);
+        java.util.Calendar timeCal = java.util.Calendar.getInstance();
+        timeCal.setTime(selectedTime);
+        cal.set(java.util.Calendar.HOUR_OF_DAY, timeCal.get(java.util.Calendar.HOUR_OF_DAY));
+        cal.set(java.util.Calendar.MINUTE, timeCal.get(java.util.Calendar.MINUTE));
+
+        // Formatear la fecha
+        return String.format("%tF %tR", cal, cal);
+    }
+}
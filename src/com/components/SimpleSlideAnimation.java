@@ -5,6 +5,13 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 
 public class SimpleSlideAnimation {
+    private static final int DURACION_MS = 250;
+
+    // Imágenes y ventana que se reutilizan entre animaciones; solo se recrean si cambia el tamaño
+    private static BufferedImage imgCurrent;
+    private static BufferedImage imgNext;
+    private static JWindow animationWindow;
+    private static AnimationPanel panel;
 
     public static void slide(JPanel container, CardLayout layout, String nextPanelName, String direction) {
         int width = container.getWidth();
@@ -30,48 +37,59 @@ public class SimpleSlideAnimation {
             }
         }
 
-        if (next == null) return;
+        if (next == null || width <= 0 || height <= 0) return;
 
-        BufferedImage imgCurrent = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        current.paint(imgCurrent.getGraphics());
+        // Solo "left" y "right" animan; con otra dirección el panel cambia sin deslizarse
+        int signo;
+        if (direction.equalsIgnoreCase("left")) {
+            signo = -1;
+        } else if (direction.equalsIgnoreCase("right")) {
+            signo = 1;
+        } else {
+            return;
+        }
 
-        BufferedImage imgNext = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        next.paint(imgNext.getGraphics());
+        prepararImagenes(container, width, height);
+        pintar(current, imgCurrent);
+        pintar(next, imgNext);
 
-        JWindow animationWindow = new JWindow();
+        if (animationWindow == null) {
+            animationWindow = new JWindow();
+            panel = new AnimationPanel();
+            animationWindow.add(panel);
+        }
+        panel.setImages(imgCurrent, imgNext);
+        panel.setOffsetX(0);
         animationWindow.setSize(width, height);
         animationWindow.setLocation(container.getLocationOnScreen());
-
-        AnimationPanel panel = new AnimationPanel(imgCurrent, imgNext);
-        animationWindow.add(panel);
         animationWindow.setVisible(true);
 
-        new Thread(() -> {
-            try {
-                int step = 20;
-                int delay = 10;
-
-                if (direction.equalsIgnoreCase("left")) {
-                    for (int i = 0; i <= width; i += step) {
-                        panel.setOffsetX(-i);
-                        panel.repaint();
-                        Thread.sleep(delay);
-                    }
-                } else if (direction.equalsIgnoreCase("right")) {
-                    for (int i = 0; i <= width; i += step) {
-                        panel.setOffsetX(i);
-                        panel.repaint();
-                        Thread.sleep(delay);
-                    }
-                }
-
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            } finally {
-                animationWindow.setVisible(false);
-                animationWindow.dispose();
-            }
-        }).start();
+        Animador.animar(panel, DURACION_MS, Animador.Suavizado.ENTRADA_SALIDA, p -> {
+            panel.setOffsetX(signo * (int) Math.round(p * width));
+            panel.repaint();
+        }, () -> animationWindow.setVisible(false));
+    }
+
+    private static void prepararImagenes(Component container, int width, int height) {
+        if (imgCurrent != null && imgCurrent.getWidth() == width && imgCurrent.getHeight() == height) {
+            return;
+        }
+        GraphicsConfiguration gc = container.getGraphicsConfiguration();
+        if (gc != null) {
+            imgCurrent = gc.createCompatibleImage(width, height, Transparency.OPAQUE);
+            imgNext = gc.createCompatibleImage(width, height, Transparency.OPAQUE);
+        } else {
+            imgCurrent = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            imgNext = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+    }
+
+    private static void pintar(Component comp, BufferedImage img) {
+        Graphics2D g = img.createGraphics();
+        g.setColor(comp.getBackground() != null ? comp.getBackground() : Color.WHITE);
+        g.fillRect(0, 0, img.getWidth(), img.getHeight());
+        comp.paint(g);
+        g.dispose();
     }
 
     private static class AnimationPanel extends JPanel {
@@ -79,7 +97,7 @@ public class SimpleSlideAnimation {
         private BufferedImage nextImg;
         private int offsetX = 0;
 
-        public AnimationPanel(BufferedImage currentImg, BufferedImage nextImg) {
+        public void setImages(BufferedImage currentImg, BufferedImage nextImg) {
             this.currentImg = currentImg;
             this.nextImg = nextImg;
         }
@@ -0,0 +1,464 @@
+package com.components;
+
+import com.database.CampoTarea;
+import com.database.GestorRegistro;
+import com.implementation.EstadoTarea;
+import com.implementation.Tarea;
+import com.windowP.PrincipalWindow;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.datatransfer.Transferable;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import javax.swing.*;
+
+// Tablero Kanban con una columna por EstadoTarea. Cada columna es una JList con alto de celda fijo:
+// solo se dibujan las tarjetas que se ven, cada una con su propio scroll. Mover tarjetas (arrastrando
+// o con el menú) cambia los modelos de las dos columnas involucradas, así que solo esas se repintan,
+// y el lote entero se guarda en una transacción con GestorRegistro.moverTareas. Dentro de una columna
+// se puede arrastrar una tarjeta a otro lugar: se guarda solo su clave de orden (moverEnOrden) y se
+// repintan solo las tarjetas que se corrieron.
+public class TableroKanban extends JPanel {
+    private static final Set<CampoTarea> CAMPOS =
+            EnumSet.of(CampoTarea.NOMBRE, CampoTarea.COMPLETADA, CampoTarea.FECHA_ENTREGA, CampoTarea.ESTADO);
+    // El orden manual (las tarjetas nunca ordenadas al final) y después el del tablero: por fecha de
+    // entrega (sin fecha al principio) y por id
+    private static final Comparator<Tarea> ORDEN = Comparator
+            .comparing(Tarea::getOrden, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing((Tarea t) -> t.getFechaEntrega() == null ? "" : t.getFechaEntrega())
+            .thenComparingInt(Tarea::getIdTarea);
+    private static final int ALTO_TARJETA = 48;
+
+    private final PrincipalWindow parent;
+    private final GestorRegistro gestorRegistro;
+    private final int idUsuario;
+    private final Columna[] columnas = new Columna[EstadoTarea.values().length];
+    // Tarjetas que se están arrastrando y la columna de la que salen
+    private List<Tarea> arrastradas;
+    private Columna origen;
+    private int generacion;
+
+    public TableroKanban(PrincipalWindow parent, GestorRegistro gestorRegistro, int idUsuario) {
+        this.parent = parent;
+        this.gestorRegistro = gestorRegistro;
+        this.idUsuario = idUsuario;
+        setLayout(new GridLayout(1, columnas.length, 10, 0));
+        setBackground(Color.WHITE);
+        for (EstadoTarea estado : EstadoTarea.values()) {
+            columnas[estado.ordinal()] = new Columna(estado);
+            add(columnas[estado.ordinal()]);
+        }
+    }
+
+    // Lee las tareas de primer nivel fuera del EDT y las reparte por columna
+    public void recargar() {
+        int esperada = ++generacion;
+        new SwingWorker<List<List<Tarea>>, Void>() {
+            @Override
+            protected List<List<Tarea>> doInBackground() {
+                List<List<Tarea>> porEstado = new ArrayList<>();
+                for (int i = 0; i < columnas.length; i++) {
+                    porEstado.add(new ArrayList<>());
+                }
+                for (Tarea tarea : gestorRegistro.tareasEnOrden(idUsuario, CAMPOS)) {
+                    porEstado.get(tarea.getEstado().ordinal()).add(tarea);
+                }
+                return porEstado;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    List<List<Tarea>> porEstado = get();
+                    if (esperada != generacion) {
+                        return;
+                    }
+                    for (int i = 0; i < columnas.length; i++) {
+                        columnas[i].mostrar(porEstado.get(i));
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error al cargar el Kanban: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // Se llama en el EDT: la pantalla cambia al instante y el guardado va en segundo plano
+    private void mover(Columna desde, List<Tarea> tareas, Columna hacia) {
+        if (desde == hacia || tareas.isEmpty()) {
+            return;
+        }
+        // Copias con el estado anterior: moverTareas lo usa para los índices y para deshacer
+        List<Tarea> anteriores = new ArrayList<>(tareas.size());
+        for (Tarea tarea : tareas) {
+            anteriores.add(tarea.copia());
+            desde.quitar(tarea);
+            tarea.setEstado(hacia.estado);
+            hacia.insertar(tarea);
+        }
+        desde.actualizarTitulo();
+        hacia.actualizarTitulo();
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                gestorRegistro.moverTareas(anteriores, hacia.estado);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    parent.estadisticasCambiaron();
+                } catch (Exception e) {
+                    System.err.println("Error al mover tareas: " + e.getMessage());
+                }
+            }
+        }.execute();
+        Toast.mostrar(parent, (tareas.size() == 1 ? "1 tarea" : tareas.size() + " tareas") + " a " + hacia.estado.getNombre());
+    }
+
+    // Lleva una tarjeta a la posición de inserción "destino" de su misma columna. Se guarda una sola
+    // fila: la clave nueva queda entre las de las tarjetas que la rodean.
+    private void reordenar(Columna columna, Tarea tarea, int destino) {
+        int desde = columna.modelo.indiceDe(tarea);
+        // Al soltar más abajo, el hueco que deja la tarjeta corre una posición a las de abajo
+        int hasta = destino > desde ? destino - 1 : destino;
+        if (desde < 0 || hasta == desde) {
+            return;
+        }
+        columna.modelo.mover(desde, hasta);
+        int anterior = hasta > 0 ? columna.modelo.getElementAt(hasta - 1).getIdTarea() : 0;
+        int siguiente = hasta < columna.modelo.getSize() - 1 ? columna.modelo.getElementAt(hasta + 1).getIdTarea() : 0;
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                return gestorRegistro.moverEnOrden(tarea.getIdTarea(), anterior, siguiente);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    String clave = get();
+                    if (clave == null) {
+                        // Otra ventana cambió el orden mientras tanto: se muestra el que quedó guardado
+                        recargar();
+                    } else {
+                        tarea.setOrden(clave);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error al reordenar tareas: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // La tarjeta no trae la descripción: la tarea completa se lee fuera del EDT y después se abre
+    private void abrir(int idTarea) {
+        new SwingWorker<Tarea, Void>() {
+            @Override
+            protected Tarea doInBackground() {
+                return gestorRegistro.obtenerTareaPorId(idTarea);
+            }
+
+            @Override
+            protected void done() {
+                Tarea tarea;
+                try {
+                    tarea = get();
+                } catch (Exception e) {
+                    System.err.println("Error al abrir la tarea: " + e.getMessage());
+                    return;
+                }
+                if (tarea != null) {
+                    new VistaTareaDialog(parent, tarea, gestorRegistro).setVisible(true);
+                    recargar();
+                }
+            }
+        }.execute();
+    }
+
+    private final class Columna extends JPanel {
+        private final EstadoTarea estado;
+        private final ModeloColumna modelo = new ModeloColumna();
+        private final JList<Tarea> lista = new JList<>(modelo);
+        private final JLabel titulo = new JLabel("", SwingConstants.LEFT);
+
+        Columna(EstadoTarea estado) {
+            this.estado = estado;
+            setLayout(new BorderLayout(0, 6));
+            setBackground(new Color(244, 246, 248));
+            setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+
+            titulo.setFont(new Font("Roboto SemiBold", Font.BOLD, 14));
+            titulo.setForeground(new Color(0, 102, 102));
+            add(titulo, BorderLayout.NORTH);
+            actualizarTitulo();
+
+            lista.setFixedCellHeight(ALTO_TARJETA);
+            lista.setCellRenderer(new TarjetaKanban());
+            lista.setBackground(getBackground());
+            lista.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+            lista.setDragEnabled(true);
+            lista.setDropMode(DropMode.INSERT);
+            lista.setTransferHandler(new Traspaso(this));
+            lista.setToolTipText("Arrastra las tarjetas para ordenarlas o cambiarlas de columna (Ctrl+clic para varias)");
+            lista.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    int i = lista.locationToIndex(e.getPoint());
+                    if (i < 0 || e.getClickCount() != 2 || !SwingUtilities.isLeftMouseButton(e)) {
+                        return;
+                    }
+                    abrir(modelo.getElementAt(i).getIdTarea());
+                }
+
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    menu(e);
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    menu(e);
+                }
+            });
+            JScrollPane scroll = new JScrollPane(lista);
+            scroll.setBorder(null);
+            scroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+            add(scroll, BorderLayout.CENTER);
+        }
+
+        // Reemplaza todas las tarjetas (al cargar); después solo cambian las que se mueven
+        void mostrar(List<Tarea> tareas) {
+            tareas.sort(ORDEN);
+            modelo.reemplazar(tareas);
+            actualizarTitulo();
+        }
+
+        void actualizarTitulo() {
+            titulo.setText(estado.getNombre() + " (" + modelo.getSize() + ")");
+        }
+
+        void quitar(Tarea tarea) {
+            int i = posicion(tarea);
+            if (i >= modelo.getSize() || modelo.getElementAt(i) != tarea) {
+                // Su clave todavía no volvió de la base (se acaba de reordenar): se busca entera
+                i = modelo.indiceDe(tarea);
+            }
+            if (i >= 0) {
+                modelo.quitar(i);
+            }
+        }
+
+        // En su lugar según ORDEN, con un solo aviso de intervalo al modelo
+        void insertar(Tarea tarea) {
+            modelo.agregar(posicion(tarea), tarea);
+        }
+
+        // Búsqueda binaria: la primera tarjeta que no va antes que la tarea
+        private int posicion(Tarea tarea) {
+            int desde = 0;
+            int hasta = modelo.getSize();
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (ORDEN.compare(modelo.getElementAt(medio), tarea) < 0) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+            return desde;
+        }
+
+        private void menu(MouseEvent e) {
+            if (!e.isPopupTrigger()) {
+                return;
+            }
+            int i = lista.locationToIndex(e.getPoint());
+            if (i < 0) {
+                return;
+            }
+            if (!lista.isSelectedIndex(i)) {
+                lista.setSelectedIndex(i);
+            }
+            List<Tarea> elegidas = lista.getSelectedValuesList();
+            JPopupMenu opciones = new JPopupMenu();
+            for (Columna destino : columnas) {
+                if (destino != this) {
+                    JMenuItem item = new JMenuItem("Mover a " + destino.estado.getNombre());
+                    item.addActionListener(ev -> mover(this, elegidas, destino));
+                    opciones.add(item);
+                }
+            }
+            opciones.show(lista, e.getX(), e.getY());
+        }
+
+        // Tarjetas de la columna. Agregar y quitar avisan como siempre; mover dentro de la columna
+        // no avisa nada al JList (un aviso repinta desde esa fila hasta el final) y repinta solo las
+        // filas entre la posición vieja y la nueva.
+        private final class ModeloColumna extends AbstractListModel<Tarea> {
+            private final List<Tarea> tarjetas = new ArrayList<>();
+
+            @Override
+            public int getSize() {
+                return tarjetas.size();
+            }
+
+            @Override
+            public Tarea getElementAt(int indice) {
+                return tarjetas.get(indice);
+            }
+
+            int indiceDe(Tarea tarea) {
+                for (int i = 0; i < tarjetas.size(); i++) {
+                    if (tarjetas.get(i) == tarea) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+
+            void reemplazar(Collection<Tarea> tareas) {
+                int anteriores = tarjetas.size();
+                tarjetas.clear();
+                if (anteriores > 0) {
+                    fireIntervalRemoved(this, 0, anteriores - 1);
+                }
+                tarjetas.addAll(tareas);
+                if (!tarjetas.isEmpty()) {
+                    fireIntervalAdded(this, 0, tarjetas.size() - 1);
+                }
+            }
+
+            void agregar(int indice, Tarea tarea) {
+                tarjetas.add(indice, tarea);
+                fireIntervalAdded(this, indice, indice);
+            }
+
+            void quitar(int indice) {
+                tarjetas.remove(indice);
+                fireIntervalRemoved(this, indice, indice);
+            }
+
+            void mover(int desde, int hasta) {
+                tarjetas.add(hasta, tarjetas.remove(desde));
+                // Sin aviso la selección no se corre sola: queda en la tarjeta movida
+                lista.setSelectedIndex(hasta);
+                Rectangle corridas = lista.getCellBounds(Math.min(desde, hasta), Math.max(desde, hasta));
+                if (corridas != null) {
+                    lista.repaint(corridas);
+                }
+            }
+        }
+    }
+
+    // Arrastrar entre columnas, o una sola tarjeta dentro de su columna para cambiarle el lugar; las
+    // tarjetas viajan por referencia (arrastradas), el texto es solo para quien reciba el arrastre
+    // fuera de la ventana
+    private final class Traspaso extends TransferHandler {
+        private final Columna columna;
+
+        Traspaso(Columna columna) {
+            this.columna = columna;
+        }
+
+        @Override
+        public int getSourceActions(JComponent componente) {
+            return MOVE;
+        }
+
+        @Override
+        protected Transferable createTransferable(JComponent componente) {
+            arrastradas = new ArrayList<>(columna.lista.getSelectedValuesList());
+            origen = columna;
+            StringBuilder nombres = new StringBuilder();
+            for (Tarea tarea : arrastradas) {
+                nombres.append(tarea.getNombre()).append('\n');
+            }
+            return new StringSelection(nombres.toString());
+        }
+
+        @Override
+        public boolean canImport(TransferSupport soporte) {
+            return soporte.isDrop() && arrastradas != null && (origen != columna || arrastradas.size() == 1);
+        }
+
+        @Override
+        public boolean importData(TransferSupport soporte) {
+            if (!canImport(soporte)) {
+                return false;
+            }
+            if (origen == columna) {
+                reordenar(columna, arrastradas.get(0), ((JList.DropLocation) soporte.getDropLocation()).getIndex());
+            } else {
+                mover(origen, arrastradas, columna);
+            }
+            return true;
+        }
+
+        @Override
+        protected void exportDone(JComponent componente, Transferable datos, int accion) {
+            arrastradas = null;
+            origen = null;
+        }
+    }
+
+    // Tarjeta de una tarea: nombre y fecha de entrega. Una sola instancia pinta todas las de la columna.
+    private static final class TarjetaKanban extends JComponent implements ListCellRenderer<Tarea> {
+        private Tarea tarea;
+        private boolean seleccionada;
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Tarea> lista, Tarea tarea, int indice,
+                boolean seleccionada, boolean conFoco) {
+            this.tarea = tarea;
+            this.seleccionada = seleccionada;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            try {
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                int ancho = getWidth();
+                int alto = getHeight() - 6;
+                g2.setColor(seleccionada ? new Color(224, 242, 241) : Color.WHITE);
+                g2.fillRoundRect(0, 0, ancho - 1, alto, 10, 10);
+                g2.setColor(seleccionada ? new Color(0, 153, 153) : new Color(220, 224, 228));
+                g2.drawRoundRect(0, 0, ancho - 1, alto, 10, 10);
+
+                g2.setFont(new Font("Roboto Medium", Font.BOLD, 13));
+                g2.setColor(tarea.isCompletada() ? new Color(150, 150, 150) : new Color(51, 51, 51));
+                FontMetrics metricas = g2.getFontMetrics();
+                g2.drawString(recortar(tarea.getNombre(), metricas, ancho - 16), 8, 4 + metricas.getAscent());
+
+                String fecha = tarea.getFechaEntrega();
+                g2.setFont(new Font("Roboto Medium", Font.PLAIN, 11));
+                g2.setColor(new Color(102, 102, 102));
+                g2.drawString(fecha == null || fecha.isEmpty() ? "Sin fecha" : fecha, 8, alto - 6);
+            } finally {
+                g2.dispose();
+            }
+        }
+
+        private static String recortar(String texto, FontMetrics metricas, int ancho) {
+            if (texto == null || metricas.stringWidth(texto) <= ancho) {
+                return texto == null ? "" : texto;
+            }
+            int fin = texto.length();
+            while (fin > 0 && metricas.stringWidth(texto.substring(0, fin) + "…") > ancho) {
+                fin--;
+            }
+            return texto.substring(0, fin) + "…";
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package com.components;
+
+import com.database.CampoTarea;
+import com.database.GestorRegistro;
+import com.implementation.ListaTareas;
+import com.implementation.NodoTareas;
+import com.implementation.ProgresoSubtareas;
+import com.implementation.Tarea;
+import com.windowP.PrincipalWindow;
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Tablero con scroll infinito: pide las tareas por páginas usando la clave (fechaEntrega, idTarea),
+// precarga la siguiente página en segundo plano y libera las páginas que quedan lejos de la vista.
+// La primera página se guarda en CacheTablero para poder pintarla al abrir sin consultar la base.
+// Solo se paginan las tareas de primer nivel; cada página trae también el avance de sus subtareas
+// y las tarjetas de las subtareas se crean al expandir su tarea (PanelTarea.expandir).
+public class TableroPaginado {
+    private static final int TAMANO_PAGINA = 60;
+    private static final int PAGINAS_EN_MEMORIA = 4;
+    private static final int ESPERA_GUARDADO_MS = 5000;
+
+    private static class Pagina {
+        final List<NodoTareas> nodos = new ArrayList<>();
+
+        Tarea primera() {
+            return nodos.get(0).getDato();
+        }
+
+        Tarea ultima() {
+            return nodos.get(nodos.size() - 1).getDato();
+        }
+    }
+
+    private final JPanel contenedor;
+    private final JScrollPane scrollPane;
+    private final GestorRegistro gestorRegistro;
+    private final ListaTareas listaTareas;
+    private final int idUsuario;
+    private final ArrayDeque<Pagina> paginas = new ArrayDeque<>();
+
+    private boolean hayMasAdelante;
+    private boolean hayMasAtras;
+    private List<Tarea> precargada;
+    private boolean esperandoSiguiente;
+    private SwingWorker<List<Tarea>, Void> consultaAdelante;
+    private SwingWorker<List<Tarea>, Void> consultaAtras;
+    // Invalida las consultas en curso cuando cambia la ventana de páginas
+    private int versionAdelante;
+    private int versionAtras;
+    // Comparación de la caché con la base de datos, en curso mientras se muestra lo guardado
+    private SwingWorker<List<Tarea>, Void> reconciliacion;
+    // Recarga de la ventana actual en curso; mientras tanto se sigue viendo la anterior
+    private SwingWorker<List<Tarea>, Void> recarga;
+    private final Timer guardadoEnReposo;
+    private long versionGuardada = -1;
+
+    public TableroPaginado(JPanel contenedor, JScrollPane scrollPane, GestorRegistro gestorRegistro, ListaTareas listaTareas, int idUsuario) {
+        this.contenedor = contenedor;
+        this.scrollPane = scrollPane;
+        this.gestorRegistro = gestorRegistro;
+        this.listaTareas = listaTareas;
+        this.idUsuario = idUsuario;
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> revisarPosicion());
+        guardadoEnReposo = new Timer(ESPERA_GUARDADO_MS, e -> guardarCache(false));
+        guardadoEnReposo.setRepeats(false);
+    }
+
+    // Primera carga: pinta lo que haya en la caché local y la compara con la base de datos en segundo plano
+    public void cargarInicial() {
+        CacheTablero.Contenido cache = CacheTablero.leer(idUsuario);
+        if (cache == null) {
+            recargar();
+            return;
+        }
+        reiniciar();
+        mostrarDesdeInicio(cache.getTareas());
+        versionGuardada = cache.getVersion();
+        reconciliar(cache.getVersion());
+    }
+
+    private void reconciliar(long versionCache) {
+        // La caché no guarda el avance de las subtareas: si está al día igual hay que pedirlo
+        List<Integer> idsCache = new ArrayList<>();
+        if (!paginas.isEmpty()) {
+            for (NodoTareas nodo : paginas.getFirst().nodos) {
+                idsCache.add(nodo.getDato().getIdTarea());
+            }
+        }
+        reconciliacion = new SwingWorker<List<Tarea>, Void>() {
+            private Map<Integer, ProgresoSubtareas> progresoCache;
+
+            @Override
+            protected List<Tarea> doInBackground() {
+                if (gestorRegistro.obtenerVersionTablero(idUsuario) == versionCache) {
+                    progresoCache = gestorRegistro.obtenerProgreso(idsCache);
+                    return null;
+                }
+                return conProgreso(gestorRegistro.buscarTareasDespuesDe(idUsuario, "", 0, TAMANO_PAGINA, CampoTarea.TABLERO));
+            }
+
+            @Override
+            protected void done() {
+                if (reconciliacion != this) {
+                    // Hubo una recarga mientras tanto y ya se leyó de la base
+                    return;
+                }
+                reconciliacion = null;
+                List<Tarea> tareas;
+                try {
+                    tareas = get();
+                } catch (Exception e) {
+                    System.err.println("Error al comparar la caché del tablero: " + e.getMessage());
+                    recargar();
+                    return;
+                }
+                if (tareas == null) {
+                    // La caché estaba al día
+                    mostrarProgreso(progresoCache);
+                    precargar();
+                    return;
+                }
+                reiniciar();
+                mostrarDesdeInicio(tareas);
+                precargar();
+                guardadoEnReposo.restart();
+            }
+        };
+        reconciliacion.execute();
+    }
+
+    private void mostrarProgreso(Map<Integer, ProgresoSubtareas> progreso) {
+        if (paginas.isEmpty() || progreso.isEmpty()) {
+            return;
+        }
+        for (NodoTareas nodo : paginas.getFirst().nodos) {
+            ProgresoSubtareas avance = progreso.get(nodo.getDato().getIdTarea());
+            if (avance != null && nodo.getPanelAsociado() != null) {
+                nodo.getDato().setProgreso(avance);
+                nodo.getPanelAsociado().mostrarProgreso();
+            }
+        }
+        contenedor.revalidate();
+        contenedor.repaint();
+    }
+
+    // Completa el avance de las subtareas de la página con una sola consulta, en el mismo hilo
+    private List<Tarea> conProgreso(List<Tarea> tareas) {
+        gestorRegistro.completarProgreso(tareas);
+        return tareas;
+    }
+
+    private void mostrarDesdeInicio(List<Tarea> tareas) {
+        hayMasAtras = false;
+        hayMasAdelante = tareas.size() == TAMANO_PAGINA;
+        if (!tareas.isEmpty()) {
+            paginas.addLast(crearPagina(tareas, true));
+        }
+        contenedor.revalidate();
+        contenedor.repaint();
+    }
+
+    // Guarda la primera página en la caché local. Solo se puede si la ventana empieza en la
+    // primera tarea; la versión se lee antes de copiar las tareas, así un cambio en medio deja
+    // la caché marcada como vieja y no al revés.
+    public void guardarCache(boolean esperar) {
+        guardadoEnReposo.stop();
+        if (!CacheTablero.isHabilitada() || hayMasAtras || reconciliacion != null || recarga != null) {
+            return;
+        }
+        long version = gestorRegistro.obtenerVersionTablero(idUsuario);
+        if (version == versionGuardada) {
+            return;
+        }
+        List<Tarea> tareas = new ArrayList<>();
+        if (!paginas.isEmpty()) {
+            for (NodoTareas nodo : paginas.getFirst().nodos) {
+                tareas.add(nodo.getDato());
+            }
+        }
+        byte[] contenido = CacheTablero.serializar(idUsuario, version, tareas);
+        versionGuardada = version;
+        if (esperar) {
+            CacheTablero.escribir(idUsuario, contenido);
+            return;
+        }
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                CacheTablero.escribir(idUsuario, contenido);
+                return null;
+            }
+        }.execute();
+    }
+
+    // Vuelve a cargar desde el inicio de la ventana actual (después de crear, eliminar o deshacer).
+    // La consulta va en segundo plano y las tarjetas se cambian recién al tener el resultado.
+    public void recargar() {
+        Tarea primera = paginas.isEmpty() ? null : paginas.getFirst().primera();
+        String fecha = primera == null ? "" : claveFecha(primera);
+        int idTarea = primera == null ? 0 : primera.getIdTarea() - 1;
+        // Lo que traiga la comparación con la caché ya quedaría viejo
+        reconciliacion = null;
+        recarga = new SwingWorker<List<Tarea>, Void>() {
+            private boolean desdeElPrincipio = primera == null;
+
+            @Override
+            protected List<Tarea> doInBackground() {
+                List<Tarea> tareas = gestorRegistro.buscarTareasDespuesDe(idUsuario, fecha, idTarea, TAMANO_PAGINA, CampoTarea.TABLERO);
+                if (tareas.isEmpty() && !desdeElPrincipio) {
+                    // La ventana quedó vacía (p. ej. se eliminó la última tarea): se recarga desde el principio
+                    desdeElPrincipio = true;
+                    tareas = gestorRegistro.buscarTareasDespuesDe(idUsuario, "", 0, TAMANO_PAGINA, CampoTarea.TABLERO);
+                }
+                return conProgreso(tareas);
+            }
+
+            @Override
+            protected void done() {
+                if (recarga != this) {
+                    // Se pidió otra recarga mientras tanto
+                    return;
+                }
+                recarga = null;
+                List<Tarea> tareas = resultado(this);
+                reiniciar();
+                hayMasAtras = !desdeElPrincipio;
+                hayMasAdelante = tareas.size() == TAMANO_PAGINA;
+                if (!tareas.isEmpty()) {
+                    paginas.addLast(crearPagina(tareas, true));
+                }
+                contenedor.revalidate();
+                contenedor.repaint();
+                precargar();
+                guardadoEnReposo.restart();
+            }
+        };
+        recarga.execute();
+    }
+
+    private void reiniciar() {
+        versionAdelante++;
+        versionAtras++;
+        consultaAdelante = null;
+        consultaAtras = null;
+        reconciliacion = null;
+        precargada = null;
+        esperandoSiguiente = false;
+        paginas.clear();
+        listaTareas.limpiar();
+        contenedor.removeAll();
+    }
+
+    private void revisarPosicion() {
+        JScrollBar barra = scrollPane.getVerticalScrollBar();
+        int visible = barra.getVisibleAmount();
+        int restante = barra.getMaximum() - (barra.getValue() + visible);
+        if (restante < visible) {
+            pedirSiguiente();
+        } else if (barra.getValue() < visible && hayMasAtras) {
+            pedirAnterior();
+        }
+    }
+
+    private void pedirSiguiente() {
+        if (precargada != null) {
+            List<Tarea> tareas = precargada;
+            precargada = null;
+            anexar(tareas);
+            precargar();
+        } else if (hayMasAdelante) {
+            esperandoSiguiente = true;
+            precargar();
+        }
+    }
+
+    // Pide en segundo plano la página que sigue a la última cargada
+    private void precargar() {
+        if (consultaAdelante != null || precargada != null || !hayMasAdelante || paginas.isEmpty()) {
+            return;
+        }
+        Tarea ultima = paginas.getLast().ultima();
+        String fecha = claveFecha(ultima);
+        int idTarea = ultima.getIdTarea();
+        int version = versionAdelante;
+        consultaAdelante = new SwingWorker<List<Tarea>, Void>() {
+            @Override
+            protected List<Tarea> doInBackground() {
+                return conProgreso(gestorRegistro.buscarTareasDespuesDe(idUsuario, fecha, idTarea, TAMANO_PAGINA, CampoTarea.TABLERO));
+            }
+
+            @Override
+            protected void done() {
+                if (version != versionAdelante) {
+                    return;
+                }
+                consultaAdelante = null;
+                List<Tarea> tareas = resultado(this);
+                hayMasAdelante = tareas.size() == TAMANO_PAGINA;
+                if (tareas.isEmpty()) {
+                    return;
+                }
+                if (esperandoSiguiente) {
+                    esperandoSiguiente = false;
+                    anexar(tareas);
+                    precargar();
+                } else {
+                    precargada = tareas;
+                }
+            }
+        };
+        consultaAdelante.execute();
+    }
+
+    private void pedirAnterior() {
+        if (consultaAtras != null || paginas.isEmpty()) {
+            return;
+        }
+        Tarea primera = paginas.getFirst().primera();
+        String fecha = claveFecha(primera);
+        int idTarea = primera.getIdTarea();
+        int version = versionAtras;
+        consultaAtras = new SwingWorker<List<Tarea>, Void>() {
+            @Override
+            protected List<Tarea> doInBackground() {
+                return conProgreso(gestorRegistro.buscarTareasAntesDe(idUsuario, fecha, idTarea, TAMANO_PAGINA, CampoTarea.TABLERO));
+            }
+
+            @Override
+            protected void done() {
+                if (version != versionAtras) {
+                    return;
+                }
+                consultaAtras = null;
+                List<Tarea> tareas = resultado(this);
+                hayMasAtras = tareas.size() == TAMANO_PAGINA;
+                if (!tareas.isEmpty()) {
+                    anteponer(tareas);
+                }
+            }
+        };
+        consultaAtras.execute();
+    }
+
+    private void anexar(List<Tarea> tareas) {
+        paginas.addLast(crearPagina(tareas, true));
+        if (paginas.size() > PAGINAS_EN_MEMORIA) {
+            // Al quitar contenido arriba de la vista hay que compensar el scroll
+            Pagina sobrante = paginas.removeFirst();
+            Component referencia = paginas.getFirst().nodos.get(0).getPanelAsociado();
+            scrollPane.validate();
+            int yAntes = referencia.getY();
+            liberar(sobrante);
+            scrollPane.validate();
+            desplazar(referencia.getY() - yAntes);
+            hayMasAtras = true;
+            versionAtras++;
+            consultaAtras = null;
+        }
+        contenedor.revalidate();
+        contenedor.repaint();
+    }
+
+    private void anteponer(List<Tarea> tareas) {
+        Component referencia = paginas.getFirst().nodos.get(0).getPanelAsociado();
+        scrollPane.validate();
+        int yAntes = referencia.getY();
+        paginas.addFirst(crearPagina(tareas, false));
+        scrollPane.validate();
+        desplazar(referencia.getY() - yAntes);
+        if (paginas.size() > PAGINAS_EN_MEMORIA) {
+            liberar(paginas.removeLast());
+            hayMasAdelante = true;
+            precargada = null;
+            esperandoSiguiente = false;
+            versionAdelante++;
+            consultaAdelante = null;
+        }
+        contenedor.revalidate();
+        contenedor.repaint();
+    }
+
+    private Pagina crearPagina(List<Tarea> tareas, boolean alFinal) {
+        PrincipalWindow principalWindow = (PrincipalWindow) contenedor.getTopLevelAncestor();
+        Pagina pagina = new Pagina();
+        int indice = alFinal ? contenedor.getComponentCount() : 0;
+        for (Tarea tarea : tareas) {
+            NodoTareas nodo = new NodoTareas(tarea);
+            PanelTarea panel = PanelTareaFactory.crearPanel(nodo, gestorRegistro, principalWindow);
+            contenedor.add(panel, indice++);
+            pagina.nodos.add(nodo);
+        }
+        if (alFinal) {
+            for (NodoTareas nodo : pagina.nodos) {
+                listaTareas.agregarNodo(nodo);
+            }
+        } else {
+            for (int i = pagina.nodos.size() - 1; i >= 0; i--) {
+                listaTareas.insertarAlInicio(pagina.nodos.get(i));
+            }
+        }
+        return pagina;
+    }
+
+    private void liberar(Pagina pagina) {
+        for (NodoTareas nodo : pagina.nodos) {
+            // Las tarjetas de sus subtareas se van con ella
+            nodo.getPanelAsociado().contraer();
+            contenedor.remove(nodo.getPanelAsociado());
+            listaTareas.eliminar(nodo.getDato());
+            nodo.setPanelAsociado(null);
+        }
+    }
+
+    private void desplazar(int delta) {
+        if (delta != 0) {
+            JScrollBar barra = scrollPane.getVerticalScrollBar();
+            barra.setValue(barra.getValue() + delta);
+        }
+    }
+
+    private static String claveFecha(Tarea tarea) {
+        return tarea.getFechaEntrega() == null ? "" : tarea.getFechaEntrega();
+    }
+
+    private static List<Tarea> resultado(SwingWorker<List<Tarea>, Void> worker) {
+        try {
+            return worker.get();
+        } catch (Exception e) {
+            System.err.println("Error al cargar página de tareas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+}
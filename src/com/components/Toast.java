@@ -3,16 +3,27 @@ package com.components;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Toast extends JDialog {
-    private static final int FADE_STEP = 10;
-    private static final int FADE_DELAY = 20;
+    private static final int FADE_TIME = 200;
     private static final int DISPLAY_TIME = 2000;
+    private static final int MAX_VISIBLES = 3;
+    private static final int SEPARACION = 8;
     private static final Color BACKGROUND_COLOR = new Color(0, 153, 153);
     private static final float BACKGROUND_OPACITY = 0.9f;
 
+    // Los toasts se encolan y se apilan desde abajo; como máximo MAX_VISIBLES a la vez
+    private static final ArrayDeque<Toast> pendientes = new ArrayDeque<>();
+    private static final List<Toast> visibles = new ArrayList<>();
+
+    private final JFrame parent;
+
     public Toast(JFrame parent, String message) {
         super(parent);
+        this.parent = parent;
         setUndecorated(true);
         setSize(200, 40);
         setLocationRelativeTo(parent);
@@ -46,47 +57,55 @@ public class Toast extends JDialog {
         add(panel);
 
         // Posicionar el toast en la parte inferior
-        Point parentLocation = parent.getLocation();
-        Dimension parentSize = parent.getSize();
-        int x = parentLocation.x + (parentSize.width - getWidth()) / 2;
-        int y = parentLocation.y + parentSize.height - getHeight() - 50;
-        setLocation(x, y);
+        setLocation(posicionX(), posicionY(0));
+    }
+
+    private int posicionX() {
+        return parent.getX() + (parent.getWidth() - getWidth()) / 2;
+    }
+
+    // Posición vertical según el lugar que ocupa en la pila (0 = abajo)
+    private int posicionY(int lugar) {
+        return parent.getY() + parent.getHeight() - getHeight() - 50 - lugar * (getHeight() + SEPARACION);
     }
 
     public static void mostrar(JFrame parent, String message) {
         SwingUtilities.invokeLater(() -> {
-            Toast toast = new Toast(parent, message);
+            pendientes.addLast(new Toast(parent, message));
+            mostrarPendientes();
+        });
+    }
+
+    private static void mostrarPendientes() {
+        while (visibles.size() < MAX_VISIBLES && !pendientes.isEmpty()) {
+            Toast toast = pendientes.removeFirst();
+            toast.setLocation(toast.posicionX(), toast.posicionY(visibles.size()));
+            visibles.add(toast);
             toast.setOpacity(0.0f);
             toast.setVisible(true);
 
-            // Animación de entrada (fade in)
-            Timer fadeInTimer = new Timer(FADE_DELAY, null);
-            fadeInTimer.addActionListener(e -> {
-                float opacity = toast.getOpacity();
-                opacity = Math.min(opacity + 0.1f, 1.0f);
-                toast.setOpacity(opacity);
-                if (opacity >= 1.0f) {
-                    fadeInTimer.stop();
-                    // Temporizador para mantener visible
-                    Timer displayTimer = new Timer(DISPLAY_TIME, e2 -> {
-                        // Animación de salida (fade out)
-                        Timer fadeOutTimer = new Timer(FADE_DELAY, null);
-                        fadeOutTimer.addActionListener(e3 -> {
-                            float currentOpacity = toast.getOpacity();
-                            currentOpacity = Math.max(currentOpacity - 0.1f, 0.0f);
-                            toast.setOpacity(currentOpacity);
-                            if (currentOpacity <= 0.0f) {
-                                fadeOutTimer.stop();
-                                toast.dispose();
-                            }
-                        });
-                        fadeOutTimer.start();
-                    });
-                    displayTimer.setRepeats(false);
-                    displayTimer.start();
-                }
-            });
-            fadeInTimer.start();
-        });
+            // Entrada, tiempo visible y salida con el reloj compartido de animaciones
+            Animador.animar(toast, FADE_TIME, Animador.Suavizado.SALIDA, p -> toast.setOpacity((float) p), () ->
+                Animador.esperar(toast, DISPLAY_TIME, () ->
+                    Animador.animar(toast, FADE_TIME, Animador.Suavizado.ENTRADA, p -> toast.setOpacity((float) (1 - p)), () -> {
+                        toast.dispose();
+                        visibles.remove(toast);
+                        reacomodar();
+                        mostrarPendientes();
+                    })));
+        }
+    }
+
+    // Baja los toasts que quedan para cerrar el hueco del que se fue
+    private static void reacomodar() {
+        for (int i = 0; i < visibles.size(); i++) {
+            Toast toast = visibles.get(i);
+            int desde = toast.getY();
+            int hasta = toast.posicionY(i);
+            if (desde != hasta) {
+                Animador.animar(toast.getRootPane(), FADE_TIME, Animador.Suavizado.ENTRADA_SALIDA,
+                        p -> toast.setLocation(toast.getX(), desde + (int) Math.round((hasta - desde) * p)), null);
+            }
+        }
     }
 }
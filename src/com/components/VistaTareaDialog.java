@@ -1,22 +1,32 @@
 package com.components;
 
 import com.database.GestorRegistro;
+import com.database.MotorPomodoro;
+import com.implementation.SesionEnCurso;
 import com.implementation.Tarea;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import javax.swing.*;
-import com.toedter.calendar.JCalendar;
-import javax.swing.SpinnerDateModel;
 
 public class VistaTareaDialog extends JDialog {
     private Tarea tarea;
     private GestorRegistro gestorRegistro;
+    // Para que la tarjeta que abrió el diálogo actualice su avance y sus hijas al cerrarlo
+    private int subtareasAgregadas;
+    // Tiempo estudiado en esta tarea sin contar el tramo en marcha, y desde cuándo corre (-1 = parado)
+    private long estudiado;
+    private long enMarchaDesde = -1;
+    private boolean sesionAbierta;
 
     public VistaTareaDialog(JFrame parent, Tarea tarea, GestorRegistro gestorRegistro) {
         super(parent, "Vista de Tarea", true);
         this.tarea = tarea;
         this.gestorRegistro = gestorRegistro;
+        // El tablero solo trae la vista previa; la descripción completa se pide al abrir
+        gestorRegistro.cargarDescripcion(tarea);
         setLayout(new BorderLayout());
-        setSize(400, 300);
+        setSize(400, 340);
         setLocationRelativeTo(parent);
 
         JLabel titulo = new JLabel(tarea.getNombre(), SwingConstants.CENTER);
@@ -46,41 +56,11 @@ public class VistaTareaDialog extends JDialog {
         
         JButton editFechaBtn = new JButton("Cambiar fecha");
         editFechaBtn.addActionListener(e -> {
-            JSpinner timeSpinner = new JSpinner(new SpinnerDateModel());
-            JSpinner.DateEditor timeEditor = new JSpinner.DateEditor(timeSpinner, "HH:mm");
-            timeSpinner.setEditor(timeEditor);
-            timeSpinner.setValue(new java.util.Date());
-            
-            JPanel spinnerPanel = new JPanel();
-            spinnerPanel.add(new JLabel("Hora:"));
-            spinnerPanel.add(timeSpinner);
-            
-            JCalendar calendar = new JCalendar();
-            JPanel panel = new JPanel(new BorderLayout());
-            panel.add(calendar, BorderLayout.CENTER);
-            panel.add(spinnerPanel, BorderLayout.SOUTH);
-            
-            int result = JOptionPane.showConfirmDialog(
-                this, panel, "Seleccionar fecha y hora", 
-                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
-            
-            if (result == JOptionPane.OK_OPTION) {
-                java.util.Date selectedDate = calendar.getDate();
-                java.util.Date selectedTime = (java.util.Date)timeSpinner.getValue();
-                
-                // Combinar fecha y hora
-                java.util.Calendar cal = java.util.Calendar.getInstance();
-                cal.setTime(selectedDate);
-                java.util.Calendar timeCal = java.util.Calendar.getInstance();
-                timeCal.setTime(selectedTime);
-                cal.set(java.util.Calendar.HOUR_OF_DAY, timeCal.get(java.util.Calendar.HOUR_OF_DAY));
-                cal.set(java.util.Calendar.MINUTE, timeCal.get(java.util.Calendar.MINUTE));
-                
-                // Formatear la fecha
-                String formattedDate = String.format("%tF %tR", cal, cal);
-                fechaField.setText(formattedDate);
-                tarea.setFechaEntrega(formattedDate);
-                gestorRegistro.actualizarFechaEntrega(tarea.getIdTarea(), formattedDate);
+            String fecha = SelectorFecha.elegir(this);
+            if (fecha != null) {
+                fechaField.setText(fecha);
+                tarea.setFechaEntrega(fecha);
+                gestorRegistro.actualizarFechaEntrega(tarea.getIdTarea(), fecha);
             }
         });
         
@@ -91,7 +71,174 @@ public class VistaTareaDialog extends JDialog {
         centerPanel.add(descripcion);
         centerPanel.add(Box.createRigidArea(new Dimension(0, 10)));
         centerPanel.add(fechaPanel);
+        if (tarea.getIdTarea() > 0) {
+            centerPanel.add(crearPanelEstudio());
+            centerPanel.add(crearPanelPomodoro(parent));
+        }
         
         add(new JScrollPane(centerPanel), BorderLayout.CENTER);
+
+        JButton subtareaBtn = new JButton("Agregar subtarea");
+        subtareaBtn.addActionListener(e -> {
+            String nombre = JOptionPane.showInputDialog(this, "Título de la subtarea:", "Nueva subtarea", JOptionPane.PLAIN_MESSAGE);
+            if (nombre == null || nombre.trim().isEmpty()) {
+                return;
+            }
+            if (gestorRegistro.agregarSubtarea(tarea.getIdTarea(), nombre.trim(), "", null) == -1) {
+                JOptionPane.showMessageDialog(this, "Error al guardar la subtarea.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            subtareasAgregadas++;
+            Toast.mostrar(parent, "Subtarea agregada");
+        });
+        JPanel botones = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        botones.add(subtareaBtn);
+        add(botones, BorderLayout.SOUTH);
+    }
+
+    // Cronómetro de estudio: sigue corriendo aunque se cierre el diálogo (lo lleva GestorRegistro)
+    private JPanel crearPanelEstudio() {
+        int idUsuario = tarea.getIdUsuario();
+        int idTarea = tarea.getIdTarea();
+        long ahora = System.currentTimeMillis();
+        estudiado = gestorRegistro.tiempoPorTarea(idUsuario, "0000-01-01", "9999-12-31").getOrDefault(idTarea, 0L);
+        for (SesionEnCurso sesion : gestorRegistro.sesionesEnCurso(idUsuario)) {
+            if (sesion.getIdTarea() == idTarea) {
+                sesionAbierta = true;
+                if (!sesion.isEnPausa()) {
+                    enMarchaDesde = ahora;
+                }
+            }
+        }
+
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JLabel tiempo = new JLabel();
+        JButton marchaBtn = new JButton();
+        JButton detenerBtn = new JButton("Detener");
+        Runnable refrescar = () -> {
+            long total = estudiado + (enMarchaDesde == -1 ? 0 : System.currentTimeMillis() - enMarchaDesde);
+            tiempo.setText("Estudiado: " + formatear(total));
+            marchaBtn.setText(enMarchaDesde != -1 ? "Pausar" : sesionAbierta ? "Reanudar" : "Iniciar");
+            detenerBtn.setEnabled(sesionAbierta);
+        };
+        marchaBtn.addActionListener(e -> {
+            long instante = System.currentTimeMillis();
+            if (enMarchaDesde != -1) {
+                gestorRegistro.pausarSesion(idUsuario, idTarea);
+                estudiado += instante - enMarchaDesde;
+                enMarchaDesde = -1;
+            } else {
+                if (sesionAbierta) {
+                    gestorRegistro.reanudarSesion(idUsuario, idTarea);
+                } else {
+                    gestorRegistro.iniciarSesion(idUsuario, idTarea);
+                }
+                sesionAbierta = true;
+                enMarchaDesde = instante;
+            }
+            refrescar.run();
+        });
+        detenerBtn.addActionListener(e -> {
+            gestorRegistro.detenerSesion(idUsuario, idTarea);
+            if (enMarchaDesde != -1) {
+                estudiado += System.currentTimeMillis() - enMarchaDesde;
+                enMarchaDesde = -1;
+            }
+            sesionAbierta = false;
+            refrescar.run();
+        });
+        refrescar.run();
+        refrescarCadaSegundo(tiempo, refrescar);
+
+        panel.add(tiempo);
+        panel.add(marchaBtn);
+        panel.add(detenerBtn);
+        return panel;
+    }
+
+    // Las fases las cambia MotorPomodoro aunque el diálogo esté cerrado; acá solo se muestra la
+    // cuenta, leyéndola del pomodoro una vez por segundo
+    private JPanel crearPanelPomodoro(JFrame parent) {
+        int idUsuario = tarea.getIdUsuario();
+        int idTarea = tarea.getIdTarea();
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JLabel cuenta = new JLabel();
+        JButton marchaBtn = new JButton();
+        JButton detenerBtn = new JButton("Detener");
+        Runnable refrescar = () -> {
+            MotorPomodoro.Pomodoro pomodoro = gestorRegistro.obtenerPomodoro(idUsuario, idTarea);
+            if (pomodoro == null) {
+                cuenta.setText("Pomodoro");
+                marchaBtn.setText("Iniciar");
+            } else {
+                long segundos = (pomodoro.restanteMs() + 999) / 1000;
+                cuenta.setText(String.format("%s %d:%02d · %d completados", nombreFase(pomodoro.getFase()), segundos / 60, segundos % 60,
+                        pomodoro.getCompletados()));
+                marchaBtn.setText(pomodoro.isEnPausa() ? "Reanudar" : "Pausar");
+            }
+            detenerBtn.setEnabled(pomodoro != null);
+        };
+        marchaBtn.addActionListener(e -> {
+            MotorPomodoro.Pomodoro pomodoro = gestorRegistro.obtenerPomodoro(idUsuario, idTarea);
+            if (pomodoro == null) {
+                gestorRegistro.iniciarPomodoro(idUsuario, idTarea,
+                        p -> SwingUtilities.invokeLater(() -> Toast.mostrar(parent, tarea.getNombre() + ": " + nombreFase(p.getFase()))));
+            } else if (pomodoro.isEnPausa()) {
+                pomodoro.reanudar();
+            } else {
+                pomodoro.pausar();
+            }
+            refrescar.run();
+        });
+        detenerBtn.addActionListener(e -> {
+            MotorPomodoro.Pomodoro pomodoro = gestorRegistro.obtenerPomodoro(idUsuario, idTarea);
+            if (pomodoro != null) {
+                pomodoro.detener();
+            }
+            refrescar.run();
+        });
+        refrescar.run();
+        refrescarCadaSegundo(cuenta, refrescar);
+
+        panel.add(cuenta);
+        panel.add(marchaBtn);
+        panel.add(detenerBtn);
+        return panel;
+    }
+
+    // Con el reloj compartido de la interfaz, mientras el diálogo esté abierto
+    private void refrescarCadaSegundo(Object clave, Runnable refrescar) {
+        RelojSegundos.suscribir(clave, refrescar);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                RelojSegundos.desuscribir(clave);
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                RelojSegundos.desuscribir(clave);
+            }
+        });
+    }
+
+    private static String nombreFase(MotorPomodoro.Fase fase) {
+        switch (fase) {
+            case TRABAJO:
+                return "Trabajo";
+            case DESCANSO:
+                return "Descanso";
+            default:
+                return "Descanso largo";
+        }
+    }
+
+    private static String formatear(long ms) {
+        long segundos = ms / 1000;
+        return String.format("%d:%02d:%02d", segundos / 3600, segundos / 60 % 60, segundos % 60);
+    }
+
+    public int getSubtareasAgregadas() {
+        return subtareasAgregadas;
     }
 }
\ No newline at end of file
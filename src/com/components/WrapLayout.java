@@ -1,9 +1,39 @@
 package com.components;
 
 import java.awt.*;
+import java.util.Arrays;
 
+// FlowLayout que pasa los componentes a la siguiente fila cuando no caben.
+// La geometría (tamaños, cortes de fila y posiciones) se calcula una sola vez y se guarda;
+// en cada revalidate() solo se vuelve a medir desde el primer componente que cambió.
 public class WrapLayout extends FlowLayout {
+    private Component[] componentes = new Component[0];
+    private boolean[] visibles = new boolean[0];
+    private int[] anchos = new int[0];
+    private int[] altos = new int[0];
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    private int[] filaDe = new int[0];
+    private int cantidad;
+
+    // Datos por fila: primer componente, y superior, alto y ancho máximo acumulado hasta esa fila
+    private int[] inicioFila = new int[0];
+    private int[] yFila = new int[0];
+    private int[] altoFila = new int[0];
+    private int[] anchoMaximoHasta = new int[0];
+    private int filas;
+
+    // Parámetros con los que se calculó la geometría guardada
+    private int anchoContenedor = -1;
+    private Insets insetsCalculados;
+    private int hgapCalculado = -1;
+    private int vgapCalculado = -1;
+    private int alineacionCalculada = -1;
+    private boolean izquierdaADerecha = true;
+
     private Dimension preferredLayoutSize;
+    // Primer componente cuyas coordenadas todavía no se aplicaron con setBounds
+    private int primerSinAplicar;
 
     public WrapLayout() {
         super(FlowLayout.LEFT, 10, 10);
@@ -20,83 +50,195 @@ public class WrapLayout extends FlowLayout {
     @Override
     public Dimension preferredLayoutSize(Container target) {
         synchronized (target.getTreeLock()) {
-            Dimension dim = new Dimension(0, 0);
-            int nmembers = target.getComponentCount();
-            boolean firstVisibleComponent = true;
-            int hgap = getHgap();
-            int vgap = getVgap();
-            Insets insets = target.getInsets();
-            int maxWidth = target.getWidth() - (insets.left + insets.right + hgap * 2);
-
-            int x = 0, y = insets.top + vgap;
-            int rowHeight = 0;
-
-            for (int i = 0; i < nmembers; i++) {
-                Component m = target.getComponent(i);
-                if (m.isVisible()) {
-                    Dimension d = m.getPreferredSize();
-                    if (firstVisibleComponent) {
-                        firstVisibleComponent = false;
-                    } else {
-                        x += hgap;
-                    }
-                    if (x + d.width > maxWidth && x > 0) {
-                        x = 0;
-                        y += vgap + rowHeight;
-                        rowHeight = 0;
-                    }
-                    x += d.width;
-                    rowHeight = Math.max(rowHeight, d.height);
-                    dim.width = Math.max(dim.width, x);
-                }
-            }
-            y += rowHeight;
-            dim.width = Math.min(dim.width + insets.left + insets.right + hgap * 2, target.getWidth());
-            dim.height = y + insets.top + insets.bottom + vgap * 2;
-
-            preferredLayoutSize = dim;
-            return dim;
+            actualizar(target);
+            return new Dimension(preferredLayoutSize);
         }
     }
 
     @Override
     public Dimension minimumLayoutSize(Container target) {
         synchronized (target.getTreeLock()) {
-            Dimension dim = new Dimension(0, 0);
-            int nmembers = target.getComponentCount();
-            boolean firstVisibleComponent = true;
-            int hgap = getHgap();
-            int vgap = getVgap();
-            Insets insets = target.getInsets();
-            int maxWidth = target.getWidth() - (insets.left + insets.right + hgap * 2);
-
-            int x = 0, y = insets.top + vgap;
-            int rowHeight = 0;
-
-            for (int i = 0; i < nmembers; i++) {
-                Component m = target.getComponent(i);
-                if (m.isVisible()) {
-                    Dimension d = m.getMinimumSize();
-                    if (firstVisibleComponent) {
-                        firstVisibleComponent = false;
-                    } else {
-                        x += hgap;
-                    }
-                    if (x + d.width > maxWidth && x > 0) {
-                        x = 0;
-                        y += vgap + rowHeight;
-                        rowHeight = 0;
+            actualizar(target);
+            return new Dimension(preferredLayoutSize);
+        }
+    }
+
+    @Override
+    public void layoutContainer(Container target) {
+        synchronized (target.getTreeLock()) {
+            actualizar(target);
+            for (int i = primerSinAplicar; i < cantidad; i++) {
+                if (visibles[i]) {
+                    componentes[i].setBounds(xs[i], ys[i], anchos[i], altos[i]);
+                }
+            }
+            primerSinAplicar = cantidad;
+        }
+    }
+
+    // Recalcula la geometría guardada a partir del primer componente distinto o inválido
+    private void actualizar(Container target) {
+        int n = target.getComponentCount();
+        Insets insets = target.getInsets();
+        boolean ltr = target.getComponentOrientation().isLeftToRight();
+        boolean parametrosIguales = target.getWidth() == anchoContenedor && insets.equals(insetsCalculados)
+                && getHgap() == hgapCalculado && getVgap() == vgapCalculado
+                && getAlignment() == alineacionCalculada && ltr == izquierdaADerecha;
+
+        int primerSucio = 0;
+        int limite = Math.min(n, cantidad);
+        while (primerSucio < limite) {
+            Component c = target.getComponent(primerSucio);
+            if (c != componentes[primerSucio] || !c.isValid() || c.isVisible() != visibles[primerSucio]) {
+                break;
+            }
+            primerSucio++;
+        }
+        if (primerSucio == n && n == cantidad && parametrosIguales && preferredLayoutSize != null) {
+            return;
+        }
+
+        asegurarCapacidad(n);
+        for (int i = primerSucio; i < n; i++) {
+            Component c = target.getComponent(i);
+            componentes[i] = c;
+            visibles[i] = c.isVisible();
+            if (visibles[i]) {
+                Dimension d = c.getPreferredSize();
+                anchos[i] = d.width;
+                altos[i] = d.height;
+            } else {
+                anchos[i] = 0;
+                altos[i] = 0;
+            }
+        }
+        Arrays.fill(componentes, n, componentes.length, null);
+        cantidad = n;
+
+        // Los cortes de fila se rehacen desde el inicio de la fila del primer componente sucio
+        int fila = 0;
+        if (parametrosIguales && primerSucio > 0 && filas > 0) {
+            fila = filaDe[primerSucio - 1];
+        }
+        if (!parametrosIguales) {
+            anchoContenedor = target.getWidth();
+            insetsCalculados = (Insets) insets.clone();
+            hgapCalculado = getHgap();
+            vgapCalculado = getVgap();
+            alineacionCalculada = getAlignment();
+            izquierdaADerecha = ltr;
+        }
+        calcularFilas(fila, insets);
+        primerSinAplicar = Math.min(primerSinAplicar, filas > fila ? inicioFila[fila] : cantidad);
+        if (!parametrosIguales) {
+            primerSinAplicar = 0;
+        }
+    }
+
+    private void calcularFilas(int filaInicial, Insets insets) {
+        int hgap = getHgap();
+        int vgap = getVgap();
+        int anchoMaximo = anchoContenedor - (insets.left + insets.right + hgap * 2);
+
+        int i = filaInicial < filas ? inicioFila[filaInicial] : 0;
+        int fila = filaInicial < filas ? filaInicial : 0;
+        int y = fila > 0 ? yFila[fila - 1] + altoFila[fila - 1] + vgap : insets.top + vgap;
+        int anchoAcumulado = fila > 0 ? anchoMaximoHasta[fila - 1] : 0;
+
+        while (i < cantidad) {
+            // Arma una fila con todos los componentes que quepan
+            int inicio = i;
+            int x = 0;
+            int alto = 0;
+            boolean primero = true;
+            while (i < cantidad) {
+                if (visibles[i]) {
+                    int avance = primero ? anchos[i] : hgap + anchos[i];
+                    if (!primero && x + avance > anchoMaximo) {
+                        break;
                     }
-                    x += d.width;
-                    rowHeight = Math.max(rowHeight, d.height);
-                    dim.width = Math.max(dim.width, x);
+                    x += avance;
+                    alto = Math.max(alto, altos[i]);
+                    primero = false;
                 }
+                filaDe[i] = fila;
+                i++;
             }
-            y += rowHeight;
-            dim.width = Math.min(dim.width + insets.left + insets.right + hgap * 2, target.getWidth());
-            dim.height = y + insets.top + insets.bottom + vgap * 2;
+            asegurarCapacidadFilas(fila + 1);
+            inicioFila[fila] = inicio;
+            yFila[fila] = y;
+            altoFila[fila] = alto;
+            anchoAcumulado = Math.max(anchoAcumulado, x);
+            anchoMaximoHasta[fila] = anchoAcumulado;
+            ubicarFila(inicio, i, x, y, alto, anchoMaximo, insets);
+            y += alto + vgap;
+            fila++;
+        }
+        filas = fila;
+
+        int altoTotal = filas > 0 ? yFila[filas - 1] + altoFila[filas - 1] : insets.top + vgap;
+        int ancho = filas > 0 ? anchoMaximoHasta[filas - 1] : 0;
+        preferredLayoutSize = new Dimension(
+                Math.min(ancho + insets.left + insets.right + hgap * 2, anchoContenedor),
+                altoTotal + insets.top + insets.bottom + vgap * 2);
+    }
+
+    // Misma ubicación que FlowLayout: alineación horizontal por fila y centrado vertical
+    private void ubicarFila(int desde, int hasta, int anchoFila, int y, int altoFila, int anchoMaximo, Insets insets) {
+        int x = insets.left + getHgap();
+        switch (getAlignment()) {
+            case CENTER:
+                x += (anchoMaximo - anchoFila) / 2;
+                break;
+            case RIGHT:
+                x += anchoMaximo - anchoFila;
+                break;
+            case LEADING:
+                x += izquierdaADerecha ? 0 : anchoMaximo - anchoFila;
+                break;
+            case TRAILING:
+                x += izquierdaADerecha ? anchoMaximo - anchoFila : 0;
+                break;
+            default:
+                break;
+        }
+        boolean primero = true;
+        for (int i = desde; i < hasta; i++) {
+            if (!visibles[i]) {
+                continue;
+            }
+            if (!primero) {
+                x += getHgap();
+            }
+            primero = false;
+            xs[i] = izquierdaADerecha ? x : anchoContenedor - x - anchos[i];
+            ys[i] = y + (altoFila - altos[i]) / 2;
+            x += anchos[i];
+        }
+    }
+
+    private void asegurarCapacidad(int n) {
+        if (componentes.length >= n) {
+            return;
+        }
+        int capacidad = Math.max(n, componentes.length * 2);
+        componentes = Arrays.copyOf(componentes, capacidad);
+        visibles = Arrays.copyOf(visibles, capacidad);
+        anchos = Arrays.copyOf(anchos, capacidad);
+        altos = Arrays.copyOf(altos, capacidad);
+        xs = Arrays.copyOf(xs, capacidad);
+        ys = Arrays.copyOf(ys, capacidad);
+        filaDe = Arrays.copyOf(filaDe, capacidad);
+    }
 
-            return dim;
+    private void asegurarCapacidadFilas(int n) {
+        if (inicioFila.length >= n) {
+            return;
         }
+        int capacidad = Math.max(n, inicioFila.length * 2);
+        inicioFila = Arrays.copyOf(inicioFila, capacidad);
+        yFila = Arrays.copyOf(yFila, capacidad);
+        altoFila = Arrays.copyOf(altoFila, capacidad);
+        anchoMaximoHasta = Arrays.copyOf(anchoMaximoHasta, capacidad);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,176 @@
+package com.database;
+
+import com.implementation.ActividadAnual;
+import com.implementation.Tarea;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Actividad de un usuario (tareas completadas y minutos de estudio por día) en los últimos DIAS días,
+// para el mapa de actividad y las rachas. Cada día ocupa un short: 4 bits de completadas (hasta 15)
+// y 12 de minutos (hasta 4095), en un arreglo circular indexado por el día contado desde 1970; al
+// pasar de día se limpian los lugares que salen de la ventana. Un año son menos de 800 bytes por
+// usuario. Se arma una vez con lo guardado y después GestorRegistro le suma cada marca y cada tramo
+// de estudio que se cierra, sin volver a leer nada.
+final class ActividadUsuario implements OyenteTareas {
+    // 53 semanas: el mapa empieza el lunes de hace 52 semanas
+    static final int DIAS = 53 * 7;
+    private static final int MAXIMO_COMPLETADAS = 0xF;
+    private static final int MAXIMO_MINUTOS = 0xFFF;
+
+    private final short[] dias = new short[DIAS];
+    // El día más reciente de la ventana
+    private long ultimoDia;
+    // Tareas marcadas hoy desde que se armó: si se desmarcan (deshacer) se restan de hoy. Desmarcar
+    // una completada otro día no cambia la actividad hasta que se vuelva a armar.
+    private final Set<Integer> completadasHoy = new HashSet<>();
+    // Se borró una tarea completada otro día: no se sabe de qué día restarla y hay que volver a armar
+    private volatile boolean desactualizada;
+
+    ActividadUsuario(long hoy, Map<String, Integer> completadasPorDia, Map<String, Long> estudioPorDia) {
+        ultimoDia = hoy;
+        for (Map.Entry<String, Integer> dia : completadasPorDia.entrySet()) {
+            sumar(diaDesde1970(dia.getKey()), dia.getValue(), 0);
+        }
+        for (Map.Entry<String, Long> dia : estudioPorDia.entrySet()) {
+            sumar(diaDesde1970(dia.getKey()), 0, minutos(dia.getValue()));
+        }
+    }
+
+    synchronized void cambiarCompletada(int idTarea, boolean completada, long hoy) {
+        avanzar(hoy);
+        if (completada) {
+            if (completadasHoy.add(idTarea)) {
+                sumar(hoy, 1, 0);
+            }
+        } else if (completadasHoy.remove(idTarea)) {
+            sumar(hoy, -1, 0);
+        }
+    }
+
+    @Override
+    public void alCambiarCompletada(int idTarea, boolean completada) {
+        cambiarCompletada(idTarea, completada, LocalDate.now().toEpochDay());
+    }
+
+    // Una completada borrada deja de contar: si se marcó hoy se resta de hoy
+    @Override
+    public synchronized void alEliminar(Tarea tarea) {
+        if (!tarea.isCompletada()) {
+            return;
+        }
+        long hoy = LocalDate.now().toEpochDay();
+        avanzar(hoy);
+        if (completadasHoy.remove(tarea.getIdTarea())) {
+            sumar(hoy, -1, 0);
+        } else {
+            desactualizada = true;
+        }
+    }
+
+    boolean isDesactualizada() {
+        return desactualizada;
+    }
+
+    // Un tramo de estudio ya guardado ("yyyy-MM-dd", milisegundos)
+    synchronized void sumarEstudio(String dia, long duracion) {
+        sumar(diaDesde1970(dia), 0, minutos(duracion));
+    }
+
+    // Desde el lunes de hace 52 semanas hasta hoy, con las rachas de días con actividad
+    synchronized ActividadAnual instantanea(LocalDate fecha) {
+        long hoy = fecha.toEpochDay();
+        avanzar(hoy);
+        LocalDate desde = fecha.minusWeeks(52).with(DayOfWeek.MONDAY);
+        int cantidad = (int) (hoy - desde.toEpochDay() + 1);
+        int[] completadas = new int[cantidad];
+        int[] minutos = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            short valor = dias[posicion(desde.toEpochDay() + i)];
+            completadas[i] = completadas(valor);
+            minutos[i] = minutos(valor);
+        }
+        return new ActividadAnual(desde, completadas, minutos, rachaActual(hoy), rachaMaxima());
+    }
+
+    // Días seguidos con actividad hasta hoy; si hoy todavía no hubo nada, hasta ayer
+    private int rachaActual(long hoy) {
+        long dia = dias[posicion(hoy)] != 0 ? hoy : hoy - 1;
+        int racha = 0;
+        while (racha < DIAS - 1 && dias[posicion(dia - racha)] != 0) {
+            racha++;
+        }
+        return racha;
+    }
+
+    private int rachaMaxima() {
+        int maxima = 0;
+        int racha = 0;
+        for (long dia = ultimoDia - DIAS + 1; dia <= ultimoDia; dia++) {
+            racha = dias[posicion(dia)] != 0 ? racha + 1 : 0;
+            maxima = Math.max(maxima, racha);
+        }
+        return maxima;
+    }
+
+    // Mueve la ventana hasta el día dado limpiando los días que quedan fuera
+    private void avanzar(long dia) {
+        if (dia <= ultimoDia) {
+            return;
+        }
+        long pasos = Math.min(DIAS, dia - ultimoDia);
+        for (long i = 1; i <= pasos; i++) {
+            dias[posicion(ultimoDia + i)] = 0;
+        }
+        ultimoDia = dia;
+        completadasHoy.clear();
+    }
+
+    // Los contadores quedan en su máximo en vez de dar la vuelta y nunca bajan de cero
+    private void sumar(long dia, int completadas, int minutos) {
+        avanzar(dia);
+        if (dia <= ultimoDia - DIAS) {
+            return;
+        }
+        int i = posicion(dia);
+        int c = Math.max(0, Math.min(MAXIMO_COMPLETADAS, completadas(dias[i]) + completadas));
+        int m = Math.max(0, Math.min(MAXIMO_MINUTOS, minutos(dias[i]) + minutos));
+        dias[i] = (short) (c << 12 | m);
+    }
+
+    private static int posicion(long dia) {
+        return Math.floorMod(dia, DIAS);
+    }
+
+    private static int completadas(short valor) {
+        return (valor >> 12) & MAXIMO_COMPLETADAS;
+    }
+
+    private static int minutos(short valor) {
+        return valor & MAXIMO_MINUTOS;
+    }
+
+    private static int minutos(long milisegundos) {
+        return (int) Math.min(MAXIMO_MINUTOS, Math.round(milisegundos / 60_000.0));
+    }
+
+    // "yyyy-MM-dd" -> días desde 1970-01-01, leído a mano como Tarjeta.diaProximoRepaso
+    static long diaDesde1970(String dia) {
+        return LocalDate.of(Integer.parseInt(dia, 0, 4, 10), Integer.parseInt(dia, 5, 7, 10),
+                Integer.parseInt(dia, 8, 10, 10)).toEpochDay();
+    }
+
+    // Medianoche local del día dado, en milisegundos
+    static long inicioDelDia(String dia, ZoneId zona) {
+        return LocalDate.parse(dia).atStartOfDay(zona).toInstant().toEpochMilli();
+    }
+
+    // Día local ("yyyy-MM-dd") de un instante en milisegundos
+    static String diaDe(long milisegundos, ZoneId zona) {
+        return Instant.ofEpochMilli(milisegundos).atZone(zona).toLocalDate().toString();
+    }
+}
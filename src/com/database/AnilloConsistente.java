@@ -0,0 +1,36 @@
+package com.database;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Anillo de hash consistente para repartir usuarios entre fragmentos. Cada fragmento ocupa varios
+// puntos del anillo (nodos virtuales) y un usuario va al primer punto a partir de su hash; al pasar
+// de N a N+1 fragmentos solo se mueve alrededor de 1/(N+1) de los usuarios.
+final class AnilloConsistente {
+    private static final int NODOS_VIRTUALES = 64;
+
+    private final TreeMap<Integer, Integer> anillo = new TreeMap<>();
+
+    AnilloConsistente(int fragmentos) {
+        for (int fragmento = 0; fragmento < fragmentos; fragmento++) {
+            for (int nodo = 0; nodo < NODOS_VIRTUALES; nodo++) {
+                anillo.put(mezclar(fragmento * 0x9E3779B9 + nodo * 0x85EBCA6B + 1), fragmento);
+            }
+        }
+    }
+
+    int fragmentoPara(int idUsuario) {
+        Map.Entry<Integer, Integer> punto = anillo.ceilingEntry(mezclar(idUsuario));
+        return punto != null ? punto.getValue() : anillo.firstEntry().getValue();
+    }
+
+    // Finalizador de MurmurHash3: reparte bien ids consecutivos
+    private static int mezclar(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,1048 @@
+package com.database;
+
+import com.implementation.EstadisticasEstudio;
+import com.implementation.EstadoTarea;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.ProgresoSubtareas;
+import com.implementation.ReglaRecurrencia;
+import com.implementation.SerieTareas;
+import com.implementation.Tarea;
+import com.implementation.Tarjeta;
+import com.implementation.TramoEstudio;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Banco de pruebas compartido para comparar implementaciones de TaskRepository/UserRepository.
+// Primero verifica que el motor se comporte igual que SQLite y luego mide las mismas cargas
+// de CRUD y consultas por rango en todos. Con hilos=N además mide escrituras concurrentes de N
+// usuarios a la vez (los motores de una sola conexión se serializan con RepositorioSerializado).
+// Uso: java com.database.BancoPruebasRepositorios [memoria] [sqlite] [h2] [eventos] [fragmentado] [tareas=20000] [hilos=0]
+public class BancoPruebasRepositorios {
+    private static final int PAGINA = 50;
+
+    public static void main(String[] args) throws Exception {
+        List<String> motores = new ArrayList<>();
+        int cantidad = 20000;
+        int hilos = 0;
+        for (String arg : args) {
+            if (arg.startsWith("tareas=")) {
+                cantidad = Integer.parseInt(arg.substring("tareas=".length()));
+            } else if (arg.startsWith("hilos=")) {
+                hilos = Integer.parseInt(arg.substring("hilos=".length()));
+            } else {
+                motores.add(arg);
+            }
+        }
+        if (motores.isEmpty()) {
+            motores.add("memoria");
+            motores.add("sqlite");
+        }
+
+        File directorio = Files.createTempDirectory("banco-repositorios").toFile();
+        for (String motor : motores) {
+            TaskRepository repositorio = crear(motor, directorio);
+            try {
+                verificar(repositorio, (UserRepository) repositorio);
+                System.out.println(motor + ": conformidad OK");
+                medir(motor, repositorio, (UserRepository) repositorio, cantidad);
+                // Como lo entrega GestorRegistro.crearRepositorio: los de JDBC, serializados
+                TaskRepository concurrente = repositorio instanceof JdbcRepository
+                        ? new RepositorioSerializado(repositorio, (UserRepository) repositorio) : repositorio;
+                verificarEscritoresDeFondo(concurrente, (UserRepository) concurrente);
+                if (hilos > 0) {
+                    medirConcurrente(motor, concurrente, (UserRepository) concurrente, hilos, cantidad);
+                }
+            } finally {
+                repositorio.cerrar();
+            }
+        }
+    }
+
+    private static TaskRepository crear(String motor, File directorio) {
+        switch (motor) {
+            case "memoria":
+                return new InMemoryRepository();
+            case "eventos":
+                return new EventSourcedRepository(new File(directorio, "eventos"));
+            case "h2":
+                return new JdbcRepository("jdbc:h2:" + new File(directorio, "banco-h2").getAbsolutePath(), JdbcDialect.H2);
+            case "fragmentado":
+                return new ShardedRepository(new File(directorio, "fragmentado"), Integer.getInteger("fragmentos", 4), 8);
+            case "sqlite":
+                return new JdbcRepository("jdbc:sqlite:" + new File(directorio, "banco.db").getAbsolutePath(), JdbcDialect.SQLITE);
+            default:
+                throw new IllegalArgumentException("Motor desconocido: " + motor);
+        }
+    }
+
+    // Pruebas de conformidad: cada motor debe responder igual que el SQLite original
+    public static void verificar(TaskRepository tareas, UserRepository usuarios) {
+        comprobar(usuarios.registrarUsuario("Ana", "ana@correo.com", "clave"), "registrar usuario");
+        comprobar(!usuarios.registrarUsuario("Otra", "ana@correo.com", "x"), "correo duplicado");
+        comprobar(usuarios.existeCorreo("ana@correo.com"), "existeCorreo");
+        comprobar(!usuarios.existeCorreo("nadie@correo.com"), "existeCorreo inexistente");
+        int idUsuario = usuarios.validarCredenciales("ana@correo.com", "clave");
+        comprobar(idUsuario > 0, "credenciales válidas");
+        comprobar(usuarios.validarCredenciales("ana@correo.com", "mala") == -1, "credenciales inválidas");
+        comprobar("Ana".equals(usuarios.obtenerNombreUsuario(idUsuario)), "nombre de usuario");
+
+        StringBuilder larga = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            larga.append("descripción larga ");
+        }
+        int a = tareas.agregarTarea(idUsuario, "A", larga.toString(), "2025-03-01 10:00");
+        int b = tareas.agregarTarea(idUsuario, "B", "corta", "2025-01-15 08:00");
+        int c = tareas.agregarTarea(idUsuario, "C", null, "2025-03-01 10:00");
+        int d = tareas.agregarTarea(idUsuario, "D", "sin fecha", null);
+        comprobar(a > 0 && b > 0 && c > 0 && d > 0, "agregar tareas");
+
+        Tarea tareaA = tareas.obtenerTareaPorId(a);
+        comprobar(tareaA != null && "A".equals(tareaA.getNombre()) && !tareaA.isCompletada(), "obtener por id");
+        comprobar(larga.toString().equals(tareas.obtenerDescripcion(a)), "descripción completa");
+        comprobar(tareas.obtenerTareaPorId(-5) == null, "tarea inexistente");
+
+        List<Tarea> todas = tareas.buscarTareasPorUsuario(idUsuario, 0, -1, CampoTarea.TODOS);
+        comprobar(ids(todas).equals(List.of(d, b, a, c)), "orden (fechaEntrega, idTarea): " + ids(todas));
+
+        List<Tarea> resumen = tareas.buscarTareasPorUsuario(idUsuario, 2, 1, CampoTarea.TABLERO);
+        comprobar(resumen.size() == 1 && resumen.get(0).getIdTarea() == a, "offset/limit");
+        comprobar(!resumen.get(0).isDescripcionCompleta()
+                && resumen.get(0).getDescripcion().length() == Tarea.LARGO_RESUMEN, "proyección RESUMEN");
+
+        List<Tarea> despues = tareas.buscarTareasDespuesDe(idUsuario, "2025-01-15 08:00", b, 2, CampoTarea.TABLERO);
+        comprobar(ids(despues).equals(List.of(a, c)), "paginación hacia adelante");
+        List<Tarea> antes = tareas.buscarTareasAntesDe(idUsuario, "2025-03-01 10:00", c, 2, CampoTarea.TABLERO);
+        comprobar(ids(antes).equals(List.of(b, a)), "paginación hacia atrás");
+
+        List<Tarea> rango = tareas.buscarTareasEntreFechas(idUsuario, "2025-01-01", "2025-03-01 10:00", CampoTarea.TABLERO);
+        comprobar(ids(rango).equals(List.of(b)), "consulta por rango");
+
+        // 2025-03-01 es sábado: la semana va del 24 de febrero al 2 de marzo
+        LocalDate hoy = LocalDate.of(2025, 3, 1);
+        EstadisticasEstudio estadisticas = tareas.obtenerEstadisticas(idUsuario, hoy);
+        comprobar(estadisticas.getTotal() == 4 && estadisticas.getCompletadas() == 0 && estadisticas.getPendientesSemana() == 2
+                && estadisticas.getVencidas() == 1 && estadisticas.getPromedioEntregaMs() == -1, "estadísticas iniciales: " + estadisticas);
+
+        long version = tareas.obtenerVersionTablero(idUsuario);
+        comprobar(version != 0, "versión del tablero tras agregar");
+        tareas.actualizarFechaEntrega(b, "2025-12-31 23:59");
+        comprobar(tareas.obtenerVersionTablero(idUsuario) != version, "versión del tablero tras editar");
+        comprobar(ids(tareas.buscarTareasPorUsuario(idUsuario, 0, -1, CampoTarea.TABLERO)).equals(List.of(d, a, c, b)),
+                "reordenar al cambiar fecha");
+
+        version = tareas.obtenerVersionTablero(idUsuario);
+        tareas.actualizarCompletada(c, true);
+        comprobar(tareas.obtenerTareaPorId(c).isCompletada(), "completar tarea");
+        comprobar(tareas.obtenerVersionTablero(idUsuario) != version, "versión del tablero tras completar");
+
+        tareas.eliminarTarea(a);
+        comprobar(tareas.obtenerTareaPorId(a) == null, "eliminar tarea");
+        comprobar(tareas.buscarTareasPorUsuario(idUsuario, 0, -1, CampoTarea.TABLERO).size() == 3, "tareas restantes");
+
+        estadisticas = tareas.obtenerEstadisticas(idUsuario, hoy);
+        comprobar(estadisticas.getTotal() == 3 && estadisticas.getCompletadas() == 1 && estadisticas.getPendientesSemana() == 0
+                && estadisticas.getVencidas() == 0 && estadisticas.getPromedioEntregaMs() >= 0, "estadísticas tras cambios: " + estadisticas);
+        comprobar(tareas.obtenerEstadisticas(idUsuario, LocalDate.of(2026, 1, 1)).getVencidas() == 1, "vencidas en otra fecha");
+        tareas.actualizarCompletada(c, false);
+        tareas.actualizarCompletada(c, true);
+        Map<Integer, Boolean> lote = new LinkedHashMap<>();
+        lote.put(b, true);
+        lote.put(d, true);
+        lote.put(-5, true);
+        version = tareas.obtenerVersionTablero(idUsuario);
+        tareas.actualizarCompletadas(lote);
+        comprobar(tareas.obtenerTareaPorId(b).isCompletada() && tareas.obtenerTareaPorId(d).isCompletada(), "completar en lote");
+        comprobar(tareas.obtenerVersionTablero(idUsuario) != version, "versión del tablero tras el lote");
+        comprobar(tareas.obtenerEstadisticas(idUsuario, hoy).getCompletadas() == 3, "estadísticas tras el lote");
+        lote.put(d, false);
+        lote.remove(-5);
+        tareas.actualizarCompletadas(lote);
+        comprobar(!tareas.obtenerTareaPorId(d).isCompletada(), "lote con tareas sin cambios");
+        LocalDate hoyLocal = LocalDate.now();
+        comprobar(tareas.completadasPorDia(idUsuario, hoyLocal.toString(), hoyLocal.plusDays(1).toString())
+                .equals(Map.of(hoyLocal.toString(), 2)), "completadas por día");
+        comprobar(tareas.completadasPorDia(idUsuario, "2000-01-01", hoyLocal.toString()).isEmpty()
+                && tareas.completadasPorDia(idUsuario + 1000, "2000-01-01", "9999-12-31").isEmpty(), "completadas fuera del rango");
+
+        // Kanban: el lote de movimientos va en una transacción y salir de "Completada" la desmarca
+        Map<Integer, EstadoTarea> movidas = new LinkedHashMap<>();
+        movidas.put(d, EstadoTarea.EN_PROGRESO);
+        movidas.put(b, EstadoTarea.EN_PROGRESO);
+        movidas.put(-5, EstadoTarea.COMPLETADA);
+        version = tareas.obtenerVersionTablero(idUsuario);
+        tareas.actualizarEstados(movidas);
+        Set<CampoTarea> conEstado = EnumSet.of(CampoTarea.COMPLETADA, CampoTarea.ESTADO);
+        comprobar(estados(tareas.buscarTareasPorUsuario(idUsuario, 0, -1, conEstado))
+                .equals(Map.of(b, EstadoTarea.EN_PROGRESO, c, EstadoTarea.COMPLETADA, d, EstadoTarea.EN_PROGRESO)), "estados del Kanban");
+        comprobar(tareas.obtenerTareaPorId(b).getEstado() == EstadoTarea.EN_PROGRESO && !tareas.obtenerTareaPorId(b).isCompletada()
+                && tareas.obtenerEstadisticas(idUsuario, hoy).getCompletadas() == 1, "mover fuera de completada");
+        comprobar(tareas.obtenerVersionTablero(idUsuario) != version, "versión del tablero tras mover");
+        tareas.actualizarEstados(Map.of(d, EstadoTarea.COMPLETADA, b, EstadoTarea.COMPLETADA));
+        comprobar(tareas.obtenerTareaPorId(d).isCompletada() && tareas.obtenerEstadisticas(idUsuario, hoy).getCompletadas() == 3,
+                "mover a completada");
+        tareas.actualizarCompletada(d, false);
+        comprobar(tareas.obtenerTareaPorId(d).getEstado() == EstadoTarea.PENDIENTE, "desmarcar una tarea completada en el Kanban");
+        estadisticas = tareas.obtenerEstadisticas(idUsuario, hoy);
+        tareas.recalcularEstadisticas();
+        comprobar(estadisticas.equals(tareas.obtenerEstadisticas(idUsuario, hoy)), "recalcular da lo mismo que los contadores");
+
+        // Orden manual: la clave se guarda tal cual y no invalida el tablero
+        version = tareas.obtenerVersionTablero(idUsuario);
+        tareas.actualizarOrden(Map.of(b, "V", c, "k", -5, "0V"));
+        comprobar("V".equals(tareas.obtenerTareaPorId(b).getOrden()) && tareas.obtenerTareaPorId(d).getOrden() == null,
+                "clave de orden");
+        Map<Integer, String> claves = new HashMap<>();
+        for (Tarea tarea : tareas.buscarTareasPorUsuario(idUsuario, 0, -1, EnumSet.of(CampoTarea.ORDEN))) {
+            claves.put(tarea.getIdTarea(), tarea.getOrden());
+        }
+        comprobar("k".equals(claves.get(c)) && claves.containsKey(d) && claves.get(d) == null, "claves de orden del usuario");
+        comprobar(tareas.obtenerVersionTablero(idUsuario) == version, "el orden manual no cambia el tablero");
+
+        // Subtareas: p -> (h1 -> n1, h2)
+        int p = tareas.agregarTarea(idUsuario, "Proyecto", null, "2025-06-01 09:00");
+        int h1 = tareas.agregarSubtarea(p, "H1", "primera parte", "2025-05-01 09:00");
+        int h2 = tareas.agregarSubtarea(p, "H2", null, "2025-04-01 09:00");
+        int n1 = tareas.agregarSubtarea(h1, "N1", null, null);
+        comprobar(h1 > 0 && h2 > 0 && n1 > 0, "agregar subtareas");
+        comprobar(tareas.agregarSubtarea(-5, "X", null, null) == -1, "subtarea de una tarea inexistente");
+        Tarea tareaN1 = tareas.obtenerTareaPorId(n1);
+        comprobar(tareaN1.getIdTareaPadre() == h1 && tareaN1.getIdUsuario() == idUsuario
+                && tareas.obtenerTareaPorId(p).getIdTareaPadre() == 0, "padre de la subtarea");
+        comprobar(ids(tareas.buscarSubtareas(p, CampoTarea.TABLERO)).equals(List.of(h2, h1)), "hijas en orden de entrega");
+        List<Tarea> subarbol = tareas.obtenerSubarbol(p);
+        comprobar(ids(subarbol).equals(List.of(p, h2, h1, n1)), "subárbol por niveles: " + ids(subarbol));
+        comprobar(ids(tareas.buscarTareasDespuesDe(idUsuario, "", 0, 100, CampoTarea.TABLERO)).equals(List.of(d, c, p, b)),
+                "la paginación solo trae las de primer nivel");
+        comprobar(ids(tareas.buscarTareasAntesDe(idUsuario, "2025-12-31 23:59", b, 100, CampoTarea.TABLERO)).equals(List.of(d, c, p)),
+                "la paginación hacia atrás solo trae las de primer nivel");
+        comprobar(tareas.buscarTareasPorUsuario(idUsuario, 0, -1, CampoTarea.TABLERO).size() == 7, "por usuario incluye subtareas");
+
+        tareas.actualizarCompletada(n1, true);
+        Map<Integer, ProgresoSubtareas> progreso = tareas.obtenerProgreso(List.of(p, h1, h2, -5));
+        comprobar(new ProgresoSubtareas(3, 1).equals(progreso.get(p)) && new ProgresoSubtareas(1, 1).equals(progreso.get(h1))
+                && !progreso.containsKey(h2) && progreso.size() == 2, "progreso de subtareas: " + progreso);
+
+        subarbol = tareas.obtenerSubarbol(p);
+        version = tareas.obtenerVersionTablero(idUsuario);
+        tareas.eliminarTarea(p);
+        comprobar(tareas.obtenerTareaPorId(h1) == null && tareas.obtenerTareaPorId(n1) == null
+                && tareas.obtenerSubarbol(p).isEmpty(), "eliminar en cascada");
+        comprobar(tareas.obtenerVersionTablero(idUsuario) != version, "versión del tablero tras eliminar en cascada");
+        comprobar(estadisticas.equals(tareas.obtenerEstadisticas(idUsuario, hoy)), "estadísticas tras eliminar en cascada");
+
+        int[] restauradas = tareas.restaurarSubarbol(subarbol);
+        comprobar(restauradas.length == 4, "restaurar subárbol");
+        List<Tarea> nuevo = tareas.obtenerSubarbol(restauradas[0]);
+        comprobar(ids(nuevo).equals(List.of(restauradas[0], restauradas[1], restauradas[2], restauradas[3])), "subárbol restaurado");
+        comprobar(nuevo.get(3).getIdTareaPadre() == restauradas[2] && nuevo.get(3).isCompletada()
+                && "primera parte".equals(nuevo.get(2).getDescripcion()) && nuevo.get(0).getIdTareaPadre() == 0, "filas restauradas");
+        comprobar(tareas.obtenerEstadisticas(idUsuario, hoy).getTotal() == 7
+                && tareas.obtenerEstadisticas(idUsuario, hoy).getCompletadas() == estadisticas.getCompletadas() + 1, "estadísticas tras restaurar");
+        estadisticas = tareas.obtenerEstadisticas(idUsuario, hoy);
+        tareas.recalcularEstadisticas();
+        comprobar(estadisticas.equals(tareas.obtenerEstadisticas(idUsuario, hoy)), "recalcular con subtareas");
+
+        // Series: lunes y miércoles desde el 3 de marzo, 6 veces (hasta el 19)
+        SerieTareas serie = new SerieTareas(0, idUsuario, "Lectura", "un capítulo", "2025-03-03 09:00",
+                ReglaRecurrencia.parsear("FREQ=WEEKLY;BYDAY=MO,WE;COUNT=6"));
+        version = tareas.obtenerVersionTablero(idUsuario);
+        int s = tareas.agregarSerie(serie);
+        comprobar(s > 0, "agregar serie");
+        comprobar(tareas.obtenerVersionTablero(idUsuario) != version, "versión del tablero tras agregar serie");
+        SerieTareas guardada = tareas.obtenerSerie(s);
+        comprobar(guardada != null && guardada.getIdUsuario() == idUsuario && "2025-03-19 09:00".equals(guardada.getFin())
+                && guardada.getRegla().equals(serie.getRegla()) && "un capítulo".equals(guardada.getDescripcion()), "obtener serie");
+        comprobar(tareas.obtenerSerie(-5) == null, "serie inexistente");
+        comprobar(series(tareas.buscarSeriesEntreFechas(idUsuario, "2025-03-10", "2025-03-17")).equals(List.of(s)), "series por rango");
+        comprobar(tareas.buscarSeriesEntreFechas(idUsuario, "2025-03-20", "2025-04-01").isEmpty()
+                && tareas.buscarSeriesEntreFechas(idUsuario, "2025-01-01", "2025-03-03").isEmpty(), "series fuera del rango");
+
+        tareas.guardarExcepcion(s, new ExcepcionOcurrencia("2025-03-05 09:00", true, null, false));
+        tareas.guardarExcepcion(s, new ExcepcionOcurrencia("2025-03-10 09:00", false, "2025-03-20 10:00", false));
+        tareas.guardarExcepcion(s, new ExcepcionOcurrencia("2025-03-12 09:00", false, null, true));
+        List<SerieTareas> enMarzo = tareas.buscarSeriesEntreFechas(idUsuario, "2025-03-01", "2025-03-15");
+        comprobar(enMarzo.size() == 1 && enMarzo.get(0).getExcepciones().size() == 3, "excepciones del rango");
+        List<Tarea> ocurrencias = enMarzo.get(0).ocurrenciasEntre("2025-03-01", "2025-03-15");
+        comprobar(fechas(ocurrencias).equals(List.of("2025-03-03 09:00", "2025-03-12 09:00")) && ocurrencias.get(1).isCompletada()
+                && ocurrencias.get(0).getIdSerie() == s && ocurrencias.get(0).getIdTarea() == 0, "ocurrencias con excepciones: " + fechas(ocurrencias));
+        ocurrencias = tareas.buscarSeriesEntreFechas(idUsuario, "2025-03-15", "2025-03-22").get(0).ocurrenciasEntre("2025-03-15", "2025-03-22");
+        comprobar(fechas(ocurrencias).equals(List.of("2025-03-17 09:00", "2025-03-19 09:00", "2025-03-20 10:00"))
+                && "2025-03-10 09:00".equals(ocurrencias.get(2).getOcurrencia()), "ocurrencia movida: " + fechas(ocurrencias));
+        tareas.guardarExcepcion(s, new ExcepcionOcurrencia("2025-03-12 09:00", false, null, false));
+        comprobar(tareas.obtenerSerie(s).getExcepcion("2025-03-12 09:00") == null
+                && tareas.obtenerSerie(s).getExcepciones().size() == 2, "excepción vacía se quita");
+
+        // Sesiones de estudio: los tramos llegan ya partidos por día
+        tareas.agregarSesiones(List.of(new TramoEstudio(idUsuario, b, "2025-03-01", 1000, 60_000),
+                new TramoEstudio(idUsuario, b, "2025-03-02", 2000, 30_000), new TramoEstudio(idUsuario, c, "2025-03-02", 3000, 15_000)));
+        tareas.agregarSesiones(List.of());
+        Map<String, Long> porDia = tareas.tiempoPorDia(idUsuario, "2025-03-01", "2025-03-03");
+        comprobar(new ArrayList<>(porDia.keySet()).equals(List.of("2025-03-01", "2025-03-02"))
+                && porDia.get("2025-03-01") == 60_000 && porDia.get("2025-03-02") == 45_000, "tiempo por día: " + porDia);
+        comprobar(tareas.tiempoPorTarea(idUsuario, "2025-03-02", "2025-03-03").equals(Map.of(b, 30_000L, c, 15_000L))
+                && tareas.tiempoPorTarea(idUsuario, "2025-01-01", "2026-01-01").equals(Map.of(b, 90_000L, c, 15_000L)), "tiempo por tarea");
+        comprobar(tareas.tiempoPorDia(idUsuario, "2025-03-03", "2025-04-01").isEmpty()
+                && tareas.tiempoPorTarea(idUsuario + 1000, "2025-01-01", "2026-01-01").isEmpty(), "tiempo fuera del rango");
+
+        // Tarjetas de repaso: se guarda todo el estado SM-2 y se borran junto con su tarea
+        Tarjeta tarjeta = new Tarjeta(0, idUsuario, b, "Pregunta", "Respuesta");
+        int t1 = tareas.agregarTarjeta(tarjeta);
+        int t2 = tareas.agregarTarjeta(new Tarjeta(0, idUsuario, c, "Otra", null));
+        comprobar(t1 > 0 && t2 > 0 && t1 != t2, "agregar tarjetas");
+        comprobar(tareas.agregarTarjeta(new Tarjeta(0, idUsuario, -5, "x", null)) == -1
+                && tareas.agregarTarjeta(new Tarjeta(0, idUsuario + 1000, b, "x", null)) == -1, "tarjeta de una tarea ajena o inexistente");
+        tarjeta.setIdTarjeta(t1);
+        tarjeta.calificar(5, LocalDate.of(2025, 3, 1));
+        tarjeta.calificar(4, LocalDate.of(2025, 3, 2));
+        tareas.actualizarRepaso(tarjeta);
+        List<Tarjeta> guardadas = tareas.obtenerTarjetas(idUsuario);
+        comprobar(guardadas.size() == 2 && guardadas.get(0).getIdTarjeta() == t1 && guardadas.get(0).getIdTarea() == b
+                && guardadas.get(0).getRepeticiones() == 2 && guardadas.get(0).getIntervalo() == 6
+                && guardadas.get(0).getFacilidad() == tarjeta.getFacilidad() && "2025-03-08".equals(guardadas.get(0).getProximoRepaso())
+                && guardadas.get(1).getIdTarjeta() == t2 && guardadas.get(1).getReverso() == null, "estado de repaso guardado");
+        tareas.eliminarTarjeta(t2);
+        int conTarjeta = tareas.agregarTarea(idUsuario, "Con tarjeta", null, null);
+        int hija = tareas.agregarSubtarea(conTarjeta, "Hija con tarjeta", null, null);
+        tareas.agregarTarjeta(new Tarjeta(0, idUsuario, hija, "De la hija", null));
+        tareas.eliminarTarea(conTarjeta);
+        guardadas = tareas.obtenerTarjetas(idUsuario);
+        comprobar(guardadas.size() == 1 && guardadas.get(0).getIdTarjeta() == t1, "tarjetas eliminadas con su tarea");
+
+        version = tareas.obtenerVersionTablero(idUsuario);
+        tareas.eliminarSerie(s);
+        comprobar(tareas.obtenerSerie(s) == null && tareas.buscarSeriesEntreFechas(idUsuario, "2025-01-01", "2026-01-01").isEmpty(),
+                "eliminar serie");
+        comprobar(tareas.obtenerVersionTablero(idUsuario) != version, "versión del tablero tras eliminar serie");
+    }
+
+    // Mide las mismas operaciones en cada motor
+    public static void medir(String motor, TaskRepository tareas, UserRepository usuarios, int cantidad) throws InterruptedException {
+        usuarios.registrarUsuario("Banco", "banco@correo.com", "clave");
+        int idUsuario = usuarios.validarCredenciales("banco@correo.com", "clave");
+        Random random = new Random(42);
+        int[] ids = new int[cantidad];
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < cantidad; i++) {
+            String fecha = String.format("2025-%02d-%02d %02d:00", 1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24));
+            ids[i] = tareas.agregarTarea(idUsuario, "Tarea " + i, "Descripción de la tarea " + i, fecha);
+        }
+        reportar(motor, "insertar", cantidad, inicio);
+
+        inicio = System.nanoTime();
+        int leidas = 0;
+        String fecha = "";
+        int idTarea = 0;
+        List<Tarea> pagina;
+        do {
+            pagina = tareas.buscarTareasDespuesDe(idUsuario, fecha, idTarea, PAGINA, CampoTarea.TABLERO);
+            if (!pagina.isEmpty()) {
+                Tarea ultima = pagina.get(pagina.size() - 1);
+                fecha = ultima.getFechaEntrega();
+                idTarea = ultima.getIdTarea();
+            }
+            leidas += pagina.size();
+        } while (pagina.size() == PAGINA);
+        comprobar(leidas == cantidad, "recorrido completo por páginas");
+        reportar(motor, "recorrer por páginas", leidas, inicio);
+
+        inicio = System.nanoTime();
+        for (int mes = 1; mes <= 12; mes++) {
+            for (int semana = 0; semana < 4; semana++) {
+                String desde = String.format("2025-%02d-%02d", mes, 1 + semana * 7);
+                String hasta = String.format("2025-%02d-%02d", mes, 8 + semana * 7);
+                tareas.buscarTareasEntreFechas(idUsuario, desde, hasta, CampoTarea.TABLERO);
+            }
+        }
+        reportar(motor, "consultas por semana", 48, inicio);
+
+        int lecturas = Math.min(cantidad, 5000);
+        inicio = System.nanoTime();
+        for (int i = 0; i < lecturas; i++) {
+            tareas.obtenerTareaPorId(ids[random.nextInt(cantidad)]);
+        }
+        reportar(motor, "leer por id", lecturas, inicio);
+
+        inicio = System.nanoTime();
+        for (int i = 0; i < lecturas; i++) {
+            tareas.actualizarFechaEntrega(ids[i], "2026-01-01 00:00");
+        }
+        reportar(motor, "actualizar fecha", lecturas, inicio);
+
+        int marcas = Math.min(lecturas, 1000);
+        inicio = System.nanoTime();
+        for (int i = 0; i < marcas; i++) {
+            tareas.actualizarCompletada(ids[i], true);
+        }
+        reportar(motor, "completar de a una", marcas, inicio);
+
+        Map<Integer, Boolean> lote = new LinkedHashMap<>();
+        for (int i = marcas; i < 2 * marcas && i < cantidad; i++) {
+            lote.put(ids[i], true);
+        }
+        inicio = System.nanoTime();
+        tareas.actualizarCompletadas(lote);
+        reportar(motor, "completar en lote", lote.size(), inicio);
+
+        inicio = System.nanoTime();
+        LocalDate hoy = LocalDate.of(2025, 6, 15);
+        for (int i = 0; i < lecturas; i++) {
+            tareas.obtenerEstadisticas(idUsuario, hoy);
+        }
+        reportar(motor, "leer estadísticas", lecturas, inicio);
+
+        EstadisticasEstudio incrementales = tareas.obtenerEstadisticas(idUsuario, hoy);
+        inicio = System.nanoTime();
+        tareas.recalcularEstadisticas();
+        reportar(motor, "recalcular estadísticas", cantidad, inicio);
+        comprobar(incrementales.equals(tareas.obtenerEstadisticas(idUsuario, hoy)), "contadores tras la carga");
+
+        medirSubtareas(motor, tareas, idUsuario, ids);
+        medirSeries(motor, tareas, idUsuario);
+        medirSesiones(motor, tareas, idUsuario, ids);
+        medirRepasos(motor, tareas, idUsuario, ids);
+        medirRecomendaciones(motor, tareas, idUsuario, ids);
+        medirActividad(motor, tareas, idUsuario, ids);
+        medirCalendario(motor, tareas, idUsuario, ids);
+        medirKanban(motor, tareas, idUsuario, ids);
+        medirOrdenManual(motor, tareas, idUsuario);
+
+        inicio = System.nanoTime();
+        for (int id : ids) {
+            tareas.eliminarTarea(id);
+        }
+        reportar(motor, "eliminar", cantidad, inicio);
+    }
+
+    // Un proyecto desglosado en RAMAS^1 + ... + RAMAS^NIVELES subtareas, más el avance de una página
+    // de tareas de primer nivel como lo pide el tablero
+    private static void medirSubtareas(String motor, TaskRepository tareas, int idUsuario, int[] ids) {
+        final int ramas = 4;
+        final int niveles = 5;
+        long inicio = System.nanoTime();
+        int raiz = tareas.agregarTarea(idUsuario, "Proyecto", null, "2025-06-01 09:00");
+        List<Integer> nivel = List.of(raiz);
+        int total = 1;
+        for (int n = 0; n < niveles; n++) {
+            List<Integer> siguiente = new ArrayList<>();
+            for (int padre : nivel) {
+                for (int r = 0; r < ramas; r++) {
+                    siguiente.add(tareas.agregarSubtarea(padre, "Parte " + n + "." + r, null, null));
+                }
+            }
+            total += siguiente.size();
+            nivel = siguiente;
+        }
+        reportar(motor, "armar árbol", total, inicio);
+
+        // Las hojas de la mitad de las ramas quedan completadas
+        Map<Integer, Boolean> hojas = new LinkedHashMap<>();
+        for (int i = 0; i < nivel.size() / 2; i++) {
+            hojas.put(nivel.get(i), true);
+        }
+        tareas.actualizarCompletadas(hojas);
+
+        int repeticiones = 20;
+        List<Tarea> subarbol = null;
+        inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) {
+            subarbol = tareas.obtenerSubarbol(raiz);
+        }
+        reportar(motor, "leer subárbol", repeticiones, inicio);
+        comprobar(subarbol.size() == total, "subárbol completo");
+
+        List<Integer> pagina = new ArrayList<>();
+        pagina.add(raiz);
+        for (int i = 0; i < PAGINA - 1 && i < ids.length; i++) {
+            pagina.add(ids[i]);
+        }
+        Map<Integer, ProgresoSubtareas> progreso = null;
+        inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) {
+            progreso = tareas.obtenerProgreso(pagina);
+        }
+        reportar(motor, "progreso de una página", repeticiones, inicio);
+        comprobar(new ProgresoSubtareas(total - 1, hojas.size()).equals(progreso.get(raiz)), "progreso del árbol");
+
+        inicio = System.nanoTime();
+        tareas.eliminarTarea(raiz);
+        reportar(motor, "eliminar en cascada", total, inicio);
+        comprobar(tareas.obtenerTareaPorId(nivel.get(0)) == null, "hojas eliminadas");
+
+        inicio = System.nanoTime();
+        int[] restauradas = tareas.restaurarSubarbol(subarbol);
+        reportar(motor, "restaurar subárbol", total, inicio);
+        comprobar(restauradas.length == total, "árbol restaurado");
+        tareas.eliminarTarea(restauradas[0]);
+    }
+
+    // Cien series de dos veces por semana durante un año (un estudiante con varias materias), leídas
+    // de a un mes como el calendario. Materializarlas serían unas cien filas por serie.
+    private static void medirSeries(String motor, TaskRepository tareas, int idUsuario) {
+        final int cantidadSeries = 100;
+        ReglaRecurrencia regla = ReglaRecurrencia.parsear("FREQ=WEEKLY;BYDAY=MO,TH;UNTIL=20251231");
+        int[] series = new int[cantidadSeries];
+        long inicio = System.nanoTime();
+        for (int i = 0; i < cantidadSeries; i++) {
+            series[i] = tareas.agregarSerie(new SerieTareas(0, idUsuario, "Serie " + i, null,
+                    String.format("2025-01-%02d %02d:00", 1 + i % 28, 8 + i % 12), regla));
+        }
+        reportar(motor, "agregar series", cantidadSeries, inicio);
+        for (int i = 0; i < cantidadSeries; i += 10) {
+            tareas.guardarExcepcion(series[i], new ExcepcionOcurrencia(String.format("2025-06-%02d %02d:00", 2, 8 + i % 12), true, null, false));
+        }
+
+        int generadas = 0;
+        inicio = System.nanoTime();
+        for (int mes = 1; mes <= 12; mes++) {
+            String desde = String.format("2025-%02d-01", mes);
+            String hasta = mes == 12 ? "2026-01-01" : String.format("2025-%02d-01", mes + 1);
+            for (SerieTareas serie : tareas.buscarSeriesEntreFechas(idUsuario, desde, hasta)) {
+                generadas += serie.ocurrenciasEntre(desde, hasta).size();
+            }
+        }
+        reportar(motor, "ocurrencias por mes", generadas, inicio);
+        System.out.printf("%-8s %-22s %8d filas en vez de %d%n", motor, "series guardadas", cantidadSeries, generadas);
+
+        inicio = System.nanoTime();
+        for (int idSerie : series) {
+            tareas.eliminarSerie(idSerie);
+        }
+        reportar(motor, "eliminar series", cantidadSeries, inicio);
+    }
+
+    // Varios hilos registran a la vez los eventos de muchos cronómetros (como el servidor con muchos
+    // estudiantes): cada ciclo es iniciar, pausar al minuto, reanudar y detener al minuto siguiente,
+    // así que deja dos minutos estudiados. Se compara con guardar cada tramo en su propia transacción.
+    private static void medirSesiones(String motor, TaskRepository tareas, int idUsuario, int[] ids) throws InterruptedException {
+        final int hilos = 8;
+        int ciclosPorHilo = Math.max(1, ids.length * 5 / hilos);
+        int cronometrosPorHilo = Math.max(1, Math.min(500, ids.length / hilos));
+        long base = LocalDate.of(2025, 9, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        RegistroSesiones registro = new RegistroSesiones(() -> tareas, lote -> { });
+        long inicio = System.nanoTime();
+        try (ExecutorService ejecutor = Executors.newFixedThreadPool(hilos)) {
+            for (int h = 0; h < hilos; h++) {
+                int primero = h * cronometrosPorHilo;
+                ejecutor.submit(() -> {
+                    for (int i = 0; i < ciclosPorHilo; i++) {
+                        int idTarea = ids[(primero + i % cronometrosPorHilo) % ids.length];
+                        long t = base + (long) (i / cronometrosPorHilo) * 240_000;
+                        registro.registrar(idUsuario, idTarea, RegistroSesiones.INICIAR, t);
+                        registro.registrar(idUsuario, idTarea, RegistroSesiones.PAUSAR, t + 60_000);
+                        registro.registrar(idUsuario, idTarea, RegistroSesiones.REANUDAR, t + 120_000);
+                        registro.registrar(idUsuario, idTarea, RegistroSesiones.DETENER, t + 180_000);
+                    }
+                });
+            }
+        }
+        registro.vaciar();
+        reportar(motor, "eventos de estudio x" + hilos, hilos * ciclosPorHilo * 4, inicio);
+        registro.cerrar();
+
+        String desde = "2025-09-01";
+        String hasta = "2025-10-01";
+        int repeticiones = 100;
+        Map<String, Long> porDia = null;
+        inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) {
+            porDia = tareas.tiempoPorDia(idUsuario, desde, hasta);
+        }
+        reportar(motor, "tiempo por día (mes)", repeticiones, inicio);
+        Map<Integer, Long> porTarea = null;
+        inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) {
+            porTarea = tareas.tiempoPorTarea(idUsuario, desde, hasta);
+        }
+        reportar(motor, "tiempo por tarea (mes)", repeticiones, inicio);
+        long esperado = (long) hilos * ciclosPorHilo * 120_000;
+        comprobar(porDia.values().stream().mapToLong(Long::longValue).sum() == esperado
+                && porTarea.values().stream().mapToLong(Long::longValue).sum() == esperado, "tiempo estudiado registrado");
+
+        int sueltos = Math.min(1000, ids.length);
+        inicio = System.nanoTime();
+        for (int i = 0; i < sueltos; i++) {
+            tareas.agregarSesiones(List.of(new TramoEstudio(idUsuario, ids[i], "2025-10-01", base, 60_000)));
+        }
+        reportar(motor, "un tramo por transacción", sueltos, inicio);
+    }
+
+    // Tarjetas repartidas entre las tareas con repasos desde hace unos días hasta dentro de dos meses.
+    // La cola se arma una vez; pedir los repasos del día y calificar no recorren las tarjetas.
+    private static void medirRepasos(String motor, TaskRepository tareas, int idUsuario, int[] ids) {
+        int cantidad = ids.length * 5;
+        Random random = new Random(7);
+        LocalDate hoy = LocalDate.now();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < cantidad; i++) {
+            Tarjeta tarjeta = new Tarjeta(0, idUsuario, ids[i % ids.length], "Pregunta " + i, "Respuesta " + i);
+            tarjeta.setRepaso(2, 6, Tarjeta.FACILIDAD_INICIAL, hoy.plusDays(random.nextInt(65) - 5).toString());
+            tareas.agregarTarjeta(tarjeta);
+        }
+        reportar(motor, "agregar tarjetas", cantidad, inicio);
+
+        inicio = System.nanoTime();
+        List<Tarjeta> todas = tareas.obtenerTarjetas(idUsuario);
+        ColaRepasos cola = new ColaRepasos(todas);
+        reportar(motor, "armar cola de repasos", todas.size(), inicio);
+        comprobar(cola.getTamano() == cantidad, "tarjetas en la cola");
+
+        int consultas = 1000;
+        List<Tarjeta> pendientes = null;
+        inicio = System.nanoTime();
+        for (int i = 0; i < consultas; i++) {
+            pendientes = cola.pendientes(hoy, 50);
+        }
+        reportar(motor, "repasos del día (50)", consultas, inicio);
+        List<Integer> esperados = new ArrayList<>();
+        todas.stream().filter(t -> !LocalDate.parse(t.getProximoRepaso()).isAfter(hoy))
+                .sorted(Comparator.comparingLong(Tarjeta::diaProximoRepaso).thenComparingInt(Tarjeta::getIdTarjeta))
+                .limit(50).forEach(t -> esperados.add(t.getIdTarjeta()));
+        comprobar(tarjetas(pendientes).equals(esperados), "repasos del día en orden");
+
+        int calificaciones = Math.min(1000, cantidad);
+        inicio = System.nanoTime();
+        for (int i = 0; i < calificaciones; i++) {
+            List<Tarjeta> siguiente = cola.pendientes(hoy, 1);
+            if (siguiente.isEmpty()) {
+                break;
+            }
+            cola.calificar(siguiente.get(0).getIdTarjeta(), i % 6, hoy, tareas::actualizarRepaso);
+        }
+        reportar(motor, "calificar repaso", calificaciones, inicio);
+        comprobar(tarjetas(new ColaRepasos(tareas.obtenerTarjetas(idUsuario)).pendientes(hoy, 200))
+                .equals(tarjetas(cola.pendientes(hoy, 200))), "repasos guardados");
+    }
+
+    // Recomendador armado una vez y mantenido con cambios sueltos, contra uno armado de cero y contra
+    // ordenar todas las tareas por puntaje
+    private static void medirRecomendaciones(String motor, TaskRepository tareas, int idUsuario, int[] ids) {
+        Set<CampoTarea> campos = EnumSet.of(CampoTarea.COMPLETADA, CampoTarea.FECHA_ENTREGA);
+        Map<Integer, Long> estudio = tareas.tiempoPorTarea(idUsuario, "0000-01-01", "9999-12-31");
+        long ahora = System.currentTimeMillis();
+        long inicio = System.nanoTime();
+        List<Tarea> todas = tareas.buscarTareasPorUsuario(idUsuario, 0, -1, campos);
+        RecomendadorTareas recomendador = new RecomendadorTareas(todas, ahora);
+        recomendador.cambiarEstudio(estudio);
+        reportar(motor, "armar recomendador", todas.size(), inicio);
+
+        Random random = new Random(11);
+        int cambios = Math.min(1000, ids.length);
+        inicio = System.nanoTime();
+        for (int i = 0; i < cambios; i++) {
+            int idTarea = ids[random.nextInt(ids.length)];
+            String fecha = LocalDate.now().plusDays(random.nextInt(30) - 5) + " 12:00";
+            tareas.actualizarFechaEntrega(idTarea, fecha);
+            recomendador.cambiarFecha(idTarea, fecha);
+            if (i % 3 == 0) {
+                boolean completada = random.nextBoolean();
+                tareas.actualizarCompletada(idTarea, completada);
+                recomendador.cambiarCompletada(idTarea, completada);
+            }
+            if (i % 50 == 0) {
+                int hija = tareas.agregarSubtarea(idTarea, "Parte " + i, null, null);
+                recomendador.agregar(hija, idTarea, null, false);
+            }
+            recomendador.recomendar(10, ahora);
+        }
+        reportar(motor, "cambio + recomendar (10)", cambios, inicio);
+
+        int[] recomendadas = recomendador.recomendar(10, ahora);
+        RecomendadorTareas deCero = new RecomendadorTareas(tareas.buscarTareasPorUsuario(idUsuario, 0, -1, campos), ahora);
+        deCero.cambiarEstudio(estudio);
+        comprobar(Arrays.equals(recomendadas, deCero.recomendar(10, ahora)), "recomendación incremental igual a la armada de cero");
+        List<Integer> pendientes = new ArrayList<>();
+        for (Tarea tarea : tareas.buscarTareasPorUsuario(idUsuario, 0, -1, campos)) {
+            if (!tarea.isCompletada()) {
+                pendientes.add(tarea.getIdTarea());
+            }
+        }
+        pendientes.sort(Comparator.comparingDouble((Integer id) -> -recomendador.puntaje(id)).thenComparingInt(id -> id));
+        List<Integer> esperadas = new ArrayList<>();
+        for (int id : recomendadas) {
+            esperadas.add(id);
+        }
+        comprobar(esperadas.equals(pendientes.subList(0, Math.min(10, pendientes.size()))), "recomendación igual a ordenar todas");
+    }
+
+    // Actividad mantenida con cambios sueltos contra la armada de cero, y el tamaño y la lectura de un
+    // año de actividad para muchos usuarios
+    private static void medirActividad(String motor, TaskRepository tareas, int idUsuario, int[] ids) {
+        LocalDate hoy = LocalDate.now();
+        String desde = hoy.minusDays(ActividadUsuario.DIAS - 1).toString();
+        String hasta = hoy.plusDays(1).toString();
+        long inicio = System.nanoTime();
+        ActividadUsuario actividad = new ActividadUsuario(hoy.toEpochDay(), tareas.completadasPorDia(idUsuario, desde, hasta),
+                tareas.tiempoPorDia(idUsuario, desde, hasta));
+        reportar(motor, "armar actividad", 1, inicio);
+
+        // Tareas nuevas: desmarcar solo resta si la marca fue después de armar la actividad
+        int marcas = 200;
+        List<TramoEstudio> tramos = new ArrayList<>();
+        for (int i = 0; i < marcas; i++) {
+            int idTarea = tareas.agregarTarea(idUsuario, "Hábito " + i, null, null);
+            tareas.actualizarCompletada(idTarea, true);
+            actividad.cambiarCompletada(idTarea, true, hoy.toEpochDay());
+            if (i % 4 == 0) {
+                tareas.actualizarCompletada(idTarea, false);
+                actividad.cambiarCompletada(idTarea, false, hoy.toEpochDay());
+            }
+            tramos.add(new TramoEstudio(idUsuario, idTarea, hoy.minusDays(i % 40).toString(), 0, (1 + i % 7) * 60_000));
+        }
+        tareas.agregarSesiones(tramos);
+        for (TramoEstudio tramo : tramos) {
+            actividad.sumarEstudio(tramo.getDia(), tramo.getDuracion());
+        }
+        ActividadUsuario deCero = new ActividadUsuario(hoy.toEpochDay(), tareas.completadasPorDia(idUsuario, desde, hasta),
+                tareas.tiempoPorDia(idUsuario, desde, hasta));
+        comprobar(actividad.instantanea(hoy).equals(deCero.instantanea(hoy)), "actividad incremental igual a la armada de cero");
+
+        int usuarios = 10_000;
+        Random random = new Random(5);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long antes = runtime.totalMemory() - runtime.freeMemory();
+        ActividadUsuario[] todas = new ActividadUsuario[usuarios];
+        for (int u = 0; u < usuarios; u++) {
+            todas[u] = new ActividadUsuario(hoy.toEpochDay(), Map.of(), Map.of());
+            for (int d = 0; d < ActividadUsuario.DIAS; d += 1 + random.nextInt(3)) {
+                todas[u].sumarEstudio(hoy.minusDays(d).toString(), random.nextInt(120) * 60_000L);
+            }
+        }
+        System.gc();
+        long despues = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("%-8s %-24s %8d usuarios %8.1f MB%n", motor, "memoria de un año", usuarios, (despues - antes) / 1e6);
+        int lecturas = 100_000;
+        int rachas = 0;
+        inicio = System.nanoTime();
+        for (int i = 0; i < lecturas; i++) {
+            rachas += todas[random.nextInt(usuarios)].instantanea(hoy).getRachaMaxima();
+        }
+        reportar(motor, "leer actividad y rachas", lecturas, inicio);
+        comprobar(rachas > 0, "rachas de los usuarios simulados");
+    }
+
+    // Índice por día mantenido con cambios de fecha contra la consulta por rango, y el paso de un mes
+    // al siguiente como lo hace el calendario
+    private static void medirCalendario(String motor, TaskRepository tareas, int idUsuario, int[] ids) {
+        Set<CampoTarea> campos = EnumSet.of(CampoTarea.FECHA_ENTREGA);
+        long inicio = System.nanoTime();
+        IndiceDias indice = new IndiceDias(tareas.buscarTareasPorUsuario(idUsuario, 0, -1, campos));
+        reportar(motor, "armar índice por día", 1, inicio);
+
+        LocalDate hoy = LocalDate.now();
+        Random random = new Random(17);
+        int cambios = Math.min(1000, ids.length);
+        for (int i = 0; i < cambios; i++) {
+            int idTarea = ids[random.nextInt(ids.length)];
+            String fecha = i % 10 == 0 ? null : hoy.plusDays(random.nextInt(60) - 30) + String.format(" %02d:00", random.nextInt(24));
+            tareas.actualizarFechaEntrega(idTarea, fecha);
+            indice.cambiarFecha(idTarea, fecha);
+        }
+        LocalDate desde = hoy.minusDays(30);
+        int dias = 60;
+        int[][] porDia = indice.entre(desde.toEpochDay(), dias);
+        Map<Long, Set<Integer>> esperados = new HashMap<>();
+        for (Tarea tarea : tareas.buscarTareasEntreFechas(idUsuario, desde.toString(), desde.plusDays(dias).toString(), campos)) {
+            esperados.computeIfAbsent(ActividadUsuario.diaDesde1970(tarea.getFechaEntrega()), d -> new HashSet<>()).add(tarea.getIdTarea());
+        }
+        boolean iguales = true;
+        for (int i = 0; i < dias; i++) {
+            Set<Integer> delDia = new HashSet<>();
+            for (int id : porDia[i]) {
+                delDia.add(id);
+            }
+            iguales &= delDia.equals(esperados.getOrDefault(desde.toEpochDay() + i, Set.of()));
+        }
+        comprobar(iguales, "índice por día igual a la consulta por rango");
+
+        int meses = 12_000;
+        int vistas = 0;
+        inicio = System.nanoTime();
+        for (int i = 0; i < meses; i++) {
+            LocalDate primero = hoy.withDayOfMonth(1).plusMonths(i % 240 - 120);
+            vistas += indice.entre(primero.with(DayOfWeek.MONDAY).toEpochDay(), 42).length;
+        }
+        reportar(motor, "cambiar de mes (42 días)", meses, inicio);
+        comprobar(vistas == meses * 42, "días del calendario");
+    }
+
+    // Movimientos del Kanban: un lote grande en una sola transacción contra una tarea por llamada
+    private static void medirKanban(String motor, TaskRepository tareas, int idUsuario, int[] ids) {
+        int lote = Math.min(1000, ids.length);
+        Map<Integer, EstadoTarea> movidas = new LinkedHashMap<>();
+        for (int i = 0; i < lote; i++) {
+            movidas.put(ids[i], EstadoTarea.EN_PROGRESO);
+        }
+        long inicio = System.nanoTime();
+        tareas.actualizarEstados(movidas);
+        reportar(motor, "mover al Kanban (lote)", lote, inicio);
+
+        int sueltas = Math.min(200, lote);
+        inicio = System.nanoTime();
+        for (int i = 0; i < sueltas; i++) {
+            tareas.actualizarEstados(Map.of(ids[i], EstadoTarea.COMPLETADA));
+        }
+        reportar(motor, "mover al Kanban (de a una)", sueltas, inicio);
+
+        Map<Integer, EstadoTarea> estados = estados(tareas.buscarTareasPorUsuario(idUsuario, 0, -1, EnumSet.of(CampoTarea.COMPLETADA, CampoTarea.ESTADO)));
+        boolean iguales = true;
+        for (int i = 0; i < lote; i++) {
+            iguales &= estados.get(ids[i]) == (i < sueltas ? EstadoTarea.COMPLETADA : EstadoTarea.EN_PROGRESO);
+        }
+        comprobar(iguales, "estados tras mover en lote");
+    }
+
+    // Orden manual: claves entre dos dadas siempre en medio, movimientos de a una fila contra una lista
+    // que se reordena en memoria, y el rebalanceo cuando se insiste en el mismo hueco
+    private static void medirOrdenManual(String motor, TaskRepository tareas, int idUsuario) {
+        Random random = new Random(23);
+        boolean entre = true;
+        for (int i = 0; i < 2000; i++) {
+            String[] dos = ClavesOrden.repartir(2 + random.nextInt(500));
+            String a = random.nextBoolean() ? null : dos[0];
+            String b = random.nextBoolean() ? null : dos[dos.length - 1];
+            for (int j = 0; j < 40; j++) {
+                String clave = ClavesOrden.entre(a, b);
+                entre &= (a == null || a.compareTo(clave) < 0) && (b == null || clave.compareTo(b) < 0) && !clave.endsWith("0");
+                if (random.nextBoolean()) {
+                    a = clave;
+                } else {
+                    b = clave;
+                }
+            }
+        }
+        String[] repartidas = ClavesOrden.repartir(5000);
+        String[] agregadas = ClavesOrden.entre(repartidas[4998], repartidas[4999], 1000);
+        for (int i = 1; i < repartidas.length; i++) {
+            entre &= repartidas[i - 1].compareTo(repartidas[i]) < 0;
+        }
+        for (int i = 1; i < agregadas.length; i++) {
+            entre &= agregadas[i - 1].compareTo(agregadas[i]) < 0 && agregadas[i].length() <= 6;
+        }
+        comprobar(entre, "claves de orden siempre en medio");
+
+        OrdenManual orden = new OrdenManual(() -> tareas, id -> {
+            List<Tarea> primerNivel = new ArrayList<>();
+            for (Tarea tarea : tareas.buscarTareasPorUsuario(id, 0, -1, EnumSet.of(CampoTarea.FECHA_ENTREGA, CampoTarea.ORDEN))) {
+                if (tarea.getIdTareaPadre() == 0) {
+                    primerNivel.add(tarea);
+                }
+            }
+            return primerNivel;
+        });
+        long inicio = System.nanoTime();
+        orden.rebalancear(idUsuario);
+        List<Integer> esperado = new ArrayList<>(ids(orden.ordenar(ordenadas(tareas, idUsuario))));
+        reportar(motor, "repartir claves de orden", esperado.size(), inicio);
+
+        int movimientos = Math.min(2000, esperado.size() * 4);
+        int fallidos = 0;
+        long version = tareas.obtenerVersionTablero(idUsuario);
+        inicio = System.nanoTime();
+        for (int i = 0; i < movimientos; i++) {
+            // La mitad de los movimientos van siempre al segundo lugar, para que las claves crezcan
+            int desde = random.nextInt(esperado.size());
+            int hasta = i % 2 == 0 ? 1 : random.nextInt(esperado.size());
+            int idTarea = esperado.remove(desde);
+            esperado.add(hasta, idTarea);
+            int anterior = hasta > 0 ? esperado.get(hasta - 1) : 0;
+            int siguiente = hasta < esperado.size() - 1 ? esperado.get(hasta + 1) : 0;
+            if (orden.mover(idTarea, anterior, siguiente) == null) {
+                fallidos++;
+            }
+        }
+        reportar(motor, "mover en el orden manual", movimientos, inicio);
+        orden.esperarRebalanceo();
+        orden.cerrar();
+        List<Tarea> leidas = ordenadas(tareas, idUsuario);
+        int largo = 0;
+        for (Tarea tarea : leidas) {
+            largo = Math.max(largo, tarea.getOrden().length());
+        }
+        comprobar(fallidos == 0 && ids(leidas).equals(esperado), "orden manual tras mover");
+        comprobar(largo <= 13, "claves cortas tras rebalancear: " + largo);
+        comprobar(tareas.obtenerVersionTablero(idUsuario) == version, "mover en el orden no cambia el tablero");
+    }
+
+    private static List<Tarea> ordenadas(TaskRepository tareas, int idUsuario) {
+        List<Tarea> primerNivel = new ArrayList<>();
+        for (Tarea tarea : tareas.buscarTareasPorUsuario(idUsuario, 0, -1, EnumSet.of(CampoTarea.FECHA_ENTREGA, CampoTarea.ORDEN))) {
+            if (tarea.getIdTareaPadre() == 0) {
+                primerNivel.add(tarea);
+            }
+        }
+        primerNivel.sort(OrdenManual.ORDEN);
+        return primerNivel;
+    }
+
+    // La aplicación usa el repositorio a la vez desde el EDT, los SwingWorkers del tablero y los
+    // escritores de fondo: altas, lotes de completadas y lecturas de páginas del mismo usuario en
+    // paralelo no pueden perder filas ni desparejar los contadores
+    private static void verificarEscritoresDeFondo(TaskRepository tareas, UserRepository usuarios) throws InterruptedException {
+        usuarios.registrarUsuario("Fondo", "fondo@correo.com", "clave");
+        int idUsuario = usuarios.validarCredenciales("fondo@correo.com", "clave");
+        List<Integer> ids = Collections.synchronizedList(new ArrayList<>());
+        int altas = 300;
+        int lotesSesiones = 100;
+        Map<Integer, String> ultimasClaves = new HashMap<>();
+        try (ExecutorService ejecutor = Executors.newFixedThreadPool(5)) {
+            ejecutor.submit(() -> {
+                for (int i = 0; i < altas; i++) {
+                    int idTarea = tareas.agregarTarea(idUsuario, "Fondo " + i, null, "2025-06-01 10:00");
+                    if (idTarea > 0) {
+                        ids.add(idTarea);
+                    }
+                }
+            });
+            ejecutor.submit(() -> {
+                Random random = new Random(5);
+                for (int i = 0; i < altas / 2; i++) {
+                    Map<Integer, Boolean> lote = new HashMap<>();
+                    synchronized (ids) {
+                        for (int j = 0; j < 3 && !ids.isEmpty(); j++) {
+                            lote.put(ids.get(random.nextInt(ids.size())), random.nextBoolean());
+                        }
+                    }
+                    tareas.actualizarCompletadas(lote);
+                }
+            });
+            ejecutor.submit(() -> {
+                for (int i = 0; i < altas / 2; i++) {
+                    tareas.buscarTareasDespuesDe(idUsuario, "", 0, 60, CampoTarea.TABLERO);
+                }
+            });
+            // Como el hilo de RegistroSesiones: lotes de tramos cerrados de un minuto
+            ejecutor.submit(() -> {
+                for (int i = 0; i < lotesSesiones; i++) {
+                    tareas.agregarSesiones(List.of(new TramoEstudio(idUsuario, 0, "2025-06-01", i * 60_000L, 60_000),
+                            new TramoEstudio(idUsuario, 0, "2025-06-02", i * 60_000L, 60_000)));
+                }
+            });
+            // Como el rebalanceo de OrdenManual: claves nuevas para todas las tareas en un lote
+            ejecutor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    List<Integer> actuales;
+                    synchronized (ids) {
+                        actuales = new ArrayList<>(ids);
+                    }
+                    String[] claves = ClavesOrden.repartir(actuales.size());
+                    Map<Integer, String> lote = new HashMap<>();
+                    for (int j = 0; j < claves.length; j++) {
+                        lote.put(actuales.get(j), claves[j]);
+                    }
+                    tareas.actualizarOrden(lote);
+                    ultimasClaves.clear();
+                    ultimasClaves.putAll(lote);
+                }
+            });
+        }
+        boolean clavesIguales = true;
+        for (Map.Entry<Integer, String> clave : ultimasClaves.entrySet()) {
+            clavesIguales &= clave.getValue().equals(tareas.obtenerTareaPorId(clave.getKey()).getOrden());
+        }
+        comprobar(clavesIguales, "orden manual con escritores de fondo");
+        comprobar(tareas.tiempoPorDia(idUsuario, "2025-06-01", "2025-06-03")
+                .equals(Map.of("2025-06-01", lotesSesiones * 60_000L, "2025-06-02", lotesSesiones * 60_000L)), "sesiones con escritores de fondo");
+        int filas = tareas.buscarTareasPorUsuario(idUsuario, 0, -1, CampoTarea.TABLERO).size();
+        comprobar(ids.size() == altas && filas == altas, "altas con escritores de fondo: " + ids.size() + " ids, " + filas + " filas");
+        LocalDate hoy = LocalDate.now();
+        EstadisticasEstudio incrementales = tareas.obtenerEstadisticas(idUsuario, hoy);
+        tareas.recalcularEstadisticas();
+        comprobar(incrementales.equals(tareas.obtenerEstadisticas(idUsuario, hoy)), "contadores con escritores de fondo");
+    }
+
+    // Cada hilo escribe las tareas de su propio usuario, como lo haría el servidor con varios estudiantes
+    public static void medirConcurrente(String motor, TaskRepository tareas, UserRepository usuarios, int hilos, int cantidad) throws InterruptedException {
+        int[] idsUsuario = new int[hilos];
+        for (int h = 0; h < hilos; h++) {
+            String correo = "concurrente" + h + "@correo.com";
+            usuarios.registrarUsuario("Concurrente " + h, correo, "clave");
+            idsUsuario[h] = usuarios.validarCredenciales(correo, "clave");
+        }
+        int porHilo = cantidad / hilos;
+        long inicio = System.nanoTime();
+        try (ExecutorService ejecutor = Executors.newFixedThreadPool(hilos)) {
+            for (int h = 0; h < hilos; h++) {
+                int idUsuario = idsUsuario[h];
+                ejecutor.submit(() -> {
+                    for (int i = 0; i < porHilo; i++) {
+                        tareas.agregarTarea(idUsuario, "Tarea " + i, "Descripción " + i, "2025-06-01 10:00");
+                    }
+                });
+            }
+        }
+        reportar(motor, "insertar x" + hilos + " hilos", porHilo * hilos, inicio);
+        for (int idUsuario : idsUsuario) {
+            comprobar(tareas.buscarTareasPorUsuario(idUsuario, 0, -1, CampoTarea.TABLERO).size() == porHilo, "escrituras concurrentes");
+        }
+    }
+
+    private static List<Integer> ids(List<Tarea> tareas) {
+        List<Integer> ids = new ArrayList<>();
+        for (Tarea tarea : tareas) {
+            ids.add(tarea.getIdTarea());
+        }
+        return ids;
+    }
+
+    private static List<Integer> tarjetas(List<Tarjeta> tarjetas) {
+        List<Integer> ids = new ArrayList<>();
+        for (Tarjeta tarjeta : tarjetas) {
+            ids.add(tarjeta.getIdTarjeta());
+        }
+        return ids;
+    }
+
+    private static List<Integer> series(List<SerieTareas> series) {
+        List<Integer> ids = new ArrayList<>();
+        for (SerieTareas serie : series) {
+            ids.add(serie.getIdSerie());
+        }
+        return ids;
+    }
+
+    private static List<String> fechas(List<Tarea> tareas) {
+        List<String> fechas = new ArrayList<>();
+        for (Tarea tarea : tareas) {
+            fechas.add(tarea.getFechaEntrega());
+        }
+        return fechas;
+    }
+
+    private static Map<Integer, EstadoTarea> estados(List<Tarea> tareas) {
+        Map<Integer, EstadoTarea> estados = new HashMap<>();
+        for (Tarea tarea : tareas) {
+            estados.put(tarea.getIdTarea(), tarea.getEstado());
+        }
+        return estados;
+    }
+
+    private static void comprobar(boolean condicion, String prueba) {
+        if (!condicion) {
+            throw new IllegalStateException("Falló la prueba: " + prueba);
+        }
+    }
+
+    private static void reportar(String motor, String operacion, int cantidad, long inicio) {
+        double ms = (System.nanoTime() - inicio) / 1_000_000.0;
+        System.out.printf("%-8s %-22s %8d ops %10.1f ms %12.0f ops/s%n", motor, operacion, cantidad, ms, cantidad / (ms / 1000.0));
+    }
+}
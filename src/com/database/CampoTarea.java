@@ -0,0 +1,35 @@
+package com.database;
+
+import com.implementation.Tarea;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Columnas que se pueden pedir al consultar tareas (idTarea, idUsuario e idTareaPadre siempre se incluyen)
+public enum CampoTarea {
+    NOMBRE("nombre"),
+    DESCRIPCION("descripcion"),
+    // Solo el inicio de la descripción, suficiente para la vista previa del tablero
+    RESUMEN("substr(descripcion, 1, " + Tarea.LARGO_RESUMEN + ") AS descripcion"),
+    COMPLETADA("completada"),
+    FECHA_ENTREGA("fechaEntrega"),
+    // Columna del Kanban (ver EstadoTarea)
+    ESTADO("estado"),
+    // Clave del orden manual del Kanban (ver ClavesOrden); null si todavía no tiene
+    ORDEN("orden");
+
+    public static final Set<CampoTarea> TODOS =
+            Collections.unmodifiableSet(EnumSet.of(NOMBRE, DESCRIPCION, COMPLETADA, FECHA_ENTREGA, ESTADO, ORDEN));
+    public static final Set<CampoTarea> TABLERO =
+            Collections.unmodifiableSet(EnumSet.of(NOMBRE, RESUMEN, COMPLETADA, FECHA_ENTREGA));
+
+    private final String columna;
+
+    CampoTarea(String columna) {
+        this.columna = columna;
+    }
+
+    public String getColumna() {
+        return columna;
+    }
+}
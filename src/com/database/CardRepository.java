@@ -0,0 +1,19 @@
+package com.database;
+
+import com.implementation.Tarjeta;
+import java.util.List;
+
+// Tarjetas de repaso de las tareas (repetición espaciada)
+public interface CardRepository {
+    // idTarjeta generado, o -1 si no se pudo guardar (por ejemplo, si la tarea no existe).
+    // Las tarjetas de una tarea se eliminan con ella.
+    int agregarTarjeta(Tarjeta tarjeta);
+
+    // Guarda el estado de repaso (repeticiones, intervalo, facilidad y próximo repaso) de la tarjeta
+    void actualizarRepaso(Tarjeta tarjeta);
+
+    void eliminarTarjeta(int idTarjeta);
+
+    // Todas las tarjetas del usuario, en orden de idTarjeta
+    List<Tarjeta> obtenerTarjetas(int idUsuario);
+}
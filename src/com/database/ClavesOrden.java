@@ -0,0 +1,94 @@
+package com.database;
+
+// Claves del orden manual (índices fraccionarios): cada clave es la parte decimal de un número entre
+// 0 y 1 escrita en base 62, y compararlas como texto es comparar los números. Entre dos claves
+// siempre hay otra, así mover una tarjeta cambia solo su clave y no renumera las demás. Las claves
+// nunca terminan en el dígito cero, para que no haya dos distintas con el mismo valor.
+final class ClavesOrden {
+    // En el mismo orden que ASCII, así String.compareTo y ORDER BY (binario) ordenan igual
+    private static final String DIGITOS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITOS.length();
+
+    private ClavesOrden() {
+    }
+
+    // Clave estrictamente entre anterior y siguiente; null en cualquiera de los dos es el extremo
+    // (0 o 1). anterior tiene que ser menor que siguiente.
+    static String entre(String anterior, String siguiente) {
+        String a = anterior == null ? "" : anterior;
+        if (siguiente != null && a.compareTo(siguiente) >= 0) {
+            throw new IllegalArgumentException("Claves fuera de orden: " + anterior + " >= " + siguiente);
+        }
+        StringBuilder clave = new StringBuilder();
+        int i = 0;
+        while (true) {
+            int da = i < a.length() ? valor(a.charAt(i)) : 0;
+            int db = siguiente == null || i >= siguiente.length() ? BASE : valor(siguiente.charAt(i));
+            if (db - da > 1) {
+                return clave.append(DIGITOS.charAt((da + db) / 2)).toString();
+            }
+            if (db - da == 1 && siguiente != null && i < siguiente.length() - 1) {
+                // siguiente sigue después de este dígito: cortarla acá ya da algo menor que ella
+                return clave.append(DIGITOS.charAt(db)).toString();
+            }
+            // Mismo dígito, o consecutivos sin lugar en el medio: se copia el de anterior y el de
+            // siguiente deja de limitar cuando ya quedó por encima
+            clave.append(DIGITOS.charAt(da));
+            if (db != da) {
+                siguiente = null;
+            }
+            i++;
+        }
+    }
+
+    // n claves en orden entre anterior y siguiente. Se parte siempre por la mitad, así el largo
+    // crece con el logaritmo de n y no con n como al pedirlas de a una al final.
+    static String[] entre(String anterior, String siguiente, int n) {
+        String[] claves = new String[n];
+        llenar(claves, 0, n, anterior, siguiente);
+        return claves;
+    }
+
+    private static void llenar(String[] claves, int desde, int hasta, String anterior, String siguiente) {
+        if (desde >= hasta) {
+            return;
+        }
+        int medio = (desde + hasta) >>> 1;
+        claves[medio] = entre(anterior, siguiente);
+        llenar(claves, desde, medio, anterior, claves[medio]);
+        llenar(claves, medio + 1, hasta, claves[medio], siguiente);
+    }
+
+    // n claves repartidas de forma pareja, todas del mismo largo (el mínimo que alcanza), en orden
+    static String[] repartir(int n) {
+        String[] claves = new String[n];
+        int largo = 1;
+        long capacidad = BASE;
+        while (capacidad <= n) {
+            largo++;
+            capacidad *= BASE;
+        }
+        for (int i = 0; i < n; i++) {
+            long numero = (i + 1) * capacidad / (n + 1);
+            char[] digitos = new char[largo];
+            for (int d = largo - 1; d >= 0; d--) {
+                digitos[d] = DIGITOS.charAt((int) (numero % BASE));
+                numero /= BASE;
+            }
+            int fin = largo;
+            while (digitos[fin - 1] == '0') {
+                fin--;
+            }
+            claves[i] = new String(digitos, 0, fin);
+        }
+        return claves;
+    }
+
+    private static int valor(char digito) {
+        int valor = DIGITOS.indexOf(digito);
+        if (valor < 0) {
+            throw new IllegalArgumentException("Dígito inválido en la clave de orden: " + digito);
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,105 @@
+package com.database;
+
+import com.implementation.Tarea;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Escrituras de "completada" que todavía no llegaron a la base. La tarjeta cambia en pantalla al
+// instante y el valor queda acá; un hilo de fondo guarda todo lo acumulado en una sola transacción
+// poco después del primer cambio. Si la misma tarea se marca y desmarca varias veces en ese lapso
+// solo se guarda el último valor (y si volvió al original, el repositorio no escribe nada).
+class ColaCompletadas {
+    private static final long DEMORA_MS = 400;
+
+    private final Supplier<TaskRepository> repositorio;
+    private final Map<Integer, Boolean> pendientes = new LinkedHashMap<>();
+    // Lote que se está guardando: hasta que termine se sigue superponiendo a lo leído de la base
+    private Map<Integer, Boolean> enEscritura = Map.of();
+    // Los lotes se guardan de a uno y en orden, para que uno viejo no pise a uno nuevo
+    private final Object escritura = new Object();
+    // Se crea con el primer cambio, así no suma un hilo al arranque
+    private ScheduledExecutorService escritor;
+    private ScheduledFuture<?> programada;
+
+    ColaCompletadas(Supplier<TaskRepository> repositorio) {
+        this.repositorio = repositorio;
+    }
+
+    synchronized void encolar(Map<Integer, Boolean> cambios) {
+        pendientes.putAll(cambios);
+        if (programada == null) {
+            if (escritor == null) {
+                escritor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread hilo = new Thread(r, "escritor-completadas");
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+            }
+            programada = escritor.schedule(this::vaciar, DEMORA_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Guarda ya lo pendiente en el hilo que llama (antes de leer estadísticas o de cerrar)
+    void vaciar() {
+        synchronized (escritura) {
+            Map<Integer, Boolean> lote;
+            synchronized (this) {
+                if (programada != null) {
+                    programada.cancel(false);
+                    programada = null;
+                }
+                if (pendientes.isEmpty()) {
+                    return;
+                }
+                lote = new LinkedHashMap<>(pendientes);
+                pendientes.clear();
+                enEscritura = lote;
+            }
+            try {
+                repositorio.get().actualizarCompletadas(lote);
+            } finally {
+                synchronized (this) {
+                    enEscritura = Map.of();
+                }
+            }
+        }
+    }
+
+    // Las tareas leídas de la base mientras hay cambios sin guardar se muestran con el valor nuevo
+    synchronized void aplicarPendientes(List<Tarea> tareas) {
+        if (pendientes.isEmpty() && enEscritura.isEmpty()) {
+            return;
+        }
+        for (Tarea tarea : tareas) {
+            aplicarPendiente(tarea);
+        }
+    }
+
+    synchronized void aplicarPendiente(Tarea tarea) {
+        if (tarea == null) {
+            return;
+        }
+        Boolean completada = pendientes.get(tarea.getIdTarea());
+        if (completada == null) {
+            completada = enEscritura.get(tarea.getIdTarea());
+        }
+        if (completada != null && completada != tarea.isCompletada()) {
+            tarea.setCompletada(completada);
+        }
+    }
+
+    void cerrar() {
+        vaciar();
+        synchronized (this) {
+            if (escritor != null) {
+                escritor.shutdown();
+            }
+        }
+    }
+}
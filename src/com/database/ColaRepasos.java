@@ -0,0 +1,110 @@
+package com.database;
+
+import com.estructuras.MonticuloIndexado;
+import com.implementation.Tarea;
+import com.implementation.Tarjeta;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Tarjetas de repaso de un usuario en un montículo indexado por idTarjeta, ordenado por el día del
+// próximo repaso. Se arma una vez con todas las tarjetas y después GestorRegistro le avisa cada alta,
+// calificación o baja: calificar mueve una sola tarjeta en O(log n) y los repasos del día salen de la
+// raíz del montículo, sin recorrer las tarjetas que todavía no tocan.
+final class ColaRepasos implements OyenteTareas {
+    private final MonticuloIndexado porDia;
+    private final Map<Integer, Tarjeta> tarjetas;
+    // Para sacar las tarjetas de una tarea cuando se elimina
+    private final Map<Integer, Set<Integer>> porTarea = new HashMap<>();
+
+    ColaRepasos(List<Tarjeta> tarjetas) {
+        porDia = new MonticuloIndexado(tarjetas.size());
+        this.tarjetas = new HashMap<>(tarjetas.size() * 2);
+        for (Tarjeta tarjeta : tarjetas) {
+            agregar(tarjeta);
+        }
+    }
+
+    synchronized void agregar(Tarjeta tarjeta) {
+        tarjetas.put(tarjeta.getIdTarjeta(), tarjeta);
+        porTarea.computeIfAbsent(tarjeta.getIdTarea(), k -> new HashSet<>()).add(tarjeta.getIdTarjeta());
+        porDia.insertar(tarjeta.getIdTarjeta(), tarjeta.diaProximoRepaso());
+    }
+
+    // Copia, o null si la tarjeta no es de este usuario
+    synchronized Tarjeta obtener(int idTarjeta) {
+        Tarjeta tarjeta = tarjetas.get(idTarjeta);
+        return tarjeta == null ? null : tarjeta.copia();
+    }
+
+    // Aplica la calificación, la guarda y reubica la tarjeta. Se guarda con el candado tomado para
+    // que dos calificaciones seguidas de la misma tarjeta lleguen a la base en el mismo orden.
+    synchronized Tarjeta calificar(int idTarjeta, int calidad, LocalDate hoy, Consumer<Tarjeta> guardar) {
+        Tarjeta tarjeta = tarjetas.get(idTarjeta);
+        if (tarjeta == null) {
+            return null;
+        }
+        tarjeta.calificar(calidad, hoy);
+        guardar.accept(tarjeta);
+        porDia.actualizar(idTarjeta, tarjeta.diaProximoRepaso());
+        return tarjeta.copia();
+    }
+
+    synchronized boolean eliminar(int idTarjeta) {
+        Tarjeta tarjeta = tarjetas.remove(idTarjeta);
+        if (tarjeta == null) {
+            return false;
+        }
+        porDia.eliminar(idTarjeta);
+        Set<Integer> deLaTarea = porTarea.get(tarjeta.getIdTarea());
+        deLaTarea.remove(idTarjeta);
+        if (deLaTarea.isEmpty()) {
+            porTarea.remove(tarjeta.getIdTarea());
+        }
+        return true;
+    }
+
+    synchronized void eliminarDeTarea(int idTarea) {
+        Set<Integer> deLaTarea = porTarea.remove(idTarea);
+        if (deLaTarea != null) {
+            for (int idTarjeta : deLaTarea) {
+                tarjetas.remove(idTarjeta);
+                porDia.eliminar(idTarjeta);
+            }
+        }
+    }
+
+    // El repositorio ya borró las tarjetas junto con la tarea
+    @Override
+    public void alEliminar(Tarea tarea) {
+        eliminarDeTarea(tarea.getIdTarea());
+    }
+
+    // Las que tocan hasta hoy (incluidas las atrasadas), de la más atrasada a la más reciente
+    synchronized List<Tarjeta> pendientes(LocalDate hoy, int limite) {
+        int[] ids = porDia.primerosHasta(hoy.toEpochDay(), limite);
+        List<Tarjeta> resultado = new ArrayList<>(ids.length);
+        for (int idTarjeta : ids) {
+            resultado.add(tarjetas.get(idTarjeta).copia());
+        }
+        return resultado;
+    }
+
+    synchronized List<Tarjeta> deTarea(int idTarea) {
+        List<Tarjeta> resultado = new ArrayList<>();
+        for (int idTarjeta : porTarea.getOrDefault(idTarea, Set.of())) {
+            resultado.add(tarjetas.get(idTarjeta).copia());
+        }
+        resultado.sort((x, y) -> Integer.compare(x.getIdTarjeta(), y.getIdTarjeta()));
+        return resultado;
+    }
+
+    synchronized int getTamano() {
+        return tarjetas.size();
+    }
+}
@@ -0,0 +1,114 @@
+package com.database;
+
+import com.implementation.EstadisticasEstudio;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+// Contadores de estadísticas de un usuario. Cada alta, baja o cambio de una tarea resta su aporte
+// anterior y suma el nuevo, así nunca hace falta recorrer las tareas. Las pendientes se cuentan por
+// día de entrega para poder responder "esta semana" y "vencidas" para cualquier fecha de hoy.
+// Es el mismo cálculo que guarda JdbcRepository en EstadisticasUsuario y EstadisticasDia.
+final class ContadoresEstudio {
+    // Datos de una tarea que intervienen en las estadísticas
+    static final class Aporte {
+        final int idUsuario;
+        final boolean completada;
+        final String fechaEntrega;
+        final long creadaEn;
+        final long completadaEn;
+
+        Aporte(int idUsuario, boolean completada, String fechaEntrega, long creadaEn, long completadaEn) {
+            this.idUsuario = idUsuario;
+            this.completada = completada;
+            this.fechaEntrega = fechaEntrega;
+            this.creadaEn = creadaEn;
+            this.completadaEn = completadaEn;
+        }
+    }
+
+    int total;
+    int completadas;
+    long sumaEntregaMs;
+    int entregadas;
+    // "yyyy-MM-dd" -> tareas pendientes con esa fecha de entrega
+    final TreeMap<String, Integer> pendientesPorDia = new TreeMap<>();
+
+    // Suma (signo 1) o resta (signo -1) el aporte de una tarea
+    void aplicar(int signo, boolean completada, String fechaEntrega, long creadaEn, long completadaEn) {
+        total += signo;
+        if (completada) {
+            completadas += signo;
+            long entrega = duracionEntrega(creadaEn, completadaEn);
+            if (entrega >= 0) {
+                sumaEntregaMs += signo * entrega;
+                entregadas += signo;
+            }
+        } else {
+            String dia = dia(fechaEntrega);
+            if (dia != null) {
+                pendientesPorDia.merge(dia, signo, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+    }
+
+    void aplicar(int signo, Aporte aporte) {
+        aplicar(signo, aporte.completada, aporte.fechaEntrega, aporte.creadaEn, aporte.completadaEn);
+    }
+
+    void combinar(ContadoresEstudio otro) {
+        total += otro.total;
+        completadas += otro.completadas;
+        sumaEntregaMs += otro.sumaEntregaMs;
+        entregadas += otro.entregadas;
+        otro.pendientesPorDia.forEach((dia, n) -> pendientesPorDia.merge(dia, n, (a, b) -> a + b == 0 ? null : a + b));
+    }
+
+    EstadisticasEstudio resumen(LocalDate hoy) {
+        String lunes = hoy.with(DayOfWeek.MONDAY).toString();
+        String lunesSiguiente = hoy.with(DayOfWeek.MONDAY).plusWeeks(1).toString();
+        return new EstadisticasEstudio(total, completadas,
+                sumar(pendientesPorDia.subMap(lunes, lunesSiguiente).values()),
+                sumar(pendientesPorDia.headMap(hoy.toString()).values()),
+                promedio(sumaEntregaMs, entregadas));
+    }
+
+    private static int sumar(Collection<Integer> valores) {
+        int suma = 0;
+        for (int valor : valores) {
+            suma += valor;
+        }
+        return suma;
+    }
+
+    static long promedio(long sumaEntregaMs, int entregadas) {
+        return entregadas > 0 ? sumaEntregaMs / entregadas : -1;
+    }
+
+    // Las tareas creadas antes de que existieran estas columnas no tienen fecha de creación
+    static long duracionEntrega(long creadaEn, long completadaEn) {
+        return creadaEn > 0 && completadaEn >= creadaEn ? completadaEn - creadaEn : -1;
+    }
+
+    // Parte de día de "yyyy-MM-dd HH:mm", o null si la tarea no tiene fecha de entrega
+    static String dia(String fechaEntrega) {
+        return fechaEntrega == null || fechaEntrega.length() < 10 ? null : fechaEntrega.substring(0, 10);
+    }
+
+    // Recalcula los contadores de todos los usuarios repartiendo las tareas entre los núcleos
+    static Map<Integer, ContadoresEstudio> agrupar(Collection<Aporte> aportes) {
+        Collector<Aporte, ContadoresEstudio, ContadoresEstudio> porUsuario = Collector.of(
+                ContadoresEstudio::new,
+                (contadores, aporte) -> contadores.aplicar(1, aporte),
+                (a, b) -> {
+                    a.combinar(b);
+                    return a;
+                });
+        // Cada hilo arma su propio mapa y al final se combinan: no hay candados por usuario
+        return aportes.parallelStream().collect(Collectors.groupingBy(aporte -> aporte.idUsuario, porUsuario));
+    }
+}
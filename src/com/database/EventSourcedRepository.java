@@ -0,0 +1,889 @@
+package com.database;
+
+import com.implementation.EstadoTarea;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.ReglaRecurrencia;
+import com.implementation.SerieTareas;
+import com.implementation.Tarea;
+import com.implementation.Tarjeta;
+import com.implementation.TramoEstudio;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Almacenamiento por eventos: cada cambio se agrega a un registro binario (tareas.log) y el estado
+// vive en memoria. Un compactador en segundo plano escribe instantáneas periódicas (tareas.snap);
+// al arrancar se lee la última instantánea y solo se reproduce la cola del registro, sin SQL. Los
+// dos se leen a memoria común y no se mapean: en Windows un archivo con una vista mapeada viva no
+// se puede recortar (la cola rota al arrancar) ni reemplazar (la instantánea al compactar).
+// El registro nunca se recorta, así que además sirve como historial de auditoría.
+// Cada evento es una operación entera (un lote va en un solo evento) y se fuerza a disco antes de
+// volver, como el commit de SQLite: lo que la aplicación dio por guardado sobrevive a un corte de
+// luz. Con -Deventos.sincronizar=false se omite (solo para pruebas de rendimiento).
+public class EventSourcedRepository extends InMemoryRepository {
+    private static final byte USUARIO_REGISTRADO = 1;
+    private static final byte TAREA_CREADA = 2;
+    private static final byte TAREA_ELIMINADA = 3;
+    private static final byte FECHA_CAMBIADA = 4;
+    private static final byte COMPLETADA_CAMBIADA = 5;
+    // Un subárbol que vuelve al deshacer un borrado, con todas sus filas en un solo evento
+    private static final byte TAREAS_RESTAURADAS = 6;
+    // Series de tareas que se repiten: la regla y sus excepciones, nunca las ocurrencias
+    private static final byte SERIE_CREADA = 7;
+    private static final byte SERIE_ELIMINADA = 8;
+    private static final byte EXCEPCION_GUARDADA = 9;
+    // Un lote de tramos de estudio cerrados, tal como los guarda RegistroSesiones
+    private static final byte SESIONES_AGREGADAS = 10;
+    // Tarjetas de repaso: el alta con su estado inicial y después solo el estado de cada repaso
+    private static final byte TARJETA_CREADA = 11;
+    private static final byte REPASO_GUARDADO = 12;
+    private static final byte TARJETA_ELIMINADA = 13;
+    // Un movimiento del Kanban (una o varias tareas): estado y completadaEn de cada una
+    private static final byte ESTADOS_CAMBIADOS = 14;
+    // Claves del orden manual: una al mover una tarjeta, todas las del usuario al rebalancear
+    private static final byte ORDEN_CAMBIADO = 15;
+
+    private static final int MAGIA_INSTANTANEA = 0x54534E50; // "TSNP"
+    // 2: cada tarea guarda también creadaEn y completadaEn. 3: y su idTareaPadre. 4: más las series.
+    // 5: más el tiempo estudiado por usuario, día y tarea. 6: más las tarjetas de repaso.
+    // 7: el byte de completada lleva también el estado del Kanban (ver marcas). 8: y cada tarea su
+    // clave de orden manual
+    private static final int VERSION_FORMATO = 8;
+    private static final long INTERVALO_COMPACTACION_S = 60;
+    private static final int EVENTOS_PARA_COMPACTAR = 5000;
+    private static final boolean SINCRONIZAR = !"false".equalsIgnoreCase(System.getProperty("eventos.sincronizar"));
+
+    private final File archivoRegistro;
+    private final File archivoInstantanea;
+    private final FileChannel registro;
+    private final ScheduledExecutorService compactador;
+    // Buffer reutilizado para serializar cada evento
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private final CRC32 crc = new CRC32();
+    private long eventosDesdeInstantanea;
+    // Una instantánea a la vez: comparten el archivo .tmp
+    private final Object escrituraInstantanea = new Object();
+
+    public EventSourcedRepository() {
+        this(new File(System.getProperty("eventos.directorio", "eventos")));
+    }
+
+    public EventSourcedRepository(File directorio) {
+        directorio.mkdirs();
+        archivoRegistro = new File(directorio, "tareas.log");
+        archivoInstantanea = new File(directorio, "tareas.snap");
+        try {
+            long desde = cargarInstantanea();
+            registro = FileChannel.open(archivoRegistro.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long valido = reproducir(desde);
+            if (valido < registro.size()) {
+                // Cola incompleta (cierre abrupto a mitad de una escritura): se descarta
+                registro.truncate(valido);
+            }
+            registro.position(valido);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo abrir el registro de eventos: " + e.getMessage(), e);
+        }
+        compactador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "compactador-eventos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        compactador.scheduleWithFixedDelay(this::compactarSiHaceFalta,
+                INTERVALO_COMPACTACION_S, INTERVALO_COMPACTACION_S, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized boolean registrarUsuario(String nombre, String correo, String contrasena) {
+        int idUsuario = getSiguienteIdUsuario();
+        if (!super.registrarUsuario(nombre, correo, contrasena)) {
+            return false;
+        }
+        iniciarEvento(USUARIO_REGISTRADO);
+        escribirInt(idUsuario);
+        escribirTexto(nombre);
+        escribirTexto(correo);
+        escribirTexto(contrasena);
+        terminarEvento();
+        return true;
+    }
+
+    @Override
+    public synchronized int agregarTarea(int idUsuario, String nombre, String descripcion, String fechaEntrega) {
+        int idTarea = super.agregarTarea(idUsuario, nombre, descripcion, fechaEntrega);
+        registrarCreada(filaTarea(idTarea));
+        return idTarea;
+    }
+
+    @Override
+    public synchronized int agregarSubtarea(int idTareaPadre, String nombre, String descripcion, String fechaEntrega) {
+        int idTarea = super.agregarSubtarea(idTareaPadre, nombre, descripcion, fechaEntrega);
+        if (idTarea != -1) {
+            registrarCreada(filaTarea(idTarea));
+        }
+        return idTarea;
+    }
+
+    private void registrarCreada(FilaTarea fila) {
+        iniciarEvento(TAREA_CREADA);
+        escribirInt(fila.idTarea);
+        escribirInt(fila.idUsuario);
+        escribirTexto(fila.nombre);
+        escribirTexto(fila.descripcion);
+        escribirTexto(fila.fechaEntrega);
+        escribirLong(fila.creadaEn);
+        escribirInt(fila.idTareaPadre);
+        terminarEvento();
+    }
+
+    // Alcanza con registrar la raíz: al reproducir, eliminarTarea vuelve a borrar las subtareas
+    @Override
+    public synchronized void eliminarTarea(int idTarea) {
+        if (filaTarea(idTarea) == null) {
+            return;
+        }
+        super.eliminarTarea(idTarea);
+        iniciarEvento(TAREA_ELIMINADA);
+        escribirInt(idTarea);
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized void actualizarFechaEntrega(int idTarea, String fechaEntrega) {
+        if (filaTarea(idTarea) == null) {
+            return;
+        }
+        super.actualizarFechaEntrega(idTarea, fechaEntrega);
+        iniciarEvento(FECHA_CAMBIADA);
+        escribirInt(idTarea);
+        escribirTexto(fechaEntrega);
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized void actualizarCompletada(int idTarea, boolean completada) {
+        FilaTarea fila = filaTarea(idTarea);
+        if (fila == null || fila.completada == completada) {
+            return;
+        }
+        super.actualizarCompletada(idTarea, completada);
+        iniciarEvento(COMPLETADA_CAMBIADA);
+        escribirInt(idTarea);
+        buffer.put((byte) (completada ? 1 : 0));
+        escribirLong(fila.completadaEn);
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized void actualizarEstados(Map<Integer, EstadoTarea> cambios) {
+        super.actualizarEstados(cambios);
+        List<FilaTarea> filas = new ArrayList<>(cambios.size());
+        for (int idTarea : cambios.keySet()) {
+            FilaTarea fila = filaTarea(idTarea);
+            if (fila != null) {
+                filas.add(fila);
+            }
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+        iniciarEvento(ESTADOS_CAMBIADOS);
+        escribirInt(filas.size());
+        for (FilaTarea fila : filas) {
+            escribirInt(fila.idTarea);
+            asegurar(1);
+            buffer.put((byte) fila.estado);
+            escribirLong(fila.completadaEn);
+        }
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized void actualizarOrden(Map<Integer, String> claves) {
+        super.actualizarOrden(claves);
+        List<FilaTarea> filas = new ArrayList<>(claves.size());
+        for (int idTarea : claves.keySet()) {
+            FilaTarea fila = filaTarea(idTarea);
+            if (fila != null) {
+                filas.add(fila);
+            }
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+        iniciarEvento(ORDEN_CAMBIADO);
+        escribirInt(filas.size());
+        for (FilaTarea fila : filas) {
+            escribirInt(fila.idTarea);
+            escribirTexto(fila.orden);
+        }
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized int[] restaurarSubarbol(List<Tarea> subarbol) {
+        int[] nuevos = super.restaurarSubarbol(subarbol);
+        if (nuevos.length == 0) {
+            return nuevos;
+        }
+        iniciarEvento(TAREAS_RESTAURADAS);
+        escribirInt(nuevos.length);
+        for (int idTarea : nuevos) {
+            FilaTarea fila = filaTarea(idTarea);
+            escribirInt(fila.idTarea);
+            escribirInt(fila.idUsuario);
+            escribirInt(fila.idTareaPadre);
+            asegurar(1);
+            buffer.put(marcas(fila));
+            escribirLong(fila.creadaEn);
+            escribirLong(fila.completadaEn);
+            escribirTexto(fila.nombre);
+            escribirTexto(fila.descripcion);
+            escribirTexto(fila.fechaEntrega);
+        }
+        terminarEvento();
+        return nuevos;
+    }
+
+    @Override
+    public synchronized int agregarSerie(SerieTareas serie) {
+        int idSerie = super.agregarSerie(serie);
+        SerieTareas guardada = filaSerie(idSerie);
+        iniciarEvento(SERIE_CREADA);
+        escribirInt(idSerie);
+        escribirInt(guardada.getIdUsuario());
+        escribirTexto(guardada.getNombre());
+        escribirTexto(guardada.getDescripcion());
+        escribirTexto(guardada.getInicio());
+        escribirTexto(guardada.getRegla().toString());
+        escribirInt(guardada.getExcepciones().size());
+        for (ExcepcionOcurrencia excepcion : guardada.getExcepciones()) {
+            escribirExcepcion(excepcion);
+        }
+        terminarEvento();
+        return idSerie;
+    }
+
+    @Override
+    public synchronized void eliminarSerie(int idSerie) {
+        if (filaSerie(idSerie) == null) {
+            return;
+        }
+        super.eliminarSerie(idSerie);
+        iniciarEvento(SERIE_ELIMINADA);
+        escribirInt(idSerie);
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized void guardarExcepcion(int idSerie, ExcepcionOcurrencia excepcion) {
+        if (filaSerie(idSerie) == null) {
+            return;
+        }
+        super.guardarExcepcion(idSerie, excepcion);
+        iniciarEvento(EXCEPCION_GUARDADA);
+        escribirInt(idSerie);
+        escribirExcepcion(excepcion);
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized void agregarSesiones(List<TramoEstudio> tramos) {
+        if (tramos.isEmpty()) {
+            return;
+        }
+        super.agregarSesiones(tramos);
+        iniciarEvento(SESIONES_AGREGADAS);
+        escribirInt(tramos.size());
+        for (TramoEstudio tramo : tramos) {
+            escribirInt(tramo.getIdUsuario());
+            escribirInt(tramo.getIdTarea());
+            escribirTexto(tramo.getDia());
+            escribirLong(tramo.getInicio());
+            escribirLong(tramo.getDuracion());
+        }
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized int agregarTarjeta(Tarjeta tarjeta) {
+        int idTarjeta = super.agregarTarjeta(tarjeta);
+        if (idTarjeta == -1) {
+            return -1;
+        }
+        Tarjeta guardada = filaTarjeta(idTarjeta);
+        iniciarEvento(TARJETA_CREADA);
+        escribirInt(idTarjeta);
+        escribirInt(guardada.getIdUsuario());
+        escribirInt(guardada.getIdTarea());
+        escribirTexto(guardada.getFrente());
+        escribirTexto(guardada.getReverso());
+        escribirRepaso(guardada);
+        terminarEvento();
+        return idTarjeta;
+    }
+
+    @Override
+    public synchronized void actualizarRepaso(Tarjeta tarjeta) {
+        if (filaTarjeta(tarjeta.getIdTarjeta()) == null) {
+            return;
+        }
+        super.actualizarRepaso(tarjeta);
+        iniciarEvento(REPASO_GUARDADO);
+        escribirInt(tarjeta.getIdTarjeta());
+        escribirRepaso(tarjeta);
+        terminarEvento();
+    }
+
+    @Override
+    public synchronized void eliminarTarjeta(int idTarjeta) {
+        if (filaTarjeta(idTarjeta) == null) {
+            return;
+        }
+        super.eliminarTarjeta(idTarjeta);
+        iniciarEvento(TARJETA_ELIMINADA);
+        escribirInt(idTarjeta);
+        terminarEvento();
+    }
+
+    private void escribirRepaso(Tarjeta tarjeta) {
+        escribirInt(tarjeta.getRepeticiones());
+        escribirInt(tarjeta.getIntervalo());
+        escribirLong(Double.doubleToLongBits(tarjeta.getFacilidad()));
+        escribirTexto(tarjeta.getProximoRepaso());
+    }
+
+    private void escribirExcepcion(ExcepcionOcurrencia excepcion) {
+        escribirTexto(excepcion.getOcurrencia());
+        asegurar(1);
+        buffer.put((byte) (excepcion.isCancelada() ? 1 : 0));
+        escribirTexto(excepcion.getFechaEntrega());
+        asegurar(1);
+        buffer.put((byte) (excepcion.isCompletada() ? 1 : 0));
+    }
+
+    // ---- Escritura de eventos: [largo][tipo + datos][crc32] ----
+
+    private void iniciarEvento(byte tipo) {
+        buffer.clear();
+        buffer.putInt(0); // se completa al terminar
+        buffer.put(tipo);
+    }
+
+    private void escribirInt(int valor) {
+        asegurar(4);
+        buffer.putInt(valor);
+    }
+
+    private void escribirLong(long valor) {
+        asegurar(8);
+        buffer.putLong(valor);
+    }
+
+    private void escribirTexto(String texto) {
+        if (texto == null) {
+            escribirInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        escribirInt(bytes.length);
+        asegurar(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void asegurar(int bytes) {
+        if (buffer.remaining() < bytes + 4) {
+            ByteBuffer mayor = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes + 4));
+            buffer.flip();
+            mayor.put(buffer);
+            buffer = mayor;
+        }
+    }
+
+    private void terminarEvento() {
+        int largo = buffer.position() - 4;
+        buffer.putInt(0, largo);
+        crc.reset();
+        crc.update(buffer.array(), 4, largo);
+        asegurar(4);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                registro.write(buffer);
+            }
+            if (SINCRONIZAR) {
+                // Con metadatos: al agregar cambia el largo del archivo
+                registro.force(true);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al escribir en el registro de eventos: " + e.getMessage());
+        }
+        eventosDesdeInstantanea++;
+        if (eventosDesdeInstantanea >= EVENTOS_PARA_COMPACTAR) {
+            eventosDesdeInstantanea = 0;
+            compactador.execute(this::compactar);
+        }
+    }
+
+    // ---- Lectura: instantánea + cola del registro ----
+
+    // Devuelve la posición del registro hasta donde llega la instantánea
+    private long cargarInstantanea() throws IOException {
+        if (!archivoInstantanea.exists()) {
+            return 0;
+        }
+        ByteBuffer datos = ByteBuffer.wrap(Files.readAllBytes(archivoInstantanea.toPath()));
+        if (datos.getInt() != MAGIA_INSTANTANEA || datos.getInt() != VERSION_FORMATO) {
+            System.err.println("Instantánea de eventos inválida o de otra versión, se reproduce el registro completo");
+            return 0;
+        }
+        long offsetRegistro = datos.getLong();
+        int siguienteIdUsuario = datos.getInt();
+        int siguienteIdTarea = datos.getInt();
+        int usuarios = datos.getInt();
+        for (int i = 0; i < usuarios; i++) {
+            guardarUsuario(new FilaUsuario(datos.getInt(), leerTexto(datos), leerTexto(datos), leerTexto(datos)));
+        }
+        int tareas = datos.getInt();
+        for (int i = 0; i < tareas; i++) {
+            int idTarea = datos.getInt();
+            int idUsuario = datos.getInt();
+            int idTareaPadre = datos.getInt();
+            byte marcas = datos.get();
+            long creadaEn = datos.getLong();
+            long completadaEn = datos.getLong();
+            FilaTarea fila = new FilaTarea(idTarea, idUsuario, leerTexto(datos), leerTexto(datos), leerTexto(datos));
+            fila.orden = leerTexto(datos);
+            fila.idTareaPadre = idTareaPadre;
+            fila.completada = (marcas & 1) == 1;
+            fila.estado = marcas >> 1;
+            fila.creadaEn = creadaEn;
+            fila.completadaEn = completadaEn;
+            guardar(fila);
+        }
+        int siguienteIdSerie = datos.getInt();
+        int series = datos.getInt();
+        for (int i = 0; i < series; i++) {
+            leerSerie(datos);
+        }
+        int usuariosConSesiones = datos.getInt();
+        for (int i = 0; i < usuariosConSesiones; i++) {
+            int idUsuario = datos.getInt();
+            int dias = datos.getInt();
+            for (int d = 0; d < dias; d++) {
+                String dia = leerTexto(datos);
+                int tareasDelDia = datos.getInt();
+                for (int t = 0; t < tareasDelDia; t++) {
+                    sumarSesion(idUsuario, dia, datos.getInt(), datos.getLong());
+                }
+            }
+        }
+        int siguienteIdTarjeta = datos.getInt();
+        int tarjetas = datos.getInt();
+        for (int i = 0; i < tarjetas; i++) {
+            leerTarjeta(datos);
+        }
+        setSiguientesIds(siguienteIdUsuario, siguienteIdTarea);
+        setSiguienteIdSerie(siguienteIdSerie);
+        setSiguienteIdTarjeta(siguienteIdTarjeta);
+        return offsetRegistro;
+    }
+
+    // Aplica los eventos desde la posición indicada; devuelve dónde termina el último evento válido
+    private long reproducir(long desde) throws IOException {
+        long tamano = registro.size();
+        if (desde >= tamano) {
+            return Math.min(desde, tamano);
+        }
+        ByteBuffer datos = ByteBuffer.allocate(Math.toIntExact(tamano - desde));
+        // Lectura con posición: no mueve la del canal, que después se deja al final de lo válido
+        while (datos.hasRemaining()) {
+            if (registro.read(datos, desde + datos.position()) < 0) {
+                break;
+            }
+        }
+        datos.flip();
+        CRC32 verificador = new CRC32();
+        long valido = desde;
+        while (datos.remaining() >= 4) {
+            int largo = datos.getInt();
+            if (largo <= 0 || datos.remaining() < largo + 4) {
+                break;
+            }
+            ByteBuffer evento = datos.slice(datos.position(), largo);
+            verificador.reset();
+            verificador.update(evento.duplicate());
+            datos.position(datos.position() + largo);
+            if (datos.getInt() != (int) verificador.getValue()) {
+                break;
+            }
+            aplicar(evento);
+            valido = desde + datos.position();
+            eventosDesdeInstantanea++;
+        }
+        return valido;
+    }
+
+    private void aplicar(ByteBuffer evento) {
+        byte tipo = evento.get();
+        switch (tipo) {
+            case USUARIO_REGISTRADO:
+                guardarUsuario(new FilaUsuario(evento.getInt(), leerTexto(evento), leerTexto(evento), leerTexto(evento)));
+                break;
+            case TAREA_CREADA:
+                FilaTarea creada = new FilaTarea(evento.getInt(), evento.getInt(), leerTexto(evento), leerTexto(evento), leerTexto(evento));
+                // Los eventos escritos antes del formato 2 no traen la hora de creación
+                if (evento.remaining() >= 8) {
+                    creada.creadaEn = evento.getLong();
+                }
+                // Ni, antes de las subtareas, el padre
+                if (evento.remaining() >= 4) {
+                    creada.idTareaPadre = evento.getInt();
+                }
+                guardar(creada);
+                break;
+            case TAREAS_RESTAURADAS:
+                int restauradas = evento.getInt();
+                for (int i = 0; i < restauradas; i++) {
+                    int idTarea = evento.getInt();
+                    int idUsuario = evento.getInt();
+                    int idTareaPadre = evento.getInt();
+                    byte marcasRestaurada = evento.get();
+                    long creadaEn = evento.getLong();
+                    long completadaEnRestaurada = evento.getLong();
+                    FilaTarea restaurada = new FilaTarea(idTarea, idUsuario, leerTexto(evento), leerTexto(evento), leerTexto(evento));
+                    restaurada.idTareaPadre = idTareaPadre;
+                    restaurada.completada = (marcasRestaurada & 1) == 1;
+                    restaurada.estado = marcasRestaurada >> 1;
+                    restaurada.creadaEn = creadaEn;
+                    restaurada.completadaEn = completadaEnRestaurada;
+                    guardar(restaurada);
+                }
+                break;
+            case TAREA_ELIMINADA:
+                super.eliminarTarea(evento.getInt());
+                break;
+            case SERIE_CREADA:
+                leerSerie(evento);
+                break;
+            case SERIE_ELIMINADA:
+                super.eliminarSerie(evento.getInt());
+                break;
+            case EXCEPCION_GUARDADA:
+                SerieTareas serie = filaSerie(evento.getInt());
+                ExcepcionOcurrencia excepcion = leerExcepcion(evento);
+                if (serie != null) {
+                    serie.ponerExcepcion(excepcion);
+                }
+                break;
+            case SESIONES_AGREGADAS:
+                int tramos = evento.getInt();
+                for (int i = 0; i < tramos; i++) {
+                    int idUsuario = evento.getInt();
+                    int idTarea = evento.getInt();
+                    String dia = leerTexto(evento);
+                    evento.getLong(); // inicio: el estado en memoria solo guarda las sumas
+                    sumarSesion(idUsuario, dia, idTarea, evento.getLong());
+                }
+                break;
+            case TARJETA_CREADA:
+                leerTarjeta(evento);
+                break;
+            case REPASO_GUARDADO:
+                Tarjeta repasada = filaTarjeta(evento.getInt());
+                int repeticiones = evento.getInt();
+                int intervalo = evento.getInt();
+                double facilidad = Double.longBitsToDouble(evento.getLong());
+                String proximoRepaso = leerTexto(evento);
+                if (repasada != null) {
+                    repasada.setRepaso(repeticiones, intervalo, facilidad, proximoRepaso);
+                }
+                break;
+            case TARJETA_ELIMINADA:
+                super.eliminarTarjeta(evento.getInt());
+                break;
+            case FECHA_CAMBIADA:
+                super.actualizarFechaEntrega(evento.getInt(), leerTexto(evento));
+                break;
+            case COMPLETADA_CAMBIADA:
+                FilaTarea fila = filaTarea(evento.getInt());
+                boolean completada = evento.get() == 1;
+                long completadaEn = evento.remaining() >= 8 ? evento.getLong() : 0;
+                if (fila != null && fila.completada != completada) {
+                    cambiarCompletada(fila, completada, completadaEn);
+                }
+                break;
+            case ESTADOS_CAMBIADOS:
+                int movidas = evento.getInt();
+                for (int i = 0; i < movidas; i++) {
+                    FilaTarea movida = filaTarea(evento.getInt());
+                    int estado = evento.get();
+                    long completadaEnMovida = evento.getLong();
+                    if (movida != null) {
+                        movida.estado = estado;
+                        boolean completadaMovida = estado == EstadoTarea.COMPLETADA.ordinal();
+                        if (movida.completada != completadaMovida) {
+                            cambiarCompletada(movida, completadaMovida, completadaEnMovida);
+                        }
+                    }
+                }
+                break;
+            case ORDEN_CAMBIADO:
+                int ordenadas = evento.getInt();
+                for (int i = 0; i < ordenadas; i++) {
+                    FilaTarea ordenada = filaTarea(evento.getInt());
+                    String clave = leerTexto(evento);
+                    if (ordenada != null) {
+                        ordenada.orden = clave;
+                    }
+                }
+                break;
+            default:
+                System.err.println("Evento desconocido en el registro: " + tipo);
+        }
+    }
+
+    // completada en el bit 0 y el estado del Kanban arriba; los registros anteriores al estado traen
+    // 0 o 1, que se leen como "Pendiente"
+    private static byte marcas(FilaTarea fila) {
+        return (byte) ((fila.completada ? 1 : 0) | fila.estado << 1);
+    }
+
+    // Mismo formato en el evento SERIE_CREADA y en la instantánea
+    private void leerSerie(ByteBuffer datos) {
+        int idSerie = datos.getInt();
+        int idUsuario = datos.getInt();
+        String nombre = leerTexto(datos);
+        String descripcion = leerTexto(datos);
+        String inicio = leerTexto(datos);
+        String regla = leerTexto(datos);
+        int excepciones = datos.getInt();
+        List<ExcepcionOcurrencia> leidas = new ArrayList<>(excepciones);
+        for (int i = 0; i < excepciones; i++) {
+            leidas.add(leerExcepcion(datos));
+        }
+        try {
+            SerieTareas serie = new SerieTareas(idSerie, idUsuario, nombre, descripcion, inicio, ReglaRecurrencia.parsear(regla));
+            for (ExcepcionOcurrencia excepcion : leidas) {
+                serie.ponerExcepcion(excepcion);
+            }
+            guardarSerie(serie);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error al leer la serie " + idSerie + ": " + e.getMessage());
+        }
+    }
+
+    // Mismo formato en el evento TARJETA_CREADA y en la instantánea
+    private void leerTarjeta(ByteBuffer datos) {
+        Tarjeta tarjeta = new Tarjeta(datos.getInt(), datos.getInt(), datos.getInt(), leerTexto(datos), leerTexto(datos));
+        tarjeta.setRepaso(datos.getInt(), datos.getInt(), Double.longBitsToDouble(datos.getLong()), leerTexto(datos));
+        guardarTarjeta(tarjeta);
+    }
+
+    private static ExcepcionOcurrencia leerExcepcion(ByteBuffer datos) {
+        String ocurrencia = leerTexto(datos);
+        boolean cancelada = datos.get() == 1;
+        String fechaEntrega = leerTexto(datos);
+        boolean completada = datos.get() == 1;
+        return new ExcepcionOcurrencia(ocurrencia, cancelada, fechaEntrega, completada);
+    }
+
+    private static String leerTexto(ByteBuffer datos) {
+        int largo = datos.getInt();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        datos.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---- Compactación ----
+
+    private void compactarSiHaceFalta() {
+        boolean hayCambios;
+        synchronized (this) {
+            hayCambios = eventosDesdeInstantanea > 0;
+        }
+        if (hayCambios) {
+            compactar();
+        }
+    }
+
+    // Escribe una instantánea nueva; el estado se copia con el candado tomado y se escribe sin él
+    public void compactar() {
+        byte[] contenido;
+        synchronized (this) {
+            try {
+                contenido = serializarEstado(registro.position());
+            } catch (IOException e) {
+                System.err.println("Error al preparar la instantánea: " + e.getMessage());
+                return;
+            }
+            eventosDesdeInstantanea = 0;
+        }
+        File temporal = new File(archivoInstantanea.getPath() + ".tmp");
+        synchronized (escrituraInstantanea) {
+            try {
+                registro.force(false);
+                try (FileChannel canal = FileChannel.open(temporal.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    canal.write(ByteBuffer.wrap(contenido));
+                    canal.force(true);
+                }
+                Files.move(temporal.toPath(), archivoInstantanea.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("Error al escribir la instantánea: " + e.getMessage());
+            }
+        }
+    }
+
+    private byte[] serializarEstado(long offsetRegistro) throws IOException {
+        List<byte[]> textos = new ArrayList<>();
+        int tamano = 4 + 4 + 8 + 4 + 4 + 4 + 4;
+        for (FilaUsuario usuario : filasUsuarios()) {
+            tamano += 4 + medir(usuario.nombre, textos) + medir(usuario.correo, textos) + medir(usuario.contrasena, textos);
+        }
+        for (FilaTarea fila : filasTareas()) {
+            tamano += 4 + 4 + 4 + 1 + 8 + 8 + medir(fila.nombre, textos) + medir(fila.descripcion, textos) + medir(fila.fechaEntrega, textos)
+                    + medir(fila.orden, textos);
+        }
+        tamano += 4 + 4;
+        for (SerieTareas serie : filasSeries()) {
+            tamano += 4 + 4 + medir(serie.getNombre(), textos) + medir(serie.getDescripcion(), textos)
+                    + medir(serie.getInicio(), textos) + medir(serie.getRegla().toString(), textos) + 4;
+            for (ExcepcionOcurrencia excepcion : serie.getExcepciones()) {
+                tamano += medir(excepcion.getOcurrencia(), textos) + 1 + medir(excepcion.getFechaEntrega(), textos) + 1;
+            }
+        }
+        tamano += 4;
+        for (TreeMap<String, Map<Integer, Long>> dias : filasSesiones().values()) {
+            tamano += 4 + 4;
+            for (Map.Entry<String, Map<Integer, Long>> dia : dias.entrySet()) {
+                tamano += medir(dia.getKey(), textos) + 4 + dia.getValue().size() * (4 + 8);
+            }
+        }
+        tamano += 4 + 4;
+        for (Tarjeta tarjeta : filasTarjetas()) {
+            tamano += 4 + 4 + 4 + medir(tarjeta.getFrente(), textos) + medir(tarjeta.getReverso(), textos) + 4 + 4 + 8
+                    + medir(tarjeta.getProximoRepaso(), textos);
+        }
+        ByteBuffer salida = ByteBuffer.allocate(tamano);
+        salida.putInt(MAGIA_INSTANTANEA);
+        salida.putInt(VERSION_FORMATO);
+        salida.putLong(offsetRegistro);
+        salida.putInt(getSiguienteIdUsuario());
+        salida.putInt(getSiguienteIdTarea());
+        int texto = 0;
+        salida.putInt(filasUsuarios().size());
+        for (FilaUsuario usuario : filasUsuarios()) {
+            salida.putInt(usuario.idUsuario);
+            for (int i = 0; i < 3; i++) {
+                poner(salida, textos.get(texto++));
+            }
+        }
+        salida.putInt(filasTareas().size());
+        for (FilaTarea fila : filasTareas()) {
+            salida.putInt(fila.idTarea);
+            salida.putInt(fila.idUsuario);
+            salida.putInt(fila.idTareaPadre);
+            salida.put(marcas(fila));
+            salida.putLong(fila.creadaEn);
+            salida.putLong(fila.completadaEn);
+            for (int i = 0; i < 4; i++) {
+                poner(salida, textos.get(texto++));
+            }
+        }
+        salida.putInt(getSiguienteIdSerie());
+        salida.putInt(filasSeries().size());
+        for (SerieTareas serie : filasSeries()) {
+            salida.putInt(serie.getIdSerie());
+            salida.putInt(serie.getIdUsuario());
+            for (int i = 0; i < 4; i++) {
+                poner(salida, textos.get(texto++));
+            }
+            salida.putInt(serie.getExcepciones().size());
+            for (ExcepcionOcurrencia excepcion : serie.getExcepciones()) {
+                poner(salida, textos.get(texto++));
+                salida.put((byte) (excepcion.isCancelada() ? 1 : 0));
+                poner(salida, textos.get(texto++));
+                salida.put((byte) (excepcion.isCompletada() ? 1 : 0));
+            }
+        }
+        salida.putInt(filasSesiones().size());
+        for (Map.Entry<Integer, TreeMap<String, Map<Integer, Long>>> usuario : filasSesiones().entrySet()) {
+            salida.putInt(usuario.getKey());
+            salida.putInt(usuario.getValue().size());
+            for (Map<Integer, Long> dia : usuario.getValue().values()) {
+                poner(salida, textos.get(texto++));
+                salida.putInt(dia.size());
+                for (Map.Entry<Integer, Long> tarea : dia.entrySet()) {
+                    salida.putInt(tarea.getKey());
+                    salida.putLong(tarea.getValue());
+                }
+            }
+        }
+        salida.putInt(getSiguienteIdTarjeta());
+        salida.putInt(filasTarjetas().size());
+        for (Tarjeta tarjeta : filasTarjetas()) {
+            salida.putInt(tarjeta.getIdTarjeta());
+            salida.putInt(tarjeta.getIdUsuario());
+            salida.putInt(tarjeta.getIdTarea());
+            poner(salida, textos.get(texto++));
+            poner(salida, textos.get(texto++));
+            salida.putInt(tarjeta.getRepeticiones());
+            salida.putInt(tarjeta.getIntervalo());
+            salida.putLong(Double.doubleToLongBits(tarjeta.getFacilidad()));
+            poner(salida, textos.get(texto++));
+        }
+        return salida.array();
+    }
+
+    private static int medir(String texto, List<byte[]> textos) {
+        byte[] bytes = texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+        textos.add(bytes);
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void poner(ByteBuffer salida, byte[] bytes) {
+        if (bytes == null) {
+            salida.putInt(-1);
+        } else {
+            salida.putInt(bytes.length);
+            salida.put(bytes);
+        }
+    }
+
+    @Override
+    public void cerrar() {
+        // Una compactación ya encolada (por terminarEvento o la periódica) termina antes de la última
+        compactador.shutdown();
+        try {
+            compactador.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactar();
+        try {
+            registro.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar el registro de eventos: " + e.getMessage());
+        }
+    }
+}
@@ -1,86 +1,153 @@
 package com.database;
 
+import com.estructuras.IndiceTareasConcurrente;
+import com.implementation.ActividadAnual;
+import com.implementation.ClaveTarea;
+import com.implementation.EstadisticasEstudio;
+import com.implementation.EstadoTarea;
+import com.implementation.ExcepcionOcurrencia;
 import com.implementation.PilaAcciones;
+import com.implementation.ProgresoSubtareas;
+import com.implementation.ReglaRecurrencia;
+import com.implementation.SerieTareas;
+import com.implementation.SesionEnCurso;
 import com.implementation.Tarea;
-import java.sql.*;
+import com.implementation.Tarjeta;
+import com.implementation.TramoEstudio;
+import com.utils.EmailSender;
+import com.utils.LineaTiempoArranque;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import javax.swing.*;
-import javax.mail.*;
-import javax.mail.internet.InternetAddress;
-import javax.mail.internet.MimeMessage;
-import javax.activation.DataHandler;
 
 public class GestorRegistro {
     private PilaAcciones pilaAcciones;
-    private static final String DB_URL = "jdbc:sqlite:taskgestor.db";
-    private Connection conn;
+    private final CompletableFuture<TaskRepository> tareas;
+    private final CompletableFuture<UserRepository> usuarios;
+    private final ColaCompletadas colaCompletadas;
+    private final RegistroSesiones registroSesiones;
+    private final MotorPomodoro motorPomodoro;
+    private final OrdenManual ordenManual;
+    // Entregas pendientes por usuario; se arma la primera vez que se piden y después se mantiene
+    // con cada cambio que pasa por acá
+    private final Map<Integer, IndiceEntregas> indicesEntregas = new ConcurrentHashMap<>();
+    // Tarjetas de repaso por usuario ordenadas por próximo repaso; igual que las entregas, se arma la
+    // primera vez que se piden
+    private final Map<Integer, ColaRepasos> colasRepaso = new ConcurrentHashMap<>();
+    // Puntajes de "qué estudiar ahora" por usuario; se arma la primera vez que se piden
+    private final Map<Integer, RecomendadorTareas> recomendadores = new ConcurrentHashMap<>();
+    // Completadas y minutos de estudio por día del último año, para el mapa de actividad y las rachas
+    private final Map<Integer, ActividadUsuario> actividades = new ConcurrentHashMap<>();
+    // Tareas de cada usuario ordenadas por fecha, para las vistas por rango (semana, calendario).
+    // Se leen sin candado desde cualquier hilo mientras otros hilos las cambian.
+    private final Map<Integer, IndiceTareasConcurrente> indicesPorFecha = new ConcurrentHashMap<>();
+    // Ids de las tareas de cada usuario por día de entrega, para el calendario; se arma a partir del
+    // índice por fecha y las tareas se leen de ahí
+    private final Map<Integer, IndiceDias> indicesDias = new ConcurrentHashMap<>();
+    // Todo lo anterior, por usuario, tal como se registró al armarse. Los cambios de tareas llegan a
+    // cada uno solo por acá (avisar), nunca recorriendo los mapas de arriba.
+    private final Map<Integer, List<OyenteTareas>> oyentes = new ConcurrentHashMap<>();
     private String codigoConfirmacion;
     private Random random;
     
-    // Variables for email verification
-    private static String codigoVerificacionActual;
-    private static String correoVerificacionActual;
-    private static long tiempoGeneracionCodigo;
+    // Códigos de verificación pendientes, uno por correo, para que varios usuarios puedan
+    // registrarse a la vez (modo servidor)
+    private static final long VIGENCIA_CODIGO_MS = 600000; // 10 minutos
+    private static final Map<String, CodigoPendiente> codigosVerificacion = new ConcurrentHashMap<>();
+    // Con el deshacer apagado no se guarda nada en pilaAcciones (el servidor no lo usa)
+    private volatile boolean deshacerHabilitado = true;
 
+    // Las ocurrencias (idTarea 0) van antes que las tareas de la misma fecha y entre sí por serie
+    private static final Comparator<Tarea> ORDEN_CON_OCURRENCIAS =
+            Comparator.comparing(ClaveTarea::de).thenComparingInt(Tarea::getIdSerie);
+
+    private static final class CodigoPendiente {
+        final String codigo;
+        final long tiempoGeneracion;
+
+        CodigoPendiente(String codigo, long tiempoGeneracion) {
+            this.codigo = codigo;
+            this.tiempoGeneracion = tiempoGeneracion;
+        }
+    }
+
+    // El motor se elige con -Dalmacenamiento=sqlite|memoria|h2|eventos|fragmentado (por defecto sqlite).
+    // Se abre en segundo plano para que la ventana de inicio de sesión no espere la conexión
+    // ni el esquema; el primer uso se queda esperando solo si todavía no terminó.
     public GestorRegistro() {
+        this(CompletableFuture.supplyAsync(() -> {
+            TaskRepository repositorio = crearRepositorio(System.getProperty("almacenamiento", "sqlite"));
+            LineaTiempoArranque.marcar("almacenamiento abierto");
+            return repositorio;
+        }));
+    }
+
+    private GestorRegistro(CompletableFuture<TaskRepository> repositorio) {
+        this(repositorio, repositorio.thenApply(r -> (UserRepository) r));
+    }
+
+    public GestorRegistro(TaskRepository tareas, UserRepository usuarios) {
+        this(CompletableFuture.completedFuture(tareas), CompletableFuture.completedFuture(usuarios));
+    }
+
+    private GestorRegistro(CompletableFuture<TaskRepository> tareas, CompletableFuture<UserRepository> usuarios) {
         this.pilaAcciones = new PilaAcciones();
         this.random = new Random();
-        inicializarBaseDatos();
+        this.tareas = tareas;
+        this.usuarios = usuarios;
+        this.colaCompletadas = new ColaCompletadas(this::getTareas);
+        this.registroSesiones = new RegistroSesiones(this::getTareas, this::sumarEstudio);
+        this.motorPomodoro = new MotorPomodoro(this);
+        this.ordenManual = new OrdenManual(this::getTareas, id -> tareasDePrimerNivel(id, EnumSet.of(CampoTarea.FECHA_ENTREGA, CampoTarea.ORDEN)));
     }
 
-    private void inicializarBaseDatos() {
-        try {
-            conn = DriverManager.getConnection(DB_URL);
-            String script = "";
-            try (java.util.Scanner scanner = new java.util.Scanner(getClass().getResourceAsStream("/com/database/schema.sql"))) {
-                scanner.useDelimiter("\\A"); // Lee todo el archivo
-                if (scanner.hasNext()) {
-                    script = scanner.next();
-                }
-            }
-            
-            String[] statements = script.split(";");
-            for (String statement : statements) {
-                String trimmed = statement.trim();
-                if (!trimmed.isEmpty()) {
-                    conn.createStatement().execute(trimmed);
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error al inicializar la base de datos: " + e.getMessage());
+    // Todas las implementaciones atienden tanto tareas como usuarios y se pueden usar desde varios
+    // hilos a la vez (EDT, SwingWorkers y los escritores de fondo de las completadas, las sesiones y
+    // el orden). JdbcRepository comparte una sola conexión, así que va dentro de RepositorioSerializado;
+    // los de memoria, eventos y fragmentos ya se sincronizan solos.
+    public static TaskRepository crearRepositorio(String almacenamiento) {
+        switch (almacenamiento.toLowerCase()) {
+            case "memoria":
+                return new InMemoryRepository();
+            case "h2":
+                return serializado(new JdbcRepository(JdbcDialect.H2));
+            case "eventos":
+                return new EventSourcedRepository();
+            case "fragmentado":
+                return new ShardedRepository();
+            default:
+                return serializado(new JdbcRepository(JdbcDialect.SQLITE));
         }
     }
 
-    public boolean registrarUsuario(String nombre, String apellido, String correo, String contrasena) {
-        try {
-            if (existeCorreo(correo)) {
-                return false;
-            }
+    private static TaskRepository serializado(JdbcRepository repositorio) {
+        return new RepositorioSerializado(repositorio, repositorio);
+    }
 
-            String query = "INSERT INTO Usuarios (nombre, correo, contrasena) VALUES (?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, nombre);
-                pstmt.setString(2, correo);
-                pstmt.setString(3, contrasena);
-                pstmt.executeUpdate();
-                return true;
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al registrar usuario: " + e.getMessage());
-            return false;
-        }
+    public TaskRepository getTareas() {
+        return tareas.join();
+    }
+
+    public UserRepository getUsuarios() {
+        return usuarios.join();
+    }
+
+    // Corre la acción cuando el almacenamiento termina de abrirse (ya, si estaba abierto), en el hilo
+    // que lo abrió y sin bloquear al que llama
+    public void alAbrirAlmacenamiento(Runnable accion) {
+        usuarios.whenComplete((repositorio, error) -> accion.run());
+    }
+
+    public boolean registrarUsuario(String nombre, String apellido, String correo, String contrasena) {
+        return getUsuarios().registrarUsuario(nombre, correo, contrasena);
     }
 
     public boolean existeCorreo(String correo) {
-        String query = "SELECT COUNT(*) FROM Usuarios WHERE correo = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, correo);
-            ResultSet rs = pstmt.executeQuery();
-            return rs.getInt(1) > 0;
-        } catch (SQLException e) {
-            System.err.println("Error al verificar correo: " + e.getMessage());
-            return true;
-        }
+        return getUsuarios().existeCorreo(correo);
     }
 
     public boolean enviarCodigoVerificacion(String correo) {
@@ -89,200 +156,733 @@ public class GestorRegistro {
             int codigo = random.nextInt(900000) + 100000;
             String codigoStr = String.valueOf(codigo);
 
-            // Configurar propiedades
-            Properties props = new Properties();
-            props.put("mail.smtp.auth", "true");
-            props.put("mail.smtp.starttls.enable", "true");
-            props.put("mail.smtp.host", "smtp.gmail.com");
-            props.put("mail.smtp.port", "587");
-            props.put("mail.smtp.ssl.protocols", "TLSv1.2 TLSv1.3");
-            props.put("mail.smtp.ssl.trust", "smtp.gmail.com");
-            props.put("mail.debug", "true");
-
-            // Crear sesión de correo
-            final String remitente = "task.gestor@gmail.com";
-            final String contrasena = "bvna lsth kgsi ikvp";
-            
-            Session session = Session.getInstance(props, new Authenticator() {
-                @Override
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(remitente, contrasena);
-                }
-            });
+            // Las clases de javax.mail solo se cargan al enviar el primer correo
+            EmailSender.sendVerificationCode(correo, codigoStr);
+
+            // Guardar el código de este correo (reemplaza uno anterior sin usar)
+            codigosVerificacion.put(correo, new CodigoPendiente(codigoStr, System.currentTimeMillis()));
 
-            // Crear mensaje
-            Message mensaje = new MimeMessage(session);
-            mensaje.setFrom(new InternetAddress(remitente));
-            mensaje.setRecipients(Message.RecipientType.TO, InternetAddress.parse(correo));
-            mensaje.setSubject("Código de Verificación - Study Habits App");
-            
-            String htmlContent = String.format(
-                "<div style='font-family: Arial, sans-serif; padding: 20px; max-width: 600px; margin: 0 auto;'>" +
-                "<h2 style='color: #006666;'>Verificación de Correo Electrónico</h2>" +
-                "<p>Gracias por registrarte en Study Habits App. Tu código de verificación es:</p>" +
-                "<div style='background-color: #f0f0f0; padding: 15px; text-align: center; font-size: 24px; " +
-                "letter-spacing: 5px; margin: 20px 0; font-weight: bold; color: #006666;'>" +
-                "%s" +
-                "</div>" +
-                "<p>Este código expirará en 10 minutos.</p>" +
-                "<p>Si no solicitaste este código, puedes ignorar este correo.</p>" +
-                "</div>",
-                codigoStr
-            );
-
-            mensaje.setContent(htmlContent, "text/html; charset=utf-8");
-            Transport.send(mensaje);
-
-            // Guardar el código y correo actuales
-            codigoVerificacionActual = codigoStr;
-            correoVerificacionActual = correo;
-            tiempoGeneracionCodigo = System.currentTimeMillis();
-            
             System.out.println("Correo enviado exitosamente a: " + correo);
             return true;
-        } catch (MessagingException e) {
+        } catch (Exception e) {
             System.err.println("Error al enviar correo: " + e.getMessage());
             return false;
         }
     }
 
     public boolean verificarCodigo(String correo, String codigo) {
-        if (codigoVerificacionActual == null || correoVerificacionActual == null) {
+        CodigoPendiente pendiente = codigosVerificacion.get(correo);
+        if (pendiente == null) {
             return false;
         }
-        
-        // Verificar si el código ha expirado (10 minutos)
-        long tiempoActual = System.currentTimeMillis();
-        if (tiempoActual - tiempoGeneracionCodigo > 600000) { // 10 minutos en milisegundos
-            codigoVerificacionActual = null;
-            correoVerificacionActual = null;
+
+        // Verificar si el código ha expirado
+        if (System.currentTimeMillis() - pendiente.tiempoGeneracion > VIGENCIA_CODIGO_MS) {
+            codigosVerificacion.remove(correo, pendiente);
             return false;
         }
 
-        // Verificar si el código y correo coinciden con los almacenados
-        boolean esValido = codigo.equals(codigoVerificacionActual) && correo.equals(correoVerificacionActual);
-        if (esValido) {
-            codigoVerificacionActual = null;
-            correoVerificacionActual = null;
-        }
-        return esValido;
+        // Solo se consume si coincide; remove(clave, valor) evita que dos verificaciones simultáneas lo usen dos veces
+        return codigo.equals(pendiente.codigo) && codigosVerificacion.remove(correo, pendiente);
+    }
+
+    public void setDeshacerHabilitado(boolean deshacerHabilitado) {
+        this.deshacerHabilitado = deshacerHabilitado;
     }
 
     public List<Tarea> buscarTareasPorUsuario(int idUsuario) {
-        List<Tarea> tareas = new ArrayList<>();
-        try {
-            String query = "SELECT idTarea, nombre, descripcion, completada, fechaEntrega FROM Tareas WHERE idUsuario = ? ORDER BY fechaEntrega";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, idUsuario);
-                ResultSet rs = pstmt.executeQuery();
-                while (rs.next()) {
-                    Tarea tarea = new Tarea(rs.getInt("idTarea"), idUsuario, rs.getString("nombre"), rs.getString("descripcion"));
-                    tarea.setCompletada(rs.getBoolean("completada"));
-                    tarea.setFechaEntrega(rs.getString("fechaEntrega"));
-                    tareas.add(tarea);
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al buscar tareas: " + e.getMessage());
-        }
+        return buscarTareasPorUsuario(idUsuario, 0, -1, CampoTarea.TODOS);
+    }
+
+    // Consulta paginada que solo trae las columnas pedidas (limit -1 = sin límite)
+    public List<Tarea> buscarTareasPorUsuario(int idUsuario, int offset, int limit, Set<CampoTarea> campos) {
+        return conPendientes(getTareas().buscarTareasPorUsuario(idUsuario, offset, limit, campos));
+    }
+
+    // Paginación por clave (fechaEntrega, idTarea): trae las tareas que van después de la clave dada.
+    // Para empezar desde el principio se usa la clave ("", 0).
+    public List<Tarea> buscarTareasDespuesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        return conPendientes(getTareas().buscarTareasDespuesDe(idUsuario, fechaEntrega, idTarea, limit, campos));
+    }
+
+    // Igual que buscarTareasDespuesDe pero hacia atrás; el resultado sigue en orden ascendente
+    public List<Tarea> buscarTareasAntesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        return conPendientes(getTareas().buscarTareasAntesDe(idUsuario, fechaEntrega, idTarea, limit, campos));
+    }
+
+    // Lo leído de la base todavía no tiene las marcas de completada que esperan en la cola
+    private List<Tarea> conPendientes(List<Tarea> tareas) {
+        colaCompletadas.aplicarPendientes(tareas);
         return tareas;
     }
 
+    public String obtenerDescripcion(int idTarea) {
+        return getTareas().obtenerDescripcion(idTarea);
+    }
+
+    // Completa la descripción de una tarea que se cargó solo con su resumen
+    public void cargarDescripcion(Tarea tarea) {
+        if (tarea.isDescripcionCompleta()) {
+            return;
+        }
+        String descripcion = obtenerDescripcion(tarea.getIdTarea());
+        if (descripcion != null) {
+            tarea.setDescripcion(descripcion);
+        }
+    }
+
     public int agregarTarea(int idUsuario, String titulo, String descripcion, String fechaEntrega) {
         return agregarTarea(idUsuario, titulo, descripcion, fechaEntrega, true);
     }
 
     private int agregarTarea(int idUsuario, String titulo, String descripcion, String fechaEntrega, boolean registrarAccion) {
-        try {
-            String query = "INSERT INTO Tareas (idUsuario, nombre, descripcion, completada, fechaEntrega) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setInt(1, idUsuario);
-                pstmt.setString(2, titulo);
-                pstmt.setString(3, descripcion);
-                pstmt.setBoolean(4, false);
-                pstmt.setString(5, fechaEntrega);
-                pstmt.executeUpdate();
-                ResultSet rs = pstmt.getGeneratedKeys();
-                if (rs.next()) {
-                    int idTarea = rs.getInt(1);
-                    if (registrarAccion) {
-                        pilaAcciones.agregarAccion(() -> eliminarTarea(idTarea, false));
-                    }
-                    return idTarea;
+        int idTarea = getTareas().agregarTarea(idUsuario, titulo, descripcion, fechaEntrega);
+        if (idTarea != -1) {
+            agregarAIndices(idTarea, idUsuario, 0, titulo, descripcion, fechaEntrega, false);
+        }
+        if (idTarea != -1 && registrarAccion && deshacerHabilitado) {
+            pilaAcciones.agregarAccion(() -> eliminarTarea(idTarea, false));
+        }
+        return idTarea;
+    }
+
+    // Subtarea de otra tarea, del mismo usuario que ella; -1 si la tarea padre ya no existe
+    public int agregarSubtarea(int idTareaPadre, String titulo, String descripcion, String fechaEntrega) {
+        int idTarea = getTareas().agregarSubtarea(idTareaPadre, titulo, descripcion, fechaEntrega);
+        if (idTarea == -1) {
+            return -1;
+        }
+        // Si hay índices armados, el del usuario ya conoce a la tarea padre
+        int idUsuario = usuarioEnIndices(idTareaPadre);
+        if (idUsuario != -1) {
+            agregarAIndices(idTarea, idUsuario, idTareaPadre, titulo, descripcion, fechaEntrega, false);
+        }
+        if (deshacerHabilitado) {
+            pilaAcciones.agregarAccion(() -> eliminarTarea(idTarea, false));
+        }
+        return idTarea;
+    }
+
+    private int usuarioEnIndices(int idTarea) {
+        for (Map.Entry<Integer, List<OyenteTareas>> delUsuario : oyentes.entrySet()) {
+            for (OyenteTareas oyente : delUsuario.getValue()) {
+                if (oyente.conoce(idTarea)) {
+                    return delUsuario.getKey();
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error al agregar tarea: " + e.getMessage());
         }
         return -1;
     }
 
+    // Sale de los índices si alguno conoce la tarea; si no, del almacenamiento
+    private int usuarioDeTarea(int idTarea) {
+        int idUsuario = usuarioEnIndices(idTarea);
+        if (idUsuario != -1) {
+            return idUsuario;
+        }
+        Tarea tarea = getTareas().obtenerTareaPorId(idTarea);
+        return tarea != null ? tarea.getIdUsuario() : -1;
+    }
+
+    private void agregarAIndices(int idTarea, int idUsuario, int idTareaPadre, String titulo, String descripcion,
+            String fechaEntrega, boolean completada) {
+        if (!oyentes.containsKey(idUsuario)) {
+            return;
+        }
+        Tarea tarea = new Tarea(idTarea, idUsuario, titulo, null);
+        tarea.setIdTareaPadre(idTareaPadre);
+        tarea.setResumenDescripcion(descripcion == null || descripcion.length() <= Tarea.LARGO_RESUMEN
+                ? descripcion : descripcion.substring(0, Tarea.LARGO_RESUMEN));
+        tarea.setFechaEntrega(fechaEntrega);
+        tarea.setCompletada(completada);
+        avisar(idUsuario, oyente -> oyente.alAgregar(tarea));
+    }
+
+    // Lo armado en memoria para el usuario empieza a recibir los cambios de sus tareas
+    private void registrar(int idUsuario, OyenteTareas oyente) {
+        oyentes.computeIfAbsent(idUsuario, id -> new CopyOnWriteArrayList<>()).add(oyente);
+    }
+
+    private void avisar(int idUsuario, Consumer<OyenteTareas> cambio) {
+        List<OyenteTareas> delUsuario = oyentes.get(idUsuario);
+        if (delUsuario != null) {
+            for (OyenteTareas oyente : delUsuario) {
+                cambio.accept(oyente);
+            }
+        }
+    }
+
+    // Para los cambios que solo traen el idTarea; el usuario sale de lo armado si alguno lo conoce
+    private void avisarPorTarea(int idTarea, Consumer<OyenteTareas> cambio) {
+        if (!oyentes.isEmpty()) {
+            avisar(usuarioDeTarea(idTarea), cambio);
+        }
+    }
+
+    // Elimina la tarea con todas sus subtareas
     public void eliminarTarea(int idTarea) {
         eliminarTarea(idTarea, true);
     }
 
     private void eliminarTarea(int idTarea, boolean registrarAccion) {
-        try {
-            String query = "SELECT idUsuario, nombre, descripcion, fechaEntrega FROM Tareas WHERE idTarea = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, idTarea);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    int idUsuario = rs.getInt("idUsuario");
-                    String nombre = rs.getString("nombre");
-                    String descripcion = rs.getString("descripcion");
-                    String fechaEntrega = rs.getString("fechaEntrega");
-                    if (registrarAccion) {
-                        pilaAcciones.agregarAccion(() -> {
-                            agregarTarea(idUsuario, nombre, descripcion, fechaEntrega, false);
-                        });
-                    }
-                }
+        boolean deshacer = registrarAccion && deshacerHabilitado;
+        // El subárbol solo se lee si hace falta para deshacer o para avisar cada tarea borrada
+        List<Tarea> subarbol = deshacer || !oyentes.isEmpty()
+                ? conPendientes(getTareas().obtenerSubarbol(idTarea)) : List.of();
+        getTareas().eliminarTarea(idTarea);
+        for (Tarea tarea : subarbol) {
+            avisar(tarea.getIdUsuario(), oyente -> oyente.alEliminar(tarea));
+        }
+        if (deshacer && !subarbol.isEmpty()) {
+            pilaAcciones.agregarAccion(() -> restaurarSubarbol(subarbol));
+        }
+    }
+
+    // Deshace un borrado: la tarea y sus subtareas vuelven (con ids nuevos) en una sola escritura
+    private void restaurarSubarbol(List<Tarea> subarbol) {
+        int[] nuevos = getTareas().restaurarSubarbol(subarbol);
+        Map<Integer, Integer> idsNuevos = new HashMap<>();
+        for (int i = 0; i < nuevos.length; i++) {
+            Tarea tarea = subarbol.get(i);
+            idsNuevos.put(tarea.getIdTarea(), nuevos[i]);
+            int padre = idsNuevos.getOrDefault(tarea.getIdTareaPadre(), tarea.getIdTareaPadre());
+            agregarAIndices(nuevos[i], tarea.getIdUsuario(), padre, tarea.getNombre(), tarea.getDescripcion(),
+                    tarea.getFechaEntrega(), tarea.isCompletada());
+        }
+    }
+
+    // Hijas directas de una tarea, con las columnas pedidas
+    public List<Tarea> buscarSubtareas(int idTareaPadre, Set<CampoTarea> campos) {
+        return conPendientes(getTareas().buscarSubtareas(idTareaPadre, campos));
+    }
+
+    // Avance de las subtareas de cada tarea pedida (las que no tienen subtareas no aparecen)
+    public Map<Integer, ProgresoSubtareas> obtenerProgreso(Collection<Integer> idsTareas) {
+        if (idsTareas.isEmpty()) {
+            return new HashMap<>();
+        }
+        // La consulta cuenta lo guardado: primero se escriben las marcas que esperan en la cola
+        colaCompletadas.vaciar();
+        return getTareas().obtenerProgreso(idsTareas);
+    }
+
+    // Carga en cada tarea el avance de sus subtareas con una sola consulta
+    public void completarProgreso(List<Tarea> tareas) {
+        List<Integer> ids = new ArrayList<>(tareas.size());
+        for (Tarea tarea : tareas) {
+            ids.add(tarea.getIdTarea());
+        }
+        Map<Integer, ProgresoSubtareas> progreso = obtenerProgreso(ids);
+        for (Tarea tarea : tareas) {
+            tarea.setProgreso(progreso.getOrDefault(tarea.getIdTarea(), ProgresoSubtareas.NINGUNO));
+        }
+    }
+
+    public Tarea obtenerTareaPorId(int idTarea) {
+        Tarea tarea = getTareas().obtenerTareaPorId(idTarea);
+        colaCompletadas.aplicarPendiente(tarea);
+        return tarea;
+    }
+
+    // La tarjeta ya cambió en pantalla: la escritura se junta con las demás y se guarda en segundo
+    // plano. Conviene pasar solo las tareas que de verdad cambiaron, así deshacer las devuelve.
+    public void actualizarCompletada(int idTarea, boolean completada) {
+        actualizarCompletadas(List.of(idTarea), completada);
+    }
+
+    // Marca varias de una vez; llegan a la base en la misma transacción
+    public void actualizarCompletadas(Collection<Integer> idsTareas, boolean completada) {
+        actualizarCompletadas(idsTareas, completada, true);
+    }
+
+    private void actualizarCompletadas(Collection<Integer> idsTareas, boolean completada, boolean registrarAccion) {
+        if (idsTareas.isEmpty()) {
+            return;
+        }
+        Map<Integer, Boolean> cambios = new LinkedHashMap<>();
+        for (int idTarea : idsTareas) {
+            cambios.put(idTarea, completada);
+        }
+        colaCompletadas.encolar(cambios);
+        avisarCompletadas(idsTareas, completada);
+        if (registrarAccion && deshacerHabilitado) {
+            List<Integer> ids = new ArrayList<>(idsTareas);
+            pilaAcciones.agregarAccion(() -> actualizarCompletadas(ids, !completada, false));
+        }
+    }
+
+    // Lleva el cambio de completada a los índices en memoria que ya estén armados
+    private void avisarCompletadas(Collection<Integer> idsTareas, boolean completada) {
+        for (int idTarea : idsTareas) {
+            avisarPorTarea(idTarea, oyente -> oyente.alCambiarCompletada(idTarea, completada));
+        }
+    }
+
+    // Mueve tareas a otra columna del Kanban; todas se guardan en una sola transacción. Las tareas
+    // traen el estado que tenían, así los índices solo se enteran de las que cambian completada
+    // y deshacer devuelve cada una a su columna. Se llama fuera del EDT.
+    public void moverTareas(Collection<Tarea> tareas, EstadoTarea destino) {
+        Map<Integer, EstadoTarea> nuevos = new LinkedHashMap<>();
+        Map<Integer, EstadoTarea> anteriores = new LinkedHashMap<>();
+        for (Tarea tarea : tareas) {
+            if (tarea.getEstado() != destino) {
+                nuevos.put(tarea.getIdTarea(), destino);
+                anteriores.put(tarea.getIdTarea(), tarea.getEstado());
             }
-            
-            query = "DELETE FROM Tareas WHERE idTarea = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, idTarea);
-                pstmt.executeUpdate();
+        }
+        actualizarEstados(nuevos, anteriores, true);
+    }
+
+    // Tareas de primer nivel en el orden manual del Kanban (las que nunca se ordenaron, al final por
+    // fecha). Las que no tenían clave la reciben acá, en una sola transacción.
+    public List<Tarea> tareasEnOrden(int idUsuario, Set<CampoTarea> campos) {
+        Set<CampoTarea> conOrden = EnumSet.of(CampoTarea.ORDEN, CampoTarea.FECHA_ENTREGA);
+        conOrden.addAll(campos);
+        ordenManual.esperarRebalanceo();
+        return ordenManual.ordenar(tareasDePrimerNivel(idUsuario, conOrden));
+    }
+
+    // Pone una tarjeta entre otras dos de su columna (0 = extremo) escribiendo solo su fila. Devuelve
+    // la clave nueva, o null si las vecinas cambiaron mientras tanto. Se llama fuera del EDT.
+    public String moverEnOrden(int idTarea, int idAnterior, int idSiguiente) {
+        return ordenManual.mover(idTarea, idAnterior, idSiguiente);
+    }
+
+    private List<Tarea> tareasDePrimerNivel(int idUsuario, Set<CampoTarea> campos) {
+        List<Tarea> tareas = new ArrayList<>();
+        for (Tarea tarea : buscarTareasPorUsuario(idUsuario, 0, -1, campos)) {
+            if (tarea.getIdTareaPadre() == 0) {
+                tareas.add(tarea);
             }
-        } catch (SQLException e) {
-            System.err.println("Error al eliminar tarea: " + e.getMessage());
         }
+        return tareas;
     }
 
-    public Tarea obtenerTareaPorId(int idTarea) {
-        Tarea tarea = null;
-        try {
-            String query = "SELECT idUsuario, nombre, descripcion, completada, fechaEntrega FROM Tareas WHERE idTarea = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, idTarea);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    int idUsuario = rs.getInt("idUsuario");
-                    String nombre = rs.getString("nombre");
-                    String descripcion = rs.getString("descripcion");
-                    tarea = new Tarea(idTarea, idUsuario, nombre, descripcion);
-                    tarea.setCompletada(rs.getBoolean("completada"));
-                    tarea.setFechaEntrega(rs.getString("fechaEntrega"));
-                }
+    private void actualizarEstados(Map<Integer, EstadoTarea> nuevos, Map<Integer, EstadoTarea> anteriores, boolean registrarAccion) {
+        if (nuevos.isEmpty()) {
+            return;
+        }
+        // Las marcas de completada todavía en cola van antes, para que no pisen este cambio
+        colaCompletadas.vaciar();
+        getTareas().actualizarEstados(nuevos);
+        List<Integer> completadas = new ArrayList<>();
+        List<Integer> reabiertas = new ArrayList<>();
+        for (Map.Entry<Integer, EstadoTarea> cambio : nuevos.entrySet()) {
+            EstadoTarea estado = cambio.getValue();
+            boolean antes = anteriores.get(cambio.getKey()) == EstadoTarea.COMPLETADA;
+            if (antes != (estado == EstadoTarea.COMPLETADA)) {
+                (antes ? reabiertas : completadas).add(cambio.getKey());
             }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener tarea por ID: " + e.getMessage());
+            int idTarea = cambio.getKey();
+            avisarPorTarea(idTarea, oyente -> oyente.alCambiarEstado(idTarea, estado));
+        }
+        if (!completadas.isEmpty()) {
+            avisarCompletadas(completadas, true);
+        }
+        if (!reabiertas.isEmpty()) {
+            avisarCompletadas(reabiertas, false);
+        }
+        if (registrarAccion && deshacerHabilitado) {
+            pilaAcciones.agregarAccion(() -> actualizarEstados(anteriores, nuevos, false));
         }
-        return tarea;
     }
 
     public void actualizarFechaEntrega(int idTarea, String fechaEntrega) {
-        try {
-            String query = "UPDATE Tareas SET fechaEntrega = ? WHERE idTarea = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, fechaEntrega);
-                pstmt.setInt(2, idTarea);
-                pstmt.executeUpdate();
+        getTareas().actualizarFechaEntrega(idTarea, fechaEntrega);
+        avisarPorTarea(idTarea, oyente -> oyente.alCambiarFecha(idTarea, fechaEntrega));
+    }
+
+    // Tareas con desde <= fechaEntrega < hasta ("yyyy-MM-dd"), en orden y con el resumen de la
+    // descripción, junto con las ocurrencias de las series que caen en el rango. Las tareas salen
+    // del índice en memoria; la primera vez se cargan todas las del usuario.
+    public List<Tarea> tareasEntreFechas(int idUsuario, String desde, String hasta) {
+        List<Tarea> resultado = new ArrayList<>();
+        for (Tarea tarea : indicePorFecha(idUsuario).entre(desde, hasta)) {
+            resultado.add(tarea.copia());
+        }
+        return conOcurrencias(resultado, idUsuario, desde, hasta);
+    }
+
+    // Igual que tareasEntreFechas pero leyendo del almacenamiento, con las columnas pedidas
+    public List<Tarea> buscarTareasEntreFechas(int idUsuario, String desde, String hasta, Set<CampoTarea> campos) {
+        return conOcurrencias(conPendientes(getTareas().buscarTareasEntreFechas(idUsuario, desde, hasta, campos)), idUsuario, desde, hasta);
+    }
+
+    private List<Tarea> conOcurrencias(List<Tarea> tareas, int idUsuario, String desde, String hasta) {
+        List<Tarea> ocurrencias = ocurrenciasEntre(idUsuario, desde, hasta);
+        if (ocurrencias.isEmpty()) {
+            return tareas;
+        }
+        List<Tarea> resultado = new ArrayList<>(tareas);
+        resultado.addAll(ocurrencias);
+        resultado.sort(ORDEN_CON_OCURRENCIAS);
+        return resultado;
+    }
+
+    // ---- Series de tareas que se repiten ----
+
+    // Guarda la serie una sola vez; inicio es la fecha de la primera ocurrencia. idSerie, o -1.
+    public int agregarSerie(int idUsuario, String titulo, String descripcion, String inicio, ReglaRecurrencia regla) {
+        return agregarSerie(new SerieTareas(0, idUsuario, titulo, descripcion, inicio, regla), true);
+    }
+
+    private int agregarSerie(SerieTareas serie, boolean registrarAccion) {
+        int idSerie = getTareas().agregarSerie(serie);
+        if (idSerie != -1 && registrarAccion && deshacerHabilitado) {
+            pilaAcciones.agregarAccion(() -> eliminarSerie(idSerie, false));
+        }
+        return idSerie;
+    }
+
+    public SerieTareas obtenerSerie(int idSerie) {
+        return getTareas().obtenerSerie(idSerie);
+    }
+
+    // Elimina la serie entera; deshacer la vuelve a crear (con otro id) junto con sus excepciones
+    public void eliminarSerie(int idSerie) {
+        eliminarSerie(idSerie, true);
+    }
+
+    private void eliminarSerie(int idSerie, boolean registrarAccion) {
+        SerieTareas serie = registrarAccion && deshacerHabilitado ? getTareas().obtenerSerie(idSerie) : null;
+        getTareas().eliminarSerie(idSerie);
+        if (serie != null) {
+            pilaAcciones.agregarAccion(() -> agregarSerie(serie, false));
+        }
+    }
+
+    // Ocurrencias de las series del usuario con desde <= fechaEntrega < hasta, en orden. Solo se
+    // generan las del rango: un año de una serie semanal no arma ni lee 52 filas para mostrar un mes.
+    public List<Tarea> ocurrenciasEntre(int idUsuario, String desde, String hasta) {
+        List<Tarea> resultado = new ArrayList<>();
+        for (SerieTareas serie : getTareas().buscarSeriesEntreFechas(idUsuario, desde, hasta)) {
+            resultado.addAll(serie.ocurrenciasEntre(desde, hasta));
+        }
+        resultado.sort(ORDEN_CON_OCURRENCIAS);
+        return resultado;
+    }
+
+    // Cambia solo esta ocurrencia (completarla, saltearla o moverla); el resto de la serie sigue igual
+    public void cambiarOcurrencia(Tarea ocurrencia, ExcepcionOcurrencia cambio) {
+        ExcepcionOcurrencia anterior = ExcepcionOcurrencia.de(ocurrencia);
+        getTareas().guardarExcepcion(ocurrencia.getIdSerie(), cambio);
+        if (deshacerHabilitado) {
+            pilaAcciones.agregarAccion(() -> getTareas().guardarExcepcion(ocurrencia.getIdSerie(), anterior));
+        }
+    }
+
+    // Tareas de cada día desde "desde" durante "dias" días, con las ocurrencias de las series:
+    // resultado.get(i) son las del día desde + i, por hora. Cuesta lo que los días pedidos y sus
+    // tareas, sin importar cuántas tenga el usuario en total.
+    public List<List<Tarea>> tareasPorDia(int idUsuario, LocalDate desde, int dias) {
+        IndiceTareasConcurrente porFecha = indicePorFecha(idUsuario);
+        IndiceDias indice = indicesDias.computeIfAbsent(idUsuario, id -> {
+            IndiceDias nuevo = new IndiceDias(porFecha.todas());
+            registrar(id, nuevo);
+            return nuevo;
+        });
+        List<List<Tarea>> resultado = new ArrayList<>(dias);
+        for (int[] ids : indice.entre(desde.toEpochDay(), dias)) {
+            List<Tarea> delDia = new ArrayList<>(ids.length);
+            for (int idTarea : ids) {
+                Tarea tarea = porFecha.obtener(idTarea);
+                if (tarea != null) {
+                    delDia.add(tarea.copia());
+                }
+            }
+            resultado.add(delDia);
+        }
+        for (Tarea ocurrencia : ocurrenciasEntre(idUsuario, desde.toString(), desde.plusDays(dias).toString())) {
+            long i = ActividadUsuario.diaDesde1970(ocurrencia.getFechaEntrega()) - desde.toEpochDay();
+            if (i >= 0 && i < dias) {
+                resultado.get((int) i).add(ocurrencia);
+            }
+        }
+        for (List<Tarea> delDia : resultado) {
+            delDia.sort(ORDEN_CON_OCURRENCIAS);
+        }
+        return resultado;
+    }
+
+    private IndiceTareasConcurrente indicePorFecha(int idUsuario) {
+        return indicesPorFecha.computeIfAbsent(idUsuario, id -> {
+            IndiceTareasConcurrente indice = new IndiceTareasConcurrente();
+            for (Tarea tarea : buscarTareasPorUsuario(id, 0, -1, CampoTarea.TABLERO)) {
+                indice.guardar(tarea);
+            }
+            registrar(id, new OyentePorFecha(indice));
+            return indice;
+        });
+    }
+
+    // El índice por fecha se lee sin candado: sus tareas no se modifican en el lugar, se guarda una
+    // copia con el cambio
+    private static final class OyentePorFecha implements OyenteTareas {
+        private final IndiceTareasConcurrente indice;
+
+        OyentePorFecha(IndiceTareasConcurrente indice) {
+            this.indice = indice;
+        }
+
+        @Override
+        public boolean conoce(int idTarea) {
+            return indice.contiene(idTarea);
+        }
+
+        @Override
+        public void alAgregar(Tarea tarea) {
+            indice.guardar(tarea.copia());
+        }
+
+        @Override
+        public void alEliminar(Tarea tarea) {
+            indice.eliminar(tarea.getIdTarea());
+        }
+
+        @Override
+        public void alCambiarCompletada(int idTarea, boolean completada) {
+            cambiar(idTarea, tarea -> tarea.setCompletada(completada));
+        }
+
+        @Override
+        public void alCambiarFecha(int idTarea, String fechaEntrega) {
+            cambiar(idTarea, tarea -> tarea.setFechaEntrega(fechaEntrega));
+        }
+
+        @Override
+        public void alCambiarEstado(int idTarea, EstadoTarea estado) {
+            cambiar(idTarea, tarea -> tarea.setEstado(estado));
+        }
+
+        private void cambiar(int idTarea, Consumer<Tarea> cambio) {
+            indice.actualizar(idTarea, actual -> {
+                Tarea copia = actual.copia();
+                cambio.accept(copia);
+                return copia;
+            });
+        }
+    }
+
+    // Las k tareas pendientes con entrega más cercana (las vencidas primero), sin ordenar todas
+    public List<Tarea> proximasEntregas(int idUsuario, int k) {
+        return tareasPorId(indiceEntregas(idUsuario).proximas(k));
+    }
+
+    // Tareas que se entregan dentro de la anticipación dada y todavía no se avisaron; cada una se
+    // devuelve una sola vez (si se le cambia la fecha se vuelve a avisar)
+    public List<Tarea> avisosPendientes(int idUsuario, long anticipacionMs) {
+        List<Integer> ids = indiceEntregas(idUsuario).avisosHasta(System.currentTimeMillis(), anticipacionMs);
+        int[] arreglo = new int[ids.size()];
+        for (int i = 0; i < arreglo.length; i++) {
+            arreglo[i] = ids.get(i);
+        }
+        return tareasPorId(arreglo);
+    }
+
+    // Milisegundos hasta la entrega del próximo aviso, o -1 si no queda ninguno
+    public long milisegundosHastaProximoAviso(int idUsuario) {
+        long proximo = indiceEntregas(idUsuario).proximoAviso();
+        return proximo == IndiceEntregas.SIN_FECHA ? -1 : Math.max(0, proximo - System.currentTimeMillis());
+    }
+
+    private IndiceEntregas indiceEntregas(int idUsuario) {
+        return indicesEntregas.computeIfAbsent(idUsuario, id -> {
+            IndiceEntregas indice = new IndiceEntregas(
+                    buscarTareasPorUsuario(id, 0, -1, EnumSet.of(CampoTarea.COMPLETADA, CampoTarea.FECHA_ENTREGA)));
+            registrar(id, indice);
+            return indice;
+        });
+    }
+
+    // Las k tareas pendientes que más conviene estudiar ahora (ver RecomendadorTareas), de la mejor a
+    // la peor. Solo se repuntúa lo que cambió desde la última vez.
+    public List<Tarea> recomendarTareas(int idUsuario, int k) {
+        long ahora = System.currentTimeMillis();
+        RecomendadorTareas recomendador = recomendadores.computeIfAbsent(idUsuario, id -> {
+            RecomendadorTareas nuevo = new RecomendadorTareas(
+                    buscarTareasPorUsuario(id, 0, -1, EnumSet.of(CampoTarea.COMPLETADA, CampoTarea.FECHA_ENTREGA)), ahora);
+            registrar(id, nuevo);
+            return nuevo;
+        });
+        if (recomendador.tomarEstudioVencido(ahora)) {
+            LocalDate hoy = LocalDate.now();
+            recomendador.cambiarEstudio(tiempoPorTarea(idUsuario, hoy.minusDays(RecomendadorTareas.DIAS_ESTUDIO - 1).toString(),
+                    hoy.plusDays(1).toString()));
+        }
+        return tareasPorId(recomendador.recomendar(k, ahora));
+    }
+
+    private List<Tarea> tareasPorId(int[] ids) {
+        List<Tarea> resultado = new ArrayList<>(ids.length);
+        for (int idTarea : ids) {
+            Tarea tarea = obtenerTareaPorId(idTarea);
+            if (tarea != null) {
+                resultado.add(tarea);
             }
-        } catch (SQLException e) {
-            System.err.println("Error al actualizar fecha de entrega: " + e.getMessage());
         }
+        return resultado;
+    }
+
+    public long obtenerVersionTablero(int idUsuario) {
+        return getTareas().obtenerVersionTablero(idUsuario);
+    }
+
+    // Lee los contadores que el repositorio mantiene en cada cambio, no recorre las tareas
+    public EstadisticasEstudio obtenerEstadisticas(int idUsuario) {
+        // Los contadores solo cuentan lo que ya está guardado
+        colaCompletadas.vaciar();
+        return getTareas().obtenerEstadisticas(idUsuario, LocalDate.now());
+    }
+
+    // ---- Sesiones de estudio ----
+    // Los eventos se registran sin esperar a la base (ver RegistroSesiones); las sumas incluyen los
+    // tramos que siguen en marcha hasta este momento
+
+    public void iniciarSesion(int idUsuario, int idTarea) {
+        registroSesiones.registrar(idUsuario, idTarea, RegistroSesiones.INICIAR);
+    }
+
+    public void pausarSesion(int idUsuario, int idTarea) {
+        registroSesiones.registrar(idUsuario, idTarea, RegistroSesiones.PAUSAR);
+        estudioCambio(idUsuario);
+    }
+
+    public void reanudarSesion(int idUsuario, int idTarea) {
+        registroSesiones.registrar(idUsuario, idTarea, RegistroSesiones.REANUDAR);
+    }
+
+    public void detenerSesion(int idUsuario, int idTarea) {
+        registroSesiones.registrar(idUsuario, idTarea, RegistroSesiones.DETENER);
+        estudioCambio(idUsuario);
+    }
+
+    // Un tramo cerrado cambia el tiempo estudiado que usa la recomendación
+    private void estudioCambio(int idUsuario) {
+        RecomendadorTareas recomendador = recomendadores.get(idUsuario);
+        if (recomendador != null) {
+            recomendador.vencerEstudio();
+        }
+    }
+
+    public List<SesionEnCurso> sesionesEnCurso(int idUsuario) {
+        return registroSesiones.enCurso(idUsuario);
+    }
+
+    // Milisegundos por día ("yyyy-MM-dd") con desde <= dia < hasta
+    public Map<String, Long> tiempoPorDia(int idUsuario, String desde, String hasta) {
+        return registroSesiones.tiempoPorDia(idUsuario, desde, hasta);
+    }
+
+    public Map<Integer, Long> tiempoPorTarea(int idUsuario, String desde, String hasta) {
+        return registroSesiones.tiempoPorTarea(idUsuario, desde, hasta);
+    }
+
+    // ---- Actividad y rachas ----
+
+    // Completadas y minutos de estudio por día desde el lunes de hace 52 semanas hasta hoy
+    public ActividadAnual obtenerActividad(int idUsuario) {
+        return actividad(idUsuario).instantanea(LocalDate.now());
+    }
+
+    private ActividadUsuario actividad(int idUsuario) {
+        ActividadUsuario actividad = actividades.get(idUsuario);
+        if (actividad != null && !actividad.isDesactualizada()) {
+            return actividad;
+        }
+        // Las marcas en espera se escriben antes de contar; los tramos de estudio se leen sin que se
+        // guarde ninguno en el medio (sumarEstudio los sumaría otra vez)
+        colaCompletadas.vaciar();
+        return registroSesiones.leerGuardado(() -> actividades.compute(idUsuario, (id, vieja) -> {
+            if (vieja != null && !vieja.isDesactualizada()) {
+                return vieja;
+            }
+            LocalDate hoy = LocalDate.now();
+            String desde = hoy.minusDays(ActividadUsuario.DIAS - 1).toString();
+            String hasta = hoy.plusDays(1).toString();
+            ActividadUsuario nueva = new ActividadUsuario(hoy.toEpochDay(), getTareas().completadasPorDia(id, desde, hasta),
+                    getTareas().tiempoPorDia(id, desde, hasta));
+            if (vieja != null) {
+                oyentes.get(id).remove(vieja);
+            }
+            registrar(id, nueva);
+            return nueva;
+        }));
+    }
+
+    // Llega desde RegistroSesiones cada vez que guarda un lote de tramos
+    private void sumarEstudio(List<TramoEstudio> tramos) {
+        if (actividades.isEmpty()) {
+            return;
+        }
+        for (TramoEstudio tramo : tramos) {
+            ActividadUsuario actividad = actividades.get(tramo.getIdUsuario());
+            if (actividad != null) {
+                actividad.sumarEstudio(tramo.getDia(), tramo.getDuracion());
+            }
+        }
+    }
+
+    // ---- Repasos (repetición espaciada) ----
+
+    // idTarjeta, o -1 si la tarea no existe o no es del usuario
+    public int agregarTarjeta(int idUsuario, int idTarea, String frente, String reverso) {
+        Tarjeta tarjeta = new Tarjeta(0, idUsuario, idTarea, frente, reverso);
+        int idTarjeta = getTareas().agregarTarjeta(tarjeta);
+        if (idTarjeta != -1) {
+            tarjeta.setIdTarjeta(idTarjeta);
+            ColaRepasos cola = colasRepaso.get(idUsuario);
+            if (cola != null) {
+                cola.agregar(tarjeta);
+            }
+        }
+        return idTarjeta;
+    }
+
+    // Las tarjetas que tocan hoy o están atrasadas, las más atrasadas primero
+    public List<Tarjeta> repasosPendientes(int idUsuario, int limite) {
+        return colaRepasos(idUsuario).pendientes(LocalDate.now(), limite);
+    }
+
+    // calidad de 0 (no se acordó) a 5 (perfecta). Devuelve la tarjeta con su próximo repaso, o null
+    // si no es del usuario.
+    public Tarjeta calificarRepaso(int idUsuario, int idTarjeta, int calidad) {
+        return colaRepasos(idUsuario).calificar(idTarjeta, calidad, LocalDate.now(), getTareas()::actualizarRepaso);
+    }
+
+    public List<Tarjeta> tarjetasDeTarea(int idUsuario, int idTarea) {
+        return colaRepasos(idUsuario).deTarea(idTarea);
+    }
+
+    public boolean eliminarTarjeta(int idUsuario, int idTarjeta) {
+        if (!colaRepasos(idUsuario).eliminar(idTarjeta)) {
+            return false;
+        }
+        getTareas().eliminarTarjeta(idTarjeta);
+        return true;
+    }
+
+    private ColaRepasos colaRepasos(int idUsuario) {
+        return colasRepaso.computeIfAbsent(idUsuario, id -> {
+            ColaRepasos cola = new ColaRepasos(getTareas().obtenerTarjetas(id));
+            registrar(id, cola);
+            return cola;
+        });
+    }
+
+    // ---- Pomodoros ----
+    // Las fases de trabajo se registran como sesiones de estudio de la tarea
+
+    // alCambiarFase se llama en el hilo del motor; puede ser null
+    public MotorPomodoro.Pomodoro iniciarPomodoro(int idUsuario, int idTarea, Consumer<MotorPomodoro.Pomodoro> alCambiarFase) {
+        return motorPomodoro.iniciar(idUsuario, idTarea, alCambiarFase);
+    }
+
+    public MotorPomodoro.Pomodoro obtenerPomodoro(int idUsuario, int idTarea) {
+        return motorPomodoro.obtener(idUsuario, idTarea);
+    }
+
+    public List<MotorPomodoro.Pomodoro> pomodorosDelUsuario(int idUsuario) {
+        return motorPomodoro.delUsuario(idUsuario);
     }
 
     public boolean deshacerUltimaAccion(JFrame parent) {
@@ -295,45 +895,23 @@ public class GestorRegistro {
     }
 
     public int validarCredenciales(String correo, String contrasena) {
-        try {
-            String query = "SELECT idUsuario FROM Usuarios WHERE correo = ? AND contrasena = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setString(1, correo);
-                pstmt.setString(2, contrasena);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    return rs.getInt("idUsuario");
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al validar credenciales: " + e.getMessage());
-        }
-        return -1;
+        return getUsuarios().validarCredenciales(correo, contrasena);
     }
 
     public String obtenerNombreUsuario(int idUsuario) {
-        try {
-            String query = "SELECT nombre FROM Usuarios WHERE idUsuario = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-                pstmt.setInt(1, idUsuario);
-                ResultSet rs = pstmt.executeQuery();
-                if (rs.next()) {
-                    return rs.getString("nombre");
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al obtener nombre de usuario: " + e.getMessage());
-        }
-        return "Usuario";
+        String nombre = getUsuarios().obtenerNombreUsuario(idUsuario);
+        return nombre != null ? nombre : "Usuario";
     }
 
     public void cerrarConexion() {
-        if (conn != null) {
-            try {
-                conn.close();
-            } catch (SQLException e) {
-                System.err.println("Error al cerrar la conexión: " + e.getMessage());
-            }
+        colaCompletadas.cerrar();
+        ordenManual.cerrar();
+        // Antes que las sesiones: lo trabajado en los pomodoros abiertos entra en el último vaciado
+        motorPomodoro.cerrar();
+        registroSesiones.cerrar();
+        getTareas().cerrar();
+        if (getUsuarios() != getTareas()) {
+            getUsuarios().cerrar();
         }
     }
 }
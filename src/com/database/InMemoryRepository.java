@@ -0,0 +1,710 @@
+package com.database;
+
+import com.implementation.ClaveTarea;
+import com.implementation.EstadisticasEstudio;
+import com.implementation.EstadoTarea;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.ProgresoSubtareas;
+import com.implementation.SerieTareas;
+import com.implementation.Tarea;
+import com.implementation.Tarjeta;
+import com.implementation.TramoEstudio;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+// Repositorio sin base de datos: todo vive en memoria y se pierde al cerrar.
+// Sirve para pruebas y para ejecuciones donde importa la latencia más que la persistencia.
+public class InMemoryRepository implements TaskRepository, UserRepository {
+
+    // Fila de Tareas tal como se guardaría en la base de datos
+    protected static final class FilaTarea {
+        protected final int idTarea;
+        protected final int idUsuario;
+        protected final String nombre;
+        protected final String descripcion;
+        // 0 si es una tarea de primer nivel
+        protected int idTareaPadre;
+        protected boolean completada;
+        protected String fechaEntrega;
+        // Ordinal de EstadoTarea, como la columna estado
+        protected int estado;
+        // Clave del orden manual; null si no tiene
+        protected String orden;
+        // Milisegundos desde 1970; 0 si no se conoce o la tarea no está completada
+        protected long creadaEn;
+        protected long completadaEn;
+
+        protected FilaTarea(int idTarea, int idUsuario, String nombre, String descripcion, String fechaEntrega) {
+            this.idTarea = idTarea;
+            this.idUsuario = idUsuario;
+            this.nombre = nombre;
+            this.descripcion = descripcion;
+            this.fechaEntrega = fechaEntrega;
+        }
+
+        ClaveTarea clave() {
+            return new ClaveTarea(fechaEntrega, idTarea);
+        }
+    }
+
+    protected static final class FilaUsuario {
+        protected final int idUsuario;
+        protected final String nombre;
+        protected final String correo;
+        protected final String contrasena;
+
+        protected FilaUsuario(int idUsuario, String nombre, String correo, String contrasena) {
+            this.idUsuario = idUsuario;
+            this.nombre = nombre;
+            this.correo = correo;
+            this.contrasena = contrasena;
+        }
+    }
+
+    private final Map<Integer, FilaUsuario> usuarios = new HashMap<>();
+    private final Map<String, Integer> usuariosPorCorreo = new HashMap<>();
+    private final Map<Integer, FilaTarea> tareas = new HashMap<>();
+    // Índice por usuario ordenado igual que el índice idxTareasUsuarioFecha
+    private final Map<Integer, TreeMap<ClaveTarea, FilaTarea>> tareasPorUsuario = new HashMap<>();
+    // Solo las de primer nivel, para la paginación del tablero (idxTareasPadre con idTareaPadre NULL)
+    private final Map<Integer, TreeMap<ClaveTarea, FilaTarea>> raicesPorUsuario = new HashMap<>();
+    // Hijas directas de cada tarea, en el mismo orden
+    private final Map<Integer, TreeMap<ClaveTarea, FilaTarea>> hijas = new HashMap<>();
+    private final Map<Integer, Long> versionesTablero = new HashMap<>();
+    private final Map<Integer, ContadoresEstudio> contadores = new HashMap<>();
+    // Cada serie con todas sus excepciones; las ocurrencias no se guardan
+    private final Map<Integer, SerieTareas> series = new HashMap<>();
+    private final Map<Integer, Map<Integer, SerieTareas>> seriesPorUsuario = new HashMap<>();
+    // Tiempo estudiado: idUsuario -> dia -> idTarea -> milisegundos. Los tramos sueltos no hacen
+    // falta para ninguna consulta, así que solo se guardan las sumas.
+    private final Map<Integer, TreeMap<String, Map<Integer, Long>>> sesiones = new HashMap<>();
+    // Tarjetas de repaso por idTarjeta, por usuario (en orden de id) y los ids de cada tarea
+    private final Map<Integer, Tarjeta> tarjetas = new HashMap<>();
+    private final Map<Integer, TreeMap<Integer, Tarjeta>> tarjetasPorUsuario = new HashMap<>();
+    private final Map<Integer, Set<Integer>> tarjetasPorTarea = new HashMap<>();
+    private int siguienteIdUsuario = 1;
+    private int siguienteIdTarea = 1;
+    private int siguienteIdSerie = 1;
+    private int siguienteIdTarjeta = 1;
+
+    @Override
+    public synchronized boolean registrarUsuario(String nombre, String correo, String contrasena) {
+        if (usuariosPorCorreo.containsKey(correo)) {
+            return false;
+        }
+        guardarUsuario(new FilaUsuario(siguienteIdUsuario, nombre, correo, contrasena));
+        return true;
+    }
+
+    protected void guardarUsuario(FilaUsuario usuario) {
+        usuarios.put(usuario.idUsuario, usuario);
+        usuariosPorCorreo.put(usuario.correo, usuario.idUsuario);
+        siguienteIdUsuario = Math.max(siguienteIdUsuario, usuario.idUsuario + 1);
+    }
+
+    // Acceso para las subclases que guardan o reconstruyen el estado completo
+    protected Collection<FilaUsuario> filasUsuarios() {
+        return usuarios.values();
+    }
+
+    protected Collection<FilaTarea> filasTareas() {
+        return tareas.values();
+    }
+
+    protected FilaTarea filaTarea(int idTarea) {
+        return tareas.get(idTarea);
+    }
+
+    protected int getSiguienteIdUsuario() {
+        return siguienteIdUsuario;
+    }
+
+    protected int getSiguienteIdTarea() {
+        return siguienteIdTarea;
+    }
+
+    protected void setSiguientesIds(int idUsuario, int idTarea) {
+        siguienteIdUsuario = Math.max(siguienteIdUsuario, idUsuario);
+        siguienteIdTarea = Math.max(siguienteIdTarea, idTarea);
+    }
+
+    protected Collection<SerieTareas> filasSeries() {
+        return series.values();
+    }
+
+    protected SerieTareas filaSerie(int idSerie) {
+        return series.get(idSerie);
+    }
+
+    protected int getSiguienteIdSerie() {
+        return siguienteIdSerie;
+    }
+
+    protected void setSiguienteIdSerie(int idSerie) {
+        siguienteIdSerie = Math.max(siguienteIdSerie, idSerie);
+    }
+
+    @Override
+    public synchronized boolean existeCorreo(String correo) {
+        return usuariosPorCorreo.containsKey(correo);
+    }
+
+    @Override
+    public synchronized int validarCredenciales(String correo, String contrasena) {
+        Integer idUsuario = usuariosPorCorreo.get(correo);
+        if (idUsuario != null && usuarios.get(idUsuario).contrasena.equals(contrasena)) {
+            return idUsuario;
+        }
+        return -1;
+    }
+
+    @Override
+    public synchronized String obtenerNombreUsuario(int idUsuario) {
+        FilaUsuario usuario = usuarios.get(idUsuario);
+        return usuario == null ? null : usuario.nombre;
+    }
+
+    @Override
+    public synchronized int agregarTarea(int idUsuario, String nombre, String descripcion, String fechaEntrega) {
+        FilaTarea fila = new FilaTarea(siguienteIdTarea++, idUsuario, nombre, descripcion, fechaEntrega);
+        fila.creadaEn = System.currentTimeMillis();
+        guardar(fila);
+        marcarCambio(idUsuario);
+        return fila.idTarea;
+    }
+
+    @Override
+    public synchronized int agregarSubtarea(int idTareaPadre, String nombre, String descripcion, String fechaEntrega) {
+        FilaTarea padre = tareas.get(idTareaPadre);
+        if (padre == null) {
+            return -1;
+        }
+        FilaTarea fila = new FilaTarea(siguienteIdTarea++, padre.idUsuario, nombre, descripcion, fechaEntrega);
+        fila.idTareaPadre = idTareaPadre;
+        fila.creadaEn = System.currentTimeMillis();
+        guardar(fila);
+        marcarCambio(padre.idUsuario);
+        return fila.idTarea;
+    }
+
+    // Inserta o reemplaza una fila manteniendo los índices. El padre puede llegar después que la hija
+    // (al cargar una instantánea): hijas se indexa por idTareaPadre, no por la fila del padre.
+    protected void guardar(FilaTarea fila) {
+        FilaTarea anterior = tareas.put(fila.idTarea, fila);
+        if (anterior != null) {
+            desindexar(anterior);
+            aportar(-1, anterior);
+        }
+        indexar(fila);
+        aportar(1, fila);
+        siguienteIdTarea = Math.max(siguienteIdTarea, fila.idTarea + 1);
+    }
+
+    private void indexar(FilaTarea fila) {
+        indice(fila.idUsuario).put(fila.clave(), fila);
+        if (fila.idTareaPadre > 0) {
+            hijas.computeIfAbsent(fila.idTareaPadre, k -> new TreeMap<>()).put(fila.clave(), fila);
+        } else {
+            raices(fila.idUsuario).put(fila.clave(), fila);
+        }
+    }
+
+    private void desindexar(FilaTarea fila) {
+        indice(fila.idUsuario).remove(fila.clave());
+        if (fila.idTareaPadre > 0) {
+            TreeMap<ClaveTarea, FilaTarea> hermanas = hijas.get(fila.idTareaPadre);
+            if (hermanas != null) {
+                hermanas.remove(fila.clave());
+                if (hermanas.isEmpty()) {
+                    hijas.remove(fila.idTareaPadre);
+                }
+            }
+        } else {
+            raices(fila.idUsuario).remove(fila.clave());
+        }
+    }
+
+    // Igual que en JdbcRepository: la primera versión parte de la hora actual
+    protected void marcarCambio(int idUsuario) {
+        versionesTablero.merge(idUsuario, System.currentTimeMillis(), (anterior, ahora) -> Math.max(anterior + 1, ahora));
+    }
+
+    @Override
+    public synchronized long obtenerVersionTablero(int idUsuario) {
+        return versionesTablero.getOrDefault(idUsuario, 0L);
+    }
+
+    private void aportar(int signo, FilaTarea fila) {
+        contadores.computeIfAbsent(fila.idUsuario, k -> new ContadoresEstudio())
+                .aplicar(signo, fila.completada, fila.fechaEntrega, fila.creadaEn, fila.completadaEn);
+    }
+
+    @Override
+    public synchronized EstadisticasEstudio obtenerEstadisticas(int idUsuario, LocalDate hoy) {
+        ContadoresEstudio delUsuario = contadores.get(idUsuario);
+        return delUsuario == null ? EstadisticasEstudio.VACIAS : delUsuario.resumen(hoy);
+    }
+
+    @Override
+    public synchronized void recalcularEstadisticas() {
+        List<ContadoresEstudio.Aporte> aportes = new ArrayList<>(tareas.size());
+        for (FilaTarea fila : tareas.values()) {
+            aportes.add(new ContadoresEstudio.Aporte(fila.idUsuario, fila.completada, fila.fechaEntrega, fila.creadaEn, fila.completadaEn));
+        }
+        contadores.clear();
+        contadores.putAll(ContadoresEstudio.agrupar(aportes));
+    }
+
+    private TreeMap<ClaveTarea, FilaTarea> indice(int idUsuario) {
+        return tareasPorUsuario.computeIfAbsent(idUsuario, k -> new TreeMap<>());
+    }
+
+    private TreeMap<ClaveTarea, FilaTarea> raices(int idUsuario) {
+        return raicesPorUsuario.computeIfAbsent(idUsuario, k -> new TreeMap<>());
+    }
+
+    // La tarea y todas sus subtareas
+    @Override
+    public synchronized void eliminarTarea(int idTarea) {
+        FilaTarea fila = tareas.get(idTarea);
+        if (fila == null) {
+            return;
+        }
+        for (FilaTarea borrada : subarbol(fila)) {
+            tareas.remove(borrada.idTarea);
+            desindexar(borrada);
+            aportar(-1, borrada);
+            Set<Integer> deLaTarea = tarjetasPorTarea.remove(borrada.idTarea);
+            if (deLaTarea != null) {
+                for (int idTarjeta : deLaTarea) {
+                    quitarTarjeta(idTarjeta);
+                }
+            }
+        }
+        marcarCambio(fila.idUsuario);
+    }
+
+    // La fila y sus descendientes, nivel por nivel y cada nivel en orden de entrega
+    private List<FilaTarea> subarbol(FilaTarea raiz) {
+        List<FilaTarea> resultado = new ArrayList<>();
+        resultado.add(raiz);
+        int desde = 0;
+        while (desde < resultado.size()) {
+            int hasta = resultado.size();
+            TreeMap<ClaveTarea, FilaTarea> nivel = new TreeMap<>();
+            for (int i = desde; i < hasta; i++) {
+                TreeMap<ClaveTarea, FilaTarea> deLaFila = hijas.get(resultado.get(i).idTarea);
+                if (deLaFila != null) {
+                    nivel.putAll(deLaFila);
+                }
+            }
+            resultado.addAll(nivel.values());
+            desde = hasta;
+        }
+        return resultado;
+    }
+
+    @Override
+    public synchronized List<Tarea> buscarSubtareas(int idTareaPadre, Set<CampoTarea> campos) {
+        TreeMap<ClaveTarea, FilaTarea> deLaTarea = hijas.get(idTareaPadre);
+        return deLaTarea == null ? new ArrayList<>() : copiar(deLaTarea.values(), -1, campos);
+    }
+
+    @Override
+    public synchronized List<Tarea> obtenerSubarbol(int idTarea) {
+        FilaTarea fila = tareas.get(idTarea);
+        return fila == null ? new ArrayList<>() : copiar(subarbol(fila), -1, CampoTarea.TODOS);
+    }
+
+    @Override
+    public synchronized Map<Integer, ProgresoSubtareas> obtenerProgreso(Collection<Integer> idsTareas) {
+        Map<Integer, ProgresoSubtareas> progreso = new HashMap<>();
+        for (int idTarea : idsTareas) {
+            FilaTarea fila = tareas.get(idTarea);
+            if (fila == null || !hijas.containsKey(idTarea)) {
+                continue;
+            }
+            List<FilaTarea> descendientes = subarbol(fila);
+            int completadas = 0;
+            for (int i = 1; i < descendientes.size(); i++) {
+                if (descendientes.get(i).completada) {
+                    completadas++;
+                }
+            }
+            progreso.put(idTarea, new ProgresoSubtareas(descendientes.size() - 1, completadas));
+        }
+        return progreso;
+    }
+
+    // Igual que en JdbcRepository: ids nuevos, cada tarea bajo el id nuevo de su padre y la raíz de
+    // primer nivel si su padre ya no existe
+    @Override
+    public synchronized int[] restaurarSubarbol(List<Tarea> subarbol) {
+        int[] nuevos = new int[subarbol.size()];
+        if (subarbol.isEmpty()) {
+            return nuevos;
+        }
+        long ahora = System.currentTimeMillis();
+        int idUsuario = subarbol.get(0).getIdUsuario();
+        Map<Integer, Integer> idsNuevos = new HashMap<>();
+        for (int i = 0; i < nuevos.length; i++) {
+            Tarea tarea = subarbol.get(i);
+            FilaTarea fila = new FilaTarea(siguienteIdTarea++, idUsuario, tarea.getNombre(), tarea.getDescripcion(), tarea.getFechaEntrega());
+            int padre = tarea.getIdTareaPadre();
+            fila.idTareaPadre = idsNuevos.containsKey(padre) ? idsNuevos.get(padre) : tareas.containsKey(padre) ? padre : 0;
+            fila.completada = tarea.isCompletada();
+            fila.estado = tarea.getEstado().ordinal();
+            fila.creadaEn = ahora;
+            guardar(fila);
+            idsNuevos.put(tarea.getIdTarea(), fila.idTarea);
+            nuevos[i] = fila.idTarea;
+        }
+        marcarCambio(idUsuario);
+        return nuevos;
+    }
+
+    @Override
+    public synchronized int agregarSerie(SerieTareas serie) {
+        SerieTareas guardada = serie.copia(null, null);
+        guardada.setIdSerie(siguienteIdSerie);
+        guardarSerie(guardada);
+        marcarCambio(guardada.getIdUsuario());
+        return guardada.getIdSerie();
+    }
+
+    // Inserta o reemplaza una serie tal como llega (las subclases la usan al reconstruir el estado)
+    protected void guardarSerie(SerieTareas serie) {
+        series.put(serie.getIdSerie(), serie);
+        seriesPorUsuario.computeIfAbsent(serie.getIdUsuario(), k -> new HashMap<>()).put(serie.getIdSerie(), serie);
+        siguienteIdSerie = Math.max(siguienteIdSerie, serie.getIdSerie() + 1);
+    }
+
+    @Override
+    public synchronized SerieTareas obtenerSerie(int idSerie) {
+        SerieTareas serie = series.get(idSerie);
+        return serie == null ? null : serie.copia(null, null);
+    }
+
+    @Override
+    public synchronized void eliminarSerie(int idSerie) {
+        SerieTareas serie = series.remove(idSerie);
+        if (serie != null) {
+            seriesPorUsuario.get(serie.getIdUsuario()).remove(idSerie);
+            marcarCambio(serie.getIdUsuario());
+        }
+    }
+
+    // Recorre las series del usuario (una entrada por serie, no por ocurrencia), en el mismo orden
+    // que JdbcRepository
+    @Override
+    public synchronized List<SerieTareas> buscarSeriesEntreFechas(int idUsuario, String desde, String hasta) {
+        List<SerieTareas> resultado = new ArrayList<>();
+        for (SerieTareas serie : seriesPorUsuario.getOrDefault(idUsuario, Map.of()).values()) {
+            if (serie.getInicio().compareTo(hasta) < 0 && (serie.getFin() == null || serie.getFin().compareTo(desde) >= 0)) {
+                resultado.add(serie.copia(desde, hasta));
+            }
+        }
+        resultado.sort(Comparator.comparing(SerieTareas::getInicio).thenComparingInt(SerieTareas::getIdSerie));
+        return resultado;
+    }
+
+    @Override
+    public synchronized void guardarExcepcion(int idSerie, ExcepcionOcurrencia excepcion) {
+        SerieTareas serie = series.get(idSerie);
+        if (serie != null) {
+            serie.ponerExcepcion(excepcion);
+            marcarCambio(serie.getIdUsuario());
+        }
+    }
+
+    @Override
+    public synchronized void agregarSesiones(List<TramoEstudio> tramos) {
+        for (TramoEstudio tramo : tramos) {
+            sumarSesion(tramo.getIdUsuario(), tramo.getDia(), tramo.getIdTarea(), tramo.getDuracion());
+        }
+    }
+
+    protected void sumarSesion(int idUsuario, String dia, int idTarea, long duracion) {
+        sesiones.computeIfAbsent(idUsuario, k -> new TreeMap<>()).computeIfAbsent(dia, k -> new HashMap<>())
+                .merge(idTarea, duracion, Long::sum);
+    }
+
+    protected Map<Integer, TreeMap<String, Map<Integer, Long>>> filasSesiones() {
+        return sesiones;
+    }
+
+    @Override
+    public synchronized Map<String, Long> tiempoPorDia(int idUsuario, String desde, String hasta) {
+        Map<String, Long> porDia = new TreeMap<>();
+        for (Map.Entry<String, Map<Integer, Long>> dia : dias(idUsuario, desde, hasta).entrySet()) {
+            long total = 0;
+            for (long duracion : dia.getValue().values()) {
+                total += duracion;
+            }
+            porDia.put(dia.getKey(), total);
+        }
+        return porDia;
+    }
+
+    @Override
+    public synchronized Map<Integer, Long> tiempoPorTarea(int idUsuario, String desde, String hasta) {
+        Map<Integer, Long> porTarea = new HashMap<>();
+        for (Map<Integer, Long> dia : dias(idUsuario, desde, hasta).values()) {
+            dia.forEach((idTarea, duracion) -> porTarea.merge(idTarea, duracion, Long::sum));
+        }
+        return porTarea;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> completadasPorDia(int idUsuario, String desde, String hasta) {
+        ZoneId zona = ZoneId.systemDefault();
+        long inicio = ActividadUsuario.inicioDelDia(desde, zona);
+        long fin = ActividadUsuario.inicioDelDia(hasta, zona);
+        Map<String, Integer> porDia = new TreeMap<>();
+        for (FilaTarea fila : indice(idUsuario).values()) {
+            if (fila.completada && fila.completadaEn >= inicio && fila.completadaEn < fin) {
+                porDia.merge(ActividadUsuario.diaDe(fila.completadaEn, zona), 1, Integer::sum);
+            }
+        }
+        return porDia;
+    }
+
+    private SortedMap<String, Map<Integer, Long>> dias(int idUsuario, String desde, String hasta) {
+        TreeMap<String, Map<Integer, Long>> delUsuario = sesiones.get(idUsuario);
+        return delUsuario == null || desde.compareTo(hasta) >= 0 ? Collections.emptySortedMap() : delUsuario.subMap(desde, hasta);
+    }
+
+    @Override
+    public synchronized int agregarTarjeta(Tarjeta tarjeta) {
+        FilaTarea tarea = tareas.get(tarjeta.getIdTarea());
+        if (tarea == null || tarea.idUsuario != tarjeta.getIdUsuario()) {
+            return -1;
+        }
+        Tarjeta guardada = tarjeta.copia();
+        guardada.setIdTarjeta(siguienteIdTarjeta);
+        guardarTarjeta(guardada);
+        return guardada.getIdTarjeta();
+    }
+
+    // Inserta o reemplaza una tarjeta tal como llega (las subclases la usan al reconstruir el estado)
+    protected void guardarTarjeta(Tarjeta tarjeta) {
+        tarjetas.put(tarjeta.getIdTarjeta(), tarjeta);
+        tarjetasPorUsuario.computeIfAbsent(tarjeta.getIdUsuario(), k -> new TreeMap<>()).put(tarjeta.getIdTarjeta(), tarjeta);
+        tarjetasPorTarea.computeIfAbsent(tarjeta.getIdTarea(), k -> new HashSet<>()).add(tarjeta.getIdTarjeta());
+        siguienteIdTarjeta = Math.max(siguienteIdTarjeta, tarjeta.getIdTarjeta() + 1);
+    }
+
+    protected Collection<Tarjeta> filasTarjetas() {
+        return tarjetas.values();
+    }
+
+    protected Tarjeta filaTarjeta(int idTarjeta) {
+        return tarjetas.get(idTarjeta);
+    }
+
+    protected int getSiguienteIdTarjeta() {
+        return siguienteIdTarjeta;
+    }
+
+    protected void setSiguienteIdTarjeta(int idTarjeta) {
+        siguienteIdTarjeta = Math.max(siguienteIdTarjeta, idTarjeta);
+    }
+
+    @Override
+    public synchronized void actualizarRepaso(Tarjeta tarjeta) {
+        Tarjeta guardada = tarjetas.get(tarjeta.getIdTarjeta());
+        if (guardada != null) {
+            guardada.setRepaso(tarjeta.getRepeticiones(), tarjeta.getIntervalo(), tarjeta.getFacilidad(), tarjeta.getProximoRepaso());
+        }
+    }
+
+    @Override
+    public synchronized void eliminarTarjeta(int idTarjeta) {
+        Tarjeta tarjeta = quitarTarjeta(idTarjeta);
+        if (tarjeta != null) {
+            Set<Integer> deLaTarea = tarjetasPorTarea.get(tarjeta.getIdTarea());
+            deLaTarea.remove(idTarjeta);
+            if (deLaTarea.isEmpty()) {
+                tarjetasPorTarea.remove(tarjeta.getIdTarea());
+            }
+        }
+    }
+
+    // Sin tocar tarjetasPorTarea, que quien llama ya está recorriendo o actualiza aparte
+    private Tarjeta quitarTarjeta(int idTarjeta) {
+        Tarjeta tarjeta = tarjetas.remove(idTarjeta);
+        if (tarjeta != null) {
+            TreeMap<Integer, Tarjeta> delUsuario = tarjetasPorUsuario.get(tarjeta.getIdUsuario());
+            delUsuario.remove(idTarjeta);
+            if (delUsuario.isEmpty()) {
+                tarjetasPorUsuario.remove(tarjeta.getIdUsuario());
+            }
+        }
+        return tarjeta;
+    }
+
+    @Override
+    public synchronized List<Tarjeta> obtenerTarjetas(int idUsuario) {
+        List<Tarjeta> resultado = new ArrayList<>();
+        for (Tarjeta tarjeta : tarjetasPorUsuario.getOrDefault(idUsuario, new TreeMap<>()).values()) {
+            resultado.add(tarjeta.copia());
+        }
+        return resultado;
+    }
+
+    @Override
+    public synchronized Tarea obtenerTareaPorId(int idTarea) {
+        FilaTarea fila = tareas.get(idTarea);
+        return fila == null ? null : aTarea(fila, CampoTarea.TODOS);
+    }
+
+    @Override
+    public synchronized String obtenerDescripcion(int idTarea) {
+        FilaTarea fila = tareas.get(idTarea);
+        return fila == null ? null : fila.descripcion;
+    }
+
+    @Override
+    public synchronized void actualizarFechaEntrega(int idTarea, String fechaEntrega) {
+        FilaTarea fila = tareas.get(idTarea);
+        if (fila != null) {
+            desindexar(fila);
+            aportar(-1, fila);
+            fila.fechaEntrega = fechaEntrega;
+            indexar(fila);
+            aportar(1, fila);
+            marcarCambio(fila.idUsuario);
+        }
+    }
+
+    @Override
+    public synchronized void actualizarCompletada(int idTarea, boolean completada) {
+        FilaTarea fila = tareas.get(idTarea);
+        if (fila != null && fila.completada != completada) {
+            cambiarCompletada(fila, completada, completada ? System.currentTimeMillis() : 0);
+            marcarCambio(fila.idUsuario);
+        }
+    }
+
+    @Override
+    public synchronized void actualizarCompletadas(Map<Integer, Boolean> cambios) {
+        for (Map.Entry<Integer, Boolean> cambio : cambios.entrySet()) {
+            actualizarCompletada(cambio.getKey(), cambio.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void actualizarEstados(Map<Integer, EstadoTarea> cambios) {
+        long ahora = System.currentTimeMillis();
+        for (Map.Entry<Integer, EstadoTarea> cambio : cambios.entrySet()) {
+            FilaTarea fila = tareas.get(cambio.getKey());
+            if (fila != null) {
+                cambiarEstado(fila, cambio.getValue(), ahora);
+                marcarCambio(fila.idUsuario);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void actualizarOrden(Map<Integer, String> claves) {
+        for (Map.Entry<Integer, String> clave : claves.entrySet()) {
+            FilaTarea fila = tareas.get(clave.getKey());
+            if (fila != null) {
+                fila.orden = clave.getValue();
+            }
+        }
+    }
+
+    protected void cambiarEstado(FilaTarea fila, EstadoTarea estado, long ahora) {
+        fila.estado = estado.ordinal();
+        boolean completada = estado == EstadoTarea.COMPLETADA;
+        if (fila.completada != completada) {
+            cambiarCompletada(fila, completada, completada ? ahora : 0);
+        }
+    }
+
+    protected void cambiarCompletada(FilaTarea fila, boolean completada, long completadaEn) {
+        aportar(-1, fila);
+        fila.completada = completada;
+        fila.completadaEn = completadaEn;
+        aportar(1, fila);
+    }
+
+    @Override
+    public synchronized List<Tarea> buscarTareasPorUsuario(int idUsuario, int offset, int limit, Set<CampoTarea> campos) {
+        List<Tarea> resultado = new ArrayList<>();
+        int saltadas = 0;
+        for (FilaTarea fila : indice(idUsuario).values()) {
+            if (limit >= 0 && resultado.size() >= limit) {
+                break;
+            }
+            if (saltadas++ >= offset) {
+                resultado.add(aTarea(fila, campos));
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public synchronized List<Tarea> buscarTareasDespuesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        return copiar(raices(idUsuario).tailMap(new ClaveTarea(fechaEntrega, idTarea), false).values(), limit, campos);
+    }
+
+    @Override
+    public synchronized List<Tarea> buscarTareasAntesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        List<Tarea> resultado = copiar(raices(idUsuario).headMap(new ClaveTarea(fechaEntrega, idTarea), false).descendingMap().values(), limit, campos);
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    @Override
+    public synchronized List<Tarea> buscarTareasEntreFechas(int idUsuario, String desde, String hasta, Set<CampoTarea> campos) {
+        // Con idTarea MIN_VALUE el rango incluye las tareas con fecha "desde" y excluye las de fecha "hasta"
+        return copiar(indice(idUsuario).subMap(new ClaveTarea(desde, Integer.MIN_VALUE), true,
+                new ClaveTarea(hasta, Integer.MIN_VALUE), false).values(), -1, campos);
+    }
+
+    private static List<Tarea> copiar(Collection<FilaTarea> filas, int limit, Set<CampoTarea> campos) {
+        List<Tarea> resultado = new ArrayList<>();
+        for (FilaTarea fila : filas) {
+            if (limit >= 0 && resultado.size() >= limit) {
+                break;
+            }
+            resultado.add(aTarea(fila, campos));
+        }
+        return resultado;
+    }
+
+    // Copia la fila aplicando la misma proyección que haría el SELECT
+    protected static Tarea aTarea(FilaTarea fila, Set<CampoTarea> campos) {
+        Tarea tarea = new Tarea(fila.idTarea, fila.idUsuario, campos.contains(CampoTarea.NOMBRE) ? fila.nombre : null, null);
+        tarea.setIdTareaPadre(fila.idTareaPadre);
+        if (campos.contains(CampoTarea.DESCRIPCION)) {
+            tarea.setDescripcion(fila.descripcion);
+        } else if (campos.contains(CampoTarea.RESUMEN)) {
+            String d = fila.descripcion;
+            tarea.setResumenDescripcion(d != null && d.length() > Tarea.LARGO_RESUMEN ? d.substring(0, Tarea.LARGO_RESUMEN) : d);
+        } else {
+            tarea.setResumenDescripcion("");
+        }
+        if (campos.contains(CampoTarea.COMPLETADA)) {
+            tarea.setCompletada(fila.completada);
+        }
+        if (campos.contains(CampoTarea.FECHA_ENTREGA)) {
+            tarea.setFechaEntrega(fila.fechaEntrega);
+        }
+        if (campos.contains(CampoTarea.ESTADO)) {
+            tarea.setEnProgreso(fila.estado == EstadoTarea.EN_PROGRESO.ordinal());
+        }
+        if (campos.contains(CampoTarea.ORDEN)) {
+            tarea.setOrden(fila.orden);
+        }
+        return tarea;
+    }
+
+    @Override
+    public void cerrar() {
+        // No hay recursos que liberar
+    }
+}
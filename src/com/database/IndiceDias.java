@@ -0,0 +1,111 @@
+package com.database;
+
+import com.implementation.Tarea;
+import java.time.DateTimeException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Tareas de un usuario agrupadas por día de entrega (días desde 1970 -> ids), para el calendario.
+// Se arma una vez con todas las tareas y después GestorRegistro le avisa cada alta, baja o cambio
+// de fecha. Pedir los días visibles de un mes o una semana es una búsqueda por día, sin recorrer
+// ni ordenar las demás tareas. Cada día guarda un int[] justo: casi siempre son una o dos tareas.
+final class IndiceDias implements OyenteTareas {
+    private static final int[] NINGUNA = new int[0];
+    private static final long SIN_DIA = Long.MIN_VALUE;
+
+    private final Map<Long, int[]> porDia = new HashMap<>();
+    // idTarea -> día en que está (SIN_DIA si no tiene fecha), para moverla o sacarla
+    private final Map<Integer, Long> diaDe = new HashMap<>();
+
+    IndiceDias(Iterable<Tarea> tareas) {
+        for (Tarea tarea : tareas) {
+            agregar(tarea.getIdTarea(), tarea.getFechaEntrega());
+        }
+    }
+
+    // Las tareas sin fecha (o con una que no se entiende) no van a ningún día
+    synchronized void agregar(int idTarea, String fechaEntrega) {
+        eliminar(idTarea);
+        long dia = dia(fechaEntrega);
+        diaDe.put(idTarea, dia);
+        if (dia == SIN_DIA) {
+            return;
+        }
+        int[] ids = porDia.getOrDefault(dia, NINGUNA);
+        int[] nuevos = Arrays.copyOf(ids, ids.length + 1);
+        nuevos[ids.length] = idTarea;
+        porDia.put(dia, nuevos);
+    }
+
+    // Solo si la tarea es de este usuario
+    synchronized void cambiarFecha(int idTarea, String fechaEntrega) {
+        if (diaDe.containsKey(idTarea)) {
+            agregar(idTarea, fechaEntrega);
+        }
+    }
+
+    synchronized void eliminar(int idTarea) {
+        Long dia = diaDe.remove(idTarea);
+        if (dia == null || dia == SIN_DIA) {
+            return;
+        }
+        int[] ids = porDia.get(dia);
+        if (ids.length == 1) {
+            porDia.remove(dia);
+            return;
+        }
+        int[] nuevos = new int[ids.length - 1];
+        int j = 0;
+        for (int id : ids) {
+            if (id != idTarea) {
+                nuevos[j++] = id;
+            }
+        }
+        porDia.put(dia, nuevos);
+    }
+
+    @Override
+    public synchronized boolean conoce(int idTarea) {
+        return diaDe.containsKey(idTarea);
+    }
+
+    @Override
+    public void alAgregar(Tarea tarea) {
+        agregar(tarea.getIdTarea(), tarea.getFechaEntrega());
+    }
+
+    @Override
+    public void alEliminar(Tarea tarea) {
+        eliminar(tarea.getIdTarea());
+    }
+
+    @Override
+    public void alCambiarFecha(int idTarea, String fechaEntrega) {
+        cambiarFecha(idTarea, fechaEntrega);
+    }
+
+    // ids[i] son las tareas del día desde + i, sin orden
+    synchronized int[][] entre(long desde, int dias) {
+        int[][] ids = new int[dias][];
+        for (int i = 0; i < dias; i++) {
+            ids[i] = porDia.getOrDefault(desde + i, NINGUNA);
+        }
+        return ids;
+    }
+
+    synchronized int getDiasConTareas() {
+        return porDia.size();
+    }
+
+    private static long dia(String fechaEntrega) {
+        if (fechaEntrega == null || fechaEntrega.length() < 10) {
+            return SIN_DIA;
+        }
+        try {
+            return ActividadUsuario.diaDesde1970(fechaEntrega);
+        } catch (NumberFormatException | DateTimeException e) {
+            return SIN_DIA;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.database;
+
+import com.estructuras.MonticuloIndexado;
+import com.implementation.Tarea;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Entregas pendientes de un usuario en un montículo indexado por idTarea, ordenado por la hora de
+// entrega. Se arma una vez con todas las tareas y después GestorRegistro le avisa cada alta, baja o
+// cambio, así "la próxima entrega" o las k más urgentes salen sin volver a leer ni ordenar nada.
+final class IndiceEntregas implements OyenteTareas {
+    static final long SIN_FECHA = Long.MIN_VALUE;
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    // Solo las tareas sin completar que tienen fecha de entrega
+    private final MonticuloIndexado pendientes;
+    // Las mismas, pero solo las que todavía no se avisaron; cada aviso sale del montículo al darse
+    private final MonticuloIndexado avisos = new MonticuloIndexado();
+    // El resto de las tareas del usuario (completadas o sin fecha): idTarea -> entrega o SIN_FECHA.
+    // Hacen falta para volver a meterlas al montículo si se desmarcan o se les pone fecha.
+    private final Map<Integer, Long> fuera = new HashMap<>();
+    private final Set<Integer> completadas = new HashSet<>();
+
+    IndiceEntregas(List<Tarea> tareas) {
+        pendientes = new MonticuloIndexado(tareas.size());
+        long ahora = System.currentTimeMillis();
+        for (Tarea tarea : tareas) {
+            ubicar(tarea.getIdTarea(), enMilisegundos(tarea.getFechaEntrega()), tarea.isCompletada(), ahora);
+        }
+    }
+
+    @Override
+    public synchronized boolean conoce(int idTarea) {
+        return pendientes.contiene(idTarea) || fuera.containsKey(idTarea);
+    }
+
+    synchronized void agregar(int idTarea, String fechaEntrega, boolean completada) {
+        ubicar(idTarea, enMilisegundos(fechaEntrega), completada, System.currentTimeMillis());
+    }
+
+    synchronized void eliminar(int idTarea) {
+        avisos.eliminar(idTarea);
+        if (!pendientes.eliminar(idTarea)) {
+            fuera.remove(idTarea);
+            completadas.remove(idTarea);
+        }
+    }
+
+    synchronized void cambiarFecha(int idTarea, String fechaEntrega) {
+        if (conoce(idTarea)) {
+            ubicar(idTarea, enMilisegundos(fechaEntrega), completadas.contains(idTarea), System.currentTimeMillis());
+        }
+    }
+
+    synchronized void cambiarCompletada(int idTarea, boolean completada) {
+        if (!conoce(idTarea)) {
+            return;
+        }
+        if (completada == completadas.contains(idTarea)) {
+            return;
+        }
+        ubicar(idTarea, entrega(idTarea), completada, System.currentTimeMillis());
+    }
+
+    @Override
+    public void alAgregar(Tarea tarea) {
+        agregar(tarea.getIdTarea(), tarea.getFechaEntrega(), tarea.isCompletada());
+    }
+
+    @Override
+    public void alEliminar(Tarea tarea) {
+        eliminar(tarea.getIdTarea());
+    }
+
+    @Override
+    public void alCambiarCompletada(int idTarea, boolean completada) {
+        cambiarCompletada(idTarea, completada);
+    }
+
+    @Override
+    public void alCambiarFecha(int idTarea, String fechaEntrega) {
+        cambiarFecha(idTarea, fechaEntrega);
+    }
+
+    // Las k entregas pendientes más cercanas (incluye las vencidas), de la más urgente a la menos
+    synchronized int[] proximas(int k) {
+        return pendientes.primeros(k);
+    }
+
+    // Saca del montículo de avisos las tareas que se entregan antes de ahora + anticipación. Las que ya
+    // vencieron (por ejemplo con el programa cerrado) salen sin devolverse: no tiene sentido avisarlas.
+    synchronized List<Integer> avisosHasta(long ahora, long anticipacion) {
+        List<Integer> resultado = new ArrayList<>();
+        while (!avisos.estaVacio() && avisos.prioridadMinima() <= ahora + anticipacion) {
+            boolean vencida = avisos.prioridadMinima() < ahora;
+            int idTarea = avisos.extraerMinimo();
+            if (!vencida) {
+                resultado.add(idTarea);
+            }
+        }
+        return resultado;
+    }
+
+    // Hora de entrega del próximo aviso pendiente, o SIN_FECHA si no queda ninguno
+    synchronized long proximoAviso() {
+        return avisos.estaVacio() ? SIN_FECHA : avisos.prioridadMinima();
+    }
+
+    synchronized long entrega(int idTarea) {
+        return pendientes.contiene(idTarea) ? pendientes.prioridad(idTarea) : fuera.getOrDefault(idTarea, SIN_FECHA);
+    }
+
+    synchronized int getPendientes() {
+        return pendientes.getTamano();
+    }
+
+    private void ubicar(int idTarea, long entrega, boolean completada, long ahora) {
+        if (completada) {
+            completadas.add(idTarea);
+        } else {
+            completadas.remove(idTarea);
+        }
+        if (!completada && entrega != SIN_FECHA) {
+            fuera.remove(idTarea);
+            pendientes.insertar(idTarea, entrega);
+            // Una fecha nueva (o desmarcar la tarea) vuelve a programar el aviso
+            if (entrega >= ahora) {
+                avisos.insertar(idTarea, entrega);
+            } else {
+                avisos.eliminar(idTarea);
+            }
+        } else {
+            pendientes.eliminar(idTarea);
+            avisos.eliminar(idTarea);
+            fuera.put(idTarea, entrega);
+        }
+    }
+
+    // "yyyy-MM-dd HH:mm" en la zona local -> milisegundos, o SIN_FECHA si falta o no se entiende
+    static long enMilisegundos(String fechaEntrega) {
+        if (fechaEntrega == null || fechaEntrega.isEmpty()) {
+            return SIN_FECHA;
+        }
+        try {
+            LocalDateTime fecha = fechaEntrega.length() == 10 ? LocalDate.parse(fechaEntrega).atStartOfDay()
+                    : LocalDateTime.parse(fechaEntrega, FORMATO);
+            return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return SIN_FECHA;
+        }
+    }
+}
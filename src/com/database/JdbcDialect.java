@@ -0,0 +1,29 @@
+package com.database;
+
+// Motores JDBC embebidos soportados por JdbcRepository y el script de esquema de cada uno.
+// H2 es opcional: solo funciona si su driver está en el classpath.
+public enum JdbcDialect {
+    SQLITE("jdbc:sqlite:taskgestor.db", "/com/database/schema.sql"),
+    H2("jdbc:h2:./taskgestor-h2", "/com/database/schema-h2.sql");
+
+    private final String urlPorDefecto;
+    private final String esquema;
+
+    JdbcDialect(String urlPorDefecto, String esquema) {
+        this.urlPorDefecto = urlPorDefecto;
+        this.esquema = esquema;
+    }
+
+    public String getUrlPorDefecto() {
+        return urlPorDefecto;
+    }
+
+    public String getEsquema() {
+        return esquema;
+    }
+
+    // SQLite guarda la versión del esquema en PRAGMA user_version; en H2 el script se ejecuta siempre
+    public boolean guardaVersionEsquema() {
+        return this == SQLITE;
+    }
+}
@@ -0,0 +1,1186 @@
+package com.database;
+
+import com.database.ContadoresEstudio.Aporte;
+import com.implementation.EstadisticasEstudio;
+import com.implementation.EstadoTarea;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.ProgresoSubtareas;
+import com.implementation.ReglaRecurrencia;
+import com.implementation.SerieTareas;
+import com.implementation.Tarea;
+import com.implementation.Tarjeta;
+import com.implementation.TramoEstudio;
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+// Repositorio sobre un motor JDBC embebido (SQLite por defecto, H2 opcional)
+public class JdbcRepository implements TaskRepository, UserRepository {
+    // Subir este número cada vez que cambie schema.sql, para que las bases existentes lo vuelvan a ejecutar
+    private static final int VERSION_ESQUEMA = 8;
+    // Cuántos ids van como máximo en un IN (...), por debajo del límite de parámetros de SQLite
+    private static final int IDS_POR_CONSULTA = 500;
+    // Recorre hacia abajo el subárbol de la tarea ? usando idxTareasPadre, con la profundidad de cada una
+    private static final String SUBARBOL = "WITH RECURSIVE subarbol(idTarea, nivel) AS (SELECT idTarea, 0 FROM Tareas WHERE idTarea = ? "
+            + "UNION ALL SELECT t.idTarea, s.nivel + 1 FROM Tareas t JOIN subarbol s ON t.idTareaPadre = s.idTarea) ";
+    private final String url;
+    private final JdbcDialect dialecto;
+    private Connection conn;
+
+    public JdbcRepository(JdbcDialect dialecto) {
+        this(dialecto.getUrlPorDefecto(), dialecto);
+    }
+
+    public JdbcRepository(String url, JdbcDialect dialecto) {
+        this.url = url;
+        this.dialecto = dialecto;
+        inicializarBaseDatos();
+    }
+
+    private void inicializarBaseDatos() {
+        try {
+            conn = DriverManager.getConnection(url);
+            if (dialecto.guardaVersionEsquema() && leerVersionEsquema() == VERSION_ESQUEMA) {
+                // Esquema al día: no hace falta leer ni ejecutar el script en cada arranque
+                return;
+            }
+            String script = "";
+            try (java.util.Scanner scanner = new java.util.Scanner(getClass().getResourceAsStream(dialecto.getEsquema()), "UTF-8")) {
+                scanner.useDelimiter("\\A"); // Lee todo el archivo
+                if (scanner.hasNext()) {
+                    script = scanner.next();
+                }
+            }
+
+            String[] statements = script.split(";");
+            for (String statement : statements) {
+                String trimmed = statement.trim();
+                if (!trimmed.isEmpty()) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(trimmed);
+                    } catch (SQLException e) {
+                        // Un ALTER TABLE ... ADD COLUMN ya aplicado en una base existente no es un error
+                        if (!esColumnaDuplicada(e)) {
+                            System.err.println("Error al ejecutar el esquema: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+            if (dialecto.guardaVersionEsquema()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA user_version = " + VERSION_ESQUEMA);
+                }
+            }
+            // Base anterior a los contadores de estadísticas: se arman una vez desde las tareas
+            if (faltanEstadisticas()) {
+                recalcularEstadisticas();
+            }
+        } catch (Exception e) {
+            System.err.println("Error al inicializar la base de datos: " + e.getMessage());
+        }
+    }
+
+    private int leerVersionEsquema() throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private boolean faltanEstadisticas() throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT (SELECT COUNT(*) FROM (SELECT 1 FROM Tareas LIMIT 1) t), "
+                     + "(SELECT COUNT(*) FROM (SELECT 1 FROM EstadisticasUsuario LIMIT 1) e)")) {
+            return rs.next() && rs.getInt(1) > 0 && rs.getInt(2) == 0;
+        }
+    }
+
+    private static boolean esColumnaDuplicada(SQLException e) {
+        String mensaje = String.valueOf(e.getMessage()).toLowerCase();
+        return mensaje.contains("duplicate column") || mensaje.contains("already exists");
+    }
+
+    public Connection getConexion() {
+        return conn;
+    }
+
+    private interface Cambio {
+        void aplicar() throws SQLException;
+    }
+
+    // El cambio, sus contadores de estadísticas y la versión del tablero se escriben juntos:
+    // quedan todos o ninguno, con un solo commit en lugar de uno por sentencia
+    private boolean enTransaccion(String error, Cambio cambio) {
+        try {
+            conn.setAutoCommit(false);
+            try {
+                cambio.aplicar();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println(error + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean registrarUsuario(String nombre, String correo, String contrasena) {
+        try {
+            if (existeCorreo(correo)) {
+                return false;
+            }
+
+            String query = "INSERT INTO Usuarios (nombre, correo, contrasena) VALUES (?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setString(1, nombre);
+                pstmt.setString(2, correo);
+                pstmt.setString(3, contrasena);
+                pstmt.executeUpdate();
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al registrar usuario: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean existeCorreo(String correo) {
+        String query = "SELECT COUNT(*) FROM Usuarios WHERE correo = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, correo);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() && rs.getInt(1) > 0;
+        } catch (SQLException e) {
+            System.err.println("Error al verificar correo: " + e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public int validarCredenciales(String correo, String contrasena) {
+        try {
+            String query = "SELECT idUsuario FROM Usuarios WHERE correo = ? AND contrasena = ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setString(1, correo);
+                pstmt.setString(2, contrasena);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt("idUsuario");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al validar credenciales: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    @Override
+    public String obtenerNombreUsuario(int idUsuario) {
+        try {
+            String query = "SELECT nombre FROM Usuarios WHERE idUsuario = ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, idUsuario);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    return rs.getString("nombre");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener nombre de usuario: " + e.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public int agregarTarea(int idUsuario, String titulo, String descripcion, String fechaEntrega) {
+        int[] idTarea = {-1};
+        boolean guardada = enTransaccion("Error al agregar tarea", () -> {
+            long ahora = System.currentTimeMillis();
+            idTarea[0] = insertarTarea(idUsuario, 0, titulo, descripcion, fechaEntrega, EstadoTarea.PENDIENTE, ahora);
+            if (idTarea[0] != -1) {
+                actualizarContadores(null, new Aporte(idUsuario, false, fechaEntrega, ahora, 0));
+                marcarCambio(idUsuario);
+            }
+        });
+        return guardada ? idTarea[0] : -1;
+    }
+
+    @Override
+    public int agregarSubtarea(int idTareaPadre, String nombre, String descripcion, String fechaEntrega) {
+        int[] idTarea = {-1};
+        boolean guardada = enTransaccion("Error al agregar subtarea", () -> {
+            Aporte padre = leerAporte(idTareaPadre);
+            if (padre == null) {
+                return;
+            }
+            long ahora = System.currentTimeMillis();
+            idTarea[0] = insertarTarea(padre.idUsuario, idTareaPadre, nombre, descripcion, fechaEntrega, EstadoTarea.PENDIENTE, ahora);
+            if (idTarea[0] != -1) {
+                actualizarContadores(null, new Aporte(padre.idUsuario, false, fechaEntrega, ahora, 0));
+                marcarCambio(padre.idUsuario);
+            }
+        });
+        return guardada ? idTarea[0] : -1;
+    }
+
+    // idTareaPadre 0 = tarea de primer nivel. Devuelve el idTarea generado, o -1.
+    private int insertarTarea(int idUsuario, int idTareaPadre, String nombre, String descripcion, String fechaEntrega,
+            EstadoTarea estado, long creadaEn) throws SQLException {
+        String query = "INSERT INTO Tareas (idUsuario, idTareaPadre, nombre, descripcion, completada, fechaEntrega, creadaEn, estado) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setInt(1, idUsuario);
+            if (idTareaPadre > 0) {
+                pstmt.setInt(2, idTareaPadre);
+            } else {
+                pstmt.setNull(2, Types.INTEGER);
+            }
+            pstmt.setString(3, nombre);
+            pstmt.setString(4, descripcion);
+            pstmt.setBoolean(5, estado == EstadoTarea.COMPLETADA);
+            pstmt.setString(6, fechaEntrega);
+            pstmt.setLong(7, creadaEn);
+            pstmt.setInt(8, estado.ordinal());
+            pstmt.executeUpdate();
+            ResultSet rs = pstmt.getGeneratedKeys();
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    // La tarea y todas sus subtareas: una consulta recursiva para leer lo que aportaban, un lote de
+    // DELETE y una sola actualización de contadores y de versión, sin importar la profundidad
+    @Override
+    public void eliminarTarea(int idTarea) {
+        enTransaccion("Error al eliminar tarea", () -> {
+            List<Integer> ids = new ArrayList<>();
+            ContadoresEstudio delta = new ContadoresEstudio();
+            int idUsuario = -1;
+            String query = SUBARBOL + "SELECT t.idTarea, t.idUsuario, t.completada, t.fechaEntrega, t.creadaEn, t.completadaEn "
+                    + "FROM subarbol s JOIN Tareas t ON t.idTarea = s.idTarea";
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, idTarea);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    ids.add(rs.getInt("idTarea"));
+                    Aporte aporte = leerAporte(rs);
+                    delta.aplicar(-1, aporte);
+                    idUsuario = aporte.idUsuario;
+                }
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement tarjetas = conn.prepareStatement("DELETE FROM Tarjetas WHERE idTarea = ?");
+                 PreparedStatement tareas = conn.prepareStatement("DELETE FROM Tareas WHERE idTarea = ?")) {
+                for (int id : ids) {
+                    tarjetas.setInt(1, id);
+                    tarjetas.addBatch();
+                    tareas.setInt(1, id);
+                    tareas.addBatch();
+                }
+                tarjetas.executeBatch();
+                tareas.executeBatch();
+            }
+            aplicarDelta(idUsuario, delta);
+            marcarCambio(idUsuario);
+        });
+    }
+
+    @Override
+    public Tarea obtenerTareaPorId(int idTarea) {
+        Tarea tarea = null;
+        try {
+            String query = "SELECT idUsuario, idTareaPadre, nombre, descripcion, completada, fechaEntrega, estado, orden FROM Tareas WHERE idTarea = ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, idTarea);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    int idUsuario = rs.getInt("idUsuario");
+                    String nombre = rs.getString("nombre");
+                    String descripcion = rs.getString("descripcion");
+                    tarea = new Tarea(idTarea, idUsuario, nombre, descripcion);
+                    tarea.setIdTareaPadre(rs.getInt("idTareaPadre"));
+                    tarea.setCompletada(rs.getBoolean("completada"));
+                    tarea.setFechaEntrega(rs.getString("fechaEntrega"));
+                    tarea.setEstado(EstadoTarea.de(tarea.isCompletada(), rs.getInt("estado")));
+                    tarea.setOrden(rs.getString("orden"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener tarea por ID: " + e.getMessage());
+        }
+        return tarea;
+    }
+
+    @Override
+    public String obtenerDescripcion(int idTarea) {
+        String query = "SELECT descripcion FROM Tareas WHERE idTarea = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idTarea);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getString("descripcion");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener descripción: " + e.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public void actualizarFechaEntrega(int idTarea, String fechaEntrega) {
+        enTransaccion("Error al actualizar fecha de entrega", () -> {
+            Aporte antes = leerAporte(idTarea);
+            if (antes == null) {
+                return;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE Tareas SET fechaEntrega = ? WHERE idTarea = ?")) {
+                pstmt.setString(1, fechaEntrega);
+                pstmt.setInt(2, idTarea);
+                pstmt.executeUpdate();
+            }
+            actualizarContadores(antes, new Aporte(antes.idUsuario, antes.completada, fechaEntrega, antes.creadaEn, antes.completadaEn));
+            marcarCambio(antes.idUsuario);
+        });
+    }
+
+    @Override
+    public void actualizarCompletada(int idTarea, boolean completada) {
+        actualizarCompletadas(Map.of(idTarea, completada));
+    }
+
+    // Un UPDATE por tarea que de verdad cambia, todo en un commit; la versión del tablero sube
+    // una vez por usuario y no una vez por tarea
+    @Override
+    public void actualizarCompletadas(Map<Integer, Boolean> cambios) {
+        enTransaccion("Error al actualizar tareas completadas", () -> {
+            long ahora = System.currentTimeMillis();
+            Set<Integer> usuarios = new LinkedHashSet<>();
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE Tareas SET completada = ?, completadaEn = ? WHERE idTarea = ?")) {
+                for (Map.Entry<Integer, Boolean> cambio : cambios.entrySet()) {
+                    boolean completada = cambio.getValue();
+                    Aporte antes = leerAporte(cambio.getKey());
+                    if (antes == null || antes.completada == completada) {
+                        continue;
+                    }
+                    long completadaEn = completada ? ahora : 0;
+                    pstmt.setBoolean(1, completada);
+                    if (completada) {
+                        pstmt.setLong(2, completadaEn);
+                    } else {
+                        pstmt.setNull(2, Types.BIGINT);
+                    }
+                    pstmt.setInt(3, cambio.getKey());
+                    pstmt.executeUpdate();
+                    actualizarContadores(antes, new Aporte(antes.idUsuario, completada, antes.fechaEntrega, antes.creadaEn, completadaEn));
+                    usuarios.add(antes.idUsuario);
+                }
+            }
+            for (int idUsuario : usuarios) {
+                marcarCambio(idUsuario);
+            }
+        });
+    }
+
+    // Como actualizarCompletadas: un commit para todo el lote y los contadores solo cambian si cambia
+    // completada. Guardar el estado aunque sea el mismo es barato y deja la columna al día.
+    @Override
+    public void actualizarEstados(Map<Integer, EstadoTarea> cambios) {
+        enTransaccion("Error al actualizar estados", () -> {
+            long ahora = System.currentTimeMillis();
+            Set<Integer> usuarios = new LinkedHashSet<>();
+            try (PreparedStatement soloEstado = conn.prepareStatement("UPDATE Tareas SET estado = ? WHERE idTarea = ?");
+                 PreparedStatement conCompletada = conn.prepareStatement(
+                         "UPDATE Tareas SET estado = ?, completada = ?, completadaEn = ? WHERE idTarea = ?")) {
+                for (Map.Entry<Integer, EstadoTarea> cambio : cambios.entrySet()) {
+                    Aporte antes = leerAporte(cambio.getKey());
+                    if (antes == null) {
+                        continue;
+                    }
+                    boolean completada = cambio.getValue() == EstadoTarea.COMPLETADA;
+                    usuarios.add(antes.idUsuario);
+                    if (antes.completada == completada) {
+                        soloEstado.setInt(1, cambio.getValue().ordinal());
+                        soloEstado.setInt(2, cambio.getKey());
+                        soloEstado.addBatch();
+                        continue;
+                    }
+                    long completadaEn = completada ? ahora : 0;
+                    conCompletada.setInt(1, cambio.getValue().ordinal());
+                    conCompletada.setBoolean(2, completada);
+                    if (completada) {
+                        conCompletada.setLong(3, completadaEn);
+                    } else {
+                        conCompletada.setNull(3, Types.BIGINT);
+                    }
+                    conCompletada.setInt(4, cambio.getKey());
+                    conCompletada.addBatch();
+                    actualizarContadores(antes, new Aporte(antes.idUsuario, completada, antes.fechaEntrega, antes.creadaEn, completadaEn));
+                }
+                soloEstado.executeBatch();
+                conCompletada.executeBatch();
+            }
+            for (int idUsuario : usuarios) {
+                marcarCambio(idUsuario);
+            }
+        });
+    }
+
+    // Un lote de UPDATE: mover una tarjeta es una sola fila, rebalancear son todas las del usuario
+    @Override
+    public void actualizarOrden(Map<Integer, String> claves) {
+        enTransaccion("Error al actualizar el orden", () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE Tareas SET orden = ? WHERE idTarea = ?")) {
+                for (Map.Entry<Integer, String> clave : claves.entrySet()) {
+                    pstmt.setString(1, clave.getValue());
+                    pstmt.setInt(2, clave.getKey());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public List<Tarea> buscarTareasPorUsuario(int idUsuario, int offset, int limit, Set<CampoTarea> campos) {
+        List<Tarea> tareas = new ArrayList<>();
+        String query = "SELECT " + columnas(campos) + " FROM Tareas WHERE idUsuario = ? ORDER BY IFNULL(fechaEntrega, ''), idTarea LIMIT ? OFFSET ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setInt(2, limit < 0 ? Integer.MAX_VALUE : limit);
+            pstmt.setInt(3, offset);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                tareas.add(leerTarea(rs, campos));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar tareas: " + e.getMessage());
+        }
+        return tareas;
+    }
+
+    @Override
+    public List<Tarea> buscarTareasDespuesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        return buscarTareasPorClave(idUsuario, fechaEntrega, idTarea, limit, campos, true);
+    }
+
+    @Override
+    public List<Tarea> buscarTareasAntesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        List<Tarea> tareas = buscarTareasPorClave(idUsuario, fechaEntrega, idTarea, limit, campos, false);
+        Collections.reverse(tareas);
+        return tareas;
+    }
+
+    private List<Tarea> buscarTareasPorClave(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos, boolean adelante) {
+        List<Tarea> tareas = new ArrayList<>();
+        // Solo las de primer nivel: con idTareaPadre IS NULL la consulta recorre idxTareasPadre en orden
+        String query = "SELECT " + columnas(campos) + " FROM Tareas WHERE idTareaPadre IS NULL AND idUsuario = ? AND (IFNULL(fechaEntrega, ''), idTarea) "
+                + (adelante ? ">" : "<") + " (?, ?) ORDER BY IFNULL(fechaEntrega, '') "
+                + (adelante ? "ASC" : "DESC") + ", idTarea " + (adelante ? "ASC" : "DESC") + " LIMIT ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setString(2, fechaEntrega == null ? "" : fechaEntrega);
+            pstmt.setInt(3, idTarea);
+            pstmt.setInt(4, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                tareas.add(leerTarea(rs, campos));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar tareas: " + e.getMessage());
+        }
+        return tareas;
+    }
+
+    @Override
+    public List<Tarea> buscarTareasEntreFechas(int idUsuario, String desde, String hasta, Set<CampoTarea> campos) {
+        List<Tarea> tareas = new ArrayList<>();
+        String query = "SELECT " + columnas(campos) + " FROM Tareas WHERE idUsuario = ? AND IFNULL(fechaEntrega, '') >= ? "
+                + "AND IFNULL(fechaEntrega, '') < ? ORDER BY IFNULL(fechaEntrega, ''), idTarea";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setString(2, desde);
+            pstmt.setString(3, hasta);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                tareas.add(leerTarea(rs, campos));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar tareas por fecha: " + e.getMessage());
+        }
+        return tareas;
+    }
+
+    @Override
+    public List<Tarea> buscarSubtareas(int idTareaPadre, Set<CampoTarea> campos) {
+        List<Tarea> tareas = new ArrayList<>();
+        String query = "SELECT " + columnas(campos) + " FROM Tareas WHERE idTareaPadre = ? ORDER BY IFNULL(fechaEntrega, ''), idTarea";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idTareaPadre);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                tareas.add(leerTarea(rs, campos));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar subtareas: " + e.getMessage());
+        }
+        return tareas;
+    }
+
+    @Override
+    public List<Tarea> obtenerSubarbol(int idTarea) {
+        List<Tarea> tareas = new ArrayList<>();
+        String query = SUBARBOL + "SELECT t.idTarea, t.idUsuario, t.idTareaPadre, t.nombre, t.descripcion, t.completada, t.fechaEntrega, t.estado, t.orden "
+                + "FROM subarbol s JOIN Tareas t ON t.idTarea = s.idTarea ORDER BY s.nivel, IFNULL(t.fechaEntrega, ''), t.idTarea";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idTarea);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                tareas.add(leerTarea(rs, CampoTarea.TODOS));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener subárbol: " + e.getMessage());
+        }
+        return tareas;
+    }
+
+    // Una consulta recursiva por cada tanda de ids: baja desde todas las raíces a la vez llevando de
+    // qué raíz viene cada descendiente y agrupa por raíz
+    @Override
+    public Map<Integer, ProgresoSubtareas> obtenerProgreso(Collection<Integer> idsTareas) {
+        Map<Integer, ProgresoSubtareas> progreso = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(idsTareas);
+        for (int desde = 0; desde < ids.size(); desde += IDS_POR_CONSULTA) {
+            List<Integer> tanda = ids.subList(desde, Math.min(ids.size(), desde + IDS_POR_CONSULTA));
+            String query = "WITH RECURSIVE descendientes(raiz, idTarea, completada) AS ("
+                    + "SELECT idTareaPadre, idTarea, completada FROM Tareas WHERE idTareaPadre IN ("
+                    + String.join(", ", Collections.nCopies(tanda.size(), "?")) + ") "
+                    + "UNION ALL SELECT d.raiz, t.idTarea, t.completada FROM Tareas t JOIN descendientes d ON t.idTareaPadre = d.idTarea) "
+                    + "SELECT raiz, COUNT(*), SUM(CASE WHEN completada THEN 1 ELSE 0 END) FROM descendientes GROUP BY raiz";
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                for (int i = 0; i < tanda.size(); i++) {
+                    pstmt.setInt(i + 1, tanda.get(i));
+                }
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    progreso.put(rs.getInt(1), new ProgresoSubtareas(rs.getInt(2), rs.getInt(3)));
+                }
+            } catch (SQLException e) {
+                System.err.println("Error al obtener progreso de subtareas: " + e.getMessage());
+            }
+        }
+        return progreso;
+    }
+
+    // Las tareas vuelven con ids nuevos; cada una se cuelga del id nuevo de su padre. Si el padre de
+    // la raíz ya no existe, la raíz vuelve como tarea de primer nivel.
+    @Override
+    public int[] restaurarSubarbol(List<Tarea> subarbol) {
+        int[] nuevos = new int[subarbol.size()];
+        if (subarbol.isEmpty()) {
+            return nuevos;
+        }
+        boolean restaurado = enTransaccion("Error al restaurar tareas", () -> {
+            long ahora = System.currentTimeMillis();
+            int idUsuario = subarbol.get(0).getIdUsuario();
+            Map<Integer, Integer> idsNuevos = new HashMap<>();
+            ContadoresEstudio delta = new ContadoresEstudio();
+            for (int i = 0; i < nuevos.length; i++) {
+                Tarea tarea = subarbol.get(i);
+                int padre = tarea.getIdTareaPadre();
+                if (idsNuevos.containsKey(padre)) {
+                    padre = idsNuevos.get(padre);
+                } else if (padre > 0 && leerAporte(padre) == null) {
+                    padre = 0;
+                }
+                nuevos[i] = insertarTarea(idUsuario, padre, tarea.getNombre(), tarea.getDescripcion(), tarea.getFechaEntrega(),
+                        tarea.getEstado(), ahora);
+                if (nuevos[i] == -1) {
+                    throw new SQLException("no se generó el id de la tarea " + tarea.getIdTarea());
+                }
+                idsNuevos.put(tarea.getIdTarea(), nuevos[i]);
+                // Sin completadaEn: una tarea restaurada no cuenta para el tiempo promedio de entrega
+                delta.aplicar(1, tarea.isCompletada(), tarea.getFechaEntrega(), ahora, 0);
+            }
+            aplicarDelta(idUsuario, delta);
+            marcarCambio(idUsuario);
+        });
+        return restaurado ? nuevos : new int[0];
+    }
+
+    // ---- Series ----
+
+    @Override
+    public int agregarSerie(SerieTareas serie) {
+        int[] idSerie = {-1};
+        boolean guardada = enTransaccion("Error al agregar serie", () -> {
+            String query = "INSERT INTO Series (idUsuario, nombre, descripcion, inicio, regla, fin) VALUES (?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, serie.getIdUsuario());
+                pstmt.setString(2, serie.getNombre());
+                pstmt.setString(3, serie.getDescripcion());
+                pstmt.setString(4, serie.getInicio());
+                pstmt.setString(5, serie.getRegla().toString());
+                pstmt.setString(6, serie.getFin());
+                pstmt.executeUpdate();
+                ResultSet rs = pstmt.getGeneratedKeys();
+                if (!rs.next()) {
+                    throw new SQLException("no se generó el id de la serie");
+                }
+                idSerie[0] = rs.getInt(1);
+            }
+            if (!serie.getExcepciones().isEmpty()) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO ExcepcionesSerie (idSerie, ocurrencia, cancelada, fechaEntrega, completada) VALUES (?, ?, ?, ?, ?)")) {
+                    for (ExcepcionOcurrencia excepcion : serie.getExcepciones()) {
+                        ponerExcepcion(pstmt, idSerie[0], excepcion);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            }
+            marcarCambio(serie.getIdUsuario());
+        });
+        return guardada ? idSerie[0] : -1;
+    }
+
+    private static void ponerExcepcion(PreparedStatement pstmt, int idSerie, ExcepcionOcurrencia excepcion) throws SQLException {
+        pstmt.setInt(1, idSerie);
+        pstmt.setString(2, excepcion.getOcurrencia());
+        pstmt.setBoolean(3, excepcion.isCancelada());
+        pstmt.setString(4, excepcion.getFechaEntrega());
+        pstmt.setBoolean(5, excepcion.isCompletada());
+    }
+
+    @Override
+    public SerieTareas obtenerSerie(int idSerie) {
+        try {
+            SerieTareas serie = null;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT idSerie, idUsuario, nombre, descripcion, inicio, regla FROM Series WHERE idSerie = ?")) {
+                pstmt.setInt(1, idSerie);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    serie = leerSerie(rs);
+                }
+            }
+            if (serie != null) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT idSerie, ocurrencia, cancelada, fechaEntrega, completada FROM ExcepcionesSerie WHERE idSerie = ?")) {
+                    pstmt.setInt(1, idSerie);
+                    ResultSet rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        serie.ponerExcepcion(leerExcepcion(rs));
+                    }
+                }
+            }
+            return serie;
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("Error al obtener serie: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void eliminarSerie(int idSerie) {
+        enTransaccion("Error al eliminar serie", () -> {
+            int idUsuario = usuarioDeSerie(idSerie);
+            if (idUsuario == -1) {
+                return;
+            }
+            try (PreparedStatement excepciones = conn.prepareStatement("DELETE FROM ExcepcionesSerie WHERE idSerie = ?");
+                 PreparedStatement serie = conn.prepareStatement("DELETE FROM Series WHERE idSerie = ?")) {
+                excepciones.setInt(1, idSerie);
+                excepciones.executeUpdate();
+                serie.setInt(1, idSerie);
+                serie.executeUpdate();
+            }
+            marcarCambio(idUsuario);
+        });
+    }
+
+    // Dos consultas por rango, sin importar cuántas ocurrencias tengan las series: las series cuyo
+    // [inicio, fin] toca el rango (idxSeriesUsuario) y las excepciones de esas series dentro del rango
+    @Override
+    public List<SerieTareas> buscarSeriesEntreFechas(int idUsuario, String desde, String hasta) {
+        List<SerieTareas> series = new ArrayList<>();
+        String filtro = "idUsuario = ? AND inicio < ? AND (fin IS NULL OR fin >= ?)";
+        try {
+            Map<Integer, SerieTareas> porId = new HashMap<>();
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT idSerie, idUsuario, nombre, descripcion, inicio, regla "
+                    + "FROM Series WHERE " + filtro + " ORDER BY inicio, idSerie")) {
+                pstmt.setInt(1, idUsuario);
+                pstmt.setString(2, hasta);
+                pstmt.setString(3, desde);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    try {
+                        SerieTareas serie = leerSerie(rs);
+                        series.add(serie);
+                        porId.put(serie.getIdSerie(), serie);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Error al leer la serie " + rs.getInt("idSerie") + ": " + e.getMessage());
+                    }
+                }
+            }
+            if (series.isEmpty()) {
+                return series;
+            }
+            String query = "SELECT e.idSerie, e.ocurrencia, e.cancelada, e.fechaEntrega, e.completada FROM ExcepcionesSerie e "
+                    + "WHERE e.idSerie IN (SELECT idSerie FROM Series WHERE " + filtro + ") "
+                    + "AND ((e.ocurrencia >= ? AND e.ocurrencia < ?) OR (e.fechaEntrega >= ? AND e.fechaEntrega < ?))";
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, idUsuario);
+                pstmt.setString(2, hasta);
+                pstmt.setString(3, desde);
+                pstmt.setString(4, desde);
+                pstmt.setString(5, hasta);
+                pstmt.setString(6, desde);
+                pstmt.setString(7, hasta);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    SerieTareas serie = porId.get(rs.getInt("idSerie"));
+                    if (serie != null) {
+                        serie.ponerExcepcion(leerExcepcion(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al buscar series: " + e.getMessage());
+        }
+        return series;
+    }
+
+    @Override
+    public void guardarExcepcion(int idSerie, ExcepcionOcurrencia excepcion) {
+        enTransaccion("Error al guardar excepción de la serie", () -> {
+            int idUsuario = usuarioDeSerie(idSerie);
+            if (idUsuario == -1) {
+                return;
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM ExcepcionesSerie WHERE idSerie = ? AND ocurrencia = ?")) {
+                pstmt.setInt(1, idSerie);
+                pstmt.setString(2, excepcion.getOcurrencia());
+                pstmt.executeUpdate();
+            }
+            if (!excepcion.esVacia()) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "INSERT INTO ExcepcionesSerie (idSerie, ocurrencia, cancelada, fechaEntrega, completada) VALUES (?, ?, ?, ?, ?)")) {
+                    ponerExcepcion(pstmt, idSerie, excepcion);
+                    pstmt.executeUpdate();
+                }
+            }
+            marcarCambio(idUsuario);
+        });
+    }
+
+    private int usuarioDeSerie(int idSerie) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT idUsuario FROM Series WHERE idSerie = ?")) {
+            pstmt.setInt(1, idSerie);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    private static SerieTareas leerSerie(ResultSet rs) throws SQLException {
+        return new SerieTareas(rs.getInt("idSerie"), rs.getInt("idUsuario"), rs.getString("nombre"), rs.getString("descripcion"),
+                rs.getString("inicio"), ReglaRecurrencia.parsear(rs.getString("regla")));
+    }
+
+    private static ExcepcionOcurrencia leerExcepcion(ResultSet rs) throws SQLException {
+        return new ExcepcionOcurrencia(rs.getString("ocurrencia"), rs.getBoolean("cancelada"), rs.getString("fechaEntrega"),
+                rs.getBoolean("completada"));
+    }
+
+    // ---- Sesiones de estudio ----
+
+    @Override
+    public void agregarSesiones(List<TramoEstudio> tramos) {
+        if (tramos.isEmpty()) {
+            return;
+        }
+        enTransaccion("Error al guardar sesiones", () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO Sesiones (idUsuario, idTarea, dia, inicio, duracion) VALUES (?, ?, ?, ?, ?)")) {
+                for (TramoEstudio tramo : tramos) {
+                    pstmt.setInt(1, tramo.getIdUsuario());
+                    pstmt.setInt(2, tramo.getIdTarea());
+                    pstmt.setString(3, tramo.getDia());
+                    pstmt.setLong(4, tramo.getInicio());
+                    pstmt.setLong(5, tramo.getDuracion());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public Map<String, Long> tiempoPorDia(int idUsuario, String desde, String hasta) {
+        Map<String, Long> porDia = new TreeMap<>();
+        String query = "SELECT dia, SUM(duracion) FROM Sesiones WHERE idUsuario = ? AND dia >= ? AND dia < ? GROUP BY dia";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setString(2, desde);
+            pstmt.setString(3, hasta);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                porDia.put(rs.getString(1), rs.getLong(2));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al sumar el tiempo por día: " + e.getMessage());
+        }
+        return porDia;
+    }
+
+    @Override
+    public Map<Integer, Long> tiempoPorTarea(int idUsuario, String desde, String hasta) {
+        Map<Integer, Long> porTarea = new HashMap<>();
+        String query = "SELECT idTarea, SUM(duracion) FROM Sesiones WHERE idUsuario = ? AND dia >= ? AND dia < ? GROUP BY idTarea";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setString(2, desde);
+            pstmt.setString(3, hasta);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                porTarea.put(rs.getInt(1), rs.getLong(2));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al sumar el tiempo por tarea: " + e.getMessage());
+        }
+        return porTarea;
+    }
+
+    // El día se saca en Java: SQLite y H2 no tienen las mismas funciones de fecha
+    @Override
+    public Map<String, Integer> completadasPorDia(int idUsuario, String desde, String hasta) {
+        ZoneId zona = ZoneId.systemDefault();
+        Map<String, Integer> porDia = new TreeMap<>();
+        String query = "SELECT completadaEn FROM Tareas WHERE idUsuario = ? AND completada = ? AND completadaEn >= ? AND completadaEn < ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setBoolean(2, true);
+            pstmt.setLong(3, ActividadUsuario.inicioDelDia(desde, zona));
+            pstmt.setLong(4, ActividadUsuario.inicioDelDia(hasta, zona));
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                porDia.merge(ActividadUsuario.diaDe(rs.getLong(1), zona), 1, Integer::sum);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al contar las completadas por día: " + e.getMessage());
+        }
+        return porDia;
+    }
+
+    // ---- Tarjetas de repaso ----
+
+    @Override
+    public int agregarTarjeta(Tarjeta tarjeta) {
+        int[] idTarjeta = {-1};
+        boolean guardada = enTransaccion("Error al agregar tarjeta", () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT idUsuario FROM Tareas WHERE idTarea = ?")) {
+                pstmt.setInt(1, tarjeta.getIdTarea());
+                ResultSet rs = pstmt.executeQuery();
+                if (!rs.next() || rs.getInt(1) != tarjeta.getIdUsuario()) {
+                    return;
+                }
+            }
+            String query = "INSERT INTO Tarjetas (idUsuario, idTarea, frente, reverso, repeticiones, intervalo, facilidad, proximoRepaso) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, tarjeta.getIdUsuario());
+                pstmt.setInt(2, tarjeta.getIdTarea());
+                pstmt.setString(3, tarjeta.getFrente());
+                pstmt.setString(4, tarjeta.getReverso());
+                pstmt.setInt(5, tarjeta.getRepeticiones());
+                pstmt.setInt(6, tarjeta.getIntervalo());
+                pstmt.setDouble(7, tarjeta.getFacilidad());
+                pstmt.setString(8, tarjeta.getProximoRepaso());
+                pstmt.executeUpdate();
+                ResultSet rs = pstmt.getGeneratedKeys();
+                if (!rs.next()) {
+                    throw new SQLException("no se generó el id de la tarjeta");
+                }
+                idTarjeta[0] = rs.getInt(1);
+            }
+        });
+        return guardada ? idTarjeta[0] : -1;
+    }
+
+    @Override
+    public void actualizarRepaso(Tarjeta tarjeta) {
+        String query = "UPDATE Tarjetas SET repeticiones = ?, intervalo = ?, facilidad = ?, proximoRepaso = ? WHERE idTarjeta = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, tarjeta.getRepeticiones());
+            pstmt.setInt(2, tarjeta.getIntervalo());
+            pstmt.setDouble(3, tarjeta.getFacilidad());
+            pstmt.setString(4, tarjeta.getProximoRepaso());
+            pstmt.setInt(5, tarjeta.getIdTarjeta());
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error al guardar el repaso: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void eliminarTarjeta(int idTarjeta) {
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM Tarjetas WHERE idTarjeta = ?")) {
+            pstmt.setInt(1, idTarjeta);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error al eliminar tarjeta: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Tarjeta> obtenerTarjetas(int idUsuario) {
+        List<Tarjeta> tarjetas = new ArrayList<>();
+        String query = "SELECT idTarjeta, idUsuario, idTarea, frente, reverso, repeticiones, intervalo, facilidad, proximoRepaso "
+                + "FROM Tarjetas WHERE idUsuario = ? ORDER BY idTarjeta";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                Tarjeta tarjeta = new Tarjeta(rs.getInt("idTarjeta"), rs.getInt("idUsuario"), rs.getInt("idTarea"), rs.getString("frente"),
+                        rs.getString("reverso"));
+                tarjeta.setRepaso(rs.getInt("repeticiones"), rs.getInt("intervalo"), rs.getDouble("facilidad"), rs.getString("proximoRepaso"));
+                tarjetas.add(tarjeta);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener tarjetas: " + e.getMessage());
+        }
+        return tarjetas;
+    }
+
+    @Override
+    public long obtenerVersionTablero(int idUsuario) {
+        String query = "SELECT version FROM VersionTablero WHERE idUsuario = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al obtener versión del tablero: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    // La primera versión de cada usuario parte de la hora actual, así una base recreada
+    // no repite los sellos que pudo haber guardado una caché anterior
+    private void marcarCambio(int idUsuario) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE VersionTablero SET version = version + 1 WHERE idUsuario = ?")) {
+            pstmt.setInt(1, idUsuario);
+            if (pstmt.executeUpdate() > 0) {
+                return;
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO VersionTablero (idUsuario, version) VALUES (?, ?)")) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setLong(2, System.currentTimeMillis());
+            pstmt.executeUpdate();
+        }
+    }
+
+    // ---- Estadísticas ----
+
+    private Aporte leerAporte(int idTarea) throws SQLException {
+        String query = "SELECT idUsuario, completada, fechaEntrega, creadaEn, completadaEn FROM Tareas WHERE idTarea = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idTarea);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? leerAporte(rs) : null;
+        }
+    }
+
+    private static Aporte leerAporte(ResultSet rs) throws SQLException {
+        return new Aporte(rs.getInt("idUsuario"), rs.getBoolean("completada"), rs.getString("fechaEntrega"),
+                rs.getLong("creadaEn"), rs.getLong("completadaEn"));
+    }
+
+    // Pasa los contadores del aporte anterior de una tarea al nuevo (null = la tarea no existe).
+    // Solo se tocan las filas que cambian: mover una fecha dentro del mismo día no escribe nada.
+    private void actualizarContadores(Aporte antes, Aporte despues) throws SQLException {
+        ContadoresEstudio delta = new ContadoresEstudio();
+        if (antes != null) {
+            delta.aplicar(-1, antes);
+        }
+        if (despues != null) {
+            delta.aplicar(1, despues);
+        }
+        aplicarDelta(antes != null ? antes.idUsuario : despues.idUsuario, delta);
+    }
+
+    // Suma a los contadores guardados del usuario lo acumulado en el delta
+    private void aplicarDelta(int idUsuario, ContadoresEstudio delta) throws SQLException {
+        if (delta.total != 0 || delta.completadas != 0 || delta.sumaEntregaMs != 0 || delta.entregadas != 0) {
+            String query = "UPDATE EstadisticasUsuario SET total = total + ?, completadas = completadas + ?, "
+                    + "sumaEntregaMs = sumaEntregaMs + ?, entregadas = entregadas + ? WHERE idUsuario = ?";
+            boolean existia;
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setInt(1, delta.total);
+                pstmt.setInt(2, delta.completadas);
+                pstmt.setLong(3, delta.sumaEntregaMs);
+                pstmt.setInt(4, delta.entregadas);
+                pstmt.setInt(5, idUsuario);
+                existia = pstmt.executeUpdate() > 0;
+            }
+            if (!existia) {
+                insertarContadores(idUsuario, delta);
+            }
+        }
+        for (Map.Entry<String, Integer> dia : delta.pendientesPorDia.entrySet()) {
+            boolean existia;
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE EstadisticasDia SET pendientes = pendientes + ? WHERE idUsuario = ? AND dia = ?")) {
+                pstmt.setInt(1, dia.getValue());
+                pstmt.setInt(2, idUsuario);
+                pstmt.setString(3, dia.getKey());
+                existia = pstmt.executeUpdate() > 0;
+            }
+            if (!existia) {
+                try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO EstadisticasDia (idUsuario, dia, pendientes) VALUES (?, ?, ?)")) {
+                    pstmt.setInt(1, idUsuario);
+                    pstmt.setString(2, dia.getKey());
+                    pstmt.setInt(3, dia.getValue());
+                    pstmt.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private void insertarContadores(int idUsuario, ContadoresEstudio contadores) throws SQLException {
+        String query = "INSERT INTO EstadisticasUsuario (idUsuario, total, completadas, sumaEntregaMs, entregadas) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setInt(2, contadores.total);
+            pstmt.setInt(3, contadores.completadas);
+            pstmt.setLong(4, contadores.sumaEntregaMs);
+            pstmt.setInt(5, contadores.entregadas);
+            pstmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public EstadisticasEstudio obtenerEstadisticas(int idUsuario, LocalDate hoy) {
+        LocalDate lunes = hoy.with(DayOfWeek.MONDAY);
+        String queryUsuario = "SELECT total, completadas, sumaEntregaMs, entregadas FROM EstadisticasUsuario WHERE idUsuario = ?";
+        // Recorre una fila por día con entregas pendientes, no las tareas
+        String queryDias = "SELECT COALESCE(SUM(CASE WHEN dia >= ? AND dia < ? THEN pendientes ELSE 0 END), 0), "
+                + "COALESCE(SUM(CASE WHEN dia < ? THEN pendientes ELSE 0 END), 0) FROM EstadisticasDia WHERE idUsuario = ?";
+        try (PreparedStatement usuario = conn.prepareStatement(queryUsuario);
+             PreparedStatement dias = conn.prepareStatement(queryDias)) {
+            usuario.setInt(1, idUsuario);
+            ResultSet rs = usuario.executeQuery();
+            if (!rs.next()) {
+                return EstadisticasEstudio.VACIAS;
+            }
+            dias.setString(1, lunes.toString());
+            dias.setString(2, lunes.plusWeeks(1).toString());
+            dias.setString(3, hoy.toString());
+            dias.setInt(4, idUsuario);
+            ResultSet pendientes = dias.executeQuery();
+            pendientes.next();
+            return new EstadisticasEstudio(rs.getInt("total"), rs.getInt("completadas"), pendientes.getInt(1),
+                    pendientes.getInt(2), ContadoresEstudio.promedio(rs.getLong("sumaEntregaMs"), rs.getInt("entregadas")));
+        } catch (SQLException e) {
+            System.err.println("Error al obtener estadísticas: " + e.getMessage());
+            return EstadisticasEstudio.VACIAS;
+        }
+    }
+
+    // Reconstruye EstadisticasUsuario y EstadisticasDia desde Tareas. La lectura va por la única
+    // conexión; el cálculo por usuario se reparte entre los núcleos (ContadoresEstudio.agrupar).
+    @Override
+    public void recalcularEstadisticas() {
+        enTransaccion("Error al recalcular estadísticas", () -> {
+            List<Aporte> aportes = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT idUsuario, completada, fechaEntrega, creadaEn, completadaEn FROM Tareas")) {
+                while (rs.next()) {
+                    aportes.add(leerAporte(rs));
+                }
+            }
+            Map<Integer, ContadoresEstudio> porUsuario = ContadoresEstudio.agrupar(aportes);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM EstadisticasDia");
+                stmt.execute("DELETE FROM EstadisticasUsuario");
+            }
+            try (PreparedStatement usuarios = conn.prepareStatement(
+                    "INSERT INTO EstadisticasUsuario (idUsuario, total, completadas, sumaEntregaMs, entregadas) VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement dias = conn.prepareStatement("INSERT INTO EstadisticasDia (idUsuario, dia, pendientes) VALUES (?, ?, ?)")) {
+                for (Map.Entry<Integer, ContadoresEstudio> entrada : porUsuario.entrySet()) {
+                    ContadoresEstudio contadores = entrada.getValue();
+                    usuarios.setInt(1, entrada.getKey());
+                    usuarios.setInt(2, contadores.total);
+                    usuarios.setInt(3, contadores.completadas);
+                    usuarios.setLong(4, contadores.sumaEntregaMs);
+                    usuarios.setInt(5, contadores.entregadas);
+                    usuarios.addBatch();
+                    for (Map.Entry<String, Integer> dia : contadores.pendientesPorDia.entrySet()) {
+                        dias.setInt(1, entrada.getKey());
+                        dias.setString(2, dia.getKey());
+                        dias.setInt(3, dia.getValue());
+                        dias.addBatch();
+                    }
+                }
+                usuarios.executeBatch();
+                dias.executeBatch();
+            }
+        });
+    }
+
+    private static String columnas(Set<CampoTarea> campos) {
+        StringBuilder columnas = new StringBuilder("idTarea, idUsuario, idTareaPadre");
+        for (CampoTarea campo : campos) {
+            columnas.append(", ").append(campo.getColumna());
+        }
+        return columnas.toString();
+    }
+
+    private static Tarea leerTarea(ResultSet rs, Set<CampoTarea> campos) throws SQLException {
+        String nombre = campos.contains(CampoTarea.NOMBRE) ? rs.getString("nombre") : null;
+        Tarea tarea = new Tarea(rs.getInt("idTarea"), rs.getInt("idUsuario"), nombre, null);
+        // getInt devuelve 0 con NULL, que es lo mismo que "sin padre"
+        tarea.setIdTareaPadre(rs.getInt("idTareaPadre"));
+        if (campos.contains(CampoTarea.DESCRIPCION)) {
+            tarea.setDescripcion(rs.getString("descripcion"));
+        } else if (campos.contains(CampoTarea.RESUMEN)) {
+            tarea.setResumenDescripcion(rs.getString("descripcion"));
+        } else {
+            tarea.setResumenDescripcion("");
+        }
+        if (campos.contains(CampoTarea.COMPLETADA)) {
+            tarea.setCompletada(rs.getBoolean("completada"));
+        }
+        if (campos.contains(CampoTarea.FECHA_ENTREGA)) {
+            tarea.setFechaEntrega(rs.getString("fechaEntrega"));
+        }
+        if (campos.contains(CampoTarea.ESTADO)) {
+            // NULL (tareas anteriores a la columna) es 0, "Pendiente"
+            tarea.setEnProgreso(rs.getInt("estado") == EstadoTarea.EN_PROGRESO.ordinal());
+        }
+        if (campos.contains(CampoTarea.ORDEN)) {
+            tarea.setOrden(rs.getString("orden"));
+        }
+        return tarea;
+    }
+
+    @Override
+    public void cerrar() {
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Error al cerrar la conexión: " + e.getMessage());
+            }
+        }
+    }
+}
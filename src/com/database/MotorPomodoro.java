@@ -0,0 +1,246 @@
+package com.database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Pomodoros por tarea: trabajo, descanso corto y, cada POMODOROS_POR_DESCANSO_LARGO, uno largo.
+// Cada cambio de fase se programa una sola vez en un único hilo compartido por todos los pomodoros,
+// contra System.nanoTime (no cambia si se ajusta el reloj del equipo); entre cambios no corre nada,
+// así que decenas abiertos a la vez no gastan CPU. La fase siguiente empieza cuando debía terminar
+// la anterior y no cuando el hilo se despertó, así los atrasos no se acumulan.
+// El tiempo de trabajo se registra como sesión de estudio de la tarea (ver RegistroSesiones).
+// Duraciones en minutos con -Dpomodoro.trabajo=25, -Dpomodoro.descanso=5 y -Dpomodoro.descansoLargo=15.
+public class MotorPomodoro {
+    public enum Fase { TRABAJO, DESCANSO, DESCANSO_LARGO }
+
+    private static final int POMODOROS_POR_DESCANSO_LARGO = 4;
+
+    private final GestorRegistro gestorRegistro;
+    private final long trabajoNanos;
+    private final long descansoNanos;
+    private final long descansoLargoNanos;
+    private final Map<Long, Pomodoro> activos = new ConcurrentHashMap<>();
+    // Se crea con el primer pomodoro, así no suma un hilo al arranque
+    private ScheduledExecutorService programador;
+
+    public final class Pomodoro {
+        private final int idUsuario;
+        private final int idTarea;
+        // Se llama en el hilo del motor después de cada cambio de fase
+        private final Consumer<Pomodoro> alCambiarFase;
+        private Fase fase;
+        private int completados;
+        // Fin de la fase en curso según System.nanoTime; en pausa, lo que le faltaba
+        private long finFase;
+        private long restantePausa = -1;
+        private boolean detenido;
+        private ScheduledFuture<?> transicion;
+        // Descarta una transición que ya estaba en camino cuando se pausó o se detuvo
+        private int generacion;
+
+        private Pomodoro(int idUsuario, int idTarea, Consumer<Pomodoro> alCambiarFase) {
+            this.idUsuario = idUsuario;
+            this.idTarea = idTarea;
+            this.alCambiarFase = alCambiarFase;
+        }
+
+        public int getIdUsuario() {
+            return idUsuario;
+        }
+
+        public int getIdTarea() {
+            return idTarea;
+        }
+
+        public synchronized Fase getFase() {
+            return fase;
+        }
+
+        // Pomodoros de trabajo terminados completos
+        public synchronized int getCompletados() {
+            return completados;
+        }
+
+        public synchronized boolean isEnPausa() {
+            return restantePausa != -1;
+        }
+
+        public synchronized boolean isDetenido() {
+            return detenido;
+        }
+
+        public synchronized long restanteMs() {
+            long restante = restantePausa != -1 ? restantePausa : finFase - System.nanoTime();
+            return Math.max(0, restante) / 1_000_000;
+        }
+
+        private void empezarFase(Fase nueva, long inicio) {
+            fase = nueva;
+            finFase = inicio + duracion(nueva);
+            if (nueva == Fase.TRABAJO) {
+                gestorRegistro.iniciarSesion(idUsuario, idTarea);
+            }
+            programar();
+        }
+
+        private void programar() {
+            int esperada = ++generacion;
+            transicion = programador().schedule(() -> terminarFase(esperada), Math.max(0, finFase - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+
+        private void terminarFase(int esperada) {
+            synchronized (this) {
+                if (esperada != generacion || detenido || restantePausa != -1) {
+                    return;
+                }
+                Fase siguiente = Fase.TRABAJO;
+                if (fase == Fase.TRABAJO) {
+                    completados++;
+                    gestorRegistro.detenerSesion(idUsuario, idTarea);
+                    siguiente = completados % POMODOROS_POR_DESCANSO_LARGO == 0 ? Fase.DESCANSO_LARGO : Fase.DESCANSO;
+                }
+                empezarFase(siguiente, finFase);
+            }
+            if (alCambiarFase != null) {
+                alCambiarFase.accept(this);
+            }
+        }
+
+        public synchronized void pausar() {
+            if (detenido || restantePausa != -1) {
+                return;
+            }
+            restantePausa = Math.max(0, finFase - System.nanoTime());
+            cancelarTransicion();
+            if (fase == Fase.TRABAJO) {
+                gestorRegistro.pausarSesion(idUsuario, idTarea);
+            }
+        }
+
+        public synchronized void reanudar() {
+            if (detenido || restantePausa == -1) {
+                return;
+            }
+            finFase = System.nanoTime() + restantePausa;
+            restantePausa = -1;
+            if (fase == Fase.TRABAJO) {
+                gestorRegistro.reanudarSesion(idUsuario, idTarea);
+            }
+            programar();
+        }
+
+        // Lo trabajado hasta acá en la fase en curso también queda registrado
+        public void detener() {
+            synchronized (this) {
+                if (detenido) {
+                    return;
+                }
+                detenido = true;
+                cancelarTransicion();
+                if (fase == Fase.TRABAJO) {
+                    gestorRegistro.detenerSesion(idUsuario, idTarea);
+                }
+            }
+            activos.remove(clave(idUsuario, idTarea), this);
+        }
+
+        private void cancelarTransicion() {
+            generacion++;
+            if (transicion != null) {
+                transicion.cancel(false);
+                transicion = null;
+            }
+        }
+    }
+
+    MotorPomodoro(GestorRegistro gestorRegistro) {
+        this(gestorRegistro, Integer.getInteger("pomodoro.trabajo", 25) * 60_000L, Integer.getInteger("pomodoro.descanso", 5) * 60_000L,
+                Integer.getInteger("pomodoro.descansoLargo", 15) * 60_000L);
+    }
+
+    MotorPomodoro(GestorRegistro gestorRegistro, long trabajoMs, long descansoMs, long descansoLargoMs) {
+        this.gestorRegistro = gestorRegistro;
+        this.trabajoNanos = TimeUnit.MILLISECONDS.toNanos(trabajoMs);
+        this.descansoNanos = TimeUnit.MILLISECONDS.toNanos(descansoMs);
+        this.descansoLargoNanos = TimeUnit.MILLISECONDS.toNanos(descansoLargoMs);
+    }
+
+    private long duracion(Fase fase) {
+        switch (fase) {
+            case TRABAJO:
+                return trabajoNanos;
+            case DESCANSO:
+                return descansoNanos;
+            default:
+                return descansoLargoNanos;
+        }
+    }
+
+    private synchronized ScheduledExecutorService programador() {
+        if (programador == null) {
+            programador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "motor-pomodoro");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        return programador;
+    }
+
+    private static long clave(int idUsuario, int idTarea) {
+        return ((long) idUsuario << 32) | (idTarea & 0xFFFFFFFFL);
+    }
+
+    // Empieza con una fase de trabajo; si la tarea ya tenía un pomodoro abierto devuelve ese
+    public Pomodoro iniciar(int idUsuario, int idTarea, Consumer<Pomodoro> alCambiarFase) {
+        Pomodoro nuevo = new Pomodoro(idUsuario, idTarea, alCambiarFase);
+        Pomodoro anterior = activos.putIfAbsent(clave(idUsuario, idTarea), nuevo);
+        if (anterior != null) {
+            return anterior;
+        }
+        synchronized (nuevo) {
+            nuevo.empezarFase(Fase.TRABAJO, System.nanoTime());
+        }
+        return nuevo;
+    }
+
+    // El pomodoro abierto de la tarea, o null
+    public Pomodoro obtener(int idUsuario, int idTarea) {
+        return activos.get(clave(idUsuario, idTarea));
+    }
+
+    public List<Pomodoro> delUsuario(int idUsuario) {
+        List<Pomodoro> pomodoros = new ArrayList<>();
+        for (Pomodoro pomodoro : activos.values()) {
+            if (pomodoro.idUsuario == idUsuario) {
+                pomodoros.add(pomodoro);
+            }
+        }
+        pomodoros.sort(Comparator.comparingInt(Pomodoro::getIdTarea));
+        return pomodoros;
+    }
+
+    public int getActivos() {
+        return activos.size();
+    }
+
+    // Detiene todos (lo trabajado queda registrado) y el hilo del motor
+    void cerrar() {
+        for (Pomodoro pomodoro : activos.values()) {
+            pomodoro.detener();
+        }
+        synchronized (this) {
+            if (programador != null) {
+                programador.shutdownNow();
+            }
+        }
+    }
+}
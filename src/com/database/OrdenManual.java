@@ -0,0 +1,156 @@
+package com.database;
+
+import com.implementation.Tarea;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// Orden manual de las tarjetas del Kanban. Cada tarea de primer nivel tiene una clave de
+// ClavesOrden: mover una tarjeta le da una clave entre las de sus vecinas y escribe solo esa fila.
+// Cuando una clave se hace larga (muchos movimientos en el mismo hueco) un hilo de fondo reparte de
+// nuevo las claves de todo el usuario, sin cambiar el orden, en una sola transacción. Ese hilo escribe
+// mientras el EDT y otros hilos usan el repositorio: tiene que ser seguro entre hilos, como los que
+// entrega GestorRegistro.crearRepositorio.
+class OrdenManual {
+    // Largo a partir del cual conviene rebalancear; con 62 dígitos sobra para miles de tarjetas
+    private static final int LARGO_MAXIMO = 12;
+
+    // Por clave (las que no tienen van al final) y después como el tablero: por fecha y por id
+    static final Comparator<Tarea> ORDEN = Comparator
+            .comparing(Tarea::getOrden, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparing((Tarea t) -> t.getFechaEntrega() == null ? "" : t.getFechaEntrega())
+            .thenComparingInt(Tarea::getIdTarea);
+
+    private final Supplier<TaskRepository> repositorio;
+    // Tareas de primer nivel del usuario con su clave, en cualquier orden
+    private final IntFunction<List<Tarea>> primerNivel;
+    // Se crea con el primer rebalanceo, así no suma un hilo al arranque
+    private ExecutorService rebalanceo;
+    private Future<?> pendiente;
+
+    OrdenManual(Supplier<TaskRepository> repositorio, IntFunction<List<Tarea>> primerNivel) {
+        this.repositorio = repositorio;
+        this.primerNivel = primerNivel;
+    }
+
+    // Ordena las tareas y les da clave a las que no tienen (las nuevas), después de la última; esas
+    // se guardan juntas en una transacción
+    synchronized List<Tarea> ordenar(List<Tarea> tareas) {
+        tareas.sort(ORDEN);
+        int sinClave = 0;
+        while (sinClave < tareas.size() && tareas.get(sinClave).getOrden() != null) {
+            sinClave++;
+        }
+        if (sinClave == tareas.size()) {
+            return tareas;
+        }
+        String ultima = sinClave == 0 ? null : tareas.get(sinClave - 1).getOrden();
+        String[] claves = ClavesOrden.entre(ultima, null, tareas.size() - sinClave);
+        Map<Integer, String> nuevas = new LinkedHashMap<>();
+        for (int i = sinClave; i < tareas.size(); i++) {
+            tareas.get(i).setOrden(claves[i - sinClave]);
+            nuevas.put(tareas.get(i).getIdTarea(), claves[i - sinClave]);
+        }
+        repositorio.get().actualizarOrden(nuevas);
+        return tareas;
+    }
+
+    // Pone la tarea entre idAnterior e idSiguiente (0 = sin vecina de ese lado). Las claves de las
+    // vecinas se leen de la base, no de la pantalla. Devuelve la clave nueva, o null si las vecinas
+    // ya no están donde la pantalla creía (hay que recargar).
+    synchronized String mover(int idTarea, int idAnterior, int idSiguiente) {
+        TaskRepository tareas = repositorio.get();
+        Tarea tarea = tareas.obtenerTareaPorId(idTarea);
+        if (tarea == null) {
+            return null;
+        }
+        String anterior = clave(tareas, idAnterior, tarea.getIdUsuario());
+        String siguiente = clave(tareas, idSiguiente, tarea.getIdUsuario());
+        if ((idAnterior != 0 && anterior == null) || (idSiguiente != 0 && siguiente == null)
+                || (anterior != null && siguiente != null && anterior.compareTo(siguiente) >= 0)) {
+            return null;
+        }
+        String nueva = ClavesOrden.entre(anterior, siguiente);
+        tareas.actualizarOrden(Map.of(idTarea, nueva));
+        if (nueva.length() > LARGO_MAXIMO) {
+            programarRebalanceo(tarea.getIdUsuario());
+        }
+        return nueva;
+    }
+
+    private static String clave(TaskRepository tareas, int idTarea, int idUsuario) {
+        if (idTarea == 0) {
+            return null;
+        }
+        Tarea vecina = tareas.obtenerTareaPorId(idTarea);
+        return vecina == null || vecina.getIdUsuario() != idUsuario ? null : vecina.getOrden();
+    }
+
+    private void programarRebalanceo(int idUsuario) {
+        if (rebalanceo == null) {
+            rebalanceo = Executors.newSingleThreadExecutor(r -> {
+                Thread hilo = new Thread(r, "rebalanceo-orden");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        pendiente = rebalanceo.submit(() -> {
+            try {
+                rebalancear(idUsuario);
+            } catch (RuntimeException e) {
+                System.err.println("Error al rebalancear el orden: " + e.getMessage());
+            }
+        });
+    }
+
+    // Quien va a leer claves para mostrarlas espera el rebalanceo en curso, así no mezcla claves
+    // viejas con nuevas
+    void esperarRebalanceo() {
+        Future<?> enCurso;
+        synchronized (this) {
+            enCurso = pendiente;
+        }
+        if (enCurso == null) {
+            return;
+        }
+        try {
+            enCurso.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error al rebalancear el orden: " + e.getMessage());
+        }
+    }
+
+    // Claves parejas y cortas para todas las tareas, en el mismo orden; solo se escriben las que
+    // cambian. Los movimientos esperan a que termine (mismo candado).
+    synchronized void rebalancear(int idUsuario) {
+        List<Tarea> tareas = primerNivel.apply(idUsuario);
+        tareas.sort(ORDEN);
+        String[] claves = ClavesOrden.repartir(tareas.size());
+        Map<Integer, String> cambios = new LinkedHashMap<>();
+        for (int i = 0; i < tareas.size(); i++) {
+            if (!claves[i].equals(tareas.get(i).getOrden())) {
+                cambios.put(tareas.get(i).getIdTarea(), claves[i]);
+            }
+        }
+        if (!cambios.isEmpty()) {
+            repositorio.get().actualizarOrden(cambios);
+        }
+    }
+
+    void cerrar() {
+        synchronized (this) {
+            if (rebalanceo != null) {
+                rebalanceo.shutdown();
+            }
+        }
+    }
+}
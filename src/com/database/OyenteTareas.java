@@ -0,0 +1,31 @@
+package com.database;
+
+import com.implementation.EstadoTarea;
+import com.implementation.Tarea;
+
+// Lo que GestorRegistro arma en memoria para un usuario (índices, recomendador, cola de repasos,
+// actividad) y mantiene con cada cambio de sus tareas. Cada uno se registra al armarse y recibe solo
+// los cambios de las tareas de su usuario; lo que no le interesa lo deja pasar.
+interface OyenteTareas {
+    // Si ya tiene la tarea; sirve para saber de qué usuario es sin leer el almacenamiento
+    default boolean conoce(int idTarea) {
+        return false;
+    }
+
+    // Tarea nueva o restaurada, con usuario, padre, nombre, resumen de la descripción, fecha y completada
+    default void alAgregar(Tarea tarea) {
+    }
+
+    // Tarea que ya se borró del almacenamiento, con todos sus campos como estaban antes
+    default void alEliminar(Tarea tarea) {
+    }
+
+    default void alCambiarCompletada(int idTarea, boolean completada) {
+    }
+
+    default void alCambiarFecha(int idTarea, String fechaEntrega) {
+    }
+
+    default void alCambiarEstado(int idTarea, EstadoTarea estado) {
+    }
+}
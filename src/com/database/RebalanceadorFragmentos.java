@@ -0,0 +1,30 @@
+package com.database;
+
+import java.io.File;
+
+// Herramienta de línea de comandos para redistribuir usuarios después de cambiar la cantidad de
+// fragmentos. Correr con la aplicación y el servidor detenidos: las tareas movidas cambian de id.
+// Uso: java com.database.RebalanceadorFragmentos fragmentos=8 [directorio=fragmentos]
+public class RebalanceadorFragmentos {
+    public static void main(String[] args) {
+        int fragmentos = Integer.getInteger("fragmentos", 4);
+        String directorio = System.getProperty("fragmentos.directorio", "fragmentos");
+        for (String arg : args) {
+            if (arg.startsWith("fragmentos=")) {
+                fragmentos = Integer.parseInt(arg.substring("fragmentos=".length()));
+            } else if (arg.startsWith("directorio=")) {
+                directorio = arg.substring("directorio=".length());
+            }
+        }
+
+        ShardedRepository repositorio = new ShardedRepository(new File(directorio), fragmentos, 2);
+        try {
+            long inicio = System.nanoTime();
+            int movidos = repositorio.rebalancear();
+            System.out.printf("%d usuarios movidos a %d fragmentos en %.1f ms%n",
+                    movidos, fragmentos, (System.nanoTime() - inicio) / 1e6);
+        } finally {
+            repositorio.cerrar();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.database;
+
+// Reconstruye desde cero los contadores de estadísticas de todos los usuarios, por si quedaron
+// desparejos con las tareas (una restauración parcial, una edición a mano de la base, etc.).
+// Uso: java -Dalmacenamiento=sqlite com.database.RecalculadorEstadisticas
+public class RecalculadorEstadisticas {
+    public static void main(String[] args) {
+        TaskRepository repositorio = GestorRegistro.crearRepositorio(System.getProperty("almacenamiento", "sqlite"));
+        try {
+            long inicio = System.nanoTime();
+            repositorio.recalcularEstadisticas();
+            System.out.printf("Estadísticas recalculadas en %.1f ms%n", (System.nanoTime() - inicio) / 1e6);
+        } finally {
+            repositorio.cerrar();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.database;
+
+import com.implementation.Tarea;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// "Qué estudiar ahora": puntaje de cada tarea pendiente de un usuario según la urgencia de la entrega,
+// el trabajo que le queda (subtareas pendientes), el avance de sus subtareas y lo que ya se estudió en
+// los últimos DIAS_ESTUDIO días. Se arma una vez y GestorRegistro le avisa cada alta, baja o cambio:
+// solo se vuelve a puntuar la tarea tocada (y su padre). Todo se repuntúa solo cuando cambia la hora,
+// porque la urgencia depende de ella. Las k mejores salen de una pasada con un montículo de tamaño k,
+// sin ordenar la lista, y quedan guardadas hasta el próximo cambio.
+final class RecomendadorTareas implements OyenteTareas {
+    static final int DIAS_ESTUDIO = 7;
+    private static final long HORA_MS = 3_600_000;
+    private static final double DIA_MS = 86_400_000;
+    // Con la entrega a tantos días la urgencia vale la mitad que una vencida
+    private static final double DIAS_MEDIA_URGENCIA = 3;
+    private static final double URGENCIA_SIN_FECHA = 0.2;
+    // Lo que lleva más trabajo conviene empezarlo antes; desde cierta cantidad ya no suma
+    private static final double ESFUERZO_POR_SUBTAREA = 0.15;
+    private static final int SUBTAREAS_MAXIMAS = 10;
+    // Con tantas horas estudiadas en la semana el puntaje vale la mitad
+    private static final double HORAS_MEDIA_ESTUDIO = 4;
+    private static final double PESO_AVANCE = 0.2;
+    private static final double EXCLUIDA = -1;
+
+    private static final class Entrada {
+        final int idTarea;
+        final int idTareaPadre;
+        long entrega;
+        boolean completada;
+        int subtareas;
+        int subtareasCompletadas;
+        long estudioMs;
+        double puntaje;
+
+        Entrada(int idTarea, int idTareaPadre, long entrega, boolean completada) {
+            this.idTarea = idTarea;
+            this.idTareaPadre = idTareaPadre;
+            this.entrega = entrega;
+            this.completada = completada;
+        }
+    }
+
+    private final Map<Integer, Entrada> entradas;
+    // Hora (ahora / HORA_MS) con la que están calculados los puntajes
+    private long hora;
+    // Hora en que se leyó el tiempo estudiado; se vuelve a leer al cambiar o si se cerró una sesión
+    private long horaEstudio;
+    private boolean estudioVencido = true;
+    // Última recomendación; cualquier cambio de puntaje la descarta
+    private int[] recomendadas;
+    private int kRecomendadas;
+
+    RecomendadorTareas(List<Tarea> tareas, long ahora) {
+        entradas = new HashMap<>(tareas.size() * 2);
+        hora = ahora / HORA_MS;
+        for (Tarea tarea : tareas) {
+            entradas.put(tarea.getIdTarea(), new Entrada(tarea.getIdTarea(), tarea.getIdTareaPadre(),
+                    IndiceEntregas.enMilisegundos(tarea.getFechaEntrega()), tarea.isCompletada()));
+        }
+        for (Entrada entrada : entradas.values()) {
+            Entrada padre = entradas.get(entrada.idTareaPadre);
+            if (padre != null) {
+                padre.subtareas++;
+                if (entrada.completada) {
+                    padre.subtareasCompletadas++;
+                }
+            }
+        }
+        for (Entrada entrada : entradas.values()) {
+            puntuar(entrada);
+        }
+    }
+
+    @Override
+    public synchronized boolean conoce(int idTarea) {
+        return entradas.containsKey(idTarea);
+    }
+
+    synchronized void agregar(int idTarea, int idTareaPadre, String fechaEntrega, boolean completada) {
+        Entrada entrada = new Entrada(idTarea, idTareaPadre, IndiceEntregas.enMilisegundos(fechaEntrega), completada);
+        if (entradas.putIfAbsent(idTarea, entrada) != null) {
+            return;
+        }
+        Entrada padre = entradas.get(idTareaPadre);
+        if (padre != null) {
+            padre.subtareas++;
+            if (completada) {
+                padre.subtareasCompletadas++;
+            }
+            puntuar(padre);
+        }
+        puntuar(entrada);
+    }
+
+    // Las subtareas se quitan una por una (GestorRegistro avisa cada tarea del subárbol)
+    synchronized void eliminar(int idTarea) {
+        Entrada entrada = entradas.remove(idTarea);
+        if (entrada == null) {
+            return;
+        }
+        Entrada padre = entradas.get(entrada.idTareaPadre);
+        if (padre != null) {
+            padre.subtareas--;
+            if (entrada.completada) {
+                padre.subtareasCompletadas--;
+            }
+            puntuar(padre);
+        }
+        recomendadas = null;
+    }
+
+    synchronized void cambiarFecha(int idTarea, String fechaEntrega) {
+        Entrada entrada = entradas.get(idTarea);
+        if (entrada != null) {
+            entrada.entrega = IndiceEntregas.enMilisegundos(fechaEntrega);
+            puntuar(entrada);
+        }
+    }
+
+    synchronized void cambiarCompletada(int idTarea, boolean completada) {
+        Entrada entrada = entradas.get(idTarea);
+        if (entrada == null || entrada.completada == completada) {
+            return;
+        }
+        entrada.completada = completada;
+        puntuar(entrada);
+        Entrada padre = entradas.get(entrada.idTareaPadre);
+        if (padre != null) {
+            padre.subtareasCompletadas += completada ? 1 : -1;
+            puntuar(padre);
+        }
+    }
+
+    @Override
+    public void alAgregar(Tarea tarea) {
+        agregar(tarea.getIdTarea(), tarea.getIdTareaPadre(), tarea.getFechaEntrega(), tarea.isCompletada());
+    }
+
+    @Override
+    public void alEliminar(Tarea tarea) {
+        eliminar(tarea.getIdTarea());
+    }
+
+    @Override
+    public void alCambiarCompletada(int idTarea, boolean completada) {
+        cambiarCompletada(idTarea, completada);
+    }
+
+    @Override
+    public void alCambiarFecha(int idTarea, String fechaEntrega) {
+        cambiarFecha(idTarea, fechaEntrega);
+    }
+
+    // Se cerró o pausó un tramo de estudio: la próxima recomendación vuelve a leer los tiempos
+    synchronized void vencerEstudio() {
+        estudioVencido = true;
+    }
+
+    // true (una sola vez) si hay que volver a leer el tiempo estudiado antes de recomendar
+    synchronized boolean tomarEstudioVencido(long ahora) {
+        if (!estudioVencido && ahora / HORA_MS == horaEstudio) {
+            return false;
+        }
+        estudioVencido = false;
+        horaEstudio = ahora / HORA_MS;
+        return true;
+    }
+
+    // idTarea -> milisegundos estudiados en la ventana; solo se repuntúan las que cambiaron
+    synchronized void cambiarEstudio(Map<Integer, Long> estudio) {
+        for (Entrada entrada : entradas.values()) {
+            long estudioMs = estudio.getOrDefault(entrada.idTarea, 0L);
+            if (estudioMs != entrada.estudioMs) {
+                entrada.estudioMs = estudioMs;
+                puntuar(entrada);
+            }
+        }
+    }
+
+    // Las k tareas pendientes de mayor puntaje, de la mejor a la peor (a igual puntaje, la de menor id)
+    synchronized int[] recomendar(int k, long ahora) {
+        if (ahora / HORA_MS != hora) {
+            hora = ahora / HORA_MS;
+            for (Entrada entrada : entradas.values()) {
+                puntuar(entrada);
+            }
+        }
+        if (k <= 0) {
+            return new int[0];
+        }
+        // Si la última dio menos de las pedidas ya tenía todas las pendientes
+        if (recomendadas != null && (k <= kRecomendadas || recomendadas.length < kRecomendadas)) {
+            return Arrays.copyOf(recomendadas, Math.min(k, recomendadas.length));
+        }
+        // Montículo de mínimos con las k mejores vistas hasta ahora: la raíz es la peor de ellas
+        Entrada[] monticulo = new Entrada[Math.min(k, entradas.size())];
+        int tamano = 0;
+        for (Entrada entrada : entradas.values()) {
+            if (entrada.puntaje == EXCLUIDA) {
+                continue;
+            }
+            if (tamano < monticulo.length) {
+                monticulo[tamano] = entrada;
+                subir(monticulo, tamano++);
+            } else if (tamano > 0 && peor(monticulo[0], entrada)) {
+                monticulo[0] = entrada;
+                bajar(monticulo, 0, tamano);
+            }
+        }
+        // Se vacía el montículo de atrás para adelante: la peor queda al final
+        int[] resultado = new int[tamano];
+        for (int i = tamano - 1; i >= 0; i--) {
+            resultado[i] = monticulo[0].idTarea;
+            monticulo[0] = monticulo[i];
+            bajar(monticulo, 0, i);
+        }
+        recomendadas = resultado;
+        kRecomendadas = k;
+        return resultado.clone();
+    }
+
+    // EXCLUIDA si está completada o no se conoce
+    synchronized double puntaje(int idTarea) {
+        Entrada entrada = entradas.get(idTarea);
+        return entrada == null ? EXCLUIDA : entrada.puntaje;
+    }
+
+    synchronized int getTamano() {
+        return entradas.size();
+    }
+
+    private void puntuar(Entrada entrada) {
+        recomendadas = null;
+        if (entrada.completada) {
+            entrada.puntaje = EXCLUIDA;
+            return;
+        }
+        double urgencia = URGENCIA_SIN_FECHA;
+        if (entrada.entrega != IndiceEntregas.SIN_FECHA) {
+            // Las vencidas quedan en 0 días: todas igual de urgentes
+            double dias = Math.max(0, (entrada.entrega - hora * HORA_MS) / DIA_MS);
+            urgencia = 1 / (1 + dias / DIAS_MEDIA_URGENCIA);
+        }
+        int pendientes = Math.min(SUBTAREAS_MAXIMAS, entrada.subtareas - entrada.subtareasCompletadas);
+        double esfuerzo = 1 + ESFUERZO_POR_SUBTAREA * pendientes;
+        double estudio = 1 / (1 + entrada.estudioMs / (HORA_MS * HORAS_MEDIA_ESTUDIO));
+        double avance = entrada.subtareas == 0 ? 0 : PESO_AVANCE * entrada.subtareasCompletadas / entrada.subtareas;
+        entrada.puntaje = urgencia * esfuerzo * estudio + avance;
+    }
+
+    // a va detrás de b en la recomendación
+    private static boolean peor(Entrada a, Entrada b) {
+        return a.puntaje < b.puntaje || (a.puntaje == b.puntaje && a.idTarea > b.idTarea);
+    }
+
+    private static void subir(Entrada[] monticulo, int i) {
+        while (i > 0) {
+            int padre = (i - 1) / 2;
+            if (!peor(monticulo[i], monticulo[padre])) {
+                return;
+            }
+            Entrada aux = monticulo[i];
+            monticulo[i] = monticulo[padre];
+            monticulo[padre] = aux;
+            i = padre;
+        }
+    }
+
+    private static void bajar(Entrada[] monticulo, int i, int tamano) {
+        while (true) {
+            int menor = i;
+            int izquierda = 2 * i + 1;
+            if (izquierda < tamano && peor(monticulo[izquierda], monticulo[menor])) {
+                menor = izquierda;
+            }
+            if (izquierda + 1 < tamano && peor(monticulo[izquierda + 1], monticulo[menor])) {
+                menor = izquierda + 1;
+            }
+            if (menor == i) {
+                return;
+            }
+            Entrada aux = monticulo[i];
+            monticulo[i] = monticulo[menor];
+            monticulo[menor] = aux;
+            i = menor;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.database;
+
+import com.estructuras.AnilloEventos;
+import com.implementation.SesionEnCurso;
+import com.implementation.TramoEstudio;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Cronómetros de estudio por tarea (iniciar, pausar, reanudar, detener) de todos los usuarios.
+// Registrar un evento no toma candados ni escribe en la base: se copia a un anillo preasignado y un
+// solo hilo de fondo lo aplica a los cronómetros y guarda los tramos cerrados de a lotes, en una
+// transacción. Un cronómetro es solo una entrada en un mapa con la hora en que arrancó el tramo en
+// curso, así que miles abiertos a la vez en el servidor no cuestan ningún hilo ni tarea programada.
+// El tamaño del anillo se elige con -Dsesiones.anillo=N (por defecto 16384 eventos).
+// El hilo de fondo escribe mientras el EDT y otros hilos usan el mismo repositorio: tiene que ser
+// seguro entre hilos, como los que entrega GestorRegistro.crearRepositorio.
+class RegistroSesiones {
+    static final byte INICIAR = 0;
+    static final byte PAUSAR = 1;
+    static final byte REANUDAR = 2;
+    static final byte DETENER = 3;
+    private static final long DEMORA_MS = 1000;
+
+    private final Supplier<SessionRepository> repositorio;
+    // Recibe cada lote ya guardado, con el candado del vaciado tomado
+    private final Consumer<List<TramoEstudio>> alGuardar;
+    private final AnilloEventos anillo = new AnilloEventos(Integer.getInteger("sesiones.anillo", 1 << 14));
+    private final ZoneId zona = ZoneId.systemDefault();
+    // Hay un vaciado programado; el primer evento después de cada vaciado programa el siguiente
+    private final AtomicBoolean programado = new AtomicBoolean();
+    // Todo lo de abajo lo toca solo quien vacía el anillo, con este candado
+    private final Object vaciado = new Object();
+    // idUsuario -> idTarea -> {inicio del tramo en marcha o -1 en pausa, acumulado, inicio de la sesión}
+    private final Map<Integer, Map<Integer, long[]>> cronometros = new HashMap<>();
+    private final List<TramoEstudio> cerrados = new ArrayList<>();
+    // Se crea con el primer evento, así no suma un hilo al arranque
+    private ScheduledExecutorService escritor;
+
+    RegistroSesiones(Supplier<SessionRepository> repositorio, Consumer<List<TramoEstudio>> alGuardar) {
+        this.repositorio = repositorio;
+        this.alGuardar = alGuardar;
+    }
+
+    void registrar(int idUsuario, int idTarea, byte tipo) {
+        registrar(idUsuario, idTarea, tipo, System.currentTimeMillis());
+    }
+
+    // Con la hora dada (el banco de pruebas simula sesiones de minutos sin esperarlas)
+    void registrar(int idUsuario, int idTarea, byte tipo, long instante) {
+        while (!anillo.ofrecer(idUsuario, idTarea, tipo, instante)) {
+            // Anillo lleno: quien registra ayuda a vaciarlo en vez de perder el evento
+            vaciar();
+        }
+        if (programado.compareAndSet(false, true)) {
+            programar();
+        }
+    }
+
+    private synchronized void programar() {
+        if (escritor == null) {
+            escritor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "escritor-sesiones");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        if (!escritor.isShutdown()) {
+            escritor.schedule(this::vaciar, DEMORA_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Aplica los eventos pendientes y guarda ya los tramos cerrados en el hilo que llama
+    void vaciar() {
+        synchronized (vaciado) {
+            programado.set(false);
+            anillo.drenar(this::aplicar);
+            guardarCerrados();
+        }
+    }
+
+    private void guardarCerrados() {
+        if (cerrados.isEmpty()) {
+            return;
+        }
+        List<TramoEstudio> lote = new ArrayList<>(cerrados);
+        cerrados.clear();
+        repositorio.get().agregarSesiones(lote);
+        alGuardar.accept(lote);
+    }
+
+    // Lee lo guardado con los tramos en espera ya escritos y sin que se cierre ninguno mientras tanto:
+    // quien arma algo a partir de lo guardado y después suma cada lote no pierde ni repite tramos
+    <T> T leerGuardado(Supplier<T> lectura) {
+        synchronized (vaciado) {
+            vaciar();
+            return lectura.get();
+        }
+    }
+
+    private void aplicar(int idUsuario, int idTarea, byte tipo, long instante) {
+        Map<Integer, long[]> delUsuario = cronometros.get(idUsuario);
+        long[] estado = delUsuario != null ? delUsuario.get(idTarea) : null;
+        switch (tipo) {
+            case INICIAR:
+            case REANUDAR:
+                if (estado == null) {
+                    cronometros.computeIfAbsent(idUsuario, k -> new HashMap<>()).put(idTarea, new long[]{instante, 0, instante});
+                } else if (estado[0] == -1) {
+                    estado[0] = instante;
+                }
+                break;
+            case PAUSAR:
+                if (estado != null && estado[0] != -1) {
+                    cerrarTramo(idUsuario, idTarea, estado, instante);
+                }
+                break;
+            default:
+                if (estado != null) {
+                    if (estado[0] != -1) {
+                        cerrarTramo(idUsuario, idTarea, estado, instante);
+                    }
+                    delUsuario.remove(idTarea);
+                    if (delUsuario.isEmpty()) {
+                        cronometros.remove(idUsuario);
+                    }
+                }
+        }
+    }
+
+    private void cerrarTramo(int idUsuario, int idTarea, long[] estado, long instante) {
+        // Dos hilos pueden tomar la hora en un orden y reservar en el otro: nunca un tramo negativo
+        long fin = Math.max(instante, estado[0]);
+        TramoEstudio.partir(idUsuario, idTarea, estado[0], fin, zona, cerrados);
+        estado[1] += fin - estado[0];
+        estado[0] = -1;
+    }
+
+    List<SesionEnCurso> enCurso(int idUsuario) {
+        synchronized (vaciado) {
+            vaciar();
+            List<SesionEnCurso> sesiones = new ArrayList<>();
+            for (Map.Entry<Integer, long[]> entrada : new TreeMap<>(cronometros.getOrDefault(idUsuario, Map.of())).entrySet()) {
+                long[] estado = entrada.getValue();
+                sesiones.add(new SesionEnCurso(entrada.getKey(), estado[2], estado[1], estado[0]));
+            }
+            return sesiones;
+        }
+    }
+
+    // Lo guardado más los tramos que siguen en marcha hasta ahora. Se lee con el candado tomado para
+    // que un tramo que se cierra justo en ese momento no se cuente dos veces.
+    Map<String, Long> tiempoPorDia(int idUsuario, String desde, String hasta) {
+        synchronized (vaciado) {
+            vaciar();
+            Map<String, Long> porDia = new TreeMap<>(repositorio.get().tiempoPorDia(idUsuario, desde, hasta));
+            for (TramoEstudio tramo : tramosEnMarcha(idUsuario, desde, hasta)) {
+                porDia.merge(tramo.getDia(), tramo.getDuracion(), Long::sum);
+            }
+            return porDia;
+        }
+    }
+
+    Map<Integer, Long> tiempoPorTarea(int idUsuario, String desde, String hasta) {
+        synchronized (vaciado) {
+            vaciar();
+            Map<Integer, Long> porTarea = new HashMap<>(repositorio.get().tiempoPorTarea(idUsuario, desde, hasta));
+            for (TramoEstudio tramo : tramosEnMarcha(idUsuario, desde, hasta)) {
+                porTarea.merge(tramo.getIdTarea(), tramo.getDuracion(), Long::sum);
+            }
+            return porTarea;
+        }
+    }
+
+    private List<TramoEstudio> tramosEnMarcha(int idUsuario, String desde, String hasta) {
+        List<TramoEstudio> tramos = new ArrayList<>();
+        long ahora = System.currentTimeMillis();
+        for (Map.Entry<Integer, long[]> entrada : cronometros.getOrDefault(idUsuario, Map.of()).entrySet()) {
+            long inicio = entrada.getValue()[0];
+            if (inicio != -1) {
+                TramoEstudio.partir(idUsuario, entrada.getKey(), inicio, Math.max(inicio, ahora), zona, tramos);
+            }
+        }
+        tramos.removeIf(tramo -> tramo.getDia().compareTo(desde) < 0 || tramo.getDia().compareTo(hasta) >= 0);
+        return tramos;
+    }
+
+    // Detiene todos los cronómetros en marcha en este momento y guarda lo que quede
+    void cerrar() {
+        synchronized (this) {
+            if (escritor != null) {
+                escritor.shutdown();
+            }
+        }
+        synchronized (vaciado) {
+            anillo.drenar(this::aplicar);
+            long ahora = System.currentTimeMillis();
+            for (Map.Entry<Integer, Map<Integer, long[]>> usuario : cronometros.entrySet()) {
+                for (Map.Entry<Integer, long[]> cronometro : usuario.getValue().entrySet()) {
+                    if (cronometro.getValue()[0] != -1) {
+                        cerrarTramo(usuario.getKey(), cronometro.getKey(), cronometro.getValue(), ahora);
+                    }
+                }
+            }
+            cronometros.clear();
+            guardarCerrados();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.database;
+
+import com.implementation.EstadisticasEstudio;
+import com.implementation.EstadoTarea;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.ProgresoSubtareas;
+import com.implementation.SerieTareas;
+import com.implementation.Tarea;
+import com.implementation.Tarjeta;
+import com.implementation.TramoEstudio;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Envoltorio que deja pasar una operación a la vez sobre un repositorio que no es seguro entre
+// hilos (JdbcRepository comparte una sola conexión). Usa ReentrantLock y no synchronized para
+// que los hilos virtuales del servidor no queden fijados a su hilo portador mientras esperan la base.
+public class RepositorioSerializado implements TaskRepository, UserRepository {
+    private final TaskRepository tareas;
+    private final UserRepository usuarios;
+    private final ReentrantLock candado = new ReentrantLock();
+
+    public RepositorioSerializado(TaskRepository tareas, UserRepository usuarios) {
+        this.tareas = tareas;
+        this.usuarios = usuarios;
+    }
+
+    private <T> T conCandado(Supplier<T> operacion) {
+        candado.lock();
+        try {
+            return operacion.get();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private void conCandado(Runnable operacion) {
+        candado.lock();
+        try {
+            operacion.run();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    @Override
+    public boolean registrarUsuario(String nombre, String correo, String contrasena) {
+        return conCandado(() -> usuarios.registrarUsuario(nombre, correo, contrasena));
+    }
+
+    @Override
+    public boolean existeCorreo(String correo) {
+        return conCandado(() -> usuarios.existeCorreo(correo));
+    }
+
+    @Override
+    public int validarCredenciales(String correo, String contrasena) {
+        return conCandado(() -> usuarios.validarCredenciales(correo, contrasena));
+    }
+
+    @Override
+    public String obtenerNombreUsuario(int idUsuario) {
+        return conCandado(() -> usuarios.obtenerNombreUsuario(idUsuario));
+    }
+
+    @Override
+    public int agregarTarea(int idUsuario, String nombre, String descripcion, String fechaEntrega) {
+        return conCandado(() -> tareas.agregarTarea(idUsuario, nombre, descripcion, fechaEntrega));
+    }
+
+    @Override
+    public int agregarSubtarea(int idTareaPadre, String nombre, String descripcion, String fechaEntrega) {
+        return conCandado(() -> tareas.agregarSubtarea(idTareaPadre, nombre, descripcion, fechaEntrega));
+    }
+
+    @Override
+    public void eliminarTarea(int idTarea) {
+        conCandado(() -> tareas.eliminarTarea(idTarea));
+    }
+
+    @Override
+    public Tarea obtenerTareaPorId(int idTarea) {
+        return conCandado(() -> tareas.obtenerTareaPorId(idTarea));
+    }
+
+    @Override
+    public String obtenerDescripcion(int idTarea) {
+        return conCandado(() -> tareas.obtenerDescripcion(idTarea));
+    }
+
+    @Override
+    public void actualizarFechaEntrega(int idTarea, String fechaEntrega) {
+        conCandado(() -> tareas.actualizarFechaEntrega(idTarea, fechaEntrega));
+    }
+
+    @Override
+    public void actualizarCompletada(int idTarea, boolean completada) {
+        conCandado(() -> tareas.actualizarCompletada(idTarea, completada));
+    }
+
+    @Override
+    public void actualizarCompletadas(Map<Integer, Boolean> cambios) {
+        conCandado(() -> tareas.actualizarCompletadas(cambios));
+    }
+
+    @Override
+    public void actualizarOrden(Map<Integer, String> claves) {
+        conCandado(() -> tareas.actualizarOrden(claves));
+    }
+
+    @Override
+    public void actualizarEstados(Map<Integer, EstadoTarea> cambios) {
+        conCandado(() -> tareas.actualizarEstados(cambios));
+    }
+
+    @Override
+    public List<Tarea> buscarTareasPorUsuario(int idUsuario, int offset, int limit, Set<CampoTarea> campos) {
+        return conCandado(() -> tareas.buscarTareasPorUsuario(idUsuario, offset, limit, campos));
+    }
+
+    @Override
+    public List<Tarea> buscarTareasDespuesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        return conCandado(() -> tareas.buscarTareasDespuesDe(idUsuario, fechaEntrega, idTarea, limit, campos));
+    }
+
+    @Override
+    public List<Tarea> buscarTareasAntesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        return conCandado(() -> tareas.buscarTareasAntesDe(idUsuario, fechaEntrega, idTarea, limit, campos));
+    }
+
+    @Override
+    public List<Tarea> buscarTareasEntreFechas(int idUsuario, String desde, String hasta, Set<CampoTarea> campos) {
+        return conCandado(() -> tareas.buscarTareasEntreFechas(idUsuario, desde, hasta, campos));
+    }
+
+    @Override
+    public List<Tarea> buscarSubtareas(int idTareaPadre, Set<CampoTarea> campos) {
+        return conCandado(() -> tareas.buscarSubtareas(idTareaPadre, campos));
+    }
+
+    @Override
+    public List<Tarea> obtenerSubarbol(int idTarea) {
+        return conCandado(() -> tareas.obtenerSubarbol(idTarea));
+    }
+
+    @Override
+    public Map<Integer, ProgresoSubtareas> obtenerProgreso(Collection<Integer> idsTareas) {
+        return conCandado(() -> tareas.obtenerProgreso(idsTareas));
+    }
+
+    @Override
+    public int[] restaurarSubarbol(List<Tarea> subarbol) {
+        return conCandado(() -> tareas.restaurarSubarbol(subarbol));
+    }
+
+    @Override
+    public int agregarSerie(SerieTareas serie) {
+        return conCandado(() -> tareas.agregarSerie(serie));
+    }
+
+    @Override
+    public SerieTareas obtenerSerie(int idSerie) {
+        return conCandado(() -> tareas.obtenerSerie(idSerie));
+    }
+
+    @Override
+    public void eliminarSerie(int idSerie) {
+        conCandado(() -> tareas.eliminarSerie(idSerie));
+    }
+
+    @Override
+    public List<SerieTareas> buscarSeriesEntreFechas(int idUsuario, String desde, String hasta) {
+        return conCandado(() -> tareas.buscarSeriesEntreFechas(idUsuario, desde, hasta));
+    }
+
+    @Override
+    public void guardarExcepcion(int idSerie, ExcepcionOcurrencia excepcion) {
+        conCandado(() -> tareas.guardarExcepcion(idSerie, excepcion));
+    }
+
+    @Override
+    public void agregarSesiones(List<TramoEstudio> tramos) {
+        conCandado(() -> tareas.agregarSesiones(tramos));
+    }
+
+    @Override
+    public Map<String, Long> tiempoPorDia(int idUsuario, String desde, String hasta) {
+        return conCandado(() -> tareas.tiempoPorDia(idUsuario, desde, hasta));
+    }
+
+    @Override
+    public Map<Integer, Long> tiempoPorTarea(int idUsuario, String desde, String hasta) {
+        return conCandado(() -> tareas.tiempoPorTarea(idUsuario, desde, hasta));
+    }
+
+    @Override
+    public Map<String, Integer> completadasPorDia(int idUsuario, String desde, String hasta) {
+        return conCandado(() -> tareas.completadasPorDia(idUsuario, desde, hasta));
+    }
+
+    @Override
+    public int agregarTarjeta(Tarjeta tarjeta) {
+        return conCandado(() -> tareas.agregarTarjeta(tarjeta));
+    }
+
+    @Override
+    public void actualizarRepaso(Tarjeta tarjeta) {
+        conCandado(() -> tareas.actualizarRepaso(tarjeta));
+    }
+
+    @Override
+    public void eliminarTarjeta(int idTarjeta) {
+        conCandado(() -> tareas.eliminarTarjeta(idTarjeta));
+    }
+
+    @Override
+    public List<Tarjeta> obtenerTarjetas(int idUsuario) {
+        return conCandado(() -> tareas.obtenerTarjetas(idUsuario));
+    }
+
+    @Override
+    public long obtenerVersionTablero(int idUsuario) {
+        return conCandado(() -> tareas.obtenerVersionTablero(idUsuario));
+    }
+
+    @Override
+    public EstadisticasEstudio obtenerEstadisticas(int idUsuario, LocalDate hoy) {
+        return conCandado(() -> tareas.obtenerEstadisticas(idUsuario, hoy));
+    }
+
+    @Override
+    public void recalcularEstadisticas() {
+        conCandado(() -> tareas.recalcularEstadisticas());
+    }
+
+    @Override
+    public void cerrar() {
+        conCandado(() -> {
+            tareas.cerrar();
+            if (usuarios != tareas) {
+                usuarios.cerrar();
+            }
+        });
+    }
+}
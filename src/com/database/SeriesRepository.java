@@ -0,0 +1,25 @@
+package com.database;
+
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.SerieTareas;
+import java.util.List;
+
+// Series de tareas que se repiten; las ocurrencias no se guardan, se calculan al pedirlas
+public interface SeriesRepository {
+    // Serie de tareas que se repiten: una sola fila con su regla, ninguna por ocurrencia. Guarda
+    // también las excepciones que traiga (al deshacer un borrado). idSerie generado, o -1.
+    int agregarSerie(SerieTareas serie);
+
+    // Con todas sus excepciones, o null si no existe
+    SerieTareas obtenerSerie(int idSerie);
+
+    // Elimina la serie con sus excepciones
+    void eliminarSerie(int idSerie);
+
+    // Series del usuario que pueden tener ocurrencias con desde <= fecha < hasta (por inicio y fin,
+    // sin expandir la regla), cada una solo con las excepciones que afectan a ese rango
+    List<SerieTareas> buscarSeriesEntreFechas(int idUsuario, String desde, String hasta);
+
+    // Agrega o reemplaza los cambios de una ocurrencia; una excepción vacía la quita
+    void guardarExcepcion(int idSerie, ExcepcionOcurrencia excepcion);
+}
@@ -0,0 +1,19 @@
+package com.database;
+
+import com.implementation.TramoEstudio;
+import java.util.List;
+import java.util.Map;
+
+// Tramos de estudio guardados y las sumas por día y por tarea
+public interface SessionRepository {
+    // Tramos de estudio ya cerrados (ver RegistroSesiones), todos en una sola transacción
+    void agregarSesiones(List<TramoEstudio> tramos);
+
+    // Milisegundos estudiados por día ("yyyy-MM-dd", en orden) con desde <= dia < hasta; los días
+    // sin estudio no aparecen
+    Map<String, Long> tiempoPorDia(int idUsuario, String desde, String hasta);
+
+    // Milisegundos estudiados por tarea con desde <= dia < hasta. El tiempo queda aunque la tarea
+    // se elimine después.
+    Map<Integer, Long> tiempoPorTarea(int idUsuario, String desde, String hasta);
+}
@@ -0,0 +1,907 @@
+package com.database;
+
+import com.implementation.EstadisticasEstudio;
+import com.implementation.EstadoTarea;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.ProgresoSubtareas;
+import com.implementation.SerieTareas;
+import com.implementation.Tarea;
+import com.implementation.Tarjeta;
+import com.implementation.TramoEstudio;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+// Almacenamiento SQLite repartido en varios archivos (fragmentos) para que los usuarios no compartan
+// el único candado de escritura de una base. Cada usuario vive entero en un fragmento elegido con
+// hash consistente; un directorio pequeño (directorio.db) guarda los usuarios y en qué fragmento está
+// cada uno, así el inicio de sesión por correo no tiene que buscar en todos.
+//
+// Los idTarea que ve el resto de la aplicación llevan el fragmento en los 8 bits bajos:
+// idTarea = (idLocal << 8) | fragmento. Se conserva el orden por idLocal dentro de cada usuario.
+// Los idSerie de las series y los idTarjeta de las tarjetas de repaso se arman igual.
+// Solo se mantienen abiertas las conexiones de los fragmentos usados más recientemente.
+public class ShardedRepository implements TaskRepository, UserRepository {
+    public static final int MAXIMO_FRAGMENTOS = 1 << 8;
+    private static final int BITS_FRAGMENTO = 8;
+
+    private static final class Fragmento {
+        final int numero;
+        final JdbcRepository repositorio;
+        final ReentrantLock candado = new ReentrantLock();
+        // Operaciones en curso; un fragmento desalojado del LRU se cierra cuando llega a 0
+        int enUso;
+        boolean desalojado;
+
+        Fragmento(int numero, JdbcRepository repositorio) {
+            this.numero = numero;
+            this.repositorio = repositorio;
+        }
+    }
+
+    private interface Operacion<T> {
+        T aplicar(JdbcRepository repositorio);
+    }
+
+    private final File directorio;
+    private final int fragmentos;
+    private final int maximoAbiertos;
+    private final AnilloConsistente anillo;
+    private final JdbcRepository directorioUsuarios;
+    private final ReentrantLock candadoDirectorio = new ReentrantLock();
+    private final Map<Integer, Integer> ubicaciones = new ConcurrentHashMap<>();
+    // En orden de acceso: el primero es el usado hace más tiempo
+    private final LinkedHashMap<Integer, Fragmento> abiertos = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ShardedRepository() {
+        this(new File(System.getProperty("fragmentos.directorio", "fragmentos")),
+                Integer.getInteger("fragmentos", 4), Integer.getInteger("fragmentos.abiertos", 8));
+    }
+
+    public ShardedRepository(File directorio, int fragmentos, int maximoAbiertos) {
+        if (fragmentos < 1 || fragmentos > MAXIMO_FRAGMENTOS) {
+            throw new IllegalArgumentException("La cantidad de fragmentos debe estar entre 1 y " + MAXIMO_FRAGMENTOS);
+        }
+        directorio.mkdirs();
+        this.directorio = directorio;
+        this.fragmentos = fragmentos;
+        this.maximoAbiertos = Math.max(1, maximoAbiertos);
+        this.anillo = new AnilloConsistente(fragmentos);
+        this.directorioUsuarios = new JdbcRepository(url(new File(directorio, "directorio.db")), JdbcDialect.SQLITE);
+        try (Statement stmt = directorioUsuarios.getConexion().createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS UbicacionUsuarios (idUsuario INTEGER PRIMARY KEY, fragmento INTEGER NOT NULL)");
+        } catch (SQLException e) {
+            System.err.println("Error al inicializar el directorio de fragmentos: " + e.getMessage());
+        }
+    }
+
+    private static String url(File archivo) {
+        // Varias conexiones pueden tocar el mismo archivo (p. ej. mientras se desaloja uno del LRU)
+        return "jdbc:sqlite:" + archivo.getPath() + "?busy_timeout=5000";
+    }
+
+    private File archivoFragmento(int numero) {
+        return new File(directorio, String.format("fragmento-%02d.db", numero));
+    }
+
+    // ---- Conexiones de los fragmentos ----
+
+    private <T> T enFragmento(int numero, Operacion<T> operacion) {
+        Fragmento fragmento = tomar(numero);
+        fragmento.candado.lock();
+        try {
+            return operacion.aplicar(fragmento.repositorio);
+        } finally {
+            fragmento.candado.unlock();
+            soltar(fragmento);
+        }
+    }
+
+    private Fragmento tomar(int numero) {
+        synchronized (abiertos) {
+            Fragmento fragmento = abiertos.get(numero);
+            if (fragmento == null) {
+                fragmento = new Fragmento(numero, new JdbcRepository(url(archivoFragmento(numero)), JdbcDialect.SQLITE));
+                abiertos.put(numero, fragmento);
+                desalojarSobrantes();
+            }
+            fragmento.enUso++;
+            return fragmento;
+        }
+    }
+
+    private void soltar(Fragmento fragmento) {
+        synchronized (abiertos) {
+            fragmento.enUso--;
+            if (fragmento.desalojado && fragmento.enUso == 0) {
+                fragmento.repositorio.cerrar();
+            }
+        }
+    }
+
+    private void desalojarSobrantes() {
+        Iterator<Fragmento> iterador = abiertos.values().iterator();
+        while (abiertos.size() > maximoAbiertos && iterador.hasNext()) {
+            Fragmento masViejo = iterador.next();
+            iterador.remove();
+            masViejo.desalojado = true;
+            if (masViejo.enUso == 0) {
+                masViejo.repositorio.cerrar();
+            }
+        }
+    }
+
+    // ---- Ubicación de cada usuario ----
+
+    private int fragmentoDe(int idUsuario) {
+        Integer fragmento = ubicaciones.get(idUsuario);
+        if (fragmento != null) {
+            return fragmento;
+        }
+        candadoDirectorio.lock();
+        try {
+            fragmento = leerUbicacion(idUsuario);
+            if (fragmento == null) {
+                fragmento = anillo.fragmentoPara(idUsuario);
+                guardarUbicacion(idUsuario, fragmento);
+            }
+            ubicaciones.put(idUsuario, fragmento);
+            return fragmento;
+        } finally {
+            candadoDirectorio.unlock();
+        }
+    }
+
+    private Integer leerUbicacion(int idUsuario) {
+        String query = "SELECT fragmento FROM UbicacionUsuarios WHERE idUsuario = ?";
+        try (PreparedStatement pstmt = directorioUsuarios.getConexion().prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al leer ubicación del usuario: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private void guardarUbicacion(int idUsuario, int fragmento) {
+        String query = "INSERT OR REPLACE INTO UbicacionUsuarios (idUsuario, fragmento) VALUES (?, ?)";
+        try (PreparedStatement pstmt = directorioUsuarios.getConexion().prepareStatement(query)) {
+            pstmt.setInt(1, idUsuario);
+            pstmt.setInt(2, fragmento);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error al guardar ubicación del usuario: " + e.getMessage());
+        }
+    }
+
+    // ---- Ids globales de tareas ----
+
+    private static int idGlobal(int idLocal, int fragmento) {
+        if (idLocal < 0) {
+            return -1;
+        }
+        if (idLocal >= 1 << (31 - BITS_FRAGMENTO)) {
+            System.err.println("Error al agregar tarea: el fragmento " + fragmento + " se quedó sin ids");
+            return -1;
+        }
+        return (idLocal << BITS_FRAGMENTO) | fragmento;
+    }
+
+    private static int fragmentoDeTarea(int idTarea) {
+        return idTarea & (MAXIMO_FRAGMENTOS - 1);
+    }
+
+    // Ids negativos o de fragmentos que no existen no pueden ser de ninguna tarea
+    private boolean esIdValido(int idTarea) {
+        return idTarea > 0 && fragmentoDeTarea(idTarea) < fragmentos;
+    }
+
+    private static int idLocal(int idTarea) {
+        return idTarea >>> BITS_FRAGMENTO;
+    }
+
+    // Una tarea y su padre siempre están en el mismo fragmento
+    private static Tarea aGlobal(Tarea tarea, int fragmento) {
+        tarea.setIdTarea(idGlobal(tarea.getIdTarea(), fragmento));
+        if (tarea.getIdTareaPadre() > 0) {
+            tarea.setIdTareaPadre(idGlobal(tarea.getIdTareaPadre(), fragmento));
+        }
+        return tarea;
+    }
+
+    private static List<Tarea> aGlobales(List<Tarea> tareas, int fragmento) {
+        for (Tarea tarea : tareas) {
+            aGlobal(tarea, fragmento);
+        }
+        return tareas;
+    }
+
+    // ---- UserRepository: todo va al directorio ----
+
+    @Override
+    public boolean registrarUsuario(String nombre, String correo, String contrasena) {
+        candadoDirectorio.lock();
+        try {
+            if (!directorioUsuarios.registrarUsuario(nombre, correo, contrasena)) {
+                return false;
+            }
+            int idUsuario = directorioUsuarios.validarCredenciales(correo, contrasena);
+            int fragmento = anillo.fragmentoPara(idUsuario);
+            guardarUbicacion(idUsuario, fragmento);
+            ubicaciones.put(idUsuario, fragmento);
+            return true;
+        } finally {
+            candadoDirectorio.unlock();
+        }
+    }
+
+    @Override
+    public boolean existeCorreo(String correo) {
+        candadoDirectorio.lock();
+        try {
+            return directorioUsuarios.existeCorreo(correo);
+        } finally {
+            candadoDirectorio.unlock();
+        }
+    }
+
+    @Override
+    public int validarCredenciales(String correo, String contrasena) {
+        candadoDirectorio.lock();
+        try {
+            return directorioUsuarios.validarCredenciales(correo, contrasena);
+        } finally {
+            candadoDirectorio.unlock();
+        }
+    }
+
+    @Override
+    public String obtenerNombreUsuario(int idUsuario) {
+        candadoDirectorio.lock();
+        try {
+            return directorioUsuarios.obtenerNombreUsuario(idUsuario);
+        } finally {
+            candadoDirectorio.unlock();
+        }
+    }
+
+    // ---- TaskRepository: cada operación va al fragmento del usuario o de la tarea ----
+
+    @Override
+    public int agregarTarea(int idUsuario, String nombre, String descripcion, String fechaEntrega) {
+        int fragmento = fragmentoDe(idUsuario);
+        int idLocal = enFragmento(fragmento, r -> r.agregarTarea(idUsuario, nombre, descripcion, fechaEntrega));
+        return idGlobal(idLocal, fragmento);
+    }
+
+    @Override
+    public int agregarSubtarea(int idTareaPadre, String nombre, String descripcion, String fechaEntrega) {
+        if (!esIdValido(idTareaPadre)) {
+            return -1;
+        }
+        int fragmento = fragmentoDeTarea(idTareaPadre);
+        int idLocal = enFragmento(fragmento, r -> r.agregarSubtarea(idLocal(idTareaPadre), nombre, descripcion, fechaEntrega));
+        return idGlobal(idLocal, fragmento);
+    }
+
+    @Override
+    public void eliminarTarea(int idTarea) {
+        if (!esIdValido(idTarea)) {
+            return;
+        }
+        enFragmento(fragmentoDeTarea(idTarea), r -> {
+            r.eliminarTarea(idLocal(idTarea));
+            return null;
+        });
+    }
+
+    @Override
+    public Tarea obtenerTareaPorId(int idTarea) {
+        if (!esIdValido(idTarea)) {
+            return null;
+        }
+        int fragmento = fragmentoDeTarea(idTarea);
+        Tarea tarea = enFragmento(fragmento, r -> r.obtenerTareaPorId(idLocal(idTarea)));
+        return tarea != null ? aGlobal(tarea, fragmento) : null;
+    }
+
+    @Override
+    public String obtenerDescripcion(int idTarea) {
+        if (!esIdValido(idTarea)) {
+            return null;
+        }
+        return enFragmento(fragmentoDeTarea(idTarea), r -> r.obtenerDescripcion(idLocal(idTarea)));
+    }
+
+    @Override
+    public void actualizarFechaEntrega(int idTarea, String fechaEntrega) {
+        if (!esIdValido(idTarea)) {
+            return;
+        }
+        enFragmento(fragmentoDeTarea(idTarea), r -> {
+            r.actualizarFechaEntrega(idLocal(idTarea), fechaEntrega);
+            return null;
+        });
+    }
+
+    @Override
+    public void actualizarCompletada(int idTarea, boolean completada) {
+        if (!esIdValido(idTarea)) {
+            return;
+        }
+        enFragmento(fragmentoDeTarea(idTarea), r -> {
+            r.actualizarCompletada(idLocal(idTarea), completada);
+            return null;
+        });
+    }
+
+    // Una transacción por fragmento involucrado
+    @Override
+    public void actualizarCompletadas(Map<Integer, Boolean> cambios) {
+        Map<Integer, Map<Integer, Boolean>> porFragmento = new HashMap<>();
+        for (Map.Entry<Integer, Boolean> cambio : cambios.entrySet()) {
+            if (esIdValido(cambio.getKey())) {
+                porFragmento.computeIfAbsent(fragmentoDeTarea(cambio.getKey()), k -> new LinkedHashMap<>())
+                        .put(idLocal(cambio.getKey()), cambio.getValue());
+            }
+        }
+        porFragmento.forEach((fragmento, locales) -> enFragmento(fragmento, r -> {
+            r.actualizarCompletadas(locales);
+            return null;
+        }));
+    }
+
+    // Una transacción por fragmento involucrado
+    @Override
+    public void actualizarOrden(Map<Integer, String> claves) {
+        Map<Integer, Map<Integer, String>> porFragmento = new HashMap<>();
+        for (Map.Entry<Integer, String> clave : claves.entrySet()) {
+            if (esIdValido(clave.getKey())) {
+                porFragmento.computeIfAbsent(fragmentoDeTarea(clave.getKey()), k -> new LinkedHashMap<>())
+                        .put(idLocal(clave.getKey()), clave.getValue());
+            }
+        }
+        porFragmento.forEach((fragmento, locales) -> enFragmento(fragmento, r -> {
+            r.actualizarOrden(locales);
+            return null;
+        }));
+    }
+
+    // Una transacción por fragmento involucrado
+    @Override
+    public void actualizarEstados(Map<Integer, EstadoTarea> cambios) {
+        Map<Integer, Map<Integer, EstadoTarea>> porFragmento = new HashMap<>();
+        for (Map.Entry<Integer, EstadoTarea> cambio : cambios.entrySet()) {
+            if (esIdValido(cambio.getKey())) {
+                porFragmento.computeIfAbsent(fragmentoDeTarea(cambio.getKey()), k -> new LinkedHashMap<>())
+                        .put(idLocal(cambio.getKey()), cambio.getValue());
+            }
+        }
+        porFragmento.forEach((fragmento, locales) -> enFragmento(fragmento, r -> {
+            r.actualizarEstados(locales);
+            return null;
+        }));
+    }
+
+    @Override
+    public List<Tarea> buscarTareasPorUsuario(int idUsuario, int offset, int limit, Set<CampoTarea> campos) {
+        int fragmento = fragmentoDe(idUsuario);
+        return aGlobales(enFragmento(fragmento, r -> r.buscarTareasPorUsuario(idUsuario, offset, limit, campos)), fragmento);
+    }
+
+    // El cursor puede ser cualquier entero (el tablero usa "primer id - 1"): idLocal*256 + f > c
+    // equivale a idLocal > floor((c - f) / 256), y < c a idLocal < ceil((c - f) / 256)
+    @Override
+    public List<Tarea> buscarTareasDespuesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        int fragmento = fragmentoDe(idUsuario);
+        int cursor = Math.floorDiv(idTarea - fragmento, MAXIMO_FRAGMENTOS);
+        return aGlobales(enFragmento(fragmento, r -> r.buscarTareasDespuesDe(idUsuario, fechaEntrega, cursor, limit, campos)), fragmento);
+    }
+
+    @Override
+    public List<Tarea> buscarTareasAntesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos) {
+        int fragmento = fragmentoDe(idUsuario);
+        int cursor = -Math.floorDiv(fragmento - idTarea, MAXIMO_FRAGMENTOS);
+        return aGlobales(enFragmento(fragmento, r -> r.buscarTareasAntesDe(idUsuario, fechaEntrega, cursor, limit, campos)), fragmento);
+    }
+
+    @Override
+    public List<Tarea> buscarTareasEntreFechas(int idUsuario, String desde, String hasta, Set<CampoTarea> campos) {
+        int fragmento = fragmentoDe(idUsuario);
+        return aGlobales(enFragmento(fragmento, r -> r.buscarTareasEntreFechas(idUsuario, desde, hasta, campos)), fragmento);
+    }
+
+    @Override
+    public List<Tarea> buscarSubtareas(int idTareaPadre, Set<CampoTarea> campos) {
+        if (!esIdValido(idTareaPadre)) {
+            return new ArrayList<>();
+        }
+        int fragmento = fragmentoDeTarea(idTareaPadre);
+        return aGlobales(enFragmento(fragmento, r -> r.buscarSubtareas(idLocal(idTareaPadre), campos)), fragmento);
+    }
+
+    @Override
+    public List<Tarea> obtenerSubarbol(int idTarea) {
+        if (!esIdValido(idTarea)) {
+            return new ArrayList<>();
+        }
+        int fragmento = fragmentoDeTarea(idTarea);
+        return aGlobales(enFragmento(fragmento, r -> r.obtenerSubarbol(idLocal(idTarea))), fragmento);
+    }
+
+    // Una consulta por fragmento involucrado
+    @Override
+    public Map<Integer, ProgresoSubtareas> obtenerProgreso(Collection<Integer> idsTareas) {
+        Map<Integer, List<Integer>> porFragmento = new HashMap<>();
+        for (int idTarea : idsTareas) {
+            if (esIdValido(idTarea)) {
+                porFragmento.computeIfAbsent(fragmentoDeTarea(idTarea), k -> new ArrayList<>()).add(idLocal(idTarea));
+            }
+        }
+        Map<Integer, ProgresoSubtareas> progreso = new HashMap<>();
+        porFragmento.forEach((fragmento, locales) -> enFragmento(fragmento, r -> r.obtenerProgreso(locales))
+                .forEach((idLocal, avance) -> progreso.put(idGlobal(idLocal, fragmento), avance)));
+        return progreso;
+    }
+
+    // Vuelve al fragmento actual del usuario. Si mientras tanto se lo movió de fragmento, el padre
+    // de la raíz ya no se puede ubicar y la raíz vuelve como tarea de primer nivel.
+    @Override
+    public int[] restaurarSubarbol(List<Tarea> subarbol) {
+        if (subarbol.isEmpty()) {
+            return new int[0];
+        }
+        int fragmento = fragmentoDe(subarbol.get(0).getIdUsuario());
+        List<Tarea> locales = new ArrayList<>(subarbol.size());
+        for (Tarea tarea : subarbol) {
+            Tarea local = tarea.copia();
+            local.setIdTarea(idLocal(tarea.getIdTarea()));
+            int padre = tarea.getIdTareaPadre();
+            local.setIdTareaPadre(padre > 0 && fragmentoDeTarea(padre) == fragmento ? idLocal(padre) : 0);
+            locales.add(local);
+        }
+        int[] nuevos = enFragmento(fragmento, r -> r.restaurarSubarbol(locales));
+        for (int i = 0; i < nuevos.length; i++) {
+            nuevos[i] = idGlobal(nuevos[i], fragmento);
+        }
+        return nuevos;
+    }
+
+    // ---- Series: viven en el fragmento de su usuario, con ids globales como los de las tareas ----
+
+    @Override
+    public int agregarSerie(SerieTareas serie) {
+        int fragmento = fragmentoDe(serie.getIdUsuario());
+        return idGlobal(enFragmento(fragmento, r -> r.agregarSerie(serie)), fragmento);
+    }
+
+    @Override
+    public SerieTareas obtenerSerie(int idSerie) {
+        if (!esIdValido(idSerie)) {
+            return null;
+        }
+        int fragmento = fragmentoDeTarea(idSerie);
+        SerieTareas serie = enFragmento(fragmento, r -> r.obtenerSerie(idLocal(idSerie)));
+        if (serie != null) {
+            serie.setIdSerie(idSerie);
+        }
+        return serie;
+    }
+
+    @Override
+    public void eliminarSerie(int idSerie) {
+        if (!esIdValido(idSerie)) {
+            return;
+        }
+        enFragmento(fragmentoDeTarea(idSerie), r -> {
+            r.eliminarSerie(idLocal(idSerie));
+            return null;
+        });
+    }
+
+    @Override
+    public List<SerieTareas> buscarSeriesEntreFechas(int idUsuario, String desde, String hasta) {
+        int fragmento = fragmentoDe(idUsuario);
+        List<SerieTareas> series = enFragmento(fragmento, r -> r.buscarSeriesEntreFechas(idUsuario, desde, hasta));
+        for (SerieTareas serie : series) {
+            serie.setIdSerie(idGlobal(serie.getIdSerie(), fragmento));
+        }
+        return series;
+    }
+
+    @Override
+    public void guardarExcepcion(int idSerie, ExcepcionOcurrencia excepcion) {
+        if (!esIdValido(idSerie)) {
+            return;
+        }
+        enFragmento(fragmentoDeTarea(idSerie), r -> {
+            r.guardarExcepcion(idLocal(idSerie), excepcion);
+            return null;
+        });
+    }
+
+    // Los tramos van al fragmento de su usuario (una transacción por fragmento), con el idTarea local
+    @Override
+    public void agregarSesiones(List<TramoEstudio> tramos) {
+        Map<Integer, List<TramoEstudio>> porFragmento = new HashMap<>();
+        for (TramoEstudio tramo : tramos) {
+            int idTarea = esIdValido(tramo.getIdTarea()) ? idLocal(tramo.getIdTarea()) : 0;
+            porFragmento.computeIfAbsent(fragmentoDe(tramo.getIdUsuario()), k -> new ArrayList<>())
+                    .add(new TramoEstudio(tramo.getIdUsuario(), idTarea, tramo.getDia(), tramo.getInicio(), tramo.getDuracion()));
+        }
+        porFragmento.forEach((fragmento, locales) -> enFragmento(fragmento, r -> {
+            r.agregarSesiones(locales);
+            return null;
+        }));
+    }
+
+    @Override
+    public Map<String, Long> tiempoPorDia(int idUsuario, String desde, String hasta) {
+        return enFragmento(fragmentoDe(idUsuario), r -> r.tiempoPorDia(idUsuario, desde, hasta));
+    }
+
+    @Override
+    public Map<Integer, Long> tiempoPorTarea(int idUsuario, String desde, String hasta) {
+        int fragmento = fragmentoDe(idUsuario);
+        Map<Integer, Long> porTarea = new HashMap<>();
+        enFragmento(fragmento, r -> r.tiempoPorTarea(idUsuario, desde, hasta))
+                .forEach((idTarea, duracion) -> porTarea.merge(idTarea > 0 ? idGlobal(idTarea, fragmento) : 0, duracion, Long::sum));
+        return porTarea;
+    }
+
+    @Override
+    public Map<String, Integer> completadasPorDia(int idUsuario, String desde, String hasta) {
+        return enFragmento(fragmentoDe(idUsuario), r -> r.completadasPorDia(idUsuario, desde, hasta));
+    }
+
+    // ---- Tarjetas de repaso: en el fragmento de su tarea, con ids globales ----
+
+    @Override
+    public int agregarTarjeta(Tarjeta tarjeta) {
+        if (!esIdValido(tarjeta.getIdTarea())) {
+            return -1;
+        }
+        int fragmento = fragmentoDeTarea(tarjeta.getIdTarea());
+        Tarjeta local = conIds(tarjeta, 0, idLocal(tarjeta.getIdTarea()));
+        return idGlobal(enFragmento(fragmento, r -> r.agregarTarjeta(local)), fragmento);
+    }
+
+    @Override
+    public void actualizarRepaso(Tarjeta tarjeta) {
+        if (!esIdValido(tarjeta.getIdTarjeta())) {
+            return;
+        }
+        Tarjeta local = conIds(tarjeta, idLocal(tarjeta.getIdTarjeta()), tarjeta.getIdTarea());
+        enFragmento(fragmentoDeTarea(tarjeta.getIdTarjeta()), r -> {
+            r.actualizarRepaso(local);
+            return null;
+        });
+    }
+
+    @Override
+    public void eliminarTarjeta(int idTarjeta) {
+        if (!esIdValido(idTarjeta)) {
+            return;
+        }
+        enFragmento(fragmentoDeTarea(idTarjeta), r -> {
+            r.eliminarTarjeta(idLocal(idTarjeta));
+            return null;
+        });
+    }
+
+    @Override
+    public List<Tarjeta> obtenerTarjetas(int idUsuario) {
+        int fragmento = fragmentoDe(idUsuario);
+        List<Tarjeta> tarjetas = enFragmento(fragmento, r -> r.obtenerTarjetas(idUsuario));
+        for (int i = 0; i < tarjetas.size(); i++) {
+            Tarjeta tarjeta = tarjetas.get(i);
+            tarjetas.set(i, conIds(tarjeta, idGlobal(tarjeta.getIdTarjeta(), fragmento), idGlobal(tarjeta.getIdTarea(), fragmento)));
+        }
+        return tarjetas;
+    }
+
+    private static Tarjeta conIds(Tarjeta tarjeta, int idTarjeta, int idTarea) {
+        Tarjeta copia = new Tarjeta(idTarjeta, tarjeta.getIdUsuario(), idTarea, tarjeta.getFrente(), tarjeta.getReverso());
+        copia.setRepaso(tarjeta.getRepeticiones(), tarjeta.getIntervalo(), tarjeta.getFacilidad(), tarjeta.getProximoRepaso());
+        return copia;
+    }
+
+    @Override
+    public long obtenerVersionTablero(int idUsuario) {
+        return enFragmento(fragmentoDe(idUsuario), r -> r.obtenerVersionTablero(idUsuario));
+    }
+
+    @Override
+    public EstadisticasEstudio obtenerEstadisticas(int idUsuario, LocalDate hoy) {
+        return enFragmento(fragmentoDe(idUsuario), r -> r.obtenerEstadisticas(idUsuario, hoy));
+    }
+
+    // Cada fragmento se recalcula en paralelo con su propia conexión
+    @Override
+    public void recalcularEstadisticas() {
+        IntStream.range(0, fragmentos).parallel().forEach(numero -> enFragmento(numero, r -> {
+            r.recalcularEstadisticas();
+            return null;
+        }));
+    }
+
+    // ---- Rebalanceo ----
+
+    // Mueve a su fragmento actual según el anillo a los usuarios que quedaron en otro (por ejemplo
+    // después de cambiar la cantidad de fragmentos). Cada usuario se copia con ATTACH en una sola
+    // transacción y recién después se actualiza el directorio, así que repetirlo tras una
+    // interrupción es seguro. Las tareas movidas reciben ids nuevos: correr con la aplicación cerrada.
+    public int rebalancear() {
+        List<int[]> usuarios = new ArrayList<>();
+        candadoDirectorio.lock();
+        try (Statement stmt = directorioUsuarios.getConexion().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT idUsuario, fragmento FROM UbicacionUsuarios")) {
+            while (rs.next()) {
+                usuarios.add(new int[]{rs.getInt(1), rs.getInt(2)});
+            }
+        } catch (SQLException e) {
+            System.err.println("Error al leer el directorio de fragmentos: " + e.getMessage());
+            return 0;
+        } finally {
+            candadoDirectorio.unlock();
+        }
+
+        int movidos = 0;
+        for (int[] usuario : usuarios) {
+            int idUsuario = usuario[0];
+            int origen = usuario[1];
+            int destino = anillo.fragmentoPara(idUsuario);
+            if (origen == destino) {
+                continue;
+            }
+            // Abrirlo una vez deja su esquema al día antes de copiar desde él
+            enFragmento(origen, r -> null);
+            boolean movido = enFragmento(destino, r -> moverUsuario(r.getConexion(), idUsuario, archivoFragmento(origen)));
+            if (movido) {
+                candadoDirectorio.lock();
+                try {
+                    guardarUbicacion(idUsuario, destino);
+                    ubicaciones.put(idUsuario, destino);
+                } finally {
+                    candadoDirectorio.unlock();
+                }
+                movidos++;
+            }
+        }
+        return movidos;
+    }
+
+    private static boolean moverUsuario(Connection destino, int idUsuario, File origen) {
+        try {
+            try (PreparedStatement pstmt = destino.prepareStatement("ATTACH DATABASE ? AS origen")) {
+                pstmt.setString(1, origen.getPath());
+                pstmt.execute();
+            }
+            try {
+                String columnas = columnasSinId(destino);
+                destino.setAutoCommit(false);
+                try (PreparedStatement copiar = destino.prepareStatement("INSERT INTO main.Tareas (" + columnas + ") SELECT "
+                        + columnas + " FROM origen.Tareas WHERE idUsuario = ? ORDER BY idTarea");
+                     PreparedStatement borrar = destino.prepareStatement("DELETE FROM origen.Tareas WHERE idUsuario = ?");
+                     PreparedStatement borrarVersion = destino.prepareStatement("DELETE FROM origen.VersionTablero WHERE idUsuario = ?");
+                     PreparedStatement copiarContadores = destino.prepareStatement("INSERT OR REPLACE INTO main.EstadisticasUsuario "
+                             + "SELECT * FROM origen.EstadisticasUsuario WHERE idUsuario = ?");
+                     PreparedStatement copiarDias = destino.prepareStatement("INSERT OR REPLACE INTO main.EstadisticasDia "
+                             + "SELECT * FROM origen.EstadisticasDia WHERE idUsuario = ?");
+                     PreparedStatement borrarContadores = destino.prepareStatement("DELETE FROM origen.EstadisticasUsuario WHERE idUsuario = ?");
+                     PreparedStatement borrarDias = destino.prepareStatement("DELETE FROM origen.EstadisticasDia WHERE idUsuario = ?");
+                     PreparedStatement version = destino.prepareStatement("INSERT OR REPLACE INTO main.VersionTablero (idUsuario, version) VALUES (?, ?)")) {
+                    copiar.setInt(1, idUsuario);
+                    copiar.executeUpdate();
+                    Map<Integer, Integer> idsNuevos = idsNuevos(destino, idUsuario);
+                    reasignarPadres(destino, idUsuario, idsNuevos);
+                    moverSeries(destino, idUsuario);
+                    moverSesiones(destino, idUsuario, idsNuevos);
+                    moverTarjetas(destino, idUsuario, idsNuevos);
+                    borrar.setInt(1, idUsuario);
+                    borrar.executeUpdate();
+                    borrarVersion.setInt(1, idUsuario);
+                    borrarVersion.executeUpdate();
+                    for (PreparedStatement pstmt : new PreparedStatement[]{copiarContadores, copiarDias, borrarContadores, borrarDias}) {
+                        pstmt.setInt(1, idUsuario);
+                        pstmt.executeUpdate();
+                    }
+                    // Los ids cambiaron: cualquier caché del tablero de este usuario queda vieja
+                    version.setInt(1, idUsuario);
+                    version.setLong(2, System.currentTimeMillis());
+                    version.executeUpdate();
+                    destino.commit();
+                } catch (SQLException e) {
+                    destino.rollback();
+                    throw e;
+                } finally {
+                    destino.setAutoCommit(true);
+                }
+            } finally {
+                try (Statement stmt = destino.createStatement()) {
+                    stmt.execute("DETACH DATABASE origen");
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error al mover usuario " + idUsuario + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // idTarea del origen -> idTarea copiado. Como se copiaron en orden de idTarea y los ids nuevos
+    // también crecen, la i-ésima del origen es la i-ésima copiada.
+    private static Map<Integer, Integer> idsNuevos(Connection destino, int idUsuario) throws SQLException {
+        List<Integer> viejos = idsDelUsuario(destino, "origen.Tareas", "idTarea", idUsuario);
+        List<Integer> nuevos = idsDelUsuario(destino, "main.Tareas", "idTarea", idUsuario);
+        Map<Integer, Integer> idsNuevos = new HashMap<>();
+        for (int i = 0; i < viejos.size(); i++) {
+            idsNuevos.put(viejos.get(i), nuevos.get(i));
+        }
+        return idsNuevos;
+    }
+
+    // Las filas copiadas siguen apuntando con idTareaPadre a los ids del origen
+    private static void reasignarPadres(Connection destino, int idUsuario, Map<Integer, Integer> idsNuevos) throws SQLException {
+        try (PreparedStatement leer = destino.prepareStatement("SELECT idTarea, idTareaPadre FROM main.Tareas WHERE idUsuario = ? AND idTareaPadre IS NOT NULL");
+             PreparedStatement cambiar = destino.prepareStatement("UPDATE main.Tareas SET idTareaPadre = ? WHERE idTarea = ?")) {
+            leer.setInt(1, idUsuario);
+            ResultSet rs = leer.executeQuery();
+            while (rs.next()) {
+                Integer padre = idsNuevos.get(rs.getInt(2));
+                if (padre == null) {
+                    cambiar.setNull(1, Types.INTEGER);
+                } else {
+                    cambiar.setInt(1, padre);
+                }
+                cambiar.setInt(2, rs.getInt(1));
+                cambiar.addBatch();
+            }
+            cambiar.executeBatch();
+        }
+    }
+
+    // Las series también reciben ids nuevos (en el mismo orden); sus excepciones se copian con el id nuevo
+    private static void moverSeries(Connection destino, int idUsuario) throws SQLException {
+        String columnas = "idUsuario, nombre, descripcion, inicio, regla, fin";
+        try (PreparedStatement copiar = destino.prepareStatement("INSERT INTO main.Series (" + columnas + ") SELECT " + columnas
+                + " FROM origen.Series WHERE idUsuario = ? ORDER BY idSerie")) {
+            copiar.setInt(1, idUsuario);
+            if (copiar.executeUpdate() == 0) {
+                return;
+            }
+        }
+        List<Integer> viejos = idsDelUsuario(destino, "origen.Series", "idSerie", idUsuario);
+        List<Integer> nuevos = idsDelUsuario(destino, "main.Series", "idSerie", idUsuario);
+        try (PreparedStatement excepciones = destino.prepareStatement("INSERT INTO main.ExcepcionesSerie "
+                + "(idSerie, ocurrencia, cancelada, fechaEntrega, completada) SELECT ?, ocurrencia, cancelada, fechaEntrega, completada "
+                + "FROM origen.ExcepcionesSerie WHERE idSerie = ?")) {
+            for (int i = 0; i < viejos.size(); i++) {
+                excepciones.setInt(1, nuevos.get(i));
+                excepciones.setInt(2, viejos.get(i));
+                excepciones.addBatch();
+            }
+            excepciones.executeBatch();
+        }
+        try (PreparedStatement borrarExcepciones = destino.prepareStatement("DELETE FROM origen.ExcepcionesSerie "
+                + "WHERE idSerie IN (SELECT idSerie FROM origen.Series WHERE idUsuario = ?)");
+             PreparedStatement borrarSeries = destino.prepareStatement("DELETE FROM origen.Series WHERE idUsuario = ?")) {
+            borrarExcepciones.setInt(1, idUsuario);
+            borrarExcepciones.executeUpdate();
+            borrarSeries.setInt(1, idUsuario);
+            borrarSeries.executeUpdate();
+        }
+    }
+
+    // El tiempo estudiado se copia con el idTarea nuevo; el de tareas ya eliminadas queda con idTarea
+    // 0 (sigue contando por día) para no confundirse con una tarea nueva que reciba ese id
+    private static void moverSesiones(Connection destino, int idUsuario, Map<Integer, Integer> idsNuevos) throws SQLException {
+        try (PreparedStatement leer = destino.prepareStatement("SELECT idTarea, dia, inicio, duracion FROM origen.Sesiones WHERE idUsuario = ?");
+             PreparedStatement copiar = destino.prepareStatement("INSERT INTO main.Sesiones (idUsuario, idTarea, dia, inicio, duracion) VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement borrar = destino.prepareStatement("DELETE FROM origen.Sesiones WHERE idUsuario = ?")) {
+            leer.setInt(1, idUsuario);
+            ResultSet rs = leer.executeQuery();
+            while (rs.next()) {
+                copiar.setInt(1, idUsuario);
+                copiar.setInt(2, idsNuevos.getOrDefault(rs.getInt(1), 0));
+                copiar.setString(3, rs.getString(2));
+                copiar.setLong(4, rs.getLong(3));
+                copiar.setLong(5, rs.getLong(4));
+                copiar.addBatch();
+            }
+            copiar.executeBatch();
+            borrar.setInt(1, idUsuario);
+            borrar.executeUpdate();
+        }
+    }
+
+    // Las tarjetas se copian con el idTarea nuevo y reciben ids nuevos (las de tareas eliminadas ya no existen)
+    private static void moverTarjetas(Connection destino, int idUsuario, Map<Integer, Integer> idsNuevos) throws SQLException {
+        try (PreparedStatement leer = destino.prepareStatement("SELECT idTarea, frente, reverso, repeticiones, intervalo, facilidad, proximoRepaso "
+                + "FROM origen.Tarjetas WHERE idUsuario = ? ORDER BY idTarjeta");
+             PreparedStatement copiar = destino.prepareStatement("INSERT INTO main.Tarjetas "
+                     + "(idUsuario, idTarea, frente, reverso, repeticiones, intervalo, facilidad, proximoRepaso) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement borrar = destino.prepareStatement("DELETE FROM origen.Tarjetas WHERE idUsuario = ?")) {
+            leer.setInt(1, idUsuario);
+            ResultSet rs = leer.executeQuery();
+            while (rs.next()) {
+                Integer idTarea = idsNuevos.get(rs.getInt(1));
+                if (idTarea == null) {
+                    continue;
+                }
+                copiar.setInt(1, idUsuario);
+                copiar.setInt(2, idTarea);
+                copiar.setString(3, rs.getString(2));
+                copiar.setString(4, rs.getString(3));
+                copiar.setInt(5, rs.getInt(4));
+                copiar.setInt(6, rs.getInt(5));
+                copiar.setDouble(7, rs.getDouble(6));
+                copiar.setString(8, rs.getString(7));
+                copiar.addBatch();
+            }
+            copiar.executeBatch();
+            borrar.setInt(1, idUsuario);
+            borrar.executeUpdate();
+        }
+    }
+
+    // Ids de tabla ("origen.Tareas", "main.Series"...) del usuario en orden
+    private static List<Integer> idsDelUsuario(Connection conn, String tabla, String columna, int idUsuario) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT " + columna + " FROM " + tabla + " WHERE idUsuario = ? ORDER BY " + columna)) {
+            pstmt.setInt(1, idUsuario);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    // Todas las columnas de Tareas menos idTarea, para que el rebalanceo no dependa del esquema exacto
+    private static String columnasSinId(Connection conn) throws SQLException {
+        StringBuilder columnas = new StringBuilder();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA main.table_info(Tareas)")) {
+            while (rs.next()) {
+                String nombre = rs.getString("name");
+                if (!"idTarea".equalsIgnoreCase(nombre)) {
+                    columnas.append(columnas.length() == 0 ? "" : ", ").append(nombre);
+                }
+            }
+        }
+        return columnas.toString();
+    }
+
+    @Override
+    public void cerrar() {
+        synchronized (abiertos) {
+            for (Fragmento fragmento : abiertos.values()) {
+                fragmento.desalojado = true;
+                if (fragmento.enUso == 0) {
+                    fragmento.repositorio.cerrar();
+                }
+            }
+            abiertos.clear();
+        }
+        directorioUsuarios.cerrar();
+    }
+}
@@ -0,0 +1,18 @@
+package com.database;
+
+import com.implementation.EstadisticasEstudio;
+import java.time.LocalDate;
+import java.util.Map;
+
+// Contadores de estudio y completadas por día, para las estadísticas y el mapa de actividad
+public interface StatsRepository {
+    // Tareas completadas por día ("yyyy-MM-dd" local de completadaEn, en orden) con desde <= dia < hasta.
+    // Solo cuentan las que siguen completadas; los días sin ninguna no aparecen.
+    Map<String, Integer> completadasPorDia(int idUsuario, String desde, String hasta);
+
+    // Lee los contadores que se mantienen en cada cambio, sin recorrer las tareas del usuario
+    EstadisticasEstudio obtenerEstadisticas(int idUsuario, LocalDate hoy);
+
+    // Vuelve a calcular todos los contadores desde las tareas (por si quedaron inconsistentes)
+    void recalcularEstadisticas();
+}
@@ -0,0 +1,78 @@
+package com.database;
+
+import com.implementation.EstadoTarea;
+import com.implementation.ProgresoSubtareas;
+import com.implementation.Tarea;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Acceso a las tareas, independiente del motor de almacenamiento.
+// Todas las listas van ordenadas por (fechaEntrega, idTarea), con fechaEntrega nula como "".
+// Las tareas pueden tener subtareas (idTareaPadre); la paginación por clave del tablero solo trae
+// las de primer nivel y las subtareas se piden aparte con buscarSubtareas.
+// Las series, las sesiones de estudio, las tarjetas de repaso y las estadísticas van en sus propias
+// interfaces; quien usa solo una de esas partes (RegistroSesiones, por ejemplo) pide solo esa.
+public interface TaskRepository extends SeriesRepository, SessionRepository, CardRepository, StatsRepository {
+    // idTarea generado, o -1 si no se pudo guardar
+    int agregarTarea(int idUsuario, String nombre, String descripcion, String fechaEntrega);
+
+    // Subtarea de otra tarea (del mismo usuario): idTarea generado, o -1 si el padre no existe
+    int agregarSubtarea(int idTareaPadre, String nombre, String descripcion, String fechaEntrega);
+
+    // Elimina también todas sus subtareas, en una sola transacción
+    void eliminarTarea(int idTarea);
+
+    // Tarea completa, o null si no existe
+    Tarea obtenerTareaPorId(int idTarea);
+
+    String obtenerDescripcion(int idTarea);
+
+    void actualizarFechaEntrega(int idTarea, String fechaEntrega);
+
+    // Al completarla se guarda la hora para calcular el tiempo de entrega
+    void actualizarCompletada(int idTarea, boolean completada);
+
+    // Varias tareas (idTarea -> completada) en una sola transacción
+    void actualizarCompletadas(Map<Integer, Boolean> cambios);
+
+    // Mueve tareas entre columnas del Kanban (idTarea -> estado) en una sola transacción; pasar a
+    // COMPLETADA o salir de ella cambia también completada, igual que actualizarCompletadas
+    void actualizarEstados(Map<Integer, EstadoTarea> cambios);
+
+    // Claves del orden manual (idTarea -> clave) en una sola transacción. No cambia la versión del
+    // tablero: el tablero no muestra este orden.
+    void actualizarOrden(Map<Integer, String> claves);
+
+    // Paginación por desplazamiento (limit -1 = sin límite), incluye las subtareas
+    List<Tarea> buscarTareasPorUsuario(int idUsuario, int offset, int limit, Set<CampoTarea> campos);
+
+    // Paginación por clave: tareas de primer nivel estrictamente después de (fechaEntrega, idTarea)
+    List<Tarea> buscarTareasDespuesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos);
+
+    // Tareas de primer nivel estrictamente antes de (fechaEntrega, idTarea), devueltas en orden ascendente
+    List<Tarea> buscarTareasAntesDe(int idUsuario, String fechaEntrega, int idTarea, int limit, Set<CampoTarea> campos);
+
+    // Tareas con desde <= fechaEntrega < hasta, incluye las subtareas
+    List<Tarea> buscarTareasEntreFechas(int idUsuario, String desde, String hasta, Set<CampoTarea> campos);
+
+    // Hijas directas de una tarea
+    List<Tarea> buscarSubtareas(int idTareaPadre, Set<CampoTarea> campos);
+
+    // La tarea y todas sus descendientes con todos los campos, cada nivel antes que el siguiente
+    // (vacía si no existe). Alcanza para volver a crearlas con restaurarSubarbol.
+    List<Tarea> obtenerSubarbol(int idTarea);
+
+    // Avance de las subtareas de varias tareas en una sola consulta; las que no tienen subtareas no aparecen
+    Map<Integer, ProgresoSubtareas> obtenerProgreso(Collection<Integer> idsTareas);
+
+    // Vuelve a crear un subárbol leído con obtenerSubarbol (al deshacer un borrado) en una sola
+    // transacción. Devuelve los idTarea nuevos en el mismo orden, o un arreglo vacío si no se pudo.
+    int[] restaurarSubarbol(List<Tarea> subarbol);
+
+    // Sello que cambia con cada alta, baja o edición de las tareas del usuario (0 si nunca cambió)
+    long obtenerVersionTablero(int idUsuario);
+
+    void cerrar();
+}
@@ -0,0 +1,17 @@
+package com.database;
+
+// Acceso a los usuarios, independiente del motor de almacenamiento
+public interface UserRepository {
+    // false si el correo ya existe o hubo un error
+    boolean registrarUsuario(String nombre, String correo, String contrasena);
+
+    boolean existeCorreo(String correo);
+
+    // idUsuario, o -1 si las credenciales no son válidas
+    int validarCredenciales(String correo, String contrasena);
+
+    // null si el usuario no existe
+    String obtenerNombreUsuario(int idUsuario);
+
+    void cerrar();
+}
@@ -0,0 +1,117 @@
+-- Esquema equivalente a schema.sql para el motor H2.
+-- Igual que en SQLite (foreign_keys apagado por defecto), no se fuerza la clave foránea.
+
+-- Tabla de usuarios
+CREATE TABLE IF NOT EXISTS Usuarios (
+    idUsuario INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre VARCHAR NOT NULL,
+    correo VARCHAR NOT NULL,
+    contrasena VARCHAR NOT NULL
+);
+
+-- Tabla de tareas
+CREATE TABLE IF NOT EXISTS Tareas (
+    idTarea INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idUsuario INTEGER NOT NULL,
+    nombre VARCHAR NOT NULL,
+    descripcion VARCHAR,
+    completada BOOLEAN DEFAULT FALSE,
+    fechaEntrega VARCHAR
+);
+
+-- Índice para la paginación del tablero por (fechaEntrega, idTarea)
+CREATE INDEX IF NOT EXISTS idxTareasUsuarioFecha ON Tareas (idUsuario, fechaEntrega, idTarea);
+
+-- Versión del tablero de cada usuario, para saber si la caché local quedó desactualizada
+CREATE TABLE IF NOT EXISTS VersionTablero (
+    idUsuario INTEGER PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+-- Contadores de estadísticas por usuario, actualizados en la misma transacción que cada cambio
+CREATE TABLE IF NOT EXISTS EstadisticasUsuario (
+    idUsuario INTEGER PRIMARY KEY,
+    total INTEGER NOT NULL,
+    completadas INTEGER NOT NULL,
+    sumaEntregaMs BIGINT NOT NULL,
+    entregadas INTEGER NOT NULL
+);
+
+-- Tareas pendientes por día de entrega ("yyyy-MM-dd"), para las cuentas de la semana y de vencidas
+CREATE TABLE IF NOT EXISTS EstadisticasDia (
+    idUsuario INTEGER NOT NULL,
+    dia VARCHAR NOT NULL,
+    pendientes INTEGER NOT NULL,
+    PRIMARY KEY (idUsuario, dia)
+);
+
+-- Momento de creación y de finalización (milisegundos desde 1970), para el tiempo de entrega
+ALTER TABLE Tareas ADD COLUMN IF NOT EXISTS creadaEn BIGINT;
+ALTER TABLE Tareas ADD COLUMN IF NOT EXISTS completadaEn BIGINT;
+
+-- Tarea de la que es subtarea (NULL en las de primer nivel). El índice sirve para las hijas de una
+-- tarea en orden de entrega, para recorrer subárboles con WITH RECURSIVE y para la paginación de
+-- las de primer nivel (idTareaPadre IS NULL)
+ALTER TABLE Tareas ADD COLUMN IF NOT EXISTS idTareaPadre INTEGER;
+CREATE INDEX IF NOT EXISTS idxTareasPadre ON Tareas (idTareaPadre, idUsuario, fechaEntrega, idTarea);
+
+-- Series de tareas que se repiten: una fila por serie con su regla (subconjunto de RRULE) y las
+-- ocurrencias se generan al consultar. fin es la última fecha posible de una ocurrencia (NULL si
+-- la serie no termina), así la búsqueda por rango descarta series sin expandir la regla
+CREATE TABLE IF NOT EXISTS Series (
+    idSerie INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idUsuario INTEGER NOT NULL,
+    nombre VARCHAR NOT NULL,
+    descripcion VARCHAR,
+    inicio VARCHAR NOT NULL,
+    regla VARCHAR NOT NULL,
+    fin VARCHAR
+);
+CREATE INDEX IF NOT EXISTS idxSeriesUsuario ON Series (idUsuario, inicio);
+
+-- Cambios de una sola ocurrencia, identificada por su fecha original
+CREATE TABLE IF NOT EXISTS ExcepcionesSerie (
+    idSerie INTEGER NOT NULL,
+    ocurrencia VARCHAR NOT NULL,
+    cancelada BOOLEAN DEFAULT FALSE,
+    fechaEntrega VARCHAR,
+    completada BOOLEAN DEFAULT FALSE,
+    PRIMARY KEY (idSerie, ocurrencia)
+);
+
+-- Tramos de estudio con el cronómetro en marcha (inicio y duracion en milisegundos), partidos a
+-- medianoche para que el tiempo por día sea una suma sobre dia. El índice cubre las dos sumas
+-- (por día y por tarea) de un usuario en un rango de días sin leer la tabla
+CREATE TABLE IF NOT EXISTS Sesiones (
+    idUsuario INTEGER NOT NULL,
+    idTarea INTEGER NOT NULL,
+    dia VARCHAR NOT NULL,
+    inicio BIGINT NOT NULL,
+    duracion BIGINT NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idxSesionesUsuarioDia ON Sesiones (idUsuario, dia, idTarea, duracion);
+
+-- Tarjetas de repaso de una tarea con su estado SM-2 (facilidad, intervalo en días, próximo repaso
+-- "yyyy-MM-dd"). La cola de repasos del día se arma en memoria (ver ColaRepasos), así que la tabla
+-- solo se lee entera una vez por usuario. idxTarjetasTarea sirve para borrarlas con la tarea
+CREATE TABLE IF NOT EXISTS Tarjetas (
+    idTarjeta INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    idUsuario INTEGER NOT NULL,
+    idTarea INTEGER NOT NULL,
+    frente VARCHAR NOT NULL,
+    reverso VARCHAR,
+    repeticiones INTEGER NOT NULL DEFAULT 0,
+    intervalo INTEGER NOT NULL DEFAULT 0,
+    facilidad DOUBLE NOT NULL DEFAULT 2.5,
+    proximoRepaso VARCHAR NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idxTarjetasUsuario ON Tarjetas (idUsuario, idTarjeta);
+CREATE INDEX IF NOT EXISTS idxTarjetasTarea ON Tarjetas (idTarea);
+
+-- Columna del Kanban: 0 pendiente, 1 en progreso, 2 completada (ver EstadoTarea). completada sigue
+-- siendo la que vale para las estadísticas, estado solo separa las pendientes de las que están en curso
+ALTER TABLE Tareas ADD COLUMN IF NOT EXISTS estado INTEGER DEFAULT 0;
+
+-- Orden manual del Kanban: claves fraccionarias que se comparan como texto (ver ClavesOrden). Mover
+-- una tarjeta escribe solo su fila, NULL hasta que la tarea aparece por primera vez en el Kanban
+ALTER TABLE Tareas ADD COLUMN IF NOT EXISTS orden VARCHAR;
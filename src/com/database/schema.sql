@@ -1,3 +1,6 @@
+-- Al modificar este archivo hay que subir JdbcRepository.VERSION_ESQUEMA.
+-- Las columnas nuevas se agregan con ALTER TABLE al final y, si ya existen, el error se ignora.
+
 -- Tabla de usuarios
 CREATE TABLE IF NOT EXISTS Usuarios (
     idUsuario INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -17,4 +20,103 @@ CREATE TABLE IF NOT EXISTS Tareas (
     FOREIGN KEY (idUsuario) REFERENCES Usuarios(idUsuario)
 );
 
+-- Índice para la paginación del tablero por (fechaEntrega, idTarea)
+CREATE INDEX IF NOT EXISTS idxTareasUsuarioFecha ON Tareas (idUsuario, IFNULL(fechaEntrega, ''), idTarea);
+
+-- Versión del tablero de cada usuario, para saber si la caché local quedó desactualizada
+CREATE TABLE IF NOT EXISTS VersionTablero (
+    idUsuario INTEGER PRIMARY KEY,
+    version INTEGER NOT NULL
+);
+
+-- Contadores de estadísticas por usuario, actualizados en la misma transacción que cada cambio
+CREATE TABLE IF NOT EXISTS EstadisticasUsuario (
+    idUsuario INTEGER PRIMARY KEY,
+    total INTEGER NOT NULL,
+    completadas INTEGER NOT NULL,
+    sumaEntregaMs INTEGER NOT NULL,
+    entregadas INTEGER NOT NULL
+);
+
+-- Tareas pendientes por día de entrega ("yyyy-MM-dd"), para las cuentas de la semana y de vencidas
+CREATE TABLE IF NOT EXISTS EstadisticasDia (
+    idUsuario INTEGER NOT NULL,
+    dia TEXT NOT NULL,
+    pendientes INTEGER NOT NULL,
+    PRIMARY KEY (idUsuario, dia)
+);
+
+-- Momento de creación y de finalización (milisegundos desde 1970), para el tiempo de entrega
+ALTER TABLE Tareas ADD COLUMN creadaEn INTEGER;
+ALTER TABLE Tareas ADD COLUMN completadaEn INTEGER;
+
+-- Tarea de la que es subtarea (NULL en las de primer nivel). El índice sirve para las hijas de una
+-- tarea en orden de entrega, para recorrer subárboles con WITH RECURSIVE y para la paginación de
+-- las de primer nivel (idTareaPadre IS NULL)
+ALTER TABLE Tareas ADD COLUMN idTareaPadre INTEGER;
+CREATE INDEX IF NOT EXISTS idxTareasPadre ON Tareas (idTareaPadre, idUsuario, IFNULL(fechaEntrega, ''), idTarea);
+
+-- Series de tareas que se repiten: una fila por serie con su regla (subconjunto de RRULE) y las
+-- ocurrencias se generan al consultar. fin es la última fecha posible de una ocurrencia (NULL si
+-- la serie no termina), así la búsqueda por rango descarta series sin expandir la regla
+CREATE TABLE IF NOT EXISTS Series (
+    idSerie INTEGER PRIMARY KEY AUTOINCREMENT,
+    idUsuario INTEGER NOT NULL,
+    nombre TEXT NOT NULL,
+    descripcion TEXT,
+    inicio TEXT NOT NULL,
+    regla TEXT NOT NULL,
+    fin TEXT,
+    FOREIGN KEY (idUsuario) REFERENCES Usuarios(idUsuario)
+);
+CREATE INDEX IF NOT EXISTS idxSeriesUsuario ON Series (idUsuario, inicio);
+
+-- Cambios de una sola ocurrencia, identificada por su fecha original
+CREATE TABLE IF NOT EXISTS ExcepcionesSerie (
+    idSerie INTEGER NOT NULL,
+    ocurrencia TEXT NOT NULL,
+    cancelada BOOLEAN DEFAULT 0,
+    fechaEntrega TEXT,
+    completada BOOLEAN DEFAULT 0,
+    PRIMARY KEY (idSerie, ocurrencia)
+);
+
+-- Tramos de estudio con el cronómetro en marcha (inicio y duracion en milisegundos), partidos a
+-- medianoche para que el tiempo por día sea una suma sobre dia. El índice cubre las dos sumas
+-- (por día y por tarea) de un usuario en un rango de días sin leer la tabla
+CREATE TABLE IF NOT EXISTS Sesiones (
+    idUsuario INTEGER NOT NULL,
+    idTarea INTEGER NOT NULL,
+    dia TEXT NOT NULL,
+    inicio INTEGER NOT NULL,
+    duracion INTEGER NOT NULL,
+    FOREIGN KEY (idUsuario) REFERENCES Usuarios(idUsuario)
+);
+CREATE INDEX IF NOT EXISTS idxSesionesUsuarioDia ON Sesiones (idUsuario, dia, idTarea, duracion);
+
+-- Tarjetas de repaso de una tarea con su estado SM-2 (facilidad, intervalo en días, próximo repaso
+-- "yyyy-MM-dd"). La cola de repasos del día se arma en memoria (ver ColaRepasos), así que la tabla
+-- solo se lee entera una vez por usuario. idxTarjetasTarea sirve para borrarlas con la tarea
+CREATE TABLE IF NOT EXISTS Tarjetas (
+    idTarjeta INTEGER PRIMARY KEY AUTOINCREMENT,
+    idUsuario INTEGER NOT NULL,
+    idTarea INTEGER NOT NULL,
+    frente TEXT NOT NULL,
+    reverso TEXT,
+    repeticiones INTEGER NOT NULL DEFAULT 0,
+    intervalo INTEGER NOT NULL DEFAULT 0,
+    facilidad REAL NOT NULL DEFAULT 2.5,
+    proximoRepaso TEXT NOT NULL,
+    FOREIGN KEY (idUsuario) REFERENCES Usuarios(idUsuario),
+    FOREIGN KEY (idTarea) REFERENCES Tareas(idTarea)
+);
+CREATE INDEX IF NOT EXISTS idxTarjetasUsuario ON Tarjetas (idUsuario, idTarjeta);
+CREATE INDEX IF NOT EXISTS idxTarjetasTarea ON Tarjetas (idTarea);
+
+-- Columna del Kanban: 0 pendiente, 1 en progreso, 2 completada (ver EstadoTarea). completada sigue
+-- siendo la que vale para las estadísticas, estado solo separa las pendientes de las que están en curso
+ALTER TABLE Tareas ADD COLUMN estado INTEGER DEFAULT 0;
 
+-- Orden manual del Kanban: claves fraccionarias que se comparan como texto (ver ClavesOrden). Mover
+-- una tarjeta escribe solo su fila, NULL hasta que la tarea aparece por primera vez en el Kanban
+ALTER TABLE Tareas ADD COLUMN orden TEXT;
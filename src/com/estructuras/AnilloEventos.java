@@ -0,0 +1,86 @@
+package com.estructuras;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Cola de eventos de tamaño fijo para muchos productores y un solo consumidor. Los casilleros se
+// reservan al crearla como arreglos paralelos (sin un objeto por evento), así que agregar uno no
+// reserva memoria ni toma candados: cada productor se queda con un número de secuencia con un CAS,
+// copia los datos a su casillero y lo marca como publicado. El consumidor lee en orden de secuencia
+// hasta el primero que todavía no se publicó.
+public class AnilloEventos {
+    public interface Consumidor {
+        void aceptar(int idUsuario, int idTarea, byte tipo, long instante);
+    }
+
+    private final int mascara;
+    private final int[] usuarios;
+    private final int[] tareas;
+    private final byte[] tipos;
+    private final long[] instantes;
+    // Secuencia que ocupa cada casillero una vez que sus datos están escritos (-1 = ninguna todavía)
+    private final AtomicLongArray publicados;
+    // Próxima secuencia a reservar
+    private final AtomicLong reservado = new AtomicLong();
+    // Primera secuencia que el consumidor todavía no leyó; solo la escribe el consumidor
+    private volatile long leido;
+
+    // La capacidad se redondea hacia arriba a una potencia de 2
+    public AnilloEventos(int capacidad) {
+        int tamano = Integer.highestOneBit(Math.max(2, capacidad - 1)) << 1;
+        mascara = tamano - 1;
+        usuarios = new int[tamano];
+        tareas = new int[tamano];
+        tipos = new byte[tamano];
+        instantes = new long[tamano];
+        publicados = new AtomicLongArray(tamano);
+        for (int i = 0; i < tamano; i++) {
+            publicados.set(i, -1);
+        }
+    }
+
+    // false si está lleno: quien llama decide si vacía y reintenta o descarta
+    public boolean ofrecer(int idUsuario, int idTarea, byte tipo, long instante) {
+        long secuencia;
+        do {
+            secuencia = reservado.get();
+            if (secuencia - leido > mascara) {
+                return false;
+            }
+        } while (!reservado.compareAndSet(secuencia, secuencia + 1));
+        int i = (int) secuencia & mascara;
+        usuarios[i] = idUsuario;
+        tareas[i] = idTarea;
+        tipos[i] = tipo;
+        instantes[i] = instante;
+        // La escritura volátil publica los datos de arriba al consumidor que lea esta secuencia
+        publicados.set(i, secuencia);
+        return true;
+    }
+
+    // Entrega en orden los eventos publicados y devuelve cuántos fueron. Un solo consumidor a la vez:
+    // quien la llame desde varios hilos tiene que serializar las llamadas.
+    public int drenar(Consumidor consumidor) {
+        long secuencia = leido;
+        int i = (int) secuencia & mascara;
+        int cantidad = 0;
+        while (publicados.get(i) == secuencia) {
+            consumidor.aceptar(usuarios[i], tareas[i], tipos[i], instantes[i]);
+            secuencia++;
+            cantidad++;
+            i = (int) secuencia & mascara;
+        }
+        // Recién ahora los casilleros leídos quedan libres para los productores
+        leido = secuencia;
+        return cantidad;
+    }
+
+    public int getCapacidad() {
+        return mascara + 1;
+    }
+
+    // Aproximado si hay productores escribiendo
+    public int getTamano() {
+        return (int) (reservado.get() - leido);
+    }
+}
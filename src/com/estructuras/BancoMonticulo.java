@@ -0,0 +1,174 @@
+package com.estructuras;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeSet;
+
+// Compara MonticuloIndexado con lo que se hacía antes (cargar todas las entregas y ordenarlas) y con
+// java.util.PriorityQueue, que no sabe dónde está cada elemento y quita o reordena en O(n).
+// Primero verifica el montículo contra un TreeSet con operaciones al azar. Cada medición se repite
+// varias rondas (la primera solo calienta el JIT) y se informa la mejor.
+// Uso: java com.estructuras.BancoMonticulo [entradas=1000000] [rondas=5]
+public class BancoMonticulo {
+    private static final int CONSULTAS = 10_000;
+    private static final int K = 10;
+
+    public static void main(String[] args) {
+        int entradas = 1_000_000;
+        int rondas = 5;
+        for (String arg : args) {
+            if (arg.startsWith("entradas=")) {
+                entradas = Integer.parseInt(arg.substring("entradas=".length()));
+            } else if (arg.startsWith("rondas=")) {
+                rondas = Integer.parseInt(arg.substring("rondas=".length()));
+            }
+        }
+        verificar(new Random(7));
+        System.out.println("conformidad OK");
+
+        Random random = new Random(42);
+        long ahora = System.currentTimeMillis();
+        int[] ids = new int[entradas];
+        long[] entregas = new long[entradas];
+        for (int i = 0; i < entradas; i++) {
+            ids[i] = i * 3 + 1;
+            entregas[i] = ahora + (long) random.nextInt(365 * 24 * 60) * 60_000;
+        }
+        int cambios = Math.min(100_000, entradas);
+        int[] elegidos = new int[cambios];
+        for (int i = 0; i < cambios; i++) {
+            elegidos[i] = random.nextInt(entradas);
+        }
+
+        long[] mejor = new long[6];
+        Arrays.fill(mejor, Long.MAX_VALUE);
+        int[] muestra = null;
+        int quitas = 200;
+        for (int ronda = 0; ronda < rondas; ronda++) {
+            long inicio = System.nanoTime();
+            MonticuloIndexado monticulo = new MonticuloIndexado();
+            for (int i = 0; i < entradas; i++) {
+                monticulo.insertar(ids[i], entregas[i]);
+            }
+            mejor[0] = Math.min(mejor[0], System.nanoTime() - inicio);
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < CONSULTAS; i++) {
+                muestra = monticulo.primeros(K);
+            }
+            mejor[1] = Math.min(mejor[1], System.nanoTime() - inicio);
+
+            // Adelantar la entrega (decrease-key) y después atrasarla otra vez
+            inicio = System.nanoTime();
+            for (int i = 0; i < cambios; i++) {
+                int e = elegidos[i];
+                monticulo.actualizar(ids[e], entregas[e] - 86_400_000L);
+            }
+            mejor[2] = Math.min(mejor[2], System.nanoTime() - inicio);
+            for (int i = 0; i < cambios; i++) {
+                int e = elegidos[i];
+                monticulo.actualizar(ids[e], entregas[e]);
+            }
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < cambios; i++) {
+                monticulo.eliminar(ids[elegidos[i]]);
+            }
+            mejor[3] = Math.min(mejor[3], System.nanoTime() - inicio);
+
+            // Antes: traer todas las entregas y ordenarlas para quedarse con las primeras
+            inicio = System.nanoTime();
+            int repeticiones = 20;
+            for (int r = 0; r < repeticiones; r++) {
+                long[] claves = entregas.clone();
+                Arrays.sort(claves);
+            }
+            mejor[4] = Math.min(mejor[4], (System.nanoTime() - inicio) / repeticiones);
+
+            // PriorityQueue: quitar por id recorre la cola entera, así que se mide con menos operaciones
+            PriorityQueue<long[]> cola = new PriorityQueue<>(entradas, Comparator.comparingLong((long[] par) -> par[0]));
+            List<long[]> pares = new ArrayList<>(entradas);
+            for (int i = 0; i < entradas; i++) {
+                long[] par = {entregas[i], ids[i]};
+                pares.add(par);
+                cola.add(par);
+            }
+            inicio = System.nanoTime();
+            for (int i = 0; i < quitas; i++) {
+                cola.remove(pares.get(elegidos[i]));
+            }
+            mejor[5] = Math.min(mejor[5], System.nanoTime() - inicio);
+        }
+        System.out.println("primeras " + K + ": " + Arrays.toString(muestra));
+        reportar("montículo: insertar", entradas, mejor[0]);
+        reportar("montículo: primeros " + K, CONSULTAS, mejor[1]);
+        reportar("montículo: adelantar entrega", cambios, mejor[2]);
+        reportar("montículo: quitar por id", cambios, mejor[3]);
+        reportar("ordenar todo (una consulta)", 1, mejor[4]);
+        reportar("PriorityQueue: quitar por id", quitas, mejor[5]);
+    }
+
+    // Operaciones al azar contra un TreeSet de (prioridad, id) que hace de referencia
+    private static void verificar(Random random) {
+        MonticuloIndexado monticulo = new MonticuloIndexado(4);
+        TreeSet<long[]> referencia = new TreeSet<>(Comparator.<long[]>comparingLong(par -> par[0]).thenComparingLong(par -> par[1]));
+        long[] prioridades = new long[500];
+        boolean[] presentes = new boolean[500];
+        for (int paso = 0; paso < 200_000; paso++) {
+            int id = random.nextInt(500);
+            long prioridad = random.nextInt(1000);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    if (presentes[id]) {
+                        referencia.remove(new long[]{prioridades[id], id});
+                    }
+                    monticulo.insertar(id, prioridad);
+                    referencia.add(new long[]{prioridad, id});
+                    prioridades[id] = prioridad;
+                    presentes[id] = true;
+                    break;
+                case 2:
+                    comprobar(monticulo.eliminar(id) == presentes[id], "eliminar");
+                    if (presentes[id]) {
+                        referencia.remove(new long[]{prioridades[id], id});
+                        presentes[id] = false;
+                    }
+                    break;
+                default:
+                    int minimo = monticulo.extraerMinimo();
+                    long[] esperado = referencia.pollFirst();
+                    comprobar(esperado == null ? minimo == -1 : minimo == esperado[1], "extraerMinimo");
+                    if (esperado != null) {
+                        presentes[minimo] = false;
+                    }
+            }
+            comprobar(monticulo.getTamano() == referencia.size(), "tamaño");
+            if (paso % 1000 == 0) {
+                int[] primeros = monticulo.primeros(K);
+                int i = 0;
+                for (long[] par : referencia) {
+                    if (i == primeros.length) {
+                        break;
+                    }
+                    comprobar(primeros[i++] == par[1], "primeros");
+                }
+            }
+        }
+    }
+
+    private static void comprobar(boolean condicion, String que) {
+        if (!condicion) {
+            throw new IllegalStateException("Falló la verificación: " + que);
+        }
+    }
+
+    private static void reportar(String operacion, int cantidad, long nanos) {
+        double ms = nanos / 1_000_000.0;
+        System.out.printf("%-30s %8d ops %10.3f ms %12.0f ops/s%n", operacion, cantidad, ms, cantidad / (ms / 1000.0));
+    }
+}
@@ -0,0 +1,97 @@
+package com.estructuras;
+
+import com.implementation.ClaveTarea;
+import com.implementation.Tarea;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.UnaryOperator;
+
+// Tareas ordenadas por (fechaEntrega, idTarea) que pueden leer y escribir varios hilos a la vez.
+// A diferencia de ListaEnlazada, las lecturas no toman ningún candado: es una lista de saltos
+// (ConcurrentSkipListMap), así que buscar un rango cuesta O(log n) más lo que se recorre, y los
+// recorridos son débilmente consistentes: no fallan si otro hilo escribe mientras tanto y pueden
+// ver o no ese cambio.
+// Las escrituras de una misma tarea se ordenan entre sí por su idTarea; las de tareas distintas
+// no se esperan.
+public class IndiceTareasConcurrente {
+    private final ConcurrentSkipListMap<ClaveTarea, Tarea> porFecha = new ConcurrentSkipListMap<>();
+    // idTarea -> clave con la que está guardada, para encontrarla aunque la tarea ya tenga otra fecha
+    private final ConcurrentHashMap<Integer, ClaveTarea> claves = new ConcurrentHashMap<>();
+
+    // Agrega la tarea o la reemplaza (con su fecha nueva) si ya estaba. Quien la lea después no
+    // debería modificarla: para cambiarla se vuelve a guardar una copia.
+    public void guardar(Tarea tarea) {
+        claves.compute(tarea.getIdTarea(), (id, anterior) -> ubicar(anterior, tarea));
+    }
+
+    // Reemplaza la tarea por lo que devuelva el cambio (que recibe la guardada y no debe modificarla).
+    // Leer, cambiar y guardar es atómico respecto de otras escrituras de la misma tarea.
+    public boolean actualizar(int idTarea, UnaryOperator<Tarea> cambio) {
+        return claves.computeIfPresent(idTarea, (id, anterior) -> ubicar(anterior, cambio.apply(porFecha.get(anterior)))) != null;
+    }
+
+    // Se llama dentro del compute de claves, con la tarea bloqueada para otras escrituras
+    private ClaveTarea ubicar(ClaveTarea anterior, Tarea tarea) {
+        ClaveTarea nueva = ClaveTarea.de(tarea);
+        // Primero la nueva y después se quita la vieja: un recorrido que pasa justo en ese momento
+        // puede verla en los dos lugares, pero nunca deja de verla
+        porFecha.put(nueva, tarea);
+        if (anterior != null && !anterior.equals(nueva)) {
+            porFecha.remove(anterior);
+        }
+        return nueva;
+    }
+
+    public boolean eliminar(int idTarea) {
+        boolean[] estaba = new boolean[1];
+        claves.computeIfPresent(idTarea, (id, clave) -> {
+            porFecha.remove(clave);
+            estaba[0] = true;
+            return null;
+        });
+        return estaba[0];
+    }
+
+    public Tarea obtener(int idTarea) {
+        ClaveTarea clave = claves.get(idTarea);
+        return clave != null ? porFecha.get(clave) : null;
+    }
+
+    public boolean contiene(int idTarea) {
+        return claves.containsKey(idTarea);
+    }
+
+    // Tareas con desde <= fechaEntrega < hasta, en orden. Es una vista: refleja cambios posteriores.
+    public Collection<Tarea> entre(String desde, String hasta) {
+        return porFecha.subMap(new ClaveTarea(desde, Integer.MIN_VALUE), true,
+                new ClaveTarea(hasta, Integer.MIN_VALUE), false).values();
+    }
+
+    // Tareas estrictamente después de la clave dada, en orden (vista)
+    public Collection<Tarea> despuesDe(String fechaEntrega, int idTarea) {
+        return porFecha.tailMap(new ClaveTarea(fechaEntrega, idTarea), false).values();
+    }
+
+    // La de entrega más temprana (las sin fecha van primero), o null si está vacío
+    public Tarea primera() {
+        Map.Entry<ClaveTarea, Tarea> entrada = porFecha.firstEntry();
+        return entrada != null ? entrada.getValue() : null;
+    }
+
+    public Collection<Tarea> todas() {
+        return porFecha.values();
+    }
+
+    // Aproximado si hay escrituras en curso
+    public int getTamano() {
+        return claves.size();
+    }
+
+    public void limpiar() {
+        for (Integer idTarea : claves.keySet()) {
+            eliminar(idTarea);
+        }
+    }
+}
@@ -2,22 +2,26 @@ package com.estructuras;
 
 public class ListaEnlazada<T> {
     private Nodo<T> cabeza;
+    private Nodo<T> cola;
 
     public ListaEnlazada() {
         cabeza = null;
+        cola = null;
     }
 
     public void agregar(T dato) {
-        Nodo<T> nuevo = new Nodo<>(dato);
+        agregarNodo(new Nodo<>(dato));
+    }
+
+    // Agrega al final en O(1) usando la referencia a la cola
+    public void agregarNodo(Nodo<T> nuevo) {
+        nuevo.setSiguiente(null);
         if (cabeza == null) {
             cabeza = nuevo;
         } else {
-            Nodo<T> actual = cabeza;
-            while (actual.getSiguiente() != null) {
-                actual = actual.getSiguiente();
-            }
-            actual.setSiguiente(nuevo);
+            cola.setSiguiente(nuevo);
         }
+        cola = nuevo;
     }
 
     public Nodo<T> buscar(T dato) {
@@ -36,6 +40,9 @@ public class ListaEnlazada<T> {
 
         if (cabeza.getDato().equals(dato)) {
             cabeza = cabeza.getSiguiente();
+            if (cabeza == null) {
+                cola = null;
+            }
             return;
         }
 
@@ -44,6 +51,9 @@ public class ListaEnlazada<T> {
         while (actual != null) {
             if (actual.getDato().equals(dato)) {
                 anterior.setSiguiente(actual.getSiguiente());
+                if (actual == cola) {
+                    cola = anterior;
+                }
                 return;
             }
             anterior = actual;
@@ -58,5 +68,13 @@ public class ListaEnlazada<T> {
     public void insertarAlInicio(Nodo<T> nuevo) {
         nuevo.setSiguiente(cabeza);
         cabeza = nuevo;
+        if (cola == null) {
+            cola = nuevo;
+        }
+    }
+
+    public void limpiar() {
+        cabeza = null;
+        cola = null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.estructuras;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+// Montículo binario de mínimos de ids (idTarea) ordenados por una prioridad long (la hora de entrega).
+// Guarda en qué posición está cada id, así que además de insertar y sacar el mínimo en O(log n)
+// puede quitar o cambiar la prioridad de cualquier id sin recorrerlo. A igual prioridad va primero
+// el id menor, para que el orden no dependa del orden de inserción.
+public class MonticuloIndexado {
+    private long[] prioridades;
+    private int[] ids;
+    private int tamano;
+    private final TablaPosiciones posiciones;
+
+    public MonticuloIndexado() {
+        this(16);
+    }
+
+    public MonticuloIndexado(int capacidadInicial) {
+        int capacidad = Math.max(capacidadInicial, 1);
+        prioridades = new long[capacidad];
+        ids = new int[capacidad];
+        posiciones = new TablaPosiciones(capacidad);
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    public boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    public boolean contiene(int id) {
+        return posiciones.obtener(id) >= 0;
+    }
+
+    // Prioridad actual del id, o Long.MIN_VALUE si no está
+    public long prioridad(int id) {
+        int posicion = posiciones.obtener(id);
+        return posicion >= 0 ? prioridades[posicion] : Long.MIN_VALUE;
+    }
+
+    // Inserta el id, o le cambia la prioridad si ya estaba
+    public void insertar(int id, long prioridad) {
+        int posicion = posiciones.obtener(id);
+        if (posicion >= 0) {
+            cambiarPrioridad(posicion, prioridad);
+            return;
+        }
+        if (tamano == ids.length) {
+            int capacidad = ids.length * 2;
+            prioridades = Arrays.copyOf(prioridades, capacidad);
+            ids = Arrays.copyOf(ids, capacidad);
+        }
+        prioridades[tamano] = prioridad;
+        ids[tamano] = id;
+        posiciones.poner(id, tamano);
+        subir(tamano++);
+    }
+
+    // Cambia la prioridad de un id que ya está (sube si se adelanta, baja si se atrasa).
+    // Devuelve false si el id no estaba.
+    public boolean actualizar(int id, long prioridad) {
+        int posicion = posiciones.obtener(id);
+        if (posicion < 0) {
+            return false;
+        }
+        cambiarPrioridad(posicion, prioridad);
+        return true;
+    }
+
+    public boolean eliminar(int id) {
+        int posicion = posiciones.obtener(id);
+        if (posicion < 0) {
+            return false;
+        }
+        quitar(posicion);
+        return true;
+    }
+
+    // Id con menor prioridad, o -1 si está vacío
+    public int minimo() {
+        return tamano == 0 ? -1 : ids[0];
+    }
+
+    public long prioridadMinima() {
+        return tamano == 0 ? Long.MIN_VALUE : prioridades[0];
+    }
+
+    // Saca y devuelve el id con menor prioridad, o -1 si está vacío
+    public int extraerMinimo() {
+        if (tamano == 0) {
+            return -1;
+        }
+        int id = ids[0];
+        quitar(0);
+        return id;
+    }
+
+    // Los k ids de menor prioridad, en orden, sin modificar el montículo. Recorre el árbol desde la
+    // raíz con un montículo auxiliar de candidatos: O(k log k), sin importar cuántos elementos haya.
+    public int[] primeros(int k) {
+        return primerosHasta(Long.MAX_VALUE, k);
+    }
+
+    // Igual que primeros, pero solo los que tienen prioridad <= prioridadMaxima: corta en el primero
+    // que la supera, así que cuesta lo mismo aunque el resto del montículo sea enorme
+    public int[] primerosHasta(long prioridadMaxima, int k) {
+        int cantidad = Math.min(k, tamano);
+        if (cantidad <= 0 || prioridades[0] > prioridadMaxima) {
+            return new int[0];
+        }
+        int[] resultado = new int[cantidad];
+        PriorityQueue<Integer> candidatos = new PriorityQueue<>(2 * cantidad + 1,
+                (a, b) -> menor(a, b) ? -1 : menor(b, a) ? 1 : 0);
+        candidatos.add(0);
+        int i = 0;
+        while (i < cantidad && !candidatos.isEmpty()) {
+            int posicion = candidatos.poll();
+            if (prioridades[posicion] > prioridadMaxima) {
+                break;
+            }
+            resultado[i++] = ids[posicion];
+            int hijo = 2 * posicion + 1;
+            if (hijo < tamano) {
+                candidatos.add(hijo);
+            }
+            if (hijo + 1 < tamano) {
+                candidatos.add(hijo + 1);
+            }
+        }
+        return i == cantidad ? resultado : Arrays.copyOf(resultado, i);
+    }
+
+    public void limpiar() {
+        tamano = 0;
+        posiciones.limpiar();
+    }
+
+    private void cambiarPrioridad(int posicion, long prioridad) {
+        long anterior = prioridades[posicion];
+        prioridades[posicion] = prioridad;
+        if (prioridad < anterior) {
+            subir(posicion);
+        } else if (prioridad > anterior) {
+            bajar(posicion);
+        }
+    }
+
+    // Pone el último en el lugar del que se va y lo acomoda hacia arriba o hacia abajo
+    private void quitar(int posicion) {
+        posiciones.quitar(ids[posicion]);
+        tamano--;
+        if (posicion == tamano) {
+            return;
+        }
+        prioridades[posicion] = prioridades[tamano];
+        ids[posicion] = ids[tamano];
+        posiciones.poner(ids[posicion], posicion);
+        if (posicion > 0 && menor(posicion, (posicion - 1) / 2)) {
+            subir(posicion);
+        } else {
+            bajar(posicion);
+        }
+    }
+
+    private void subir(int posicion) {
+        long prioridad = prioridades[posicion];
+        int id = ids[posicion];
+        while (posicion > 0) {
+            int padre = (posicion - 1) / 2;
+            if (!antes(prioridad, id, prioridades[padre], ids[padre])) {
+                break;
+            }
+            mover(padre, posicion);
+            posicion = padre;
+        }
+        colocar(posicion, prioridad, id);
+    }
+
+    private void bajar(int posicion) {
+        long prioridad = prioridades[posicion];
+        int id = ids[posicion];
+        int mitad = tamano / 2;
+        while (posicion < mitad) {
+            int hijo = 2 * posicion + 1;
+            if (hijo + 1 < tamano && menor(hijo + 1, hijo)) {
+                hijo++;
+            }
+            if (!antes(prioridades[hijo], ids[hijo], prioridad, id)) {
+                break;
+            }
+            mover(hijo, posicion);
+            posicion = hijo;
+        }
+        colocar(posicion, prioridad, id);
+    }
+
+    private void mover(int desde, int hasta) {
+        prioridades[hasta] = prioridades[desde];
+        ids[hasta] = ids[desde];
+        posiciones.poner(ids[hasta], hasta);
+    }
+
+    private void colocar(int posicion, long prioridad, int id) {
+        prioridades[posicion] = prioridad;
+        ids[posicion] = id;
+        posiciones.poner(id, posicion);
+    }
+
+    private boolean menor(int a, int b) {
+        return antes(prioridades[a], ids[a], prioridades[b], ids[b]);
+    }
+
+    private static boolean antes(long prioridadA, int idA, long prioridadB, int idB) {
+        return prioridadA < prioridadB || (prioridadA == prioridadB && idA < idB);
+    }
+
+    // id -> posición en el montículo. Direccionamiento abierto con sondeo lineal sobre arreglos de
+    // int: con un millón de tareas un HashMap<Integer, Integer> ocuparía varias veces más memoria.
+    private static final class TablaPosiciones {
+        private static final int LIBRE = Integer.MIN_VALUE;
+
+        private int[] claves;
+        private int[] valores;
+        private int ocupadas;
+
+        TablaPosiciones(int capacidadEsperada) {
+            int capacidad = Integer.highestOneBit(Math.max(capacidadEsperada * 2 - 1, 16)) << 1;
+            claves = new int[capacidad];
+            valores = new int[capacidad];
+            Arrays.fill(claves, LIBRE);
+        }
+
+        int obtener(int clave) {
+            int mascara = claves.length - 1;
+            for (int i = indice(clave, mascara); claves[i] != LIBRE; i = (i + 1) & mascara) {
+                if (claves[i] == clave) {
+                    return valores[i];
+                }
+            }
+            return -1;
+        }
+
+        void poner(int clave, int valor) {
+            int mascara = claves.length - 1;
+            int i = indice(clave, mascara);
+            while (claves[i] != LIBRE) {
+                if (claves[i] == clave) {
+                    valores[i] = valor;
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clave;
+            valores[i] = valor;
+            if (++ocupadas * 2 > claves.length) {
+                agrandar();
+            }
+        }
+
+        // Borra corriendo hacia atrás las claves que siguen, así no hacen falta lápidas
+        void quitar(int clave) {
+            int mascara = claves.length - 1;
+            int i = indice(clave, mascara);
+            while (claves[i] != clave) {
+                if (claves[i] == LIBRE) {
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            ocupadas--;
+            int hueco = i;
+            for (int j = (hueco + 1) & mascara; claves[j] != LIBRE; j = (j + 1) & mascara) {
+                int ideal = indice(claves[j], mascara);
+                // Se mueve al hueco solo si el hueco queda entre su lugar ideal y donde está ahora
+                if (((j - ideal) & mascara) >= ((j - hueco) & mascara)) {
+                    claves[hueco] = claves[j];
+                    valores[hueco] = valores[j];
+                    hueco = j;
+                }
+            }
+            claves[hueco] = LIBRE;
+        }
+
+        void limpiar() {
+            Arrays.fill(claves, LIBRE);
+            ocupadas = 0;
+        }
+
+        private void agrandar() {
+            int[] clavesViejas = claves;
+            int[] valoresViejos = valores;
+            claves = new int[clavesViejas.length * 2];
+            valores = new int[clavesViejas.length * 2];
+            Arrays.fill(claves, LIBRE);
+            ocupadas = 0;
+            for (int i = 0; i < clavesViejas.length; i++) {
+                if (clavesViejas[i] != LIBRE) {
+                    poner(clavesViejas[i], valoresViejos[i]);
+                }
+            }
+        }
+
+        private static int indice(int clave, int mascara) {
+            int h = clave * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mascara;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.implementation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Actividad diaria de un usuario desde un lunes hasta hoy (tareas completadas y minutos de estudio),
+// con la racha actual y la más larga de días seguidos con algo de actividad. Las completadas de un
+// día llegan hasta 15 y los minutos hasta 4095: más no cambia el nivel del mapa.
+public class ActividadAnual {
+    private final LocalDate desde;
+    private final int[] completadas;
+    private final int[] minutos;
+    private final int rachaActual;
+    private final int rachaMaxima;
+
+    public ActividadAnual(LocalDate desde, int[] completadas, int[] minutos, int rachaActual, int rachaMaxima) {
+        this.desde = desde;
+        this.completadas = completadas;
+        this.minutos = minutos;
+        this.rachaActual = rachaActual;
+        this.rachaMaxima = rachaMaxima;
+    }
+
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public int getDias() {
+        return completadas.length;
+    }
+
+    public LocalDate dia(int i) {
+        return desde.plusDays(i);
+    }
+
+    public int getCompletadas(int i) {
+        return completadas[i];
+    }
+
+    public int getMinutos(int i) {
+        return minutos[i];
+    }
+
+    public int getRachaActual() {
+        return rachaActual;
+    }
+
+    public int getRachaMaxima() {
+        return rachaMaxima;
+    }
+
+    public int getTotalCompletadas() {
+        return Arrays.stream(completadas).sum();
+    }
+
+    public int getTotalMinutos() {
+        return Arrays.stream(minutos).sum();
+    }
+
+    // De 0 (nada) a 4, como los tonos del mapa: cada tarea completada y cada media hora de estudio
+    // suman un punto
+    public int nivel(int i) {
+        int puntos = completadas[i] + minutos[i] / 30;
+        if (puntos == 0) {
+            return minutos[i] > 0 ? 1 : 0;
+        }
+        return puntos <= 2 ? 1 : puntos <= 4 ? 2 : puntos <= 7 ? 3 : 4;
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        if (!(otro instanceof ActividadAnual)) {
+            return false;
+        }
+        ActividadAnual a = (ActividadAnual) otro;
+        return desde.equals(a.desde) && Arrays.equals(completadas, a.completadas) && Arrays.equals(minutos, a.minutos)
+                && rachaActual == a.rachaActual && rachaMaxima == a.rachaMaxima;
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Objects.hash(desde, Arrays.hashCode(completadas), Arrays.hashCode(minutos), rachaActual, rachaMaxima);
+    }
+}
@@ -0,0 +1,50 @@
+package com.implementation;
+
+// Clave de orden de las tareas: fecha de entrega y, para desempatar, idTarea.
+// Una fecha nula se trata como cadena vacía, igual que IFNULL(fechaEntrega, '') en SQL.
+public final class ClaveTarea implements Comparable<ClaveTarea> {
+    private final String fechaEntrega;
+    private final int idTarea;
+
+    public ClaveTarea(String fechaEntrega, int idTarea) {
+        this.fechaEntrega = fechaEntrega == null ? "" : fechaEntrega;
+        this.idTarea = idTarea;
+    }
+
+    public static ClaveTarea de(Tarea tarea) {
+        return new ClaveTarea(tarea.getFechaEntrega(), tarea.getIdTarea());
+    }
+
+    public String getFechaEntrega() {
+        return fechaEntrega;
+    }
+
+    public int getIdTarea() {
+        return idTarea;
+    }
+
+    @Override
+    public int compareTo(ClaveTarea otra) {
+        int c = fechaEntrega.compareTo(otra.fechaEntrega);
+        return c != 0 ? c : Integer.compare(idTarea, otra.idTarea);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ClaveTarea)) {
+            return false;
+        }
+        ClaveTarea otra = (ClaveTarea) o;
+        return idTarea == otra.idTarea && fechaEntrega.equals(otra.fechaEntrega);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * fechaEntrega.hashCode() + idTarea;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + fechaEntrega + ", " + idTarea + ")";
+    }
+}
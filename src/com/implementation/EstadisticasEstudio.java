@@ -0,0 +1,69 @@
+package com.implementation;
+
+// Números del panel de estadísticas de un usuario, calculados para un día dado
+public class EstadisticasEstudio {
+    public static final EstadisticasEstudio VACIAS = new EstadisticasEstudio(0, 0, 0, 0, -1);
+
+    private final int total;
+    private final int completadas;
+    // Pendientes con entrega entre el lunes y el domingo de la semana actual
+    private final int pendientesSemana;
+    // Pendientes con entrega antes de hoy
+    private final int vencidas;
+    // Tiempo medio entre la creación y la finalización de las tareas completadas, -1 si no hay datos
+    private final long promedioEntregaMs;
+
+    public EstadisticasEstudio(int total, int completadas, int pendientesSemana, int vencidas, long promedioEntregaMs) {
+        this.total = total;
+        this.completadas = completadas;
+        this.pendientesSemana = pendientesSemana;
+        this.vencidas = vencidas;
+        this.promedioEntregaMs = promedioEntregaMs;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCompletadas() {
+        return completadas;
+    }
+
+    public int getPendientesSemana() {
+        return pendientesSemana;
+    }
+
+    public int getVencidas() {
+        return vencidas;
+    }
+
+    public long getPromedioEntregaMs() {
+        return promedioEntregaMs;
+    }
+
+    // Entre 0 y 1; 0 si el usuario no tiene tareas
+    public double getTasaCompletado() {
+        return total == 0 ? 0 : (double) completadas / total;
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        if (!(otro instanceof EstadisticasEstudio)) {
+            return false;
+        }
+        EstadisticasEstudio e = (EstadisticasEstudio) otro;
+        return total == e.total && completadas == e.completadas && pendientesSemana == e.pendientesSemana
+                && vencidas == e.vencidas && promedioEntregaMs == e.promedioEntregaMs;
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Objects.hash(total, completadas, pendientesSemana, vencidas, promedioEntregaMs);
+    }
+
+    @Override
+    public String toString() {
+        return "total=" + total + ", completadas=" + completadas + ", semana=" + pendientesSemana
+                + ", vencidas=" + vencidas + ", promedioEntregaMs=" + promedioEntregaMs;
+    }
+}
@@ -0,0 +1,25 @@
+package com.implementation;
+
+// Columna del Kanban. Se guarda el número (ordinal) en la columna estado, así que el orden no se
+// cambia; "Completada" sigue saliendo de completada, estado solo distingue las que no lo están.
+public enum EstadoTarea {
+    PENDIENTE("Pendiente"),
+    EN_PROGRESO("En progreso"),
+    COMPLETADA("Completada");
+
+    private final String nombre;
+
+    EstadoTarea(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    // El que se ve según completada y lo guardado: desmarcar una tarea la devuelve a "Pendiente",
+    // salvo que estuviera "En progreso" antes de completarse de otra forma
+    public static EstadoTarea de(boolean completada, int guardado) {
+        return completada ? COMPLETADA : guardado == EN_PROGRESO.ordinal() ? EN_PROGRESO : PENDIENTE;
+    }
+}
@@ -0,0 +1,84 @@
+package com.implementation;
+
+import java.util.Objects;
+
+// Cambios de una sola ocurrencia de una serie, identificada por su fecha original: se saltea
+// (cancelada), se mueve a otra fecha o se marca completada. El resto de la serie no cambia.
+public final class ExcepcionOcurrencia {
+    private final String ocurrencia;
+    private final boolean cancelada;
+    // Fecha nueva ("yyyy-MM-dd HH:mm"), o null si se entrega en la original
+    private final String fechaEntrega;
+    private final boolean completada;
+
+    public ExcepcionOcurrencia(String ocurrencia, boolean cancelada, String fechaEntrega, boolean completada) {
+        this.ocurrencia = ocurrencia;
+        this.cancelada = cancelada;
+        this.fechaEntrega = fechaEntrega == null || fechaEntrega.isEmpty() || fechaEntrega.equals(ocurrencia) ? null : fechaEntrega;
+        this.completada = completada;
+    }
+
+    // Estado actual de una ocurrencia generada (sirve para deshacer un cambio)
+    public static ExcepcionOcurrencia de(Tarea ocurrencia) {
+        return new ExcepcionOcurrencia(ocurrencia.getOcurrencia(), false, ocurrencia.getFechaEntrega(), ocurrencia.isCompletada());
+    }
+
+    public String getOcurrencia() {
+        return ocurrencia;
+    }
+
+    public boolean isCancelada() {
+        return cancelada;
+    }
+
+    public String getFechaEntrega() {
+        return fechaEntrega;
+    }
+
+    public boolean isCompletada() {
+        return completada;
+    }
+
+    // Fecha en la que se entrega esta ocurrencia
+    public String fechaEfectiva() {
+        return fechaEntrega != null ? fechaEntrega : ocurrencia;
+    }
+
+    // Sin cambios respecto de la regla: guardarla equivale a quitarla
+    public boolean esVacia() {
+        return !cancelada && fechaEntrega == null && !completada;
+    }
+
+    public ExcepcionOcurrencia conCompletada(boolean completada) {
+        return new ExcepcionOcurrencia(ocurrencia, cancelada, fechaEntrega, completada);
+    }
+
+    public ExcepcionOcurrencia conFechaEntrega(String fechaEntrega) {
+        return new ExcepcionOcurrencia(ocurrencia, cancelada, fechaEntrega, completada);
+    }
+
+    public ExcepcionOcurrencia cancelada() {
+        return new ExcepcionOcurrencia(ocurrencia, true, fechaEntrega, completada);
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        if (!(otro instanceof ExcepcionOcurrencia)) {
+            return false;
+        }
+        ExcepcionOcurrencia e = (ExcepcionOcurrencia) otro;
+        return cancelada == e.cancelada && completada == e.completada && ocurrencia.equals(e.ocurrencia)
+                && Objects.equals(fechaEntrega, e.fechaEntrega);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ocurrencia, cancelada, fechaEntrega, completada);
+    }
+
+    @Override
+    public String toString() {
+        return ocurrencia + (cancelada ? " cancelada" : "") + (fechaEntrega != null ? " -> " + fechaEntrega : "")
+                + (completada ? " completada" : "");
+    }
+}
@@ -5,9 +5,12 @@ import com.estructuras.Nodo;
 
 public class ListaTareas extends ListaEnlazada<Tarea> {
     public NodoTareas agregarTarea(int idTarea, int idUsuario, String titulo, String descripcion) {
-        Tarea tarea = new Tarea(idTarea, idUsuario, titulo, descripcion);
+        return agregarTarea(new Tarea(idTarea, idUsuario, titulo, descripcion));
+    }
+
+    public NodoTareas agregarTarea(Tarea tarea) {
         NodoTareas nodo = new NodoTareas(tarea);
-        super.agregar(tarea);
+        super.agregarNodo(nodo);
         return nodo;
     }
 
@@ -0,0 +1,47 @@
+package com.implementation;
+
+// Avance de las subtareas de una tarea: cuenta todas las descendientes, no solo las hijas directas
+public class ProgresoSubtareas {
+    public static final ProgresoSubtareas NINGUNO = new ProgresoSubtareas(0, 0);
+
+    private final int total;
+    private final int completadas;
+
+    public ProgresoSubtareas(int total, int completadas) {
+        this.total = total;
+        this.completadas = completadas;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCompletadas() {
+        return completadas;
+    }
+
+    // Con subtareas agregadas o completadas (o desmarcadas, con deltas negativos)
+    public ProgresoSubtareas sumar(int deltaTotal, int deltaCompletadas) {
+        int nuevoTotal = Math.max(0, total + deltaTotal);
+        return new ProgresoSubtareas(nuevoTotal, Math.max(0, Math.min(nuevoTotal, completadas + deltaCompletadas)));
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        if (!(otro instanceof ProgresoSubtareas)) {
+            return false;
+        }
+        ProgresoSubtareas p = (ProgresoSubtareas) otro;
+        return total == p.total && completadas == p.completadas;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * total + completadas;
+    }
+
+    @Override
+    public String toString() {
+        return completadas + "/" + total;
+    }
+}
@@ -0,0 +1,288 @@
+package com.implementation;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+// Regla de repetición de una serie de tareas: un subconjunto de RRULE (RFC 5545) con
+// FREQ=DAILY|WEEKLY|MONTHLY, INTERVAL, BYDAY (solo con WEEKLY), COUNT y UNTIL (yyyyMMdd).
+// No guarda el inicio: las ocurrencias se calculan a partir del inicio de la serie.
+// La primera ocurrencia desde una fecha se obtiene saltando directo a ella, sin recorrer las
+// anteriores, así que pedir un mes de una serie de varios años cuesta lo mismo que pedir el primero.
+public final class ReglaRecurrencia {
+    public enum Frecuencia { DAILY, WEEKLY, MONTHLY }
+
+    // COUNT más grande que se acepta; calcular el final de la serie recorre esa cantidad de ocurrencias
+    public static final int MAXIMO_REPETICIONES = 1000;
+    // Con un día que no existe en todos los meses (31, 29 de febrero) MONTHLY saltea esos meses;
+    // si pasan tantos seguidos sin ocurrencia se da la serie por terminada
+    private static final int MESES_SIN_OCURRENCIA = 48;
+    private static final String[] DIAS = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+    private final Frecuencia frecuencia;
+    private final int intervalo;
+    // Bit i = DayOfWeek.of(i + 1); 0 = el día de la semana del inicio
+    private final int dias;
+    // 0 = sin COUNT
+    private final int cantidad;
+    // Último día incluido (UNTIL), o null
+    private final LocalDate ultimoDia;
+
+    public ReglaRecurrencia(Frecuencia frecuencia, int intervalo, int dias, int cantidad, LocalDate ultimoDia) {
+        if (frecuencia == null) {
+            throw new IllegalArgumentException("La regla necesita FREQ");
+        }
+        if (intervalo < 1 || intervalo > 999) {
+            throw new IllegalArgumentException("INTERVAL fuera de rango: " + intervalo);
+        }
+        if (cantidad < 0 || cantidad > MAXIMO_REPETICIONES) {
+            throw new IllegalArgumentException("COUNT fuera de rango: " + cantidad);
+        }
+        if (dias != 0 && frecuencia != Frecuencia.WEEKLY) {
+            throw new IllegalArgumentException("BYDAY solo se admite con FREQ=WEEKLY");
+        }
+        this.frecuencia = frecuencia;
+        this.intervalo = intervalo;
+        this.dias = dias & 0x7F;
+        this.cantidad = cantidad;
+        this.ultimoDia = ultimoDia;
+    }
+
+    // "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;COUNT=10" (con o sin el prefijo "RRULE:").
+    // Lanza IllegalArgumentException si tiene partes que no se entienden o no se soportan.
+    public static ReglaRecurrencia parsear(String texto) {
+        if (texto == null) {
+            throw new IllegalArgumentException("Falta la regla");
+        }
+        String cuerpo = texto.trim().toUpperCase();
+        if (cuerpo.startsWith("RRULE:")) {
+            cuerpo = cuerpo.substring("RRULE:".length());
+        }
+        Frecuencia frecuencia = null;
+        int intervalo = 1;
+        int dias = 0;
+        int cantidad = 0;
+        LocalDate ultimoDia = null;
+        for (String parte : cuerpo.split(";")) {
+            if (parte.isBlank()) {
+                continue;
+            }
+            int igual = parte.indexOf('=');
+            if (igual < 0) {
+                throw new IllegalArgumentException("Parte de la regla inválida: " + parte);
+            }
+            String clave = parte.substring(0, igual).trim();
+            String valor = parte.substring(igual + 1).trim();
+            switch (clave) {
+                case "FREQ":
+                    frecuencia = Frecuencia.valueOf(valor);
+                    break;
+                case "INTERVAL":
+                    intervalo = Integer.parseInt(valor);
+                    break;
+                case "BYDAY":
+                    for (String dia : valor.split(",")) {
+                        dias |= bit(dia.trim());
+                    }
+                    break;
+                case "COUNT":
+                    cantidad = Integer.parseInt(valor);
+                    if (cantidad < 1) {
+                        throw new IllegalArgumentException("COUNT debe ser positivo");
+                    }
+                    break;
+                case "UNTIL":
+                    ultimoDia = leerDia(valor);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Parte de la regla no soportada: " + clave);
+            }
+        }
+        return new ReglaRecurrencia(frecuencia, intervalo, dias, cantidad, ultimoDia);
+    }
+
+    private static int bit(String dia) {
+        for (int i = 0; i < DIAS.length; i++) {
+            if (DIAS[i].equals(dia)) {
+                return 1 << i;
+            }
+        }
+        throw new IllegalArgumentException("Día inválido en BYDAY: " + dia);
+    }
+
+    // UNTIL en la forma de RRULE (20251231 o 20251231T235959Z) o como 2025-12-31
+    private static LocalDate leerDia(String valor) {
+        try {
+            return valor.length() >= 10 && valor.charAt(4) == '-' ? LocalDate.parse(valor.substring(0, 10))
+                    : LocalDate.parse(valor.substring(0, Math.min(8, valor.length())), DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("UNTIL inválido: " + valor);
+        }
+    }
+
+    public Frecuencia getFrecuencia() {
+        return frecuencia;
+    }
+
+    public int getIntervalo() {
+        return intervalo;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public LocalDate getUltimoDia() {
+        return ultimoDia;
+    }
+
+    // Primera ocurrencia en o después de desde de una serie que empieza en inicio, sin tener en
+    // cuenta COUNT ni UNTIL (ver limite). null si no hay más.
+    public LocalDateTime primeraDesde(LocalDateTime inicio, LocalDateTime desde) {
+        if (desde.isBefore(inicio)) {
+            desde = inicio;
+        }
+        switch (frecuencia) {
+            case DAILY: {
+                long paso = intervalo * 1440L;
+                long minutos = ChronoUnit.MINUTES.between(inicio, desde);
+                return inicio.plusDays((minutos + paso - 1) / paso * intervalo);
+            }
+            case WEEKLY: {
+                LocalDate lunesInicio = lunes(inicio.toLocalDate());
+                long semanas = ChronoUnit.WEEKS.between(lunesInicio, lunes(desde.toLocalDate()));
+                LocalDate semana = lunesInicio.plusWeeks(semanas / intervalo * intervalo);
+                LocalDateTime ocurrencia = enSemana(semana, inicio, desde);
+                // Si en esa semana ya pasaron todos los días, la primera de la siguiente semana válida
+                return ocurrencia != null ? ocurrencia : enSemana(semana.plusWeeks(intervalo), inicio, desde);
+            }
+            default: {
+                long meses = ChronoUnit.MONTHS.between(YearMonth.from(inicio), YearMonth.from(desde));
+                long k = meses / intervalo * intervalo;
+                for (int i = 0; i <= MESES_SIN_OCURRENCIA; i++, k += intervalo) {
+                    LocalDateTime ocurrencia = enMes(inicio, k);
+                    if (ocurrencia != null && !ocurrencia.isBefore(desde)) {
+                        return ocurrencia;
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    // La ocurrencia que sigue a otra (las fechas tienen resolución de minutos)
+    public LocalDateTime siguiente(LocalDateTime inicio, LocalDateTime ocurrencia) {
+        return primeraDesde(inicio, ocurrencia.plusMinutes(1));
+    }
+
+    // Fecha que ninguna ocurrencia supera: la última de COUNT o el final del día de UNTIL (la menor
+    // de las dos), o null si la serie no termina. Con COUNT recorre las ocurrencias una vez.
+    public LocalDateTime limite(LocalDateTime inicio) {
+        LocalDateTime limite = ultimoDia != null ? ultimoDia.atTime(23, 59) : null;
+        if (cantidad > 0) {
+            LocalDateTime ultima = primeraDesde(inicio, inicio);
+            for (int i = 1; i < cantidad && ultima != null; i++) {
+                LocalDateTime siguiente = siguiente(inicio, ultima);
+                if (siguiente == null || (limite != null && siguiente.isAfter(limite))) {
+                    break;
+                }
+                ultima = siguiente;
+            }
+            if (ultima != null && (limite == null || ultima.isBefore(limite))) {
+                limite = ultima;
+            }
+        }
+        return limite;
+    }
+
+    private LocalDateTime enSemana(LocalDate lunes, LocalDateTime inicio, LocalDateTime desde) {
+        int mascara = dias != 0 ? dias : 1 << (inicio.getDayOfWeek().getValue() - 1);
+        for (int i = 0; i < 7; i++) {
+            if ((mascara & (1 << i)) != 0) {
+                LocalDateTime ocurrencia = lunes.plusDays(i).atTime(inicio.toLocalTime());
+                if (!ocurrencia.isBefore(desde)) {
+                    return ocurrencia;
+                }
+            }
+        }
+        return null;
+    }
+
+    // El mismo día del mes que el inicio, k meses después; null si ese mes no tiene ese día
+    private static LocalDateTime enMes(LocalDateTime inicio, long k) {
+        YearMonth mes = YearMonth.from(inicio).plusMonths(k);
+        if (inicio.getDayOfMonth() > mes.lengthOfMonth()) {
+            return null;
+        }
+        return mes.atDay(inicio.getDayOfMonth()).atTime(inicio.toLocalTime());
+    }
+
+    private static LocalDate lunes(LocalDate dia) {
+        return dia.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // "Cada semana (lu, mi)", "Cada 2 días", "Cada mes, 10 veces"
+    public String describir() {
+        String[] unidades = {"día", "semana", "mes"};
+        String[] plurales = {"días", "semanas", "meses"};
+        int i = frecuencia.ordinal();
+        StringBuilder texto = new StringBuilder(intervalo == 1 ? "Cada " + unidades[i] : "Cada " + intervalo + " " + plurales[i]);
+        if (dias != 0) {
+            StringBuilder nombres = new StringBuilder();
+            for (int d = 0; d < 7; d++) {
+                if ((dias & (1 << d)) != 0) {
+                    nombres.append(nombres.length() == 0 ? "" : ", ").append(DIAS[d].toLowerCase());
+                }
+            }
+            texto.append(" (").append(nombres).append(")");
+        }
+        if (cantidad > 0) {
+            texto.append(", ").append(cantidad).append(cantidad == 1 ? " vez" : " veces");
+        }
+        if (ultimoDia != null) {
+            texto.append(", hasta ").append(ultimoDia);
+        }
+        return texto.toString();
+    }
+
+    // Forma canónica, la que se guarda
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("FREQ=").append(frecuencia);
+        if (intervalo != 1) {
+            texto.append(";INTERVAL=").append(intervalo);
+        }
+        if (dias != 0) {
+            texto.append(";BYDAY=");
+            String separador = "";
+            for (int i = 0; i < 7; i++) {
+                if ((dias & (1 << i)) != 0) {
+                    texto.append(separador).append(DIAS[i]);
+                    separador = ",";
+                }
+            }
+        }
+        if (cantidad > 0) {
+            texto.append(";COUNT=").append(cantidad);
+        }
+        if (ultimoDia != null) {
+            texto.append(";UNTIL=").append(ultimoDia.format(DateTimeFormatter.BASIC_ISO_DATE));
+        }
+        return texto.toString();
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        return otro instanceof ReglaRecurrencia && toString().equals(otro.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
@@ -0,0 +1,138 @@
+package com.implementation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+// Tarea que se repite (lecturas semanales, laboratorios): se guarda una sola vez con su regla y
+// las ocurrencias se generan recién cuando se pide una ventana de fechas, solo las de esa ventana.
+// Cada ocurrencia es una Tarea con idTarea 0 e idSerie, identificada por su fecha original
+// ("yyyy-MM-dd HH:mm"), que también es la clave de sus excepciones.
+public class SerieTareas {
+    public static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private int idSerie;
+    private final int idUsuario;
+    private final String nombre;
+    private final String descripcion;
+    private final LocalDateTime inicio;
+    private final ReglaRecurrencia regla;
+    // Ninguna ocurrencia es posterior; null si la serie no termina
+    private final LocalDateTime limite;
+    // Fecha original -> cambios de esa ocurrencia. Al buscar por rango trae solo las del rango.
+    private final TreeMap<String, ExcepcionOcurrencia> excepciones = new TreeMap<>();
+
+    // inicio "yyyy-MM-dd HH:mm" (o "yyyy-MM-dd"); IllegalArgumentException si no se entiende
+    public SerieTareas(int idSerie, int idUsuario, String nombre, String descripcion, String inicio, ReglaRecurrencia regla) {
+        this.idSerie = idSerie;
+        this.idUsuario = idUsuario;
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+        this.inicio = aFecha(inicio);
+        this.regla = regla;
+        this.limite = regla.limite(this.inicio);
+    }
+
+    public static LocalDateTime aFecha(String fecha) {
+        try {
+            return fecha.length() == 10 ? LocalDate.parse(fecha).atStartOfDay() : LocalDateTime.parse(fecha, FORMATO);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException("Fecha inválida: " + fecha);
+        }
+    }
+
+    public int getIdSerie() { return idSerie; }
+    public void setIdSerie(int idSerie) { this.idSerie = idSerie; }
+    public int getIdUsuario() { return idUsuario; }
+    public String getNombre() { return nombre; }
+    public String getDescripcion() { return descripcion; }
+    public ReglaRecurrencia getRegla() { return regla; }
+
+    public String getInicio() {
+        return inicio.format(FORMATO);
+    }
+
+    // Última fecha posible de una ocurrencia, o null si la serie no termina. Se guarda junto a la
+    // serie para que la búsqueda por rango la descarte sin expandir la regla.
+    public String getFin() {
+        return limite == null ? null : limite.format(FORMATO);
+    }
+
+    public Collection<ExcepcionOcurrencia> getExcepciones() {
+        return excepciones.values();
+    }
+
+    public ExcepcionOcurrencia getExcepcion(String ocurrencia) {
+        return excepciones.get(ocurrencia);
+    }
+
+    // Agrega o reemplaza la excepción de su ocurrencia; una vacía la quita
+    public void ponerExcepcion(ExcepcionOcurrencia excepcion) {
+        if (excepcion.esVacia()) {
+            excepciones.remove(excepcion.getOcurrencia());
+        } else {
+            excepciones.put(excepcion.getOcurrencia(), excepcion);
+        }
+    }
+
+    // Copia con las excepciones que afectan a desde <= fecha < hasta (por fecha original o nueva)
+    public SerieTareas copia(String desde, String hasta) {
+        SerieTareas copia = new SerieTareas(idSerie, idUsuario, nombre, descripcion, getInicio(), regla);
+        for (ExcepcionOcurrencia excepcion : excepciones.values()) {
+            if (desde == null || enVentana(excepcion.getOcurrencia(), desde, hasta)
+                    || (excepcion.getFechaEntrega() != null && enVentana(excepcion.getFechaEntrega(), desde, hasta))) {
+                copia.excepciones.put(excepcion.getOcurrencia(), excepcion);
+            }
+        }
+        return copia;
+    }
+
+    // Las ocurrencias con desde <= fechaEntrega < hasta, en orden, ya con sus excepciones: las
+    // canceladas no aparecen y las movidas aparecen en su fecha nueva (también si vienen de fuera)
+    public List<Tarea> ocurrenciasEntre(String desde, String hasta) {
+        List<Tarea> resultado = new ArrayList<>();
+        LocalDateTime finVentana = aFecha(hasta);
+        for (LocalDateTime fecha = regla.primeraDesde(inicio, aFecha(desde));
+                fecha != null && fecha.isBefore(finVentana) && (limite == null || !fecha.isAfter(limite));
+                fecha = regla.siguiente(inicio, fecha)) {
+            String original = fecha.format(FORMATO);
+            ExcepcionOcurrencia excepcion = excepciones.get(original);
+            if (excepcion == null) {
+                resultado.add(ocurrencia(original, original, false));
+            } else if (!excepcion.isCancelada() && enVentana(excepcion.fechaEfectiva(), desde, hasta)) {
+                resultado.add(ocurrencia(original, excepcion.fechaEfectiva(), excepcion.isCompletada()));
+            }
+        }
+        for (ExcepcionOcurrencia excepcion : excepciones.values()) {
+            String nueva = excepcion.getFechaEntrega();
+            if (!excepcion.isCancelada() && nueva != null && enVentana(nueva, desde, hasta)
+                    && !enVentana(excepcion.getOcurrencia(), desde, hasta)) {
+                resultado.add(ocurrencia(excepcion.getOcurrencia(), nueva, excepcion.isCompletada()));
+            }
+        }
+        if (resultado.size() > 1) {
+            resultado.sort(Comparator.comparing(Tarea::getFechaEntrega));
+        }
+        return resultado;
+    }
+
+    private Tarea ocurrencia(String original, String fechaEntrega, boolean completada) {
+        Tarea tarea = new Tarea(0, idUsuario, nombre, descripcion);
+        tarea.setIdSerie(idSerie);
+        tarea.setOcurrencia(original);
+        tarea.setFechaEntrega(fechaEntrega);
+        tarea.setCompletada(completada);
+        return tarea;
+    }
+
+    // Igual que el rango de las consultas: compara las fechas como texto
+    private static boolean enVentana(String fecha, String desde, String hasta) {
+        return fecha.compareTo(desde) >= 0 && fecha.compareTo(hasta) < 0;
+    }
+}
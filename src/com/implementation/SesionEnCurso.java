@@ -0,0 +1,36 @@
+package com.implementation;
+
+// Cronómetro de una tarea que todavía no se detuvo, en marcha o en pausa
+public class SesionEnCurso {
+    private final int idTarea;
+    // Cuándo se inició la sesión (milisegundos desde 1970)
+    private final long iniciada;
+    // Tiempo de los tramos ya cerrados por una pausa
+    private final long acumulado;
+    // Inicio del tramo en marcha, o -1 si está en pausa
+    private final long tramoDesde;
+
+    public SesionEnCurso(int idTarea, long iniciada, long acumulado, long tramoDesde) {
+        this.idTarea = idTarea;
+        this.iniciada = iniciada;
+        this.acumulado = acumulado;
+        this.tramoDesde = tramoDesde;
+    }
+
+    public int getIdTarea() {
+        return idTarea;
+    }
+
+    public long getIniciada() {
+        return iniciada;
+    }
+
+    public boolean isEnPausa() {
+        return tramoDesde == -1;
+    }
+
+    // Tiempo estudiado en esta sesión hasta el instante dado
+    public long transcurrido(long ahora) {
+        return acumulado + (tramoDesde == -1 ? 0 : Math.max(0, ahora - tramoDesde));
+    }
+}
@@ -1,13 +1,28 @@
 package com.implementation;
 
 public class Tarea {
+    // Largo máximo de la vista previa de la descripción que muestra el tablero
+    public static final int LARGO_RESUMEN = 140;
+
     private int idTarea;
     private int idUsuario;
+    // 0 si es una tarea de primer nivel
+    private int idTareaPadre;
     private String nombre;
     private String descripcion;
     private boolean completada = false;
+    // Solo cuenta mientras no está completada: "En progreso" en lugar de "Pendiente" en el Kanban
+    private boolean enProgreso;
+    // Clave del orden manual en el Kanban; null si nunca se ordenó
+    private String orden;
     private String fechaEntrega;
     private String googleEventId;
+    private boolean descripcionCompleta = true;
+    // Avance de las subtareas; solo lo completa quien lo pide (el tablero), por defecto NINGUNO
+    private ProgresoSubtareas progreso = ProgresoSubtareas.NINGUNO;
+    // Ocurrencia generada de una serie (idTarea 0): la serie y su fecha original. 0 si es una tarea guardada.
+    private int idSerie;
+    private String ocurrencia;
 
     public Tarea(int idTarea, int idUsuario, String nombre, String descripcion) {
         this.idTarea = idTarea;
@@ -19,9 +34,26 @@ public class Tarea {
     public int getIdTarea() { return idTarea; }
     public void setIdTarea(int idTarea) { this.idTarea = idTarea; }
     public int getIdUsuario() { return idUsuario; }
+    public int getIdTareaPadre() { return idTareaPadre; }
+    public void setIdTareaPadre(int idTareaPadre) { this.idTareaPadre = idTareaPadre; }
     public String getNombre() { return nombre; }
     public String getDescripcion() { return descripcion; }
-    
+
+    public void setDescripcion(String descripcion) {
+        this.descripcion = descripcion;
+        this.descripcionCompleta = true;
+    }
+
+    // Guarda solo la vista previa; la descripción completa se carga al abrir la tarea
+    public void setResumenDescripcion(String resumen) {
+        this.descripcion = resumen;
+        this.descripcionCompleta = resumen != null && resumen.length() < LARGO_RESUMEN;
+    }
+
+    public boolean isDescripcionCompleta() {
+        return descripcionCompleta;
+    }
+
     public boolean isCompletada() {
         return completada;
     }
@@ -30,6 +62,31 @@ public class Tarea {
         this.completada = completada;
     }
 
+    public boolean isEnProgreso() {
+        return enProgreso;
+    }
+
+    public void setEnProgreso(boolean enProgreso) {
+        this.enProgreso = enProgreso;
+    }
+
+    public EstadoTarea getEstado() {
+        return completada ? EstadoTarea.COMPLETADA : enProgreso ? EstadoTarea.EN_PROGRESO : EstadoTarea.PENDIENTE;
+    }
+
+    public void setEstado(EstadoTarea estado) {
+        this.completada = estado == EstadoTarea.COMPLETADA;
+        this.enProgreso = estado == EstadoTarea.EN_PROGRESO;
+    }
+
+    public String getOrden() {
+        return orden;
+    }
+
+    public void setOrden(String orden) {
+        this.orden = orden;
+    }
+
     public String getFechaEntrega() {
         return fechaEntrega;
     }
@@ -38,6 +95,50 @@ public class Tarea {
         this.fechaEntrega = fechaEntrega;
     }
 
+    // Otra instancia con los mismos datos, para cambiarla sin tocar la que leen otros hilos
+    public Tarea copia() {
+        Tarea copia = new Tarea(idTarea, idUsuario, nombre, descripcion);
+        copia.idTareaPadre = idTareaPadre;
+        copia.progreso = progreso;
+        copia.idSerie = idSerie;
+        copia.ocurrencia = ocurrencia;
+        copia.completada = completada;
+        copia.enProgreso = enProgreso;
+        copia.orden = orden;
+        copia.fechaEntrega = fechaEntrega;
+        copia.googleEventId = googleEventId;
+        copia.descripcionCompleta = descripcionCompleta;
+        return copia;
+    }
+
+    public ProgresoSubtareas getProgreso() {
+        return progreso;
+    }
+
+    public void setProgreso(ProgresoSubtareas progreso) {
+        this.progreso = progreso;
+    }
+
+    public int getIdSerie() {
+        return idSerie;
+    }
+
+    public void setIdSerie(int idSerie) {
+        this.idSerie = idSerie;
+    }
+
+    public boolean esOcurrencia() {
+        return idSerie > 0;
+    }
+
+    public String getOcurrencia() {
+        return ocurrencia;
+    }
+
+    public void setOcurrencia(String ocurrencia) {
+        this.ocurrencia = ocurrencia;
+    }
+
     public String getGoogleEventId() {
         return googleEventId;
     }
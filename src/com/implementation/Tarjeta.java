@@ -0,0 +1,91 @@
+package com.implementation;
+
+import java.time.LocalDate;
+
+// Tarjeta de repaso (pregunta y respuesta) de una tarea, con su estado de repetición espaciada al
+// estilo SM-2. Cada repaso se califica de 0 a 5: con 3 o más el intervalo crece (1 día, 6 días y
+// después el anterior por la facilidad) y con menos la tarjeta vuelve a empezar al día siguiente.
+// La facilidad sube o baja según la calificación y nunca queda por debajo de FACILIDAD_MINIMA.
+public class Tarjeta {
+    public static final double FACILIDAD_INICIAL = 2.5;
+    public static final double FACILIDAD_MINIMA = 1.3;
+    // Cien años: tope para que el intervalo (y la fecha) no crezcan sin límite con los aciertos
+    public static final int INTERVALO_MAXIMO = 36500;
+
+    private int idTarjeta;
+    private final int idUsuario;
+    private final int idTarea;
+    private final String frente;
+    private final String reverso;
+    // Repasos aprobados seguidos desde el último olvido
+    private int repeticiones;
+    // Días entre el último repaso y el próximo
+    private int intervalo;
+    private double facilidad = FACILIDAD_INICIAL;
+    // "yyyy-MM-dd"; una tarjeta nueva se repasa el día en que se crea
+    private String proximoRepaso;
+
+    public Tarjeta(int idTarjeta, int idUsuario, int idTarea, String frente, String reverso) {
+        this.idTarjeta = idTarjeta;
+        this.idUsuario = idUsuario;
+        this.idTarea = idTarea;
+        this.frente = frente;
+        this.reverso = reverso;
+        this.proximoRepaso = LocalDate.now().toString();
+    }
+
+    public int getIdTarjeta() { return idTarjeta; }
+    public void setIdTarjeta(int idTarjeta) { this.idTarjeta = idTarjeta; }
+    public int getIdUsuario() { return idUsuario; }
+    public int getIdTarea() { return idTarea; }
+    public String getFrente() { return frente; }
+    public String getReverso() { return reverso; }
+    public int getRepeticiones() { return repeticiones; }
+    public int getIntervalo() { return intervalo; }
+    public double getFacilidad() { return facilidad; }
+    public String getProximoRepaso() { return proximoRepaso; }
+
+    // Al leerla de la base
+    public void setRepaso(int repeticiones, int intervalo, double facilidad, String proximoRepaso) {
+        this.repeticiones = repeticiones;
+        this.intervalo = intervalo;
+        this.facilidad = facilidad;
+        this.proximoRepaso = proximoRepaso;
+    }
+
+    // Día del próximo repaso contado desde 1970-01-01: es la prioridad en la cola de repasos
+    // (al armar la cola se llama una vez por tarjeta: se lee a mano, LocalDate.parse es mucho más lento)
+    public long diaProximoRepaso() {
+        return LocalDate.of(Integer.parseInt(proximoRepaso, 0, 4, 10), Integer.parseInt(proximoRepaso, 5, 7, 10),
+                Integer.parseInt(proximoRepaso, 8, 10, 10)).toEpochDay();
+    }
+
+    // Aplica un repaso hecho hoy con la calificación dada (0 = no se acordó, 5 = perfecta)
+    public void calificar(int calidad, LocalDate hoy) {
+        if (calidad < 0 || calidad > 5) {
+            throw new IllegalArgumentException("Calificación inválida: " + calidad);
+        }
+        if (calidad < 3) {
+            repeticiones = 0;
+            intervalo = 1;
+        } else {
+            if (repeticiones == 0) {
+                intervalo = 1;
+            } else if (repeticiones == 1) {
+                intervalo = 6;
+            } else {
+                intervalo = (int) Math.min(INTERVALO_MAXIMO, Math.round(intervalo * facilidad));
+            }
+            repeticiones++;
+        }
+        int error = 5 - calidad;
+        facilidad = Math.max(FACILIDAD_MINIMA, facilidad + 0.1 - error * (0.08 + error * 0.02));
+        proximoRepaso = hoy.plusDays(intervalo).toString();
+    }
+
+    public Tarjeta copia() {
+        Tarjeta copia = new Tarjeta(idTarjeta, idUsuario, idTarea, frente, reverso);
+        copia.setRepaso(repeticiones, intervalo, facilidad, proximoRepaso);
+        return copia;
+    }
+}
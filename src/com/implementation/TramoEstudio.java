@@ -0,0 +1,62 @@
+package com.implementation;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+// Un tramo de estudio ya cerrado: el cronómetro de una tarea estuvo en marcha desde inicio
+// (milisegundos desde 1970) durante duracion. Los que cruzan la medianoche se guardan partidos en
+// uno por día, así el tiempo de un día es una suma sobre dia sin repartir nada al leer.
+public class TramoEstudio {
+    private final int idUsuario;
+    private final int idTarea;
+    // "yyyy-MM-dd" en la zona del equipo
+    private final String dia;
+    private final long inicio;
+    private final long duracion;
+
+    public TramoEstudio(int idUsuario, int idTarea, String dia, long inicio, long duracion) {
+        this.idUsuario = idUsuario;
+        this.idTarea = idTarea;
+        this.dia = dia;
+        this.inicio = inicio;
+        this.duracion = duracion;
+    }
+
+    // Agrega a destino [inicio, fin) partido en la medianoche de cada día; nada si está vacío
+    public static void partir(int idUsuario, int idTarea, long inicio, long fin, ZoneId zona, List<TramoEstudio> destino) {
+        while (inicio < fin) {
+            LocalDate dia = Instant.ofEpochMilli(inicio).atZone(zona).toLocalDate();
+            long medianoche = dia.plusDays(1).atStartOfDay(zona).toInstant().toEpochMilli();
+            long corte = Math.min(fin, medianoche);
+            destino.add(new TramoEstudio(idUsuario, idTarea, dia.toString(), inicio, corte - inicio));
+            inicio = corte;
+        }
+    }
+
+    public int getIdUsuario() {
+        return idUsuario;
+    }
+
+    public int getIdTarea() {
+        return idTarea;
+    }
+
+    public String getDia() {
+        return dia;
+    }
+
+    public long getInicio() {
+        return inicio;
+    }
+
+    public long getDuracion() {
+        return duracion;
+    }
+
+    @Override
+    public String toString() {
+        return dia + " tarea " + idTarea + ": " + duracion + " ms";
+    }
+}
@@ -4,10 +4,13 @@ import com.database.GestorRegistro;
 import com.windowP.PrincipalWindow;
 import com.components.PanelRedondeado;
 import com.components.SimpleSlideAnimation;
+import com.utils.LineaTiempoArranque;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class login extends JFrame {
     private GestorRegistro gestorRegistro;
@@ -15,7 +18,11 @@ public class login extends JFrame {
     private CardLayout layout;
 
     public login() {
-        gestorRegistro = new GestorRegistro();
+        this(new GestorRegistro());
+    }
+
+    public login(GestorRegistro gestorRegistro) {
+        this.gestorRegistro = gestorRegistro;
         initComponents();
         layout = new CardLayout();
         FlipFrame.setLayout(layout);
@@ -829,6 +836,9 @@ public class login extends JFrame {
     }
 
     public static void main(String args[]) {
+        LineaTiempoArranque.marcar("main");
+        // La base empieza a abrirse en segundo plano mientras se instala Nimbus y se arma la ventana
+        GestorRegistro gestor = new GestorRegistro();
         try {
             for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
                 if ("Nimbus".equals(info.getName())) {
@@ -840,7 +850,28 @@ public class login extends JFrame {
             java.util.logging.Logger.getLogger(login.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
         }
 
-        java.awt.EventQueue.invokeLater(() -> new login().setVisible(true));
+        LineaTiempoArranque.marcar("Nimbus instalado");
+
+        java.awt.EventQueue.invokeLater(() -> {
+            login ventana = new login(gestor);
+            LineaTiempoArranque.marcar("ventana de inicio armada");
+            ventana.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent evt) {
+                    LineaTiempoArranque.marcar("ventana de inicio visible");
+                    // El almacenamiento se abre en otro hilo y puede terminar después de la ventana:
+                    // se reporta cuando están las dos fases
+                    gestor.alAbrirAlmacenamiento(() -> {
+                        LineaTiempoArranque.reportar();
+                        // Corrida de entrenamiento para el archivo AppCDS (ver target "cds" en build.xml)
+                        if (Boolean.getBoolean("arranque.entrenamiento")) {
+                            System.exit(0);
+                        }
+                    });
+                }
+            });
+            ventana.setVisible(true);
+        });
     }
 
     private JPanel jPanel2;
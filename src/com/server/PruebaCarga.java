@@ -0,0 +1,174 @@
+package com.server;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Prueba de carga de ServidorApi en localhost: cada usuario virtual (un hilo virtual) se registra,
+// inicia sesión, crea tareas, recorre su tablero por páginas, cambia fechas y borra todo.
+// Al final imprime peticiones por segundo y latencias p50/p95/p99.
+// Uso: java com.server.PruebaCarga [url=http://localhost:8080] [usuarios=200] [tareas=20]
+//      java com.server.PruebaCarga embebido [almacenamiento=memoria] ...   (levanta el servidor en este proceso)
+public class PruebaCarga {
+    private static final AtomicInteger errores = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        int usuarios = 200;
+        int tareas = 20;
+        boolean embebido = false;
+        String almacenamiento = "memoria";
+        for (String arg : args) {
+            if (arg.startsWith("url=")) {
+                url = arg.substring(4);
+            } else if (arg.startsWith("usuarios=")) {
+                usuarios = Integer.parseInt(arg.substring(9));
+            } else if (arg.startsWith("tareas=")) {
+                tareas = Integer.parseInt(arg.substring(7));
+            } else if (arg.startsWith("almacenamiento=")) {
+                almacenamiento = arg.substring(15);
+            } else if (arg.equals("embebido")) {
+                embebido = true;
+            }
+        }
+
+        ServidorApi servidor = null;
+        if (embebido) {
+            servidor = new ServidorApi(0, ServidorApi.crearGestor(almacenamiento));
+            servidor.iniciar();
+            url = "http://localhost:" + servidor.getPuerto();
+        }
+
+        HttpClient cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String base = url;
+        int tareasPorUsuario = tareas;
+        String corrida = Long.toString(System.currentTimeMillis(), 36);
+        List<long[]> latenciasPorUsuario = new ArrayList<>();
+        for (int i = 0; i < usuarios; i++) {
+            latenciasPorUsuario.add(new long[4 + tareasPorUsuario * 5 + 8]);
+        }
+
+        long inicio = System.nanoTime();
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < usuarios; i++) {
+                int usuario = i;
+                hilos.submit(() -> simularUsuario(cliente, base, "carga-" + corrida + "-" + usuario + "@prueba.com",
+                        tareasPorUsuario, latenciasPorUsuario.get(usuario)));
+            }
+        }
+        long totalNs = System.nanoTime() - inicio;
+
+        List<Long> todas = new ArrayList<>();
+        for (long[] latencias : latenciasPorUsuario) {
+            for (long latencia : latencias) {
+                if (latencia > 0) {
+                    todas.add(latencia);
+                }
+            }
+        }
+        long[] ordenadas = todas.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(ordenadas);
+        double segundos = totalNs / 1e9;
+        System.out.printf("%d usuarios, %d peticiones en %.2f s: %.0f pet/s, %d errores%n",
+                usuarios, ordenadas.length, segundos, ordenadas.length / segundos, errores.get());
+        if (ordenadas.length > 0) {
+            System.out.printf("latencia p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, máx %.2f ms%n",
+                    percentil(ordenadas, 50), percentil(ordenadas, 95), percentil(ordenadas, 99),
+                    ordenadas[ordenadas.length - 1] / 1e6);
+        }
+
+        if (servidor != null) {
+            servidor.detener();
+        }
+    }
+
+    private static void simularUsuario(HttpClient cliente, String base, String correo, int tareas, long[] latencias) {
+        int[] n = {0};
+        try {
+            pedir(cliente, latencias, n, "POST", base + "/api/usuarios", null,
+                    "{\"nombre\":\"Carga\",\"correo\":\"" + correo + "\",\"contrasena\":\"clave\"}");
+            JsonObject sesion = pedir(cliente, latencias, n, "POST", base + "/api/sesiones", null,
+                    "{\"correo\":\"" + correo + "\",\"contrasena\":\"clave\"}");
+            if (sesion == null) {
+                return;
+            }
+            String token = sesion.get("token").getAsString();
+
+            int[] ids = new int[tareas];
+            for (int i = 0; i < tareas; i++) {
+                JsonObject creada = pedir(cliente, latencias, n, "POST", base + "/api/tareas", token,
+                        "{\"nombre\":\"Tarea " + i + "\",\"descripcion\":\"Descripción " + i + "\",\"fechaEntrega\":\"2025-"
+                        + String.format("%02d-%02d", 1 + i % 12, 1 + i % 28) + " 10:00\"}");
+                ids[i] = creada == null ? -1 : creada.get("idTarea").getAsInt();
+            }
+
+            // Recorre el tablero en páginas de 10 siguiendo la clave de la última tarea
+            String fecha = "";
+            int id = 0;
+            while (true) {
+                JsonObject pagina = pedir(cliente, latencias, n, "GET", base + "/api/tareas?limite=10&id=" + id
+                        + "&fecha=" + java.net.URLEncoder.encode(fecha, java.nio.charset.StandardCharsets.UTF_8), token, null);
+                if (pagina == null || pagina.getAsJsonArray("tareas").size() < 10) {
+                    break;
+                }
+                JsonObject ultima = pagina.getAsJsonArray("tareas").get(9).getAsJsonObject();
+                fecha = ultima.get("fechaEntrega").getAsString();
+                id = ultima.get("idTarea").getAsInt();
+            }
+
+            for (int i = 0; i < tareas; i++) {
+                if (ids[i] == -1) {
+                    continue;
+                }
+                pedir(cliente, latencias, n, "GET", base + "/api/tareas/" + ids[i], token, null);
+                pedir(cliente, latencias, n, "PUT", base + "/api/tareas/" + ids[i] + "/fecha", token, "{\"fechaEntrega\":\"2026-01-01 00:00\"}");
+                pedir(cliente, latencias, n, "DELETE", base + "/api/tareas/" + ids[i], token, null);
+            }
+            pedir(cliente, latencias, n, "DELETE", base + "/api/sesiones", token, null);
+        } catch (Exception e) {
+            errores.incrementAndGet();
+            System.err.println("Error en usuario " + correo + ": " + e.getMessage());
+        }
+    }
+
+    // Devuelve el cuerpo como JSON, o null si la respuesta no fue 2xx
+    private static JsonObject pedir(HttpClient cliente, long[] latencias, int[] n, String metodo, String url, String token, String cuerpo) throws Exception {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .method(metodo, cuerpo == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(cuerpo));
+        if (token != null) {
+            peticion.header("Authorization", "Bearer " + token);
+        }
+        if (cuerpo != null) {
+            peticion.header("Content-Type", "application/json");
+        }
+        long inicio = System.nanoTime();
+        HttpResponse<String> respuesta = cliente.send(peticion.build(), HttpResponse.BodyHandlers.ofString());
+        if (n[0] < latencias.length) {
+            latencias[n[0]++] = System.nanoTime() - inicio;
+        }
+        if (respuesta.statusCode() / 100 != 2) {
+            errores.incrementAndGet();
+            return null;
+        }
+        return JsonParser.parseString(respuesta.body()).getAsJsonObject();
+    }
+
+    private static double percentil(long[] ordenadas, int percentil) {
+        int indice = Math.min(ordenadas.length - 1, (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1);
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+}
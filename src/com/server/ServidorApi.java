@@ -0,0 +1,684 @@
+package com.server;
+
+import com.database.CampoTarea;
+import com.database.GestorRegistro;
+import com.database.MotorPomodoro;
+import com.database.TaskRepository;
+import com.database.UserRepository;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.implementation.ActividadAnual;
+import com.implementation.EstadisticasEstudio;
+import com.implementation.ExcepcionOcurrencia;
+import com.implementation.ReglaRecurrencia;
+import com.implementation.SerieTareas;
+import com.implementation.SesionEnCurso;
+import com.implementation.Tarea;
+import com.implementation.Tarjeta;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Modo servidor sin interfaz: expone las operaciones de GestorRegistro como una API JSON sobre HTTP
+// para atender a muchos estudiantes desde un solo proceso. Cada petición corre en su propio hilo virtual.
+//
+//   GET    /api/salud
+//   POST   /api/usuarios                 {nombre, correo, contrasena}
+//   POST   /api/verificaciones           {correo}
+//   POST   /api/verificaciones/confirmar {correo, codigo}
+//   POST   /api/sesiones                 {correo, contrasena}  -> {token, idUsuario, nombre}
+//   DELETE /api/sesiones
+//   GET    /api/tareas?fecha=&id=&limite=   (paginación por clave, solo primer nivel)  o  ?desde=&hasta=  (rango,
+//                                        con las ocurrencias de las series: idTarea 0, idSerie y ocurrencia)
+//   POST   /api/tareas                   {nombre, descripcion, fechaEntrega}
+//   GET    /api/tareas/{id}
+//   PUT    /api/tareas/{id}/fecha        {fechaEntrega}
+//   GET    /api/tareas/{id}/subtareas
+//   POST   /api/tareas/{id}/subtareas    {nombre, descripcion, fechaEntrega}
+//   DELETE /api/tareas/{id}               (con sus subtareas)
+//   POST   /api/series                   {nombre, descripcion, inicio, regla}  (regla tipo RRULE: "FREQ=WEEKLY;BYDAY=MO,WE")
+//   GET    /api/series/{id}              (con todas sus excepciones)
+//   DELETE /api/series/{id}
+//   PUT    /api/series/{id}/excepciones  {ocurrencia, cancelada, fechaEntrega, completada}  (todo en false/null la quita)
+//   POST   /api/estudio                  {idTarea, evento: iniciar|pausar|reanudar|detener}  (cronómetro de estudio)
+//   GET    /api/estudio?desde=&hasta=    -> {porDia, porTarea, enCurso}  (milisegundos, días "yyyy-MM-dd")
+//   POST   /api/pomodoro                 {idTarea, accion: iniciar|pausar|reanudar|detener}  (el trabajo cuenta como estudio)
+//   GET    /api/pomodoro                 -> [{idTarea, fase, restanteMs, completados, enPausa}]
+//   POST   /api/tarjetas                 {idTarea, frente, reverso}  -> {idTarjeta}  (tarjeta de repaso de la tarea)
+//   GET    /api/tarjetas?idTarea=
+//   DELETE /api/tarjetas/{id}
+//   GET    /api/repasos?limite=          (las que tocan hoy o están atrasadas, las más atrasadas primero)
+//   POST   /api/repasos                  {idTarjeta, calidad: 0..5}  -> la tarjeta con su próximo repaso
+//   GET    /api/recomendaciones?k=       (las k tareas pendientes que más conviene estudiar ahora, la mejor primero)
+//   GET    /api/actividad                -> {desde, completadas[], minutos[], rachaActual, rachaMaxima}  (un valor por día hasta hoy)
+//   GET    /api/estadisticas             -> {total, completadas, pendientesSemana, vencidas, promedioEntregaMs}
+//
+// Las rutas de /api/tareas, /api/series, /api/estudio, /api/pomodoro, /api/tarjetas, /api/repasos, /api/recomendaciones, /api/actividad, /api/estadisticas y DELETE /api/sesiones piden "Authorization: Bearer <token>".
+// Uso: java -Dservidor.puerto=8080 -Dalmacenamiento=sqlite com.server.ServidorApi
+public class ServidorApi {
+    private static final int LIMITE_PAGINA = 200;
+    private static final int ESPERA_CIERRE_S = 5;
+
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+    private final GestorRegistro gestorRegistro;
+    private final Map<String, Integer> sesiones = new ConcurrentHashMap<>();
+    private final Gson gson = new Gson();
+    private final SecureRandom random = new SecureRandom();
+
+    // Error con el código HTTP que se le devuelve al cliente
+    private static final class ErrorApi extends RuntimeException {
+        final int codigo;
+
+        ErrorApi(int codigo, String mensaje) {
+            super(mensaje);
+            this.codigo = codigo;
+        }
+    }
+
+    public ServidorApi(int puerto, GestorRegistro gestorRegistro) throws IOException {
+        this.gestorRegistro = gestorRegistro;
+        // Un servidor atiende a muchos usuarios: la pila de deshacer compartida no tiene sentido aquí
+        gestorRegistro.setDeshacerHabilitado(false);
+        hilos = Executors.newVirtualThreadPerTaskExecutor();
+        servidor = HttpServer.create(new InetSocketAddress(puerto), 1024);
+        servidor.setExecutor(hilos);
+        servidor.createContext("/api/", this::atender);
+    }
+
+    public void iniciar() {
+        servidor.start();
+        System.out.println("Servidor escuchando en el puerto " + getPuerto());
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    // Deja de aceptar conexiones, espera a que terminen las peticiones en curso y cierra la base
+    public void detener() {
+        servidor.stop(ESPERA_CIERRE_S);
+        hilos.close();
+        gestorRegistro.cerrarConexion();
+        System.out.println("Servidor detenido");
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        try {
+            Object respuesta = enrutar(intercambio);
+            responder(intercambio, 200, respuesta);
+        } catch (ErrorApi e) {
+            responder(intercambio, e.codigo, Map.of("error", e.getMessage()));
+        } catch (JsonParseException | IllegalStateException | NumberFormatException | UnsupportedOperationException e) {
+            responder(intercambio, 400, Map.of("error", "Petición inválida"));
+        } catch (Exception e) {
+            System.err.println("Error al atender " + intercambio.getRequestURI() + ": " + e.getMessage());
+            responder(intercambio, 500, Map.of("error", "Error interno"));
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    private Object enrutar(HttpExchange intercambio) throws IOException {
+        String metodo = intercambio.getRequestMethod();
+        String[] partes = intercambio.getRequestURI().getPath().split("/");
+        // partes[0] es "" y partes[1] es "api"
+        String recurso = partes.length > 2 ? partes[2] : "";
+
+        switch (recurso) {
+            case "salud":
+                return Map.of("estado", "ok");
+            case "usuarios":
+                exigirMetodo(metodo, "POST");
+                return registrarUsuario(leerCuerpo(intercambio));
+            case "verificaciones":
+                exigirMetodo(metodo, "POST");
+                if (partes.length > 3 && "confirmar".equals(partes[3])) {
+                    JsonObject cuerpo = leerCuerpo(intercambio);
+                    return Map.of("valido", gestorRegistro.verificarCodigo(texto(cuerpo, "correo"), texto(cuerpo, "codigo")));
+                }
+                return Map.of("enviado", gestorRegistro.enviarCodigoVerificacion(texto(leerCuerpo(intercambio), "correo")));
+            case "sesiones":
+                if ("DELETE".equals(metodo)) {
+                    sesiones.remove(token(intercambio));
+                    return Map.of("cerrada", true);
+                }
+                exigirMetodo(metodo, "POST");
+                return iniciarSesion(leerCuerpo(intercambio));
+            case "tareas":
+                return atenderTareas(intercambio, metodo, partes, usuarioAutenticado(intercambio));
+            case "series":
+                return atenderSeries(intercambio, metodo, partes, usuarioAutenticado(intercambio));
+            case "estudio":
+                return atenderEstudio(intercambio, metodo, usuarioAutenticado(intercambio));
+            case "pomodoro":
+                return atenderPomodoro(intercambio, metodo, usuarioAutenticado(intercambio));
+            case "tarjetas":
+                return atenderTarjetas(intercambio, metodo, partes, usuarioAutenticado(intercambio));
+            case "repasos":
+                return atenderRepasos(intercambio, metodo, usuarioAutenticado(intercambio));
+            case "recomendaciones":
+                exigirMetodo(metodo, "GET");
+                return recomendar(consulta(intercambio), usuarioAutenticado(intercambio));
+            case "actividad":
+                exigirMetodo(metodo, "GET");
+                return aJson(gestorRegistro.obtenerActividad(usuarioAutenticado(intercambio)));
+            case "estadisticas":
+                exigirMetodo(metodo, "GET");
+                return aJson(gestorRegistro.obtenerEstadisticas(usuarioAutenticado(intercambio)));
+            default:
+                throw new ErrorApi(404, "Ruta desconocida");
+        }
+    }
+
+    private Object registrarUsuario(JsonObject cuerpo) {
+        String nombre = texto(cuerpo, "nombre");
+        String correo = texto(cuerpo, "correo");
+        String contrasena = texto(cuerpo, "contrasena");
+        if (nombre == null || correo == null || contrasena == null || correo.isBlank() || contrasena.isBlank()) {
+            throw new ErrorApi(400, "Faltan nombre, correo o contrasena");
+        }
+        if (!gestorRegistro.registrarUsuario(nombre, "", correo, contrasena)) {
+            throw new ErrorApi(409, "El correo ya está registrado");
+        }
+        return Map.of("registrado", true);
+    }
+
+    private Object iniciarSesion(JsonObject cuerpo) {
+        String correo = texto(cuerpo, "correo");
+        String contrasena = texto(cuerpo, "contrasena");
+        int idUsuario = correo == null || contrasena == null ? -1 : gestorRegistro.validarCredenciales(correo, contrasena);
+        if (idUsuario == -1) {
+            throw new ErrorApi(401, "Correo o contraseña incorrectos");
+        }
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        StringBuilder token = new StringBuilder();
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        sesiones.put(token.toString(), idUsuario);
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("token", token.toString());
+        respuesta.put("idUsuario", idUsuario);
+        respuesta.put("nombre", gestorRegistro.obtenerNombreUsuario(idUsuario));
+        return respuesta;
+    }
+
+    private Object atenderTareas(HttpExchange intercambio, String metodo, String[] partes, int idUsuario) throws IOException {
+        if (partes.length == 3) {
+            if ("POST".equals(metodo)) {
+                JsonObject cuerpo = leerCuerpo(intercambio);
+                String nombre = texto(cuerpo, "nombre");
+                if (nombre == null || nombre.isBlank()) {
+                    throw new ErrorApi(400, "El título no puede estar vacío");
+                }
+                int idTarea = gestorRegistro.agregarTarea(idUsuario, nombre.trim(), texto(cuerpo, "descripcion"), texto(cuerpo, "fechaEntrega"));
+                if (idTarea == -1) {
+                    throw new ErrorApi(500, "Error al guardar la tarea");
+                }
+                return Map.of("idTarea", idTarea);
+            }
+            exigirMetodo(metodo, "GET");
+            return listarTareas(consulta(intercambio), idUsuario);
+        }
+
+        int idTarea = Integer.parseInt(partes[3]);
+        Tarea tarea = gestorRegistro.obtenerTareaPorId(idTarea);
+        // Una tarea de otro usuario se trata igual que una inexistente
+        if (tarea == null || tarea.getIdUsuario() != idUsuario) {
+            throw new ErrorApi(404, "Tarea no encontrada");
+        }
+        if (partes.length == 5 && "fecha".equals(partes[4])) {
+            exigirMetodo(metodo, "PUT");
+            String fechaEntrega = texto(leerCuerpo(intercambio), "fechaEntrega");
+            gestorRegistro.actualizarFechaEntrega(idTarea, fechaEntrega);
+            tarea.setFechaEntrega(fechaEntrega);
+            return aJson(tarea);
+        }
+        if (partes.length == 5 && "subtareas".equals(partes[4])) {
+            return atenderSubtareas(intercambio, metodo, idTarea);
+        }
+        if ("DELETE".equals(metodo)) {
+            // También elimina sus subtareas
+            gestorRegistro.eliminarTarea(idTarea);
+            return Map.of("eliminada", idTarea);
+        }
+        exigirMetodo(metodo, "GET");
+        return aJson(tarea);
+    }
+
+    // GET: hijas directas de la tarea. POST: agrega una subtarea.
+    private Object atenderSubtareas(HttpExchange intercambio, String metodo, int idTarea) throws IOException {
+        if ("POST".equals(metodo)) {
+            JsonObject cuerpo = leerCuerpo(intercambio);
+            String nombre = texto(cuerpo, "nombre");
+            if (nombre == null || nombre.isBlank()) {
+                throw new ErrorApi(400, "El título no puede estar vacío");
+            }
+            int idSubtarea = gestorRegistro.agregarSubtarea(idTarea, nombre.trim(), texto(cuerpo, "descripcion"), texto(cuerpo, "fechaEntrega"));
+            if (idSubtarea == -1) {
+                throw new ErrorApi(500, "Error al guardar la subtarea");
+            }
+            return Map.of("idTarea", idSubtarea);
+        }
+        exigirMetodo(metodo, "GET");
+        List<Tarea> subtareas = gestorRegistro.buscarSubtareas(idTarea, CampoTarea.TABLERO);
+        gestorRegistro.completarProgreso(subtareas);
+        List<Map<String, Object>> lista = new ArrayList<>(subtareas.size());
+        for (Tarea subtarea : subtareas) {
+            lista.add(aJson(subtarea));
+        }
+        return Map.of("tareas", lista);
+    }
+
+    private Object listarTareas(Map<String, String> parametros, int idUsuario) {
+        List<Tarea> tareas;
+        if (parametros.containsKey("desde") && parametros.containsKey("hasta")) {
+            tareas = gestorRegistro.buscarTareasEntreFechas(idUsuario, parametros.get("desde"), parametros.get("hasta"), CampoTarea.TABLERO);
+        } else {
+            int limite = Math.min(LIMITE_PAGINA, Integer.parseInt(parametros.getOrDefault("limite", "50")));
+            int id = Integer.parseInt(parametros.getOrDefault("id", "0"));
+            tareas = gestorRegistro.buscarTareasDespuesDe(idUsuario, parametros.getOrDefault("fecha", ""), id, limite, CampoTarea.TABLERO);
+            gestorRegistro.completarProgreso(tareas);
+        }
+        List<Map<String, Object>> lista = new ArrayList<>(tareas.size());
+        for (Tarea tarea : tareas) {
+            lista.add(aJson(tarea));
+        }
+        return Map.of("tareas", lista);
+    }
+
+    private Object atenderSeries(HttpExchange intercambio, String metodo, String[] partes, int idUsuario) throws IOException {
+        if (partes.length == 3) {
+            exigirMetodo(metodo, "POST");
+            JsonObject cuerpo = leerCuerpo(intercambio);
+            String nombre = texto(cuerpo, "nombre");
+            if (nombre == null || nombre.isBlank()) {
+                throw new ErrorApi(400, "El título no puede estar vacío");
+            }
+            int idSerie;
+            try {
+                idSerie = gestorRegistro.agregarSerie(idUsuario, nombre.trim(), texto(cuerpo, "descripcion"), texto(cuerpo, "inicio"),
+                        ReglaRecurrencia.parsear(texto(cuerpo, "regla")));
+            } catch (IllegalArgumentException e) {
+                throw new ErrorApi(400, e.getMessage());
+            }
+            if (idSerie == -1) {
+                throw new ErrorApi(500, "Error al guardar la serie");
+            }
+            return Map.of("idSerie", idSerie);
+        }
+
+        int idSerie = Integer.parseInt(partes[3]);
+        SerieTareas serie = gestorRegistro.obtenerSerie(idSerie);
+        if (serie == null || serie.getIdUsuario() != idUsuario) {
+            throw new ErrorApi(404, "Serie no encontrada");
+        }
+        if (partes.length == 5 && "excepciones".equals(partes[4])) {
+            exigirMetodo(metodo, "PUT");
+            JsonObject cuerpo = leerCuerpo(intercambio);
+            String ocurrencia = texto(cuerpo, "ocurrencia");
+            if (ocurrencia == null) {
+                throw new ErrorApi(400, "Falta la ocurrencia");
+            }
+            ExcepcionOcurrencia excepcion = new ExcepcionOcurrencia(ocurrencia, booleano(cuerpo, "cancelada"),
+                    texto(cuerpo, "fechaEntrega"), booleano(cuerpo, "completada"));
+            gestorRegistro.getTareas().guardarExcepcion(idSerie, excepcion);
+            serie.ponerExcepcion(excepcion);
+            return aJson(serie);
+        }
+        if ("DELETE".equals(metodo)) {
+            gestorRegistro.eliminarSerie(idSerie);
+            return Map.of("eliminada", idSerie);
+        }
+        exigirMetodo(metodo, "GET");
+        return aJson(serie);
+    }
+
+    // Los eventos no esperan a la base: se encolan y se guardan de a lotes (ver RegistroSesiones)
+    private Object atenderEstudio(HttpExchange intercambio, String metodo, int idUsuario) throws IOException {
+        if ("POST".equals(metodo)) {
+            JsonObject cuerpo = leerCuerpo(intercambio);
+            String evento = texto(cuerpo, "evento");
+            int idTarea = cuerpo.has("idTarea") ? cuerpo.get("idTarea").getAsInt() : -1;
+            switch (evento == null ? "" : evento) {
+                case "iniciar":
+                    // Los cronómetros son por (usuario, tarea), así que solo hace falta ver de quién
+                    // es la tarea al iniciarlo; pausar o detener uno ajeno no encuentra nada
+                    Tarea tarea = gestorRegistro.obtenerTareaPorId(idTarea);
+                    if (tarea == null || tarea.getIdUsuario() != idUsuario) {
+                        throw new ErrorApi(404, "Tarea no encontrada");
+                    }
+                    gestorRegistro.iniciarSesion(idUsuario, idTarea);
+                    break;
+                case "pausar":
+                    gestorRegistro.pausarSesion(idUsuario, idTarea);
+                    break;
+                case "reanudar":
+                    gestorRegistro.reanudarSesion(idUsuario, idTarea);
+                    break;
+                case "detener":
+                    gestorRegistro.detenerSesion(idUsuario, idTarea);
+                    break;
+                default:
+                    throw new ErrorApi(400, "Evento desconocido: " + evento);
+            }
+            return Map.of("evento", evento, "idTarea", idTarea);
+        }
+        exigirMetodo(metodo, "GET");
+        Map<String, String> parametros = consulta(intercambio);
+        String desde = parametros.getOrDefault("desde", "0000-01-01");
+        String hasta = parametros.getOrDefault("hasta", "9999-12-31");
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("porDia", gestorRegistro.tiempoPorDia(idUsuario, desde, hasta));
+        Map<String, Long> porTarea = new LinkedHashMap<>();
+        gestorRegistro.tiempoPorTarea(idUsuario, desde, hasta).forEach((idTarea, duracion) -> porTarea.put(String.valueOf(idTarea), duracion));
+        json.put("porTarea", porTarea);
+        List<Map<String, Object>> enCurso = new ArrayList<>();
+        long ahora = System.currentTimeMillis();
+        for (SesionEnCurso sesion : gestorRegistro.sesionesEnCurso(idUsuario)) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("idTarea", sesion.getIdTarea());
+            s.put("iniciada", sesion.getIniciada());
+            s.put("transcurridoMs", sesion.transcurrido(ahora));
+            s.put("enPausa", sesion.isEnPausa());
+            enCurso.add(s);
+        }
+        json.put("enCurso", enCurso);
+        return json;
+    }
+
+    private Object atenderPomodoro(HttpExchange intercambio, String metodo, int idUsuario) throws IOException {
+        if ("POST".equals(metodo)) {
+            JsonObject cuerpo = leerCuerpo(intercambio);
+            String accion = texto(cuerpo, "accion");
+            int idTarea = cuerpo.has("idTarea") ? cuerpo.get("idTarea").getAsInt() : -1;
+            MotorPomodoro.Pomodoro pomodoro;
+            if ("iniciar".equals(accion)) {
+                Tarea tarea = gestorRegistro.obtenerTareaPorId(idTarea);
+                if (tarea == null || tarea.getIdUsuario() != idUsuario) {
+                    throw new ErrorApi(404, "Tarea no encontrada");
+                }
+                pomodoro = gestorRegistro.iniciarPomodoro(idUsuario, idTarea, null);
+            } else {
+                pomodoro = gestorRegistro.obtenerPomodoro(idUsuario, idTarea);
+                if (pomodoro == null) {
+                    throw new ErrorApi(404, "La tarea no tiene un pomodoro en curso");
+                }
+                switch (accion == null ? "" : accion) {
+                    case "pausar":
+                        pomodoro.pausar();
+                        break;
+                    case "reanudar":
+                        pomodoro.reanudar();
+                        break;
+                    case "detener":
+                        pomodoro.detener();
+                        break;
+                    default:
+                        throw new ErrorApi(400, "Acción desconocida: " + accion);
+                }
+            }
+            return aJson(pomodoro);
+        }
+        exigirMetodo(metodo, "GET");
+        List<Map<String, Object>> pomodoros = new ArrayList<>();
+        for (MotorPomodoro.Pomodoro pomodoro : gestorRegistro.pomodorosDelUsuario(idUsuario)) {
+            pomodoros.add(aJson(pomodoro));
+        }
+        return pomodoros;
+    }
+
+    private Object atenderTarjetas(HttpExchange intercambio, String metodo, String[] partes, int idUsuario) throws IOException {
+        if (partes.length == 4) {
+            exigirMetodo(metodo, "DELETE");
+            if (!gestorRegistro.eliminarTarjeta(idUsuario, Integer.parseInt(partes[3]))) {
+                throw new ErrorApi(404, "Tarjeta no encontrada");
+            }
+            return Map.of("eliminada", true);
+        }
+        if ("POST".equals(metodo)) {
+            JsonObject cuerpo = leerCuerpo(intercambio);
+            String frente = texto(cuerpo, "frente");
+            if (frente == null || frente.isBlank()) {
+                throw new ErrorApi(400, "La tarjeta necesita un frente");
+            }
+            int idTarea = cuerpo.has("idTarea") ? cuerpo.get("idTarea").getAsInt() : -1;
+            int idTarjeta = gestorRegistro.agregarTarjeta(idUsuario, idTarea, frente.trim(), texto(cuerpo, "reverso"));
+            if (idTarjeta == -1) {
+                throw new ErrorApi(404, "Tarea no encontrada");
+            }
+            return Map.of("idTarjeta", idTarjeta);
+        }
+        exigirMetodo(metodo, "GET");
+        String idTarea = consulta(intercambio).get("idTarea");
+        if (idTarea == null) {
+            throw new ErrorApi(400, "Falta idTarea");
+        }
+        List<Map<String, Object>> tarjetas = new ArrayList<>();
+        for (Tarjeta tarjeta : gestorRegistro.tarjetasDeTarea(idUsuario, Integer.parseInt(idTarea))) {
+            tarjetas.add(aJson(tarjeta));
+        }
+        return tarjetas;
+    }
+
+    private Object atenderRepasos(HttpExchange intercambio, String metodo, int idUsuario) throws IOException {
+        if ("POST".equals(metodo)) {
+            JsonObject cuerpo = leerCuerpo(intercambio);
+            if (!cuerpo.has("idTarjeta") || !cuerpo.has("calidad")) {
+                throw new ErrorApi(400, "Faltan idTarjeta o calidad");
+            }
+            Tarjeta tarjeta;
+            try {
+                tarjeta = gestorRegistro.calificarRepaso(idUsuario, cuerpo.get("idTarjeta").getAsInt(), cuerpo.get("calidad").getAsInt());
+            } catch (IllegalArgumentException e) {
+                throw new ErrorApi(400, e.getMessage());
+            }
+            if (tarjeta == null) {
+                throw new ErrorApi(404, "Tarjeta no encontrada");
+            }
+            return aJson(tarjeta);
+        }
+        exigirMetodo(metodo, "GET");
+        int limite = Math.min(LIMITE_PAGINA, Integer.parseInt(consulta(intercambio).getOrDefault("limite", "50")));
+        List<Map<String, Object>> pendientes = new ArrayList<>();
+        for (Tarjeta tarjeta : gestorRegistro.repasosPendientes(idUsuario, limite)) {
+            pendientes.add(aJson(tarjeta));
+        }
+        return pendientes;
+    }
+
+    private Object recomendar(Map<String, String> parametros, int idUsuario) {
+        int k = Math.min(LIMITE_PAGINA, Integer.parseInt(parametros.getOrDefault("k", "5")));
+        List<Map<String, Object>> lista = new ArrayList<>();
+        for (Tarea tarea : gestorRegistro.recomendarTareas(idUsuario, k)) {
+            lista.add(aJson(tarea));
+        }
+        return Map.of("tareas", lista);
+    }
+
+    private static Map<String, Object> aJson(Tarjeta tarjeta) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("idTarjeta", tarjeta.getIdTarjeta());
+        json.put("idTarea", tarjeta.getIdTarea());
+        json.put("frente", tarjeta.getFrente());
+        json.put("reverso", tarjeta.getReverso());
+        json.put("repeticiones", tarjeta.getRepeticiones());
+        json.put("intervalo", tarjeta.getIntervalo());
+        json.put("facilidad", tarjeta.getFacilidad());
+        json.put("proximoRepaso", tarjeta.getProximoRepaso());
+        return json;
+    }
+
+    private static Map<String, Object> aJson(MotorPomodoro.Pomodoro pomodoro) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("idTarea", pomodoro.getIdTarea());
+        json.put("fase", pomodoro.getFase().name().toLowerCase());
+        json.put("restanteMs", pomodoro.restanteMs());
+        json.put("completados", pomodoro.getCompletados());
+        json.put("enPausa", pomodoro.isEnPausa());
+        json.put("detenido", pomodoro.isDetenido());
+        return json;
+    }
+
+    private static Map<String, Object> aJson(SerieTareas serie) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("idSerie", serie.getIdSerie());
+        json.put("nombre", serie.getNombre());
+        json.put("descripcion", serie.getDescripcion());
+        json.put("inicio", serie.getInicio());
+        json.put("regla", serie.getRegla().toString());
+        json.put("fin", serie.getFin());
+        List<Map<String, Object>> excepciones = new ArrayList<>();
+        for (ExcepcionOcurrencia excepcion : serie.getExcepciones()) {
+            Map<String, Object> e = new LinkedHashMap<>();
+            e.put("ocurrencia", excepcion.getOcurrencia());
+            e.put("cancelada", excepcion.isCancelada());
+            e.put("fechaEntrega", excepcion.getFechaEntrega());
+            e.put("completada", excepcion.isCompletada());
+            excepciones.add(e);
+        }
+        json.put("excepciones", excepciones);
+        return json;
+    }
+
+    private static Map<String, Object> aJson(Tarea tarea) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("idTarea", tarea.getIdTarea());
+        json.put("nombre", tarea.getNombre());
+        json.put("descripcion", tarea.getDescripcion());
+        json.put("descripcionCompleta", tarea.isDescripcionCompleta());
+        json.put("completada", tarea.isCompletada());
+        json.put("fechaEntrega", tarea.getFechaEntrega());
+        json.put("idTareaPadre", tarea.getIdTareaPadre() > 0 ? tarea.getIdTareaPadre() : null);
+        if (tarea.esOcurrencia()) {
+            json.put("idSerie", tarea.getIdSerie());
+            json.put("ocurrencia", tarea.getOcurrencia());
+        }
+        if (tarea.getProgreso().getTotal() > 0) {
+            json.put("subtareas", tarea.getProgreso().getTotal());
+            json.put("subtareasCompletadas", tarea.getProgreso().getCompletadas());
+        }
+        return json;
+    }
+
+    private static Map<String, Object> aJson(ActividadAnual actividad) {
+        int[] completadas = new int[actividad.getDias()];
+        int[] minutos = new int[actividad.getDias()];
+        for (int i = 0; i < completadas.length; i++) {
+            completadas[i] = actividad.getCompletadas(i);
+            minutos[i] = actividad.getMinutos(i);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("desde", actividad.getDesde().toString());
+        json.put("completadas", completadas);
+        json.put("minutos", minutos);
+        json.put("rachaActual", actividad.getRachaActual());
+        json.put("rachaMaxima", actividad.getRachaMaxima());
+        return json;
+    }
+
+    private static Map<String, Object> aJson(EstadisticasEstudio estadisticas) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("total", estadisticas.getTotal());
+        json.put("completadas", estadisticas.getCompletadas());
+        json.put("tasaCompletado", estadisticas.getTasaCompletado());
+        json.put("pendientesSemana", estadisticas.getPendientesSemana());
+        json.put("vencidas", estadisticas.getVencidas());
+        json.put("promedioEntregaMs", estadisticas.getPromedioEntregaMs());
+        return json;
+    }
+
+    private int usuarioAutenticado(HttpExchange intercambio) {
+        Integer idUsuario = sesiones.get(token(intercambio));
+        if (idUsuario == null) {
+            throw new ErrorApi(401, "Sesión inválida");
+        }
+        return idUsuario;
+    }
+
+    private static String token(HttpExchange intercambio) {
+        String autorizacion = intercambio.getRequestHeaders().getFirst("Authorization");
+        return autorizacion != null && autorizacion.startsWith("Bearer ") ? autorizacion.substring(7).trim() : "";
+    }
+
+    private static void exigirMetodo(String metodo, String esperado) {
+        if (!esperado.equals(metodo)) {
+            throw new ErrorApi(405, "Método no permitido");
+        }
+    }
+
+    private static JsonObject leerCuerpo(HttpExchange intercambio) throws IOException {
+        try (InputStreamReader lector = new InputStreamReader(intercambio.getRequestBody(), StandardCharsets.UTF_8)) {
+            JsonElement json = JsonParser.parseReader(lector);
+            return json.isJsonObject() ? json.getAsJsonObject() : new JsonObject();
+        }
+    }
+
+    private static String texto(JsonObject cuerpo, String campo) {
+        JsonElement valor = cuerpo.get(campo);
+        return valor == null || valor.isJsonNull() ? null : valor.getAsString();
+    }
+
+    private static boolean booleano(JsonObject cuerpo, String campo) {
+        JsonElement valor = cuerpo.get(campo);
+        return valor != null && !valor.isJsonNull() && valor.getAsBoolean();
+    }
+
+    private static Map<String, String> consulta(HttpExchange intercambio) {
+        Map<String, String> parametros = new HashMap<>();
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        if (consulta == null) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0) {
+                parametros.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                        URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parametros;
+    }
+
+    private void responder(HttpExchange intercambio, int codigo, Object cuerpo) throws IOException {
+        byte[] bytes = gson.toJson(cuerpo).getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    // Un solo repositorio para todos; crearRepositorio ya lo entrega seguro entre hilos
+    public static GestorRegistro crearGestor(String almacenamiento) {
+        TaskRepository repositorio = GestorRegistro.crearRepositorio(almacenamiento);
+        return new GestorRegistro(repositorio, (UserRepository) repositorio);
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int puerto = Integer.getInteger("servidor.puerto", 8080);
+        ServidorApi servidor = new ServidorApi(puerto, crearGestor(System.getProperty("almacenamiento", "sqlite")));
+        Runtime.getRuntime().addShutdownHook(new Thread(servidor::detener, "cierre-servidor"));
+        servidor.iniciar();
+    }
+}
@@ -0,0 +1,11 @@
+package com.utils;
+
+import java.util.Locale;
+
+// Idioma de los nombres de días y meses que muestra la interfaz
+public final class Idioma {
+    public static final Locale ESPANOL = Locale.forLanguageTag("es");
+
+    private Idioma() {
+    }
+}
@@ -0,0 +1,56 @@
+package com.utils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Línea de tiempo del arranque: cada fase marca cuándo terminó y al final se imprime cuántos ms
+// llevó cada una. Se activa con -Darranque.reporte=true; apagada, marcar() no hace nada.
+public final class LineaTiempoArranque {
+    public static final long OBJETIVO_MS = 300;
+
+    private static final boolean habilitada = Boolean.getBoolean("arranque.reporte");
+    private static final long inicio = System.nanoTime();
+    private static final List<String> fases = new ArrayList<>();
+    private static final List<Long> tiempos = new ArrayList<>();
+
+    private LineaTiempoArranque() {
+    }
+
+    public static synchronized void marcar(String fase) {
+        if (habilitada) {
+            fases.add(fase + " [" + Thread.currentThread().getName() + "]");
+            tiempos.add(System.nanoTime());
+        }
+    }
+
+    public static synchronized void reportar() {
+        if (!habilitada) {
+            return;
+        }
+        // Lo que tardó la JVM antes de llegar a main; se calcula al final para no pagarlo al arrancar
+        long jvmMs = -1;
+        Instant arranqueProceso = ProcessHandle.current().info().startInstant().orElse(null);
+        if (arranqueProceso != null) {
+            long transcurridoMs = (System.nanoTime() - inicio) / 1_000_000;
+            jvmMs = Duration.between(arranqueProceso, Instant.now()).toMillis() - transcurridoMs;
+        }
+        System.out.println("---- Arranque ----");
+        if (jvmMs >= 0) {
+            System.out.printf("%-44s %6d ms%n", "JVM hasta main", jvmMs);
+        }
+        long anterior = inicio;
+        for (int i = 0; i < fases.size(); i++) {
+            long desdeInicio = (tiempos.get(i) - inicio) / 1_000_000;
+            long fase = (tiempos.get(i) - anterior) / 1_000_000;
+            System.out.printf("%-44s %6d ms  (+%d)%n", fases.get(i), desdeInicio, fase);
+            anterior = tiempos.get(i);
+        }
+        if (!tiempos.isEmpty()) {
+            long totalMs = (tiempos.get(tiempos.size() - 1) - inicio) / 1_000_000 + Math.max(0, jvmMs);
+            System.out.println("Total desde el proceso: " + totalMs + " ms (objetivo " + OBJETIVO_MS + " ms)"
+                    + (totalMs <= OBJETIVO_MS ? "" : " -- EXCEDIDO"));
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.windowP;
 
+import com.components.ActividadDialog;
+import com.components.CalendarioDialog;
+import com.components.PanelProximasEntregas;
+import com.components.PanelRecomendaciones;
 import com.components.PanelRedondeado;
 import com.components.SimpleSlideAnimation;
+import com.components.TableroKanban;
 import com.components.PanelTarea;
 import com.components.PanelTareaFactory;
+import com.components.TableroPaginado;
 import com.database.GestorRegistro;
+import com.implementation.EstadisticasEstudio;
 import com.implementation.ListaTareas;
 import com.implementation.NodoTareas;
 import com.implementation.Tarea;
@@ -12,15 +19,24 @@ import com.components.WrapLayout;
 import com.components.Toast;
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.List;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 public class PrincipalWindow extends JFrame {
     private int idUsuario;
     private GestorRegistro gestorRegistro;
     private JPanel ParentPanel;
     private JLabel jLabel1;
+    private JLabel estadisticasLabel;
+    private PanelRedondeado completarBtn;
+    private PanelProximasEntregas proximasEntregas;
+    private PanelRecomendaciones recomendaciones;
+    // Junta varios cambios seguidos de casillas en una sola lectura de estadísticas
+    private Timer estadisticasDiferidas;
     private PanelRedondeado panelRedondeado1;
     private PanelRedondeado panelRedondeado2;
     private PanelRedondeado buscarBtn;
@@ -32,18 +48,31 @@ public class PrincipalWindow extends JFrame {
     private JLabel DeshacerBtnt;
     private JLabel BuscarLabel;
     private ListaTareas listaTareas;
+    private JScrollPane scrollTareas;
+    private TableroPaginado tablero;
+    // Ocupa el lugar del tablero cuando se elige la vista Kanban
+    private TableroKanban kanban;
 
     public PrincipalWindow(int idUsuario, GestorRegistro gestorRegistro) {
         this.idUsuario = idUsuario;
         this.gestorRegistro = gestorRegistro;
         this.listaTareas = new ListaTareas();
         initComponents();
-        cargarTareas();
+        tablero = new TableroPaginado(ParentPanel, scrollTareas, gestorRegistro, listaTareas, idUsuario);
+        // Se pinta desde la caché local y se compara con la base en segundo plano
+        tablero.cargarInicial();
+        actualizarEstadisticas();
         setLocationRelativeTo(null);
     }
 
     private void initComponents() {
         setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent evt) {
+                salir();
+            }
+        });
         setUndecorated(true);
         setResizable(false);
 
@@ -56,11 +85,21 @@ public class PrincipalWindow extends JFrame {
         //ParentPanel.setLayout(new BoxLayout(ParentPanel, BoxLayout.Y_AXIS));
         //ParentPanel.setLayout(new FlowLayout(FlowLayout.LEFT, 10, 10)); 
         ParentPanel.setLayout(new WrapLayout(FlowLayout.LEFT, 10, 10));
-        JScrollPane scrollPane = new JScrollPane(ParentPanel);
-        scrollPane.setBorder(null);
-        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        jPanel1.add(scrollPane, new org.netbeans.lib.awtextra.AbsoluteConstraints(40, 100, 720, 360));
+        scrollTareas = new JScrollPane(ParentPanel);
+        scrollTareas.setBorder(null);
+        scrollTareas.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollTareas.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        jPanel1.add(scrollTareas, new org.netbeans.lib.awtextra.AbsoluteConstraints(40, 148, 720, 312));
+
+        kanban = new TableroKanban(this, gestorRegistro, idUsuario);
+        kanban.setVisible(false);
+        jPanel1.add(kanban, new org.netbeans.lib.awtextra.AbsoluteConstraints(40, 148, 720, 312));
+
+        proximasEntregas = new PanelProximasEntregas(this, gestorRegistro, idUsuario);
+        jPanel1.add(proximasEntregas, new org.netbeans.lib.awtextra.AbsoluteConstraints(40, 94, 720, 26));
+
+        recomendaciones = new PanelRecomendaciones(this, gestorRegistro, idUsuario);
+        jPanel1.add(recomendaciones, new org.netbeans.lib.awtextra.AbsoluteConstraints(40, 120, 720, 26));
 
         jLabel1 = new JLabel();
         jLabel1.setFont(new Font("Roboto SemiBold", Font.BOLD, 24));
@@ -69,6 +108,107 @@ public class PrincipalWindow extends JFrame {
         jLabel1.setText("Bienvenido, " + gestorRegistro.obtenerNombreUsuario(idUsuario));
         jPanel1.add(jLabel1, new org.netbeans.lib.awtextra.AbsoluteConstraints(0, 20, 800, 40));
 
+        estadisticasLabel = new JLabel(" ");
+        estadisticasLabel.setFont(new Font("Roboto Medium", Font.PLAIN, 13));
+        estadisticasLabel.setForeground(new Color(102, 102, 102));
+        estadisticasLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        estadisticasLabel.setToolTipText("Clic para ver tu actividad y tus rachas");
+        estadisticasLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        estadisticasLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                new ActividadDialog(PrincipalWindow.this, gestorRegistro, idUsuario).setVisible(true);
+            }
+        });
+        jPanel1.add(estadisticasLabel, new org.netbeans.lib.awtextra.AbsoluteConstraints(40, 62, 320, 30));
+
+        PanelRedondeado kanbanBtn = new PanelRedondeado();
+        kanbanBtn.setBackground(new Color(0, 153, 153));
+        kanbanBtn.setLayout(new BorderLayout());
+        JLabel kanbanLabel = new JLabel("Kanban");
+        kanbanLabel.setFont(new Font("Roboto Medium", Font.BOLD, 13));
+        kanbanLabel.setForeground(Color.WHITE);
+        kanbanLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        kanbanLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        kanbanLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                boolean mostrarKanban = !kanban.isVisible();
+                kanban.setVisible(mostrarKanban);
+                scrollTareas.setVisible(!mostrarKanban);
+                kanbanLabel.setText(mostrarKanban ? "Tablero" : "Kanban");
+                // La vista que vuelve a aparecer puede haber quedado vieja
+                if (mostrarKanban) {
+                    kanban.recargar();
+                } else {
+                    cargarTareas();
+                }
+            }
+            @Override
+            public void mouseEntered(MouseEvent evt) {
+                kanbanBtn.setBackground(new Color(0, 102, 102));
+            }
+            @Override
+            public void mouseExited(MouseEvent evt) {
+                kanbanBtn.setBackground(new Color(0, 153, 153));
+            }
+        });
+        kanbanBtn.add(kanbanLabel, BorderLayout.CENTER);
+        jPanel1.add(kanbanBtn, new org.netbeans.lib.awtextra.AbsoluteConstraints(370, 64, 90, 26));
+
+        PanelRedondeado calendarioBtn = new PanelRedondeado();
+        calendarioBtn.setBackground(new Color(0, 153, 153));
+        calendarioBtn.setLayout(new BorderLayout());
+        JLabel calendarioLabel = new JLabel("Calendario");
+        calendarioLabel.setFont(new Font("Roboto Medium", Font.BOLD, 13));
+        calendarioLabel.setForeground(Color.WHITE);
+        calendarioLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        calendarioLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        calendarioLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                new CalendarioDialog(PrincipalWindow.this, gestorRegistro, idUsuario).setVisible(true);
+                // Desde el calendario se pueden editar o completar tareas
+                actualizarTareas();
+            }
+            @Override
+            public void mouseEntered(MouseEvent evt) {
+                calendarioBtn.setBackground(new Color(0, 102, 102));
+            }
+            @Override
+            public void mouseExited(MouseEvent evt) {
+                calendarioBtn.setBackground(new Color(0, 153, 153));
+            }
+        });
+        calendarioBtn.add(calendarioLabel, BorderLayout.CENTER);
+        jPanel1.add(calendarioBtn, new org.netbeans.lib.awtextra.AbsoluteConstraints(470, 64, 100, 26));
+
+        completarBtn = new PanelRedondeado();
+        completarBtn.setBackground(new Color(0, 153, 153));
+        completarBtn.setLayout(new BorderLayout());
+        JLabel completarLabel = new JLabel("Completar seleccionadas");
+        completarLabel.setFont(new Font("Roboto Medium", Font.BOLD, 13));
+        completarLabel.setForeground(Color.WHITE);
+        completarLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        completarLabel.setToolTipText("Ctrl+clic sobre las tarjetas para seleccionarlas");
+        completarLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        completarLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                completarSeleccionadas();
+            }
+            @Override
+            public void mouseEntered(MouseEvent evt) {
+                completarBtn.setBackground(new Color(0, 102, 102));
+            }
+            @Override
+            public void mouseExited(MouseEvent evt) {
+                completarBtn.setBackground(new Color(0, 153, 153));
+            }
+        });
+        completarBtn.add(completarLabel, BorderLayout.CENTER);
+        jPanel1.add(completarBtn, new org.netbeans.lib.awtextra.AbsoluteConstraints(580, 64, 180, 26));
+
         panelRedondeado1 = new PanelRedondeado();
         panelRedondeado1.setBackground(new Color(0, 153, 153));
         CrearTareaBtnt = new JLabel();
@@ -82,6 +222,8 @@ public class PrincipalWindow extends JFrame {
             public void mouseClicked(MouseEvent evt) {
                 PanelTarea panel = PanelTareaFactory.agregarTarea(ParentPanel, listaTareas, null, gestorRegistro);
                 if (panel != null) {
+                    // Recargar para que la nueva tarea quede en su lugar dentro de la página
+                    actualizarTareas();
                     JOptionPane.showMessageDialog(PrincipalWindow.this, "Tarea creada exitosamente.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
                 }
             }
@@ -222,7 +364,7 @@ public class PrincipalWindow extends JFrame {
         ExitBtnt.setCursor(new Cursor(Cursor.HAND_CURSOR));
         ExitBtnt.addMouseListener(new MouseAdapter() {
             public void mouseClicked(MouseEvent evt) {
-                System.exit(0);
+                salir();
             }
             public void mouseEntered(MouseEvent evt) {
                 ExitBtnt.setForeground(Color.BLACK);
@@ -277,14 +419,8 @@ public class PrincipalWindow extends JFrame {
     }
 
     private void cargarTareas() {
-        ParentPanel.removeAll();
-        List<Tarea> tareas = gestorRegistro.buscarTareasPorUsuario(idUsuario);
-        for (Tarea tarea : tareas) {
-            NodoTareas nodo = listaTareas.agregarTarea(tarea.getIdTarea(), idUsuario, tarea.getNombre(), tarea.getDescripcion());
-            PanelTareaFactory.agregarTarea(ParentPanel, listaTareas, nodo, gestorRegistro);
-        }
-        ParentPanel.revalidate();
-        ParentPanel.repaint();
+        // Las tareas se cargan por páginas a medida que se hace scroll
+        tablero.recargar();
     }
 
     private void agregarPanelTarea(Tarea tarea) {
@@ -298,8 +434,95 @@ public class PrincipalWindow extends JFrame {
         }
     }
 
+    private void salir() {
+        tablero.guardarCache(true);
+        gestorRegistro.cerrarConexion();
+        System.exit(0);
+    }
+
     public void actualizarTareas() {
         cargarTareas();
+        if (kanban.isVisible()) {
+            kanban.recargar();
+        }
+        actualizarEstadisticas();
+    }
+
+    // Marca como completadas todas las tarjetas elegidas con Ctrl+clic. Todas cambian en el mismo
+    // evento y se repintan juntas; en la base van en una sola transacción.
+    private void completarSeleccionadas() {
+        List<Integer> ids = new ArrayList<>();
+        int seleccionadas = 0;
+        for (Component componente : ParentPanel.getComponents()) {
+            if (!(componente instanceof PanelTarea) || !((PanelTarea) componente).isSeleccionada()) {
+                continue;
+            }
+            PanelTarea panel = (PanelTarea) componente;
+            seleccionadas++;
+            panel.setSeleccionada(false);
+            if (!panel.getTarea().isCompletada()) {
+                panel.getTarea().setCompletada(true);
+                panel.mostrarCompletada();
+                panel.avisarCompletada(true);
+                ids.add(panel.getTarea().getIdTarea());
+            }
+        }
+        if (seleccionadas == 0) {
+            Toast.mostrar(this, "Usa Ctrl+clic para seleccionar tareas");
+            return;
+        }
+        ParentPanel.repaint();
+        gestorRegistro.actualizarCompletadas(ids, true);
+        actualizarEstadisticas();
+        Toast.mostrar(this, ids.size() == 1 ? "1 tarea completada" : ids.size() + " tareas completadas");
+    }
+
+    // Se creó o cambió una serie: no está en el tablero, solo en las próximas entregas
+    public void recargarProximasEntregas() {
+        proximasEntregas.recargar();
+    }
+
+    // Una casilla cambió: las estadísticas se refrescan cuando el usuario deja de tocar casillas
+    public void estadisticasCambiaron() {
+        if (estadisticasDiferidas == null) {
+            estadisticasDiferidas = new Timer(1500, e -> actualizarEstadisticas());
+            estadisticasDiferidas.setRepeats(false);
+        }
+        estadisticasDiferidas.restart();
+    }
+
+    // Los contadores se leen fuera del EDT; el almacenamiento puede estar terminando de abrir
+    private void actualizarEstadisticas() {
+        proximasEntregas.recargar();
+        recomendaciones.recargar();
+        new SwingWorker<EstadisticasEstudio, Void>() {
+            @Override
+            protected EstadisticasEstudio doInBackground() {
+                return gestorRegistro.obtenerEstadisticas(idUsuario);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    estadisticasLabel.setText(textoEstadisticas(get()));
+                } catch (Exception e) {
+                    System.err.println("Error al cargar estadísticas: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private static String textoEstadisticas(EstadisticasEstudio e) {
+        String texto = "Esta semana: " + e.getPendientesSemana() + " pendientes   ·   Completadas: "
+                + Math.round(e.getTasaCompletado() * 100) + "%   ·   Vencidas: " + e.getVencidas();
+        long promedio = e.getPromedioEntregaMs();
+        if (promedio >= 0) {
+            long minutos = promedio / 60_000;
+            texto += "   ·   Entrega promedio: " + (minutos < 60 ? minutos + " min"
+                    : minutos < 24 * 60 ? (minutos / 60) + " h"
+                    : String.format("%.1f días", minutos / (24 * 60.0)));
+        }
+        return texto;
     }
 
     public int getIdUsuario() {